@@ -0,0 +1,17 @@
+package org.codehaus.gmavenplus
+
+import groovy.transform.Canonical
+import groovy.transform.CompileStatic
+
+
+@Canonical
+@CompileStatic
+class Circle implements Shape {
+
+    double radius
+
+    double area() {
+        return Math.PI * radius * radius
+    }
+
+}
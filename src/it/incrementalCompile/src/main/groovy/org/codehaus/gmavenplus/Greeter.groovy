@@ -0,0 +1,12 @@
+package org.codehaus.gmavenplus
+
+
+trait Greeter {
+
+    abstract String getName()
+
+    String greet() {
+        return "Hello, ${name}."
+    }
+
+}
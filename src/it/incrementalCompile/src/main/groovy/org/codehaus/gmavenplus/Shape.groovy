@@ -0,0 +1,8 @@
+package org.codehaus.gmavenplus
+
+
+interface Shape {
+
+    double area()
+
+}
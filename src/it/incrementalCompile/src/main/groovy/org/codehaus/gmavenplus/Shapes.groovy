@@ -0,0 +1,14 @@
+package org.codehaus.gmavenplus
+
+
+class Shapes {
+
+    static double totalArea(List<Shape> shapes) {
+        return shapes.sum { it.area() } as double
+    }
+
+    static List<Shape> unitShapes() {
+        return [new Circle(1), new Square(1)]
+    }
+
+}
@@ -0,0 +1,8 @@
+package org.codehaus.gmavenplus
+
+
+class Person implements Greeter {
+
+    String name
+
+}
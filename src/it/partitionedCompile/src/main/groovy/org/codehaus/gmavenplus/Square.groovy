@@ -0,0 +1,15 @@
+package org.codehaus.gmavenplus
+
+import groovy.transform.Canonical
+
+
+@Canonical
+class Square implements Shape {
+
+    double side
+
+    double area() {
+        return side * side
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.codehaus.gmavenplus;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+
+public class TheTest {
+
+    @Test
+    public void testShapes() {
+        Assert.assertEquals(Math.PI + 1, Shapes.totalArea(Shapes.unitShapes()), 0.0001);
+    }
+
+    @Test
+    public void testGreeter() {
+        Person person = new Person();
+        person.setName("world");
+        Assert.assertEquals("Hello, world.", person.greet());
+    }
+
+}
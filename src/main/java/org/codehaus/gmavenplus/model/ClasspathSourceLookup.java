@@ -0,0 +1,12 @@
+package org.codehaus.gmavenplus.model;
+
+/**
+ * How Groovy may look for the sources of classes it can't resolve on the classpath.
+ *
+ * @since 5.1.0
+ */
+public enum ClasspathSourceLookup {
+    ENABLED,
+    CACHED,
+    DISABLED
+}
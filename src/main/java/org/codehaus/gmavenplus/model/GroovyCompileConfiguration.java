@@ -30,6 +30,20 @@ public class GroovyCompileConfiguration implements Serializable {
     private boolean previewFeatures;
     private String sourceEncoding;
     private String targetBytecode;
+    private File stateDirectory;
+    private boolean incremental;
+    private boolean parallelCompilation;
+    private boolean profile;
+    private File profileReport;
+    private int hotspots;
+    private File hotspotReport;
+    private boolean abiCompileAvoidance;
+    private File abiCacheDirectory;
+    private File outputJar;
+    private boolean deterministic;
+    private int batchHeapBudget;
+    private ClasspathSourceLookup classpathSourceLookup = ClasspathSourceLookup.ENABLED;
+    private File configScriptCacheDirectory;
 
     public GroovyCompileConfiguration(Set<File> sources, List<?> classpath, File compileOutputDirectory) {
         this.sources = sources;
@@ -152,4 +166,116 @@ public class GroovyCompileConfiguration implements Serializable {
     public void setTargetBytecode(String targetBytecode) {
         this.targetBytecode = targetBytecode;
     }
+
+    public File getStateDirectory() {
+        return stateDirectory;
+    }
+
+    public void setStateDirectory(File stateDirectory) {
+        this.stateDirectory = stateDirectory;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public boolean isParallelCompilation() {
+        return parallelCompilation;
+    }
+
+    public void setParallelCompilation(boolean parallelCompilation) {
+        this.parallelCompilation = parallelCompilation;
+    }
+
+    public boolean isProfile() {
+        return profile;
+    }
+
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
+    public File getProfileReport() {
+        return profileReport;
+    }
+
+    public void setProfileReport(File profileReport) {
+        this.profileReport = profileReport;
+    }
+
+    public int getHotspots() {
+        return hotspots;
+    }
+
+    public void setHotspots(int hotspots) {
+        this.hotspots = hotspots;
+    }
+
+    public File getHotspotReport() {
+        return hotspotReport;
+    }
+
+    public void setHotspotReport(File hotspotReport) {
+        this.hotspotReport = hotspotReport;
+    }
+
+    public boolean isAbiCompileAvoidance() {
+        return abiCompileAvoidance;
+    }
+
+    public void setAbiCompileAvoidance(boolean abiCompileAvoidance) {
+        this.abiCompileAvoidance = abiCompileAvoidance;
+    }
+
+    public File getAbiCacheDirectory() {
+        return abiCacheDirectory;
+    }
+
+    public void setAbiCacheDirectory(File abiCacheDirectory) {
+        this.abiCacheDirectory = abiCacheDirectory;
+    }
+
+    public File getOutputJar() {
+        return outputJar;
+    }
+
+    public void setOutputJar(File outputJar) {
+        this.outputJar = outputJar;
+    }
+
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    public int getBatchHeapBudget() {
+        return batchHeapBudget;
+    }
+
+    public void setBatchHeapBudget(int batchHeapBudget) {
+        this.batchHeapBudget = batchHeapBudget;
+    }
+
+    public File getConfigScriptCacheDirectory() {
+        return configScriptCacheDirectory;
+    }
+
+    public void setConfigScriptCacheDirectory(File configScriptCacheDirectory) {
+        this.configScriptCacheDirectory = configScriptCacheDirectory;
+    }
+
+    public ClasspathSourceLookup getClasspathSourceLookup() {
+        return classpathSourceLookup;
+    }
+
+    public void setClasspathSourceLookup(ClasspathSourceLookup classpathSourceLookup) {
+        this.classpathSourceLookup = classpathSourceLookup;
+    }
 }
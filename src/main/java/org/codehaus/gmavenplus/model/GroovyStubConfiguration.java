@@ -24,6 +24,9 @@ public class GroovyStubConfiguration implements Serializable {
     private int tolerance;
     private String sourceEncoding;
     private String targetBytecode;
+    private boolean profile;
+    private File profileReport;
+    private ClasspathSourceLookup classpathSourceLookup = ClasspathSourceLookup.ENABLED;
 
     public GroovyStubConfiguration(Set<File> stubSources, List<?> classpath, File outputDirectory) {
         this.stubSources = stubSources;
@@ -106,4 +109,28 @@ public class GroovyStubConfiguration implements Serializable {
     public void setTargetBytecode(String targetBytecode) {
         this.targetBytecode = targetBytecode;
     }
+
+    public boolean isProfile() {
+        return profile;
+    }
+
+    public void setProfile(boolean profile) {
+        this.profile = profile;
+    }
+
+    public File getProfileReport() {
+        return profileReport;
+    }
+
+    public void setProfileReport(File profileReport) {
+        this.profileReport = profileReport;
+    }
+
+    public ClasspathSourceLookup getClasspathSourceLookup() {
+        return classpathSourceLookup;
+    }
+
+    public void setClasspathSourceLookup(ClasspathSourceLookup classpathSourceLookup) {
+        this.classpathSourceLookup = classpathSourceLookup;
+    }
 }
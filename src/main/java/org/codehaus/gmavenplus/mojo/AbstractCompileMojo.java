@@ -1,6 +1,7 @@
 package org.codehaus.gmavenplus.mojo;
 
 import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.gmavenplus.model.ClasspathSourceLookup;
 import org.codehaus.gmavenplus.model.IncludeClasspath;
 
 import java.io.File;
@@ -9,14 +10,19 @@ import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.toolchain.Toolchain;
 import org.apache.maven.toolchain.ToolchainManager;
 import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
-import org.codehaus.gmavenplus.util.ForkedGroovyCompiler;
+import org.codehaus.gmavenplus.util.AbiSnapshot;
+import org.codehaus.gmavenplus.util.BuildCache;
+import org.codehaus.gmavenplus.util.CompileState;
+import org.codehaus.gmavenplus.util.Fingerprint;
 import org.codehaus.gmavenplus.util.GroovyCompiler;
+import org.codehaus.gmavenplus.util.ForkedGroovyCompilerPool;
+import org.codehaus.gmavenplus.util.GroovyCompilerDaemonClient;
+import org.codehaus.gmavenplus.util.GroovyCompilerFork;
 
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -179,6 +185,191 @@ public abstract class AbstractCompileMojo extends AbstractGroovySourcesMojo {
     @Parameter(defaultValue = "false")
     protected boolean previewFeatures;
 
+    /**
+     * Whether to skip compilation when the sources, classpath, and compiler configuration are unchanged since the last
+     * successful compilation (with the same JDK or toolchain) and all the classes it produced still exist. The
+     * fingerprint of the last compilation is kept under
+     * <code>${project.build.directory}/maven-status/gmavenplus-plugin</code>. Off by default, so builds keep compiling
+     * every time unless they opt in.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.upToDateCheck", defaultValue = "false")
+    protected boolean upToDateCheck;
+
+    /**
+     * Whether to only recompile the sources that changed since the last successful compilation, plus the sources that
+     * (transitively) reference classes they produce. Classes produced by changed or removed sources are deleted before
+     * compiling. All sources are recompiled when the classpath or any other compiler setting changes.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.incremental", defaultValue = "false")
+    protected boolean incremental;
+
+    /**
+     * Whether to split the sources into groups that don't reference each other (determined by scanning the sources for
+     * the names of the types declared in the other sources) and compile each group in parallel, in its own compilation
+     * unit. When the sources can't be split, or any group fails to compile, all sources are compiled together.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.parallelCompilation", defaultValue = "false")
+    protected boolean parallelCompilation;
+
+    /**
+     * Whether to log how much time and memory each Groovy compile phase took (parsing, semantic analysis, class
+     * generation, etc.), and write it as JSON to
+     * <code>${project.build.directory}/gmavenplus-reports/&lt;goal&gt;-&lt;executionId&gt;-profile.json</code>.
+     * The global AST transformations applied (those that apply to every source just by being on the classpath) and the
+     * time each of them took are logged too. Requires Groovy 3.0.0 or newer.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.profileCompilation", defaultValue = "false")
+    protected boolean profileCompilation;
+
+    /**
+     * The number of sources that took the longest to compile to report, with the time each spent in parsing,
+     * resolution, AST transforms, and class generation, and the memory allocated for it. The report is also written as
+     * JSON to <code>${project.build.directory}/gmavenplus-reports/&lt;goal&gt;-&lt;executionId&gt;-hotspots.json</code>.
+     * <code>0</code> disables the report. Requires Groovy 3.0.0 or newer.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.profileHotspots", defaultValue = "0")
+    protected int profileHotspots;
+
+    /**
+     * Whether to only consider the ABI of the classpath (the signatures, annotations, and constants of its non-private
+     * classes and members) when deciding whether to recompile, rather than every change to it. This way, changes to
+     * upstream modules that only affect method bodies or private members don't cause recompilation. Applies to
+     * <code>upToDateCheck</code> and <code>incremental</code>. Classpath entries that contain AST transformations are
+     * still compared by their full contents.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.abiCompileAvoidance", defaultValue = "false")
+    protected boolean abiCompileAvoidance;
+
+    /**
+     * Whether to restore the compiled classes from the build cache when a previous build (of this or any other checkout)
+     * compiled the same sources with the same classpath contents and compiler settings, and to store the compiled
+     * classes in it otherwise. The cache is kept in <code>buildCacheDirectory</code>, or on the HTTP server at
+     * <code>buildCacheUrl</code> if set. Not used with incremental compilation.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.buildCache", defaultValue = "false")
+    protected boolean buildCache;
+
+    /**
+     * The directory to keep the build cache in. Defaults to
+     * <code>&lt;local repository&gt;/.cache/gmavenplus/build-cache</code>.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.buildCacheDirectory")
+    protected File buildCacheDirectory;
+
+    /**
+     * The URL of an HTTP build cache to use instead of <code>buildCacheDirectory</code>. Entries are fetched with
+     * <code>GET &lt;url&gt;/&lt;key&gt;</code> and stored with <code>PUT &lt;url&gt;/&lt;key&gt;</code>.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.buildCacheUrl")
+    protected String buildCacheUrl;
+
+    /**
+     * Whether to make compiling the same sources with the same settings produce byte-identical class files, so
+     * content-addressed caches of the compiled classes (or of artifacts built from them) hit. The sources (and the
+     * groups of sources of a parallel compilation) are compiled in a fixed order rather than the order they were
+     * collected in, so the synthetic classes Groovy generates (like closures) get the same names, and the compilation
+     * timestamps Groovy versions before 2.5 put in every class are zeroed.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.deterministic", defaultValue = "false")
+    protected boolean deterministic;
+
+    /**
+     * How Groovy may look for <code>.groovy</code> sources on the classpath for the classes it can't resolve (to
+     * compile them along with the sources). One of
+     * <ul>
+     *   <li>ENABLED (look for a source every time a class can't be resolved)</li>
+     *   <li>CACHED (look for the source of each class name only once)</li>
+     *   <li>DISABLED (never look for sources)</li>
+     * </ul>
+     * Every class name Groovy tries while resolving (like the default imports tried for every unqualified name) that
+     * isn't a class on the classpath means another search of the whole classpath, so classpaths with only compiled
+     * classes (which never need the lookup) compile faster with <code>DISABLED</code>. The number of lookups performed
+     * and avoided is logged at debug level.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.classpathSourceLookup", defaultValue = "ENABLED")
+    protected ClasspathSourceLookup classpathSourceLookup;
+
+    /**
+     * A heap budget, in megabytes, for compiling the sources in batches rather than all at once, so the ASTs of all the
+     * sources don't need to fit in the heap together. Sources are compiled in dependency order (as estimated from a
+     * lexical scan of the sources), each batch with the classes of the earlier batches on its classpath, and each batch
+     * sized so its estimated heap usage stays within the budget. The peak heap usage is logged, to tune the budget
+     * with. <code>0</code> compiles all sources at once. Not used when compiling into a jar.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.batchHeapBudget", defaultValue = "0")
+    protected int batchHeapBudget;
+
+    /**
+     * Whether to load the Groovy jar from the project classpath in a classloader shared with the other GMavenPlus
+     * executions of the build that use the same Groovy jar, rather than loading Groovy again for every execution. Only
+     * applies when <code>includeClasspath</code> is <code>PROJECT_ONLY</code> and the goal isn't forked.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.shareGroovyClassLoader", defaultValue = "false")
+    protected boolean shareGroovyClassLoader;
+
+    /**
+     * Whether forked executions (when a JDK toolchain is active) should use an application class data sharing archive
+     * for the fork's classpath, which is created by the first fork (Java 13 or newer) and kept in
+     * <code>&lt;local repository&gt;/.cache/gmavenplus/cds</code>, so later forks start faster.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.forkClassDataSharing", defaultValue = "false")
+    protected boolean forkClassDataSharing;
+
+    /**
+     * Whether forked executions (when a JDK toolchain is active) should keep their JVM running for the rest of the
+     * build, so later goals and modules using the same Java executable and classpath are queued onto it rather than
+     * each starting a new JVM.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.reuseForks", defaultValue = "false")
+    protected boolean reuseForks;
+
+    /**
+     * Whether to perform forked executions (when a JDK toolchain is active) in a long-lived daemon process that is
+     * reused by later goals and later builds, rather than in a new JVM for each execution.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.useDaemon", defaultValue = "false")
+    protected boolean useDaemon;
+
+    /**
+     * The number of minutes a compiler daemon started by this goal stays alive without any requests.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.daemonIdleTimeout", defaultValue = "60")
+    protected int daemonIdleTimeout;
+
     /**
      * The ToolchainManager.
      */
@@ -215,10 +406,76 @@ public abstract class AbstractCompileMojo extends AbstractGroovySourcesMojo {
         configuration.setInvokeDynamic(invokeDynamic);
         configuration.setParallelParsing(parallelParsing);
         configuration.setConfigScript(configScript);
+        if (configScript != null) {
+            configuration.setConfigScriptCacheDirectory(getPluginCacheDirectory("config-scripts"));
+        }
         configuration.setParameters(parameters);
         configuration.setPreviewFeatures(previewFeatures);
         configuration.setSourceEncoding(sourceEncoding);
         configuration.setTargetBytecode(resolveTargetBytecode(targetBytecode));
+        File outputJar = getOutputJar();
+        if (outputJar != null && incremental) {
+            getLog().info("Incremental compilation isn't used when compiling into a jar.");
+        }
+        configuration.setIncremental(incremental && outputJar == null);
+        configuration.setOutputJar(outputJar);
+        configuration.setDeterministic(deterministic);
+        configuration.setClasspathSourceLookup(classpathSourceLookup);
+        configuration.setBatchHeapBudget(batchHeapBudget);
+        configuration.setParallelCompilation(parallelCompilation);
+        if (abiCompileAvoidance) {
+            configuration.setAbiCompileAvoidance(true);
+            configuration.setAbiCacheDirectory(getPluginCacheDirectory("abi"));
+        }
+        if (profileCompilation) {
+            configuration.setProfile(true);
+            configuration.setProfileReport(getReportFile("profile.json"));
+        }
+        if (profileHotspots > 0) {
+            configuration.setHotspots(profileHotspots);
+            configuration.setHotspotReport(getReportFile("hotspots.json"));
+        }
+
+        CompileState compileState = null;
+        String fingerprint = null;
+        File stateDirectory = upToDateCheck || incremental || buildCache ? getStateDirectory() : null;
+        if (stateDirectory != null) {
+            configuration.setStateDirectory(stateDirectory);
+        }
+        if (stateDirectory != null && upToDateCheck) {
+            compileState = new CompileState(stateDirectory);
+            fingerprint = fingerprint(configuration);
+            if (fingerprint != null && compileState.isUpToDate(fingerprint)) {
+                getLog().info("Nothing to compile - all classes are up to date.");
+                return;
+            }
+            compileState.clear();
+        }
+
+        BuildCache cache = null;
+        String cacheKey = null;
+        File cacheOutputDirectory = outputJar != null ? outputJar.getAbsoluteFile().getParentFile() : compileOutputDirectory;
+        if (buildCache && configuration.isIncremental()) {
+            getLog().info("The build cache isn't used with incremental compilation.");
+        } else if (buildCache) {
+            cache = createBuildCache(buildCacheDirectory, buildCacheUrl);
+            cacheKey = buildCacheKey(configuration);
+            List<File> restored = cacheKey != null ? cache.restore(cacheKey, cacheOutputDirectory) : null;
+            if (restored != null) {
+                getLog().info("Restored " + restored.size() + " file" + (restored.size() != 1 ? "s" : "") + " from the build cache.");
+                if (fingerprint != null) {
+                    try {
+                        compileState.writeOutputs(restored);
+                        compileState.writeFingerprint(fingerprint);
+                    } catch (IOException e) {
+                        getLog().warn("Unable to record compile state in " + stateDirectory + ".", e);
+                    }
+                }
+                return;
+            }
+            // the compilation records the class files it produced, including unchanged ones it didn't rewrite
+            new CompileState(stateDirectory).clear();
+        }
 
         Toolchain toolchain = toolchainManager.getToolchainFromBuildContext("jdk", session);
         if (toolchain != null) {
@@ -228,20 +485,122 @@ public abstract class AbstractCompileMojo extends AbstractGroovySourcesMojo {
             getLog().info("Performing in-process compilation");
             performInProcessCompilation(configuration, classpath);
         }
+
+        if (fingerprint != null) {
+            try {
+                compileState.writeFingerprint(fingerprint);
+            } catch (IOException e) {
+                getLog().warn("Unable to record compile state in " + stateDirectory + ".", e);
+            }
+        }
+        if (cacheKey != null) {
+            List<File> outputs = new CompileState(stateDirectory).readOutputs();
+            if (outputs != null) {
+                cache.store(cacheKey, cacheOutputDirectory, outputs);
+            }
+        }
     }
 
-    protected void performInProcessCompilation(GroovyCompileConfiguration configuration, List<?> classpath) throws MalformedURLException, ClassNotFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
-        setupClassWrangler(classpath, includeClasspath);
-        logPluginClasspath();
-        classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
+    /**
+     * Gets the jar to write the compiled classes into instead of the output directory.
+     *
+     * @return the jar, or <code>null</code> to write class files to the output directory
+     */
+    protected File getOutputJar() {
+        return null;
+    }
 
-        if (!groovyVersionSupportsAction()) {
-            getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support compilation. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping compiling.");
-            return;
+    /**
+     * Computes the fingerprint of everything that affects the result of a compilation: the source paths and contents,
+     * the classpath entries (and plugin classpath, unless only the project classpath is used), the JDK (or toolchain),
+     * and every other compilation setting.
+     *
+     * @param configuration the compile configuration
+     * @return the fingerprint, or <code>null</code> if it couldn't be computed
+     */
+    protected String fingerprint(final GroovyCompileConfiguration configuration) {
+        try {
+            Fingerprint fingerprint = new Fingerprint().addContents(configuration.getSources());
+            if (configuration.isAbiCompileAvoidance()) {
+                fingerprint.addClasspathAbi(configuration.getClasspath(), configuration.getCompileOutputDirectory(), new AbiSnapshot(configuration.getAbiCacheDirectory()));
+            } else {
+                fingerprint.addClasspath(configuration.getClasspath(), configuration.getCompileOutputDirectory());
+            }
+            // the jar is an output (its contents change with every compilation), so only its location counts
+            fingerprint.addFields(configuration, "sources", "classpath", "stateDirectory", "parallelCompilation", "profile", "profileReport", "hotspots", "hotspotReport", "abiCacheDirectory", "outputJar", "batchHeapBudget", "configScriptCacheDirectory")
+                    .add(configuration.getOutputJar() != null ? configuration.getOutputJar().getAbsolutePath() : null)
+                    .add(pluginDescriptor != null ? pluginDescriptor.getVersion() : null);
+            // the classes depend on the JDK compiling them
+            Toolchain toolchain = toolchainManager != null ? toolchainManager.getToolchainFromBuildContext("jdk", session) : null;
+            String javaExecutable = toolchain != null ? toolchain.findTool("java") : null;
+            if (javaExecutable != null) {
+                fingerprint.add(javaExecutable).add(String.valueOf(new File(javaExecutable).lastModified()));
+            } else {
+                fingerprint.add(System.getProperty("java.home")).add(System.getProperty("java.version"));
+            }
+            if (!IncludeClasspath.PROJECT_ONLY.equals(configuration.getIncludeClasspath()) && pluginArtifacts != null) {
+                for (org.apache.maven.artifact.Artifact pluginArtifact : pluginArtifacts) {
+                    if (pluginArtifact.getFile() != null) {
+                        fingerprint.addClasspathEntry(pluginArtifact.getFile(), null);
+                    }
+                }
+            }
+            return fingerprint.toHexString();
+        } catch (IOException e) {
+            getLog().warn("Unable to compute the compile fingerprint, skipping up-to-date check.", e);
+            return null;
         }
+    }
 
-        GroovyCompiler compiler = new GroovyCompiler(classWrangler, getLog());
-        compiler.compile(configuration);
+    /**
+     * Computes the build cache key of a compilation: like {@link #fingerprint}, but from the contents of the sources and
+     * classpath rather than their locations and timestamps, so other checkouts and clean builds of the same inputs get
+     * the same key.
+     *
+     * @param configuration the compile configuration
+     * @return the key, or <code>null</code> if it couldn't be computed
+     */
+    protected String buildCacheKey(final GroovyCompileConfiguration configuration) {
+        File basedir = project != null ? project.getBasedir() : null;
+        try {
+            Fingerprint fingerprint = new Fingerprint()
+                    .add("compile")
+                    .addRelativeContents(configuration.getSources(), basedir)
+                    .addClasspathContents(configuration.getClasspath(), configuration.getCompileOutputDirectory())
+                    .addFields(configuration, "sources", "classpath", "compileOutputDirectory", "configScript", "stateDirectory", "incremental", "parallelCompilation", "profile", "profileReport", "hotspots", "hotspotReport", "abiCompileAvoidance", "abiCacheDirectory", "outputJar", "batchHeapBudget", "configScriptCacheDirectory")
+                    .add(configuration.getOutputJar() != null ? configuration.getOutputJar().getName() : null)
+                    .addRelativeContents(configuration.getConfigScript() != null ? Collections.singletonList(configuration.getConfigScript()) : Collections.<File>emptyList(), basedir)
+                    .add(pluginDescriptor != null ? pluginDescriptor.getVersion() : null);
+            if (!IncludeClasspath.PROJECT_ONLY.equals(configuration.getIncludeClasspath()) && pluginArtifacts != null) {
+                for (org.apache.maven.artifact.Artifact pluginArtifact : pluginArtifacts) {
+                    if (pluginArtifact.getFile() != null) {
+                        fingerprint.addClasspathContents(Collections.singletonList(pluginArtifact.getFile()), null);
+                    }
+                }
+            }
+            return fingerprint.toHexString();
+        } catch (IOException e) {
+            getLog().warn("Unable to compute the build cache key, skipping the build cache.", e);
+            return null;
+        }
+    }
+
+    protected void performInProcessCompilation(GroovyCompileConfiguration configuration, List<?> classpath) throws MalformedURLException, ClassNotFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        setupClassWrangler(classpath, includeClasspath, shareGroovyClassLoader);
+        try {
+            logPluginClasspath();
+            classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
+
+            if (!groovyVersionSupportsAction()) {
+                getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support compilation. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping compiling.");
+                return;
+            }
+
+            GroovyCompiler compiler = new GroovyCompiler(classWrangler, getLog());
+            compiler.compile(configuration);
+        } finally {
+            closeClassWrangler();
+        }
     }
 
     protected void performForkedCompilation(GroovyCompileConfiguration configuration, String javaExecutable) {
@@ -255,59 +614,45 @@ public abstract class AbstractCompileMojo extends AbstractGroovySourcesMojo {
             return;
         }
 
-        try {
-            File configFile = File.createTempFile("gmavenplus-compile-config", ".ser");
-            configFile.deleteOnExit();
-            try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(configFile.toPath()))) {
-                oos.writeObject(configuration);
-            }
-
-            List<String> command = new ArrayList<>();
-            command.add(javaExecutable);
-            command.add("-cp");
-            command.add(buildForkClasspath());
-            command.add(ForkedGroovyCompiler.class.getName());
-            command.add(configFile.getAbsolutePath());
-
-            getLog().info("Forking compilation using " + javaExecutable);
-            getLog().debug("Command: " + command);
-
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.inheritIO();
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-            if (exitCode != 0) {
-                throw new RuntimeException("Groovy compilation failed with exit code " + exitCode);
+        if (useDaemon) {
+            try {
+                new GroovyCompilerDaemonClient(getPluginCacheDirectory("daemon"), getLog()).execute(configuration, javaExecutable, buildForkClasspath(), daemonIdleTimeout * 60000L);
+                return;
+            } catch (InvocationTargetException e) {
+                throw new RuntimeException("Groovy compilation failed", e.getCause());
+            } catch (IOException e) {
+                getLog().warn("Unable to use the compiler daemon, falling back to forked compilation.", e);
             }
-        } catch (IOException | InterruptedException e) {
-            throw new RuntimeException("Unable to fork compilation", e);
         }
-    }
-
-    protected String buildForkClasspath() {
-        StringBuilder cp = new StringBuilder();
-        // Add plugin artifact
-        cp.append(pluginDescriptor.getPluginArtifact().getFile().getAbsolutePath());
 
-        // Add plugin dependencies
-        for (org.apache.maven.artifact.Artifact artifact : pluginDescriptor.getArtifacts()) {
-            cp.append(File.pathSeparator);
-            cp.append(artifact.getFile().getAbsolutePath());
+        if (reuseForks) {
+            ForkedGroovyCompilerPool forkPool = getForkedGroovyCompilerPool();
+            if (forkPool != null) {
+                try {
+                    forkPool.execute(configuration, javaExecutable, buildForkClasspath(), forkClassDataSharing ? getPluginCacheDirectory("cds") : null, getLog());
+                    return;
+                } catch (InvocationTargetException e) {
+                    throw new RuntimeException("Groovy compilation failed", e.getCause());
+                } catch (IOException e) {
+                    getLog().warn("Unable to use a reusable fork, falling back to forked compilation.", e);
+                }
+            }
         }
 
-        // Add maven-plugin-api jar which is 'provided' so not in getArtifacts()
+        getLog().info("Forking compilation using " + javaExecutable);
+        GroovyCompilerFork fork = null;
         try {
-            Class<?> logClass = org.apache.maven.plugin.logging.Log.class;
-            java.security.CodeSource codeSource = logClass.getProtectionDomain().getCodeSource();
-            if (codeSource != null) {
-                String logJar = new File(codeSource.getLocation().toURI()).getAbsolutePath();
-                cp.append(File.pathSeparator).append(logJar);
+            fork = GroovyCompilerFork.start(javaExecutable, buildForkClasspath(), forkClassDataSharing ? getPluginCacheDirectory("cds") : null, getLog());
+            fork.execute(configuration, getLog());
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Groovy compilation failed", e.getCause());
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to fork compilation", e);
+        } finally {
+            if (fork != null) {
+                fork.stop();
             }
-        } catch (Exception e) {
-            getLog().warn("Could not find maven-plugin-api jar to add to fork classpath", e);
         }
-
-        return cp.toString();
     }
 
 }
@@ -1,14 +1,23 @@
 package org.codehaus.gmavenplus.mojo;
 
 import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.gmavenplus.model.ClasspathSourceLookup;
 import org.codehaus.gmavenplus.model.IncludeClasspath;
 import org.codehaus.gmavenplus.model.internal.Version;
+import org.codehaus.gmavenplus.util.BuildCache;
+import org.codehaus.gmavenplus.util.Fingerprint;
 import org.codehaus.gmavenplus.util.GroovyCompiler;
+import org.codehaus.gmavenplus.util.ForkedGroovyCompilerPool;
+import org.codehaus.gmavenplus.util.GroovyCompilerDaemonClient;
+import org.codehaus.gmavenplus.util.GroovyCompilerFork;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 
@@ -138,6 +147,111 @@ public abstract class AbstractGenerateStubsMojo extends AbstractGroovyStubSource
     @Parameter(defaultValue = "PROJECT_ONLY")
     protected IncludeClasspath includeClasspath;
 
+    /**
+     * Whether to load the Groovy jar from the project classpath in a classloader shared with the other GMavenPlus
+     * executions of the build that use the same Groovy jar, rather than loading Groovy again for every execution. Only
+     * applies when <code>includeClasspath</code> is <code>PROJECT_ONLY</code> and the goal isn't forked.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.shareGroovyClassLoader", defaultValue = "false")
+    protected boolean shareGroovyClassLoader;
+
+    /**
+     * How Groovy may look for <code>.groovy</code> sources on the classpath for the classes it can't resolve (to
+     * compile them along with the sources). One of
+     * <ul>
+     *   <li>ENABLED (look for a source every time a class can't be resolved)</li>
+     *   <li>CACHED (look for the source of each class name only once)</li>
+     *   <li>DISABLED (never look for sources)</li>
+     * </ul>
+     * Every class name Groovy tries while resolving (like the default imports tried for every unqualified name) that
+     * isn't a class on the classpath means another search of the whole classpath, so classpaths with only compiled
+     * classes (which never need the lookup) compile faster with <code>DISABLED</code>. The number of lookups performed
+     * and avoided is logged at debug level.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.classpathSourceLookup", defaultValue = "ENABLED")
+    protected ClasspathSourceLookup classpathSourceLookup;
+
+    /**
+     * Whether to log how much time and memory each Groovy compile phase took (parsing, semantic analysis, class
+     * generation, etc.), and write it as JSON to
+     * <code>${project.build.directory}/gmavenplus-reports/&lt;goal&gt;-&lt;executionId&gt;-profile.json</code>.
+     * Requires Groovy 3.0.0 or newer.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.profileCompilation", defaultValue = "false")
+    protected boolean profileCompilation;
+
+    /**
+     * Whether to restore the stubs from the build cache when a previous build (of this or any other checkout) generated
+     * stubs for the same sources with the same classpath contents and settings, and to store the generated stubs in it
+     * otherwise. The cache is kept in <code>buildCacheDirectory</code>, or on the HTTP server at
+     * <code>buildCacheUrl</code> if set.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.buildCache", defaultValue = "false")
+    protected boolean buildCache;
+
+    /**
+     * The directory to keep the build cache in. Defaults to
+     * <code>&lt;local repository&gt;/.cache/gmavenplus/build-cache</code>.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.buildCacheDirectory")
+    protected File buildCacheDirectory;
+
+    /**
+     * The URL of an HTTP build cache to use instead of <code>buildCacheDirectory</code>. Entries are fetched with
+     * <code>GET &lt;url&gt;/&lt;key&gt;</code> and stored with <code>PUT &lt;url&gt;/&lt;key&gt;</code>.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.buildCacheUrl")
+    protected String buildCacheUrl;
+
+    /**
+     * Whether forked executions (when a JDK toolchain is active) should use an application class data sharing archive
+     * for the fork's classpath, which is created by the first fork (Java 13 or newer) and kept in
+     * <code>&lt;local repository&gt;/.cache/gmavenplus/cds</code>, so later forks start faster.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.forkClassDataSharing", defaultValue = "false")
+    protected boolean forkClassDataSharing;
+
+    /**
+     * Whether forked executions (when a JDK toolchain is active) should keep their JVM running for the rest of the
+     * build, so later goals and modules using the same Java executable and classpath are queued onto it rather than
+     * each starting a new JVM.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.reuseForks", defaultValue = "false")
+    protected boolean reuseForks;
+
+    /**
+     * Whether to perform forked executions (when a JDK toolchain is active) in a long-lived daemon process that is
+     * reused by later goals and later builds, rather than in a new JVM for each execution.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.useDaemon", defaultValue = "false")
+    protected boolean useDaemon;
+
+    /**
+     * The number of minutes a compiler daemon started by this goal stays alive without any requests.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.daemonIdleTimeout", defaultValue = "60")
+    protected int daemonIdleTimeout;
+
     /**
      * The Maven ToolchainManager.
      */
@@ -177,6 +291,26 @@ public abstract class AbstractGenerateStubsMojo extends AbstractGroovyStubSource
         configuration.setTolerance(tolerance);
         configuration.setSourceEncoding(sourceEncoding);
         configuration.setTargetBytecode(resolveTargetBytecode(targetBytecode));
+        configuration.setClasspathSourceLookup(classpathSourceLookup);
+        if (profileCompilation) {
+            configuration.setProfile(true);
+            configuration.setProfileReport(getReportFile("profile.json"));
+        }
+
+        BuildCache cache = null;
+        String cacheKey = null;
+        Map<File, String> outputsBefore = null;
+        long generationStart = System.currentTimeMillis();
+        if (buildCache) {
+            cache = createBuildCache(buildCacheDirectory, buildCacheUrl);
+            cacheKey = buildCacheKey(configuration);
+            List<File> restored = cacheKey != null ? cache.restore(cacheKey, outputDirectory) : null;
+            if (restored != null) {
+                getLog().info("Restored " + restored.size() + " stub" + (restored.size() != 1 ? "s" : "") + " from the build cache.");
+                return;
+            }
+            outputsBefore = BuildCache.snapshot(outputDirectory);
+        }
 
         org.apache.maven.toolchain.Toolchain toolchain = toolchainManager.getToolchainFromBuildContext("jdk", session);
         if (toolchain != null) {
@@ -186,76 +320,89 @@ public abstract class AbstractGenerateStubsMojo extends AbstractGroovyStubSource
             getLog().info("Performing in-process stub generation");
             performInProcessStubGeneration(configuration, classpath);
         }
-    }
-
-    protected void performInProcessStubGeneration(org.codehaus.gmavenplus.model.GroovyStubConfiguration configuration, List<?> classpath) throws MalformedURLException, ClassNotFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
-        setupClassWrangler(classpath, includeClasspath);
-        logPluginClasspath();
-        classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
-
-        // Note: GroovyCompiler handles minGroovyVersion check now in generateStubs
 
-        GroovyCompiler compiler = new GroovyCompiler(classWrangler, getLog());
-        compiler.generateStubs(configuration);
+        if (cacheKey != null) {
+            cache.store(cacheKey, outputDirectory, BuildCache.changedFiles(outputDirectory, outputsBefore, generationStart));
+        }
     }
 
-    protected void performForkedStubGeneration(org.codehaus.gmavenplus.model.GroovyStubConfiguration configuration, String javaExecutable) throws InvocationTargetException {
+    /**
+     * Computes the build cache key of a stub generation, from the contents of the sources and classpath (rather than
+     * their locations and timestamps) and the stub generation settings.
+     *
+     * @param configuration the stub generation configuration
+     * @return the key, or <code>null</code> if it couldn't be computed
+     */
+    protected String buildCacheKey(final org.codehaus.gmavenplus.model.GroovyStubConfiguration configuration) {
         try {
-            // Write configuration to file
-            File configFile = File.createTempFile("groovy-stub-config", ".ser");
-            configFile.deleteOnExit();
-            try (java.io.ObjectOutputStream oos = new java.io.ObjectOutputStream(java.nio.file.Files.newOutputStream(configFile.toPath()))) {
-                oos.writeObject(configuration);
+            Fingerprint fingerprint = new Fingerprint()
+                    .add("stubs")
+                    .addRelativeContents(configuration.getStubSources(), project != null ? project.getBasedir() : null)
+                    .addClasspathContents(configuration.getClasspath(), configuration.getOutputDirectory())
+                    .addFields(configuration, "stubSources", "classpath", "outputDirectory", "profile", "profileReport")
+                    .add(pluginDescriptor != null ? pluginDescriptor.getVersion() : null);
+            if (!IncludeClasspath.PROJECT_ONLY.equals(configuration.getIncludeClasspath()) && pluginArtifacts != null) {
+                for (org.apache.maven.artifact.Artifact pluginArtifact : pluginArtifacts) {
+                    if (pluginArtifact.getFile() != null) {
+                        fingerprint.addClasspathContents(Collections.singletonList(pluginArtifact.getFile()), null);
+                    }
+                }
             }
+            return fingerprint.toHexString();
+        } catch (IOException e) {
+            getLog().warn("Unable to compute the build cache key, skipping the build cache.", e);
+            return null;
+        }
+    }
 
-            // Build classpath for forked process (plugin + dependencies)
-            String forkClasspath = buildForkClasspath();
-
-            List<String> command = new java.util.ArrayList<>();
-            command.add(javaExecutable);
-            command.add("-cp");
-            command.add(forkClasspath);
-            command.add("org.codehaus.gmavenplus.util.ForkedGroovyCompiler");
-            command.add(configFile.getAbsolutePath());
+    protected void performInProcessStubGeneration(org.codehaus.gmavenplus.model.GroovyStubConfiguration configuration, List<?> classpath) throws MalformedURLException, ClassNotFoundException, InvocationTargetException, InstantiationException, IllegalAccessException {
+        setupClassWrangler(classpath, includeClasspath, shareGroovyClassLoader);
+        try {
+            logPluginClasspath();
+            classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
 
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.inheritIO();
-            Process process = pb.start();
-            int exitCode = process.waitFor();
+            // Note: GroovyCompiler handles minGroovyVersion check now in generateStubs
 
-            if (exitCode != 0) {
-                throw new InvocationTargetException(new RuntimeException("Forked stub generation failed with exit code " + exitCode));
-            }
-
-        } catch (java.io.IOException | InterruptedException e) {
-            throw new InvocationTargetException(e);
+            GroovyCompiler compiler = new GroovyCompiler(classWrangler, getLog());
+            compiler.generateStubs(configuration);
+        } finally {
+            closeClassWrangler();
         }
     }
 
-    protected String buildForkClasspath() {
-        StringBuilder cp = new StringBuilder();
-        // Add plugin artifact
-        cp.append(pluginDescriptor.getPluginArtifact().getFile().getAbsolutePath());
+    protected void performForkedStubGeneration(org.codehaus.gmavenplus.model.GroovyStubConfiguration configuration, String javaExecutable) throws InvocationTargetException {
+        if (useDaemon) {
+            try {
+                new GroovyCompilerDaemonClient(getPluginCacheDirectory("daemon"), getLog()).execute(configuration, javaExecutable, buildForkClasspath(), daemonIdleTimeout * 60000L);
+                return;
+            } catch (java.io.IOException e) {
+                getLog().warn("Unable to use the compiler daemon, falling back to forked stub generation.", e);
+            }
+        }
 
-        // Add plugin dependencies
-        for (org.apache.maven.artifact.Artifact artifact : pluginDescriptor.getArtifacts()) {
-            cp.append(File.pathSeparator);
-            cp.append(artifact.getFile().getAbsolutePath());
+        if (reuseForks) {
+            ForkedGroovyCompilerPool forkPool = getForkedGroovyCompilerPool();
+            if (forkPool != null) {
+                try {
+                    forkPool.execute(configuration, javaExecutable, buildForkClasspath(), forkClassDataSharing ? getPluginCacheDirectory("cds") : null, getLog());
+                    return;
+                } catch (java.io.IOException e) {
+                    getLog().warn("Unable to use a reusable fork, falling back to forked stub generation.", e);
+                }
+            }
         }
 
-        // Add maven-plugin-api jar which is 'provided' so not in getArtifacts()
+        GroovyCompilerFork fork = null;
         try {
-            Class<?> logClass = org.apache.maven.plugin.logging.Log.class;
-            java.security.CodeSource codeSource = logClass.getProtectionDomain().getCodeSource();
-            if (codeSource != null) {
-                String logJar = new File(codeSource.getLocation().toURI()).getAbsolutePath();
-                cp.append(File.pathSeparator).append(logJar);
+            fork = GroovyCompilerFork.start(javaExecutable, buildForkClasspath(), forkClassDataSharing ? getPluginCacheDirectory("cds") : null, getLog());
+            fork.execute(configuration, getLog());
+        } catch (java.io.IOException e) {
+            throw new InvocationTargetException(e);
+        } finally {
+            if (fork != null) {
+                fork.stop();
             }
-        } catch (Exception e) {
-            getLog().warn("Could not find maven-plugin-api jar to add to fork classpath", e);
         }
-
-        return cp.toString();
     }
 
     /**
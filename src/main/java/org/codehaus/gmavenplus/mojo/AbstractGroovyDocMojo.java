@@ -11,6 +11,9 @@ import org.codehaus.gmavenplus.util.FileUtils;
 
 import org.codehaus.gmavenplus.model.GroovyDocConfiguration;
 import org.codehaus.gmavenplus.util.GroovyCompiler;
+import org.codehaus.gmavenplus.util.ForkedGroovyCompilerPool;
+import org.codehaus.gmavenplus.util.GroovyCompilerDaemonClient;
+import org.codehaus.gmavenplus.util.GroovyCompilerFork;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -21,7 +24,6 @@ import java.io.OutputStreamWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
@@ -338,6 +340,53 @@ public abstract class AbstractGroovyDocMojo extends AbstractGroovySourcesMojo {
     @Parameter
     protected String preLanguage;
 
+    /**
+     * Whether to load the Groovy jar from the project classpath in a classloader shared with the other GMavenPlus
+     * executions of the build that use the same Groovy jar, rather than loading Groovy again for every execution. Only
+     * applies when <code>includeClasspath</code> is <code>PROJECT_ONLY</code> and the goal isn't forked.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.shareGroovyClassLoader", defaultValue = "false")
+    protected boolean shareGroovyClassLoader;
+
+    /**
+     * Whether forked executions (when a JDK toolchain is active) should use an application class data sharing archive
+     * for the fork's classpath, which is created by the first fork (Java 13 or newer) and kept in
+     * <code>&lt;local repository&gt;/.cache/gmavenplus/cds</code>, so later forks start faster.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.forkClassDataSharing", defaultValue = "false")
+    protected boolean forkClassDataSharing;
+
+    /**
+     * Whether forked executions (when a JDK toolchain is active) should keep their JVM running for the rest of the
+     * build, so later goals and modules using the same Java executable and classpath are queued onto it rather than
+     * each starting a new JVM.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.reuseForks", defaultValue = "false")
+    protected boolean reuseForks;
+
+    /**
+     * Whether to perform forked executions (when a JDK toolchain is active) in a long-lived daemon process that is
+     * reused by later goals and later builds, rather than in a new JVM for each execution.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.useDaemon", defaultValue = "false")
+    protected boolean useDaemon;
+
+    /**
+     * The number of minutes a compiler daemon started by this goal stays alive without any requests.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.daemonIdleTimeout", defaultValue = "60")
+    protected int daemonIdleTimeout;
+
     /**
      * The Maven ToolchainManager.
      */
@@ -422,80 +471,61 @@ public abstract class AbstractGroovyDocMojo extends AbstractGroovySourcesMojo {
     }
 
     protected void performInProcessGroovyDocGeneration(GroovyDocConfiguration configuration) throws ClassNotFoundException, InvocationTargetException, IllegalAccessException, InstantiationException, MalformedURLException {
-        setupClassWrangler(configuration.getClasspath(), includeClasspath);
-        classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
-        logPluginClasspath();
+        setupClassWrangler(configuration.getClasspath(), includeClasspath, shareGroovyClassLoader);
+        try {
+            classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
+            logPluginClasspath();
 
-        if (!groovyVersionSupportsAction()) {
-            getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support GroovyDoc. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping GroovyDoc generation.");
-            return;
-        }
-        if (groovyIs(GROOVY_1_6_0_RC1) || groovyIs(GROOVY_1_5_8)) {
-            // Groovy 1.5.8 and 1.6-RC-1 are blacklisted because of their dependency on org.apache.tools.ant.types.Path in GroovyDocTool constructor
-            getLog().warn("Groovy " + GROOVY_1_5_8 + " and " + GROOVY_1_6_0_RC1 + " are blacklisted from the supported GroovyDoc versions because of their dependency on Ant. Skipping GroovyDoc generation.");
-            return;
-        }
+            if (!groovyVersionSupportsAction()) {
+                getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support GroovyDoc. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping GroovyDoc generation.");
+                return;
+            }
+            if (groovyIs(GROOVY_1_6_0_RC1) || groovyIs(GROOVY_1_5_8)) {
+                // Groovy 1.5.8 and 1.6-RC-1 are blacklisted because of their dependency on org.apache.tools.ant.types.Path in GroovyDocTool constructor
+                getLog().warn("Groovy " + GROOVY_1_5_8 + " and " + GROOVY_1_6_0_RC1 + " are blacklisted from the supported GroovyDoc versions because of their dependency on Ant. Skipping GroovyDoc generation.");
+                return;
+            }
 
-        GroovyCompiler compiler = new GroovyCompiler(classWrangler, getLog());
-        compiler.generateGroovyDoc(configuration);
+            GroovyCompiler compiler = new GroovyCompiler(classWrangler, getLog());
+            compiler.generateGroovyDoc(configuration);
+        } finally {
+            closeClassWrangler();
+        }
     }
 
     protected void performForkedGroovyDocGeneration(GroovyDocConfiguration configuration, String javaExecutable) throws InvocationTargetException {
-        try {
-             // Write configuration to file
-            File configFile = File.createTempFile("groovy-doc-config", ".ser");
-            configFile.deleteOnExit();
-            try (java.io.ObjectOutputStream oos = new java.io.ObjectOutputStream(java.nio.file.Files.newOutputStream(configFile.toPath()))) {
-                oos.writeObject(configuration);
-            }
-
-            // Build classpath for forked process (plugin + dependencies)
-            String forkClasspath = buildForkClasspath();
-
-            List<String> command = new ArrayList<>();
-            command.add(javaExecutable);
-            command.add("-cp");
-            command.add(forkClasspath);
-            command.add("org.codehaus.gmavenplus.util.ForkedGroovyCompiler");
-            command.add(configFile.getAbsolutePath());
-
-            ProcessBuilder pb = new ProcessBuilder(command);
-            pb.inheritIO();
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-
-            if (exitCode != 0) {
-                throw new InvocationTargetException(new RuntimeException("Forked GroovyDoc generation failed with exit code " + exitCode));
+        if (useDaemon) {
+            try {
+                new GroovyCompilerDaemonClient(getPluginCacheDirectory("daemon"), getLog()).execute(configuration, javaExecutable, buildForkClasspath(), daemonIdleTimeout * 60000L);
+                return;
+            } catch (IOException e) {
+                getLog().warn("Unable to use the compiler daemon, falling back to forked GroovyDoc generation.", e);
             }
-        } catch (IOException | InterruptedException e) {
-            throw new InvocationTargetException(e);
         }
-    }
-
-    protected String buildForkClasspath() {
-        StringBuilder cp = new StringBuilder();
-        // Add plugin artifact
-        cp.append(pluginDescriptor.getPluginArtifact().getFile().getAbsolutePath());
 
-        // Add plugin dependencies
-        for (org.apache.maven.artifact.Artifact artifact : pluginDescriptor.getArtifacts()) {
-            cp.append(File.pathSeparator);
-            cp.append(artifact.getFile().getAbsolutePath());
+        if (reuseForks) {
+            ForkedGroovyCompilerPool forkPool = getForkedGroovyCompilerPool();
+            if (forkPool != null) {
+                try {
+                    forkPool.execute(configuration, javaExecutable, buildForkClasspath(), forkClassDataSharing ? getPluginCacheDirectory("cds") : null, getLog());
+                    return;
+                } catch (IOException e) {
+                    getLog().warn("Unable to use a reusable fork, falling back to forked GroovyDoc generation.", e);
+                }
+            }
         }
 
-        // Add maven-plugin-api jar which is 'provided' so not in getArtifacts()
+        GroovyCompilerFork fork = null;
         try {
-            Class<?> logClass = org.apache.maven.plugin.logging.Log.class;
-            java.security.CodeSource codeSource = logClass.getProtectionDomain().getCodeSource();
-            if (codeSource != null) {
-                String logJar = new File(codeSource.getLocation().toURI()).getAbsolutePath();
-                cp.append(File.pathSeparator).append(logJar);
+            fork = GroovyCompilerFork.start(javaExecutable, buildForkClasspath(), forkClassDataSharing ? getPluginCacheDirectory("cds") : null, getLog());
+            fork.execute(configuration, getLog());
+        } catch (IOException e) {
+            throw new InvocationTargetException(e);
+        } finally {
+            if (fork != null) {
+                fork.stop();
             }
-        } catch (Exception e) {
-            getLog().warn("Could not find maven-plugin-api jar to add to fork classpath", e);
         }
-
-        return cp.toString();
     }
 
     /**
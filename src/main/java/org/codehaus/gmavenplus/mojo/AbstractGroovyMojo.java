@@ -7,15 +7,32 @@ import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
 import org.codehaus.gmavenplus.model.IncludeClasspath;
 import org.codehaus.gmavenplus.model.internal.Version;
+import org.codehaus.gmavenplus.util.BuildCache;
+import org.codehaus.gmavenplus.util.ClassLoaderCache;
+import org.codehaus.gmavenplus.util.ClassLoaderTracker;
 import org.codehaus.gmavenplus.util.ClassWrangler;
+import org.codehaus.gmavenplus.util.DirectoryBuildCacheBackend;
+import org.codehaus.gmavenplus.util.ForkedGroovyCompilerPool;
 import org.codehaus.gmavenplus.util.GroovyCompiler;
+import org.codehaus.gmavenplus.util.HttpBuildCacheBackend;
+import org.codehaus.gmavenplus.util.PathingJar;
+import org.codehaus.plexus.component.repository.ComponentDependency;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 import static java.util.Collections.emptyList;
 
@@ -43,6 +60,13 @@ public abstract class AbstractGroovyMojo extends AbstractMojo {
 
     private static final String MAVEN_COMPILER_TARGET = "maven.compiler.target";
 
+    /**
+     * The classes the forked code uses from outside the plugin jar (from maven-plugin-api, and from file-management and
+     * its dependencies for GroovyDoc).
+     */
+    private static final String[] FORK_CLASSES = {"org.apache.maven.plugin.logging.Log", "org.apache.maven.shared.model.fileset.util.FileSetManager",
+            "org.codehaus.plexus.util.DirectoryScanner", "org.apache.commons.io.FileUtils", "org.slf4j.LoggerFactory"};
+
     /**
      * Java 1.7 version.
      */
@@ -106,6 +130,16 @@ public abstract class AbstractGroovyMojo extends AbstractMojo {
      */
     protected Version minGroovyVersion = GROOVY_1_5_0;
 
+    /**
+     * The shared classloader the ClassWrangler's classloader is a child of (if sharing was requested).
+     */
+    private ClassLoader sharedClassLoader;
+
+    /**
+     * The cache the shared classloader came from.
+     */
+    private ClassLoaderCache sharedClassLoaderCache;
+
     /**
      * Logs the plugin classpath.
      */
@@ -261,6 +295,199 @@ public abstract class AbstractGroovyMojo extends AbstractMojo {
         return value == null || value.trim().isEmpty();
     }
 
+    /**
+     * Gets the directory this mojo execution keeps its state in between builds
+     * (<code>${project.build.directory}/maven-status/gmavenplus-plugin/&lt;goal&gt;/&lt;executionId&gt;</code>).
+     *
+     * @return the state directory, or <code>null</code> if the build directory or execution is unknown
+     */
+    protected File getStateDirectory() {
+        if (project == null || project.getBuild() == null || project.getBuild().getDirectory() == null
+                || mojoExecution == null || mojoExecution.getMojoDescriptor() == null) {
+            return null;
+        }
+        File pluginStatusDirectory = new File(project.getBuild().getDirectory(), "maven-status" + File.separator + "gmavenplus-plugin");
+        return new File(new File(pluginStatusDirectory, mojoExecution.getMojoDescriptor().getGoal()), mojoExecution.getExecutionId());
+    }
+
+    /**
+     * Gets a file for a report of this mojo execution
+     * (<code>${project.build.directory}/gmavenplus-reports/&lt;goal&gt;-&lt;executionId&gt;-&lt;name&gt;</code>).
+     *
+     * @param name the name of the report
+     * @return the report file, or <code>null</code> if the build directory or execution is unknown
+     */
+    protected File getReportFile(String name) {
+        if (project == null || project.getBuild() == null || project.getBuild().getDirectory() == null
+                || mojoExecution == null || mojoExecution.getMojoDescriptor() == null) {
+            return null;
+        }
+        return new File(new File(project.getBuild().getDirectory(), "gmavenplus-reports"), mojoExecution.getMojoDescriptor().getGoal() + "-" + mojoExecution.getExecutionId() + "-" + name);
+    }
+
+    /**
+     * Gets a directory for data GMavenPlus shares between builds
+     * (<code>&lt;local repository&gt;/.cache/gmavenplus/&lt;name&gt;</code>).
+     *
+     * @param name the name of the cache
+     * @return the cache directory
+     */
+    protected File getPluginCacheDirectory(String name) {
+        File localRepository = null;
+        if (session != null && session.getLocalRepository() != null && session.getLocalRepository().getBasedir() != null) {
+            localRepository = new File(session.getLocalRepository().getBasedir());
+        }
+        if (localRepository == null) {
+            localRepository = new File(System.getProperty("user.home"), ".m2" + File.separator + "repository");
+        }
+        return new File(localRepository, ".cache" + File.separator + "gmavenplus" + File.separator + name);
+    }
+
+    /**
+     * Builds the classpath forked executions are run with: the plugin jar, the jars of the classes the forked code uses
+     * from outside of it, and the dependencies added to the plugin by the build (like Groovy). The plugin's own
+     * dependencies are left out, since only goals that don't fork need them. The classpath is passed as a pathing jar
+     * (kept in <code>&lt;local repository&gt;/.cache/gmavenplus/fork-classpath</code>) and worked out once per session.
+     *
+     * @return the classpath to pass to <code>-cp</code>
+     */
+    protected String buildForkClasspath() {
+        List<File> classpath = forkClasspath();
+        SessionResources sessionResources = SessionResources.forSession(session, getLog());
+        if (sessionResources == null) {
+            return pathingJar(classpath);
+        }
+        return sessionResources.get("forkClasspath:" + classpath, String.class, () -> pathingJar(classpath));
+    }
+
+    /**
+     * Gets the jars forked executions need (see {@link #buildForkClasspath()}).
+     *
+     * @return the jars
+     */
+    protected List<File> forkClasspath() {
+        Set<File> classpath = new LinkedHashSet<>();
+        classpath.add(pluginDescriptor.getPluginArtifact().getFile().getAbsoluteFile());
+        for (String className : FORK_CLASSES) {
+            try {
+                CodeSource codeSource = Class.forName(className, false, AbstractGroovyMojo.class.getClassLoader()).getProtectionDomain().getCodeSource();
+                if (codeSource != null) {
+                    classpath.add(new File(codeSource.getLocation().toURI()).getAbsoluteFile());
+                }
+            } catch (ClassNotFoundException | URISyntaxException | RuntimeException e) {
+                getLog().debug("Unable to find the jar of " + className + " to add to the fork classpath.", e);
+            }
+        }
+        Set<String> pluginDependencies = new HashSet<>();
+        if (pluginDescriptor.getDependencies() != null) {
+            for (ComponentDependency dependency : pluginDescriptor.getDependencies()) {
+                pluginDependencies.add(dependency.getGroupId() + ":" + dependency.getArtifactId());
+            }
+        }
+        for (Artifact artifact : pluginDescriptor.getArtifacts()) {
+            if (artifact.getFile() != null && !pluginDependencies.contains(artifact.getGroupId() + ":" + artifact.getArtifactId())) {
+                classpath.add(artifact.getFile().getAbsoluteFile());
+            }
+        }
+        return new ArrayList<>(classpath);
+    }
+
+    private String pathingJar(final List<File> classpath) {
+        getLog().debug("Fork classpath: " + classpath);
+        try {
+            return PathingJar.create(getPluginCacheDirectory("fork-classpath"), classpath).getAbsolutePath();
+        } catch (IOException e) {
+            getLog().debug("Unable to create a pathing jar for the fork classpath, passing it on the command line.", e);
+            StringBuilder cp = new StringBuilder();
+            for (File entry : classpath) {
+                if (cp.length() > 0) {
+                    cp.append(File.pathSeparator);
+                }
+                cp.append(entry.getPath());
+            }
+            return cp.toString();
+        }
+    }
+
+    /**
+     * Gets the forks that are kept running for the rest of the session, so forked executions can be queued onto them.
+     *
+     * @return the forks, or <code>null</code> if there is no session to keep them for
+     */
+    protected ForkedGroovyCompilerPool getForkedGroovyCompilerPool() {
+        SessionResources sessionResources = SessionResources.forSession(session, getLog());
+        if (sessionResources == null) {
+            return null;
+        }
+        return sessionResources.get(ForkedGroovyCompilerPool.class.getName(), ForkedGroovyCompilerPool.class, ForkedGroovyCompilerPool::new);
+    }
+
+    /**
+     * Creates the build cache to use, on the HTTP server at the URL if one is given, otherwise in the directory.
+     *
+     * @param directory the directory to keep the cache in (defaults to <code>&lt;local repository&gt;/.cache/gmavenplus/build-cache</code> if <code>null</code>)
+     * @param url       the URL of an HTTP build cache (can be <code>null</code>)
+     * @return the build cache
+     */
+    protected BuildCache createBuildCache(File directory, String url) {
+        if (!isBlank(url)) {
+            return new BuildCache(new HttpBuildCacheBackend(url.trim()), getLog());
+        }
+        return new BuildCache(new DirectoryBuildCacheBackend(directory != null ? directory : getPluginCacheDirectory("build-cache")), getLog());
+    }
+
+    /**
+     * Instantiate a ClassWrangler, optionally loading the Groovy jar from the project classpath in a classloader shared
+     * with other executions of this session that use the same Groovy jar (only when <code>includeClasspath</code> is
+     * <code>PROJECT_ONLY</code>). The ClassWrangler must be closed with {@link #closeClassWrangler()}.
+     *
+     * @param classpath              the classpath to load onto a new classloader (if includeClasspath is <code>PROJECT_ONLY</code>)
+     * @param includeClasspath       whether to use a shared classloader that includes both the project classpath and plugin classpath.
+     * @param shareGroovyClassLoader whether to load Groovy in a classloader shared with other executions
+     * @throws MalformedURLException when a classpath element provides a malformed URL
+     */
+    protected void setupClassWrangler(List<?> classpath, IncludeClasspath includeClasspath, boolean shareGroovyClassLoader) throws MalformedURLException {
+        registerClassLoaderReport();
+        if (shareGroovyClassLoader && IncludeClasspath.PROJECT_ONLY.equals(includeClasspath)) {
+            SessionResources sessionResources = SessionResources.forSession(session, getLog());
+            if (sessionResources != null && classpath != null) {
+                List<File> sharedJars = new ArrayList<>();
+                List<Object> projectClasspath = new ArrayList<>();
+                for (Object classpathElement : classpath) {
+                    File file = classpathElement instanceof File ? (File) classpathElement : new File(String.valueOf(classpathElement));
+                    if (ClassLoaderCache.isShareable(file)) {
+                        sharedJars.add(file);
+                    } else {
+                        projectClasspath.add(classpathElement);
+                    }
+                }
+                if (!sharedJars.isEmpty()) {
+                    sharedClassLoaderCache = sessionResources.get(ClassLoaderCache.class.getName(), ClassLoaderCache.class, () -> new ClassLoaderCache(getLog()));
+                    sharedClassLoader = sharedClassLoaderCache.acquire(sharedJars, ClassLoader.getSystemClassLoader());
+                    getLog().info("Using isolated classloader, without GMavenPlus classpath, with Groovy shared between executions.");
+                    classWrangler = new ClassWrangler(projectClasspath, sharedClassLoader, getLog());
+                    return;
+                }
+            }
+        }
+        setupClassWrangler(classpath, includeClasspath);
+    }
+
+    /**
+     * Closes the ClassWrangler, restoring the thread context classloader and closing its classloader, and releases the
+     * shared classloader used by the ClassWrangler (if any), so the cache can dispose of it when no longer used.
+     */
+    protected void closeClassWrangler() {
+        if (classWrangler != null) {
+            classWrangler.close();
+        }
+        if (sharedClassLoader != null) {
+            sharedClassLoaderCache.release(sharedClassLoader);
+            sharedClassLoader = null;
+            sharedClassLoaderCache = null;
+        }
+    }
+
     /**
      * Instantiate a ClassWrangler.
      *
@@ -269,6 +496,7 @@ public abstract class AbstractGroovyMojo extends AbstractMojo {
      * @throws MalformedURLException when a classpath element provides a malformed URL
      */
     protected void setupClassWrangler(List<?> classpath, IncludeClasspath includeClasspath) throws MalformedURLException {
+        registerClassLoaderReport();
         if (IncludeClasspath.PROJECT_ONLY.equals(includeClasspath)) {
             getLog().info("Using isolated classloader, without GMavenPlus classpath.");
             classWrangler = new ClassWrangler(classpath, ClassLoader.getSystemClassLoader(), getLog());
@@ -281,4 +509,20 @@ public abstract class AbstractGroovyMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Registers logging (at debug level) of how many classloaders GMavenPlus created, closed, and left reachable, once
+     * at the end of the session.
+     */
+    protected void registerClassLoaderReport() {
+        final SessionResources sessionResources = SessionResources.forSession(session, getLog());
+        if (sessionResources != null) {
+            sessionResources.get(ClassLoaderTracker.class.getName(), Closeable.class, () -> () -> {
+                Log log = sessionResources.getLog();
+                if (log != null && log.isDebugEnabled()) {
+                    log.debug(ClassLoaderTracker.describe());
+                }
+            });
+        }
+    }
+
 }
@@ -23,6 +23,11 @@ import java.net.MalformedURLException;
 @Mojo(name = "compile", defaultPhase = LifecyclePhase.COMPILE, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
 public class CompileMojo extends AbstractCompileMojo {
 
+    /**
+     * The project context key holding the <code>outputJar</code> the main sources were compiled into.
+     */
+    protected static final String OUTPUT_JAR_CONTEXT_KEY = "gmavenplus.outputJar";
+
     /**
      * The Groovy source files (relative paths).
      * Default: "${project.basedir}/src/main/groovy/&#42;&#42;/&#42;.groovy"
@@ -36,6 +41,38 @@ public class CompileMojo extends AbstractCompileMojo {
     @Parameter(defaultValue = "${project.build.outputDirectory}")
     protected File outputDirectory;
 
+    /**
+     * A jar (or zip) file to write the compiled classes into, in a single sequential write, instead of writing each
+     * class file to <code>outputDirectory</code>. This is much cheaper for modules with many classes on file systems
+     * where small-file I/O is slow. Only the compiled classes go into the jar (resources are still copied to the output
+     * directory), so <code>outputDirectory</code> won't contain them. The compileTests goal adds the jar to its
+     * classpath, but anything else using the classes needs the jar adding to its classpath, like running the tests:
+     * <pre>
+     * &lt;plugin&gt;
+     *   &lt;groupId&gt;org.codehaus.gmavenplus&lt;/groupId&gt;
+     *   &lt;artifactId&gt;gmavenplus-plugin&lt;/artifactId&gt;
+     *   &lt;configuration&gt;
+     *     &lt;outputJar&gt;${project.build.directory}/groovy-classes.jar&lt;/outputJar&gt;
+     *   &lt;/configuration&gt;
+     * &lt;/plugin&gt;
+     * &lt;plugin&gt;
+     *   &lt;groupId&gt;org.apache.maven.plugins&lt;/groupId&gt;
+     *   &lt;artifactId&gt;maven-surefire-plugin&lt;/artifactId&gt;
+     *   &lt;configuration&gt;
+     *     &lt;additionalClasspathElements&gt;
+     *       &lt;additionalClasspathElement&gt;${project.build.directory}/groovy-classes.jar&lt;/additionalClasspathElement&gt;
+     *     &lt;/additionalClasspathElements&gt;
+     *   &lt;/configuration&gt;
+     * &lt;/plugin&gt;
+     * </pre>
+     * Packaging also needs the jar's contents (for example, unpacked into <code>outputDirectory</code> or attached as
+     * an additional artifact). Incremental compilation isn't used when compiling into a jar.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(property = "gmavenplus.outputJar")
+    protected File outputJar;
+
     /**
      * Executes this mojo.
      *
@@ -49,6 +86,10 @@ public class CompileMojo extends AbstractCompileMojo {
             } catch (DependencyResolutionRequiredException e) {
                 getLog().debug("Unable to log project compile classpath");
             }
+            if (outputJar != null) {
+                getLog().warn("Compiling into " + outputJar + ", so " + outputDirectory + " won't contain the Groovy classes. Anything other than the compileTests goal using them (like running the tests or packaging) needs the jar added to its classpath.");
+                project.setContextValue(OUTPUT_JAR_CONTEXT_KEY, outputJar);
+            }
             doCompile(getFiles(sources, false), project.getCompileClasspathElements(), outputDirectory);
         } catch (ClassNotFoundException e) {
             throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). Do you have Groovy as a compile dependency in your project?", e);
@@ -65,4 +106,9 @@ public class CompileMojo extends AbstractCompileMojo {
         }
     }
 
+    @Override
+    protected File getOutputJar() {
+        return outputJar;
+    }
+
 }
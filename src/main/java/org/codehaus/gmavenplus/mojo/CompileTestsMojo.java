@@ -11,6 +11,8 @@ import org.apache.maven.shared.model.fileset.FileSet;
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -60,7 +62,14 @@ public class CompileTestsMojo extends AbstractCompileMojo {
             } catch (DependencyResolutionRequiredException e) {
                 getLog().debug("Unable to log project test classpath");
             }
-            doCompile(getTestFiles(testSources, false), project.getTestClasspathElements(), testOutputDirectory);
+            List<String> classpath = project.getTestClasspathElements();
+            // the main classes aren't in the output directory when they were compiled into a jar
+            File mainOutputJar = (File) project.getContextValue(CompileMojo.OUTPUT_JAR_CONTEXT_KEY);
+            if (mainOutputJar != null) {
+                classpath = new ArrayList<>(classpath);
+                classpath.add(mainOutputJar.getAbsolutePath());
+            }
+            doCompile(getTestFiles(testSources, false), classpath, testOutputDirectory);
         } catch (ClassNotFoundException e) {
             throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). Do you have Groovy as a compile dependency in your project?", e);
         } catch (InvocationTargetException e) {
@@ -66,74 +66,78 @@ public class ConsoleMojo extends AbstractToolsMojo {
             throw new MojoExecutionException("Test dependencies weren't resolved.", e);
         }
 
-        logPluginClasspath();
-        classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
-
         try {
-            getLog().debug("Project test classpath:\n" + project.getTestClasspathElements());
-        } catch (DependencyResolutionRequiredException e) {
-            getLog().debug("Unable to log project test classpath");
-        }
+            logPluginClasspath();
+            classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
 
-        if (!groovyVersionSupportsAction()) {
-            getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support running a console. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping console startup.");
-            return;
-        }
+            try {
+                getLog().debug("Project test classpath:\n" + project.getTestClasspathElements());
+            } catch (DependencyResolutionRequiredException e) {
+                getLog().debug("Unable to log project test classpath");
+            }
 
-        final SecurityManager defaultSecurityManager = System.getSecurityManager();
-        try {
-            if (!allowSystemExits) {
-                getLog().warn("JEP 411 deprecated Security Manager in Java 17 for removal. Therefore `allowSystemExits` is also deprecated for removal.");
-                try {
-                    System.setSecurityManager(new NoExitSecurityManager());
-                } catch (UnsupportedOperationException e) {
-                    getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
-                }
+            if (!groovyVersionSupportsAction()) {
+                getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support running a console. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping console startup.");
+                return;
             }
 
-            // get classes we need with reflection
-            Class<?> consoleClass;
+            final SecurityManager defaultSecurityManager = System.getSecurityManager();
             try {
-                consoleClass = classWrangler.getClass("groovy.console.ui.Console");
-            } catch (ClassNotFoundException e) {
-                consoleClass = classWrangler.getClass("groovy.ui.Console");
-            }
-            Class<?> bindingClass = classWrangler.getClass("groovy.lang.Binding");
+                if (!allowSystemExits) {
+                    getLog().warn("JEP 411 deprecated Security Manager in Java 17 for removal. Therefore `allowSystemExits` is also deprecated for removal.");
+                    try {
+                        System.setSecurityManager(new NoExitSecurityManager());
+                    } catch (UnsupportedOperationException e) {
+                        getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+                    }
+                }
 
-            // create console to run
-            Object console = setupConsole(consoleClass, bindingClass);
+                // get classes we need with reflection
+                Class<?> consoleClass;
+                try {
+                    consoleClass = classWrangler.getClass("groovy.console.ui.Console");
+                } catch (ClassNotFoundException e) {
+                    consoleClass = classWrangler.getClass("groovy.ui.Console");
+                }
+                Class<?> bindingClass = classWrangler.getClass("groovy.lang.Binding");
 
-            // run the console
-            invokeMethod(findMethod(consoleClass, "run"), console);
+                // create console to run
+                Object console = setupConsole(consoleClass, bindingClass);
 
-            // TODO: for some reason instantiating AntBuilder before calling run() causes its stdout and stderr streams to not be captured by the Console
-            bindAntBuilder(consoleClass, bindingClass, console);
+                // run the console
+                invokeMethod(findMethod(consoleClass, "run"), console);
 
-            // open script file
-            loadScript(consoleClass, console);
+                // TODO: for some reason instantiating AntBuilder before calling run() causes its stdout and stderr streams to not be captured by the Console
+                bindAntBuilder(consoleClass, bindingClass, console);
 
-            // wait for console to be closed
-            waitForConsoleClose();
-        } catch (ClassNotFoundException e) {
-            throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). Ensure groovy-console is on your project or plugin classpath.", e);
-        } catch (InvocationTargetException e) {
-            if (e.getCause() instanceof NoClassDefFoundError && "org/apache/ivy/core/report/ResolveReport".equals(e.getCause().getMessage())) {
-                throw new MojoExecutionException("Groovy 1.7.6 and 1.7.7 have a dependency on Ivy to run the console. Either change your Groovy version or add Ivy as a project or plugin dependency.", e);
-            } else {
-                throw new MojoExecutionException("Error occurred while calling a method on a Groovy class from classpath.", e);
-            }
-        } catch (IllegalAccessException e) {
-            throw new MojoExecutionException("Unable to access a method on a Groovy class from classpath.", e);
-        } catch (InstantiationException e) {
-            throw new MojoExecutionException("Error occurred while instantiating a Groovy class from classpath.", e);
-        } finally {
-            if (!allowSystemExits) {
-                try {
-                    System.setSecurityManager(defaultSecurityManager);
-                } catch (UnsupportedOperationException e) {
-                    getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+                // open script file
+                loadScript(consoleClass, console);
+
+                // wait for console to be closed
+                waitForConsoleClose();
+            } catch (ClassNotFoundException e) {
+                throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). Ensure groovy-console is on your project or plugin classpath.", e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof NoClassDefFoundError && "org/apache/ivy/core/report/ResolveReport".equals(e.getCause().getMessage())) {
+                    throw new MojoExecutionException("Groovy 1.7.6 and 1.7.7 have a dependency on Ivy to run the console. Either change your Groovy version or add Ivy as a project or plugin dependency.", e);
+                } else {
+                    throw new MojoExecutionException("Error occurred while calling a method on a Groovy class from classpath.", e);
+                }
+            } catch (IllegalAccessException e) {
+                throw new MojoExecutionException("Unable to access a method on a Groovy class from classpath.", e);
+            } catch (InstantiationException e) {
+                throw new MojoExecutionException("Error occurred while instantiating a Groovy class from classpath.", e);
+            } finally {
+                if (!allowSystemExits) {
+                    try {
+                        System.setSecurityManager(defaultSecurityManager);
+                    } catch (UnsupportedOperationException e) {
+                        getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+                    }
                 }
             }
+        } finally {
+            closeClassWrangler();
         }
     }
 
@@ -95,6 +95,16 @@ public class ExecuteMojo extends AbstractToolsMojo {
     @Parameter(defaultValue = "0", property = "urlReadTimeout")
     protected int urlReadTimeout;
 
+    /**
+     * Whether to close the classloader the scripts ran in when they're done, releasing its jar files. Leave this off if
+     * the scripts start threads that keep running after the goal (like an embedded server started before integration
+     * tests), since those can't load any more classes once it's closed.
+     *
+     * @since 5.1.0
+     */
+    @Parameter(defaultValue = "false", property = "gmavenplus.closeScriptClassLoader")
+    protected boolean closeScriptClassLoader;
+
     /**
      * Executes this mojo.
      *
@@ -129,55 +139,64 @@ public class ExecuteMojo extends AbstractToolsMojo {
             throw new MojoExecutionException("Test dependencies weren't resolved.", e);
         }
 
-        logPluginClasspath();
-        classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
-
         try {
-            getLog().debug("Project test classpath:\n" + project.getTestClasspathElements());
-        } catch (DependencyResolutionRequiredException e) {
-            getLog().debug("Unable to log project test classpath");
-        }
+            logPluginClasspath();
+            classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
 
-        if (!groovyVersionSupportsAction()) {
-            getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support script execution. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping script execution.");
-            return;
-        }
+            try {
+                getLog().debug("Project test classpath:\n" + project.getTestClasspathElements());
+            } catch (DependencyResolutionRequiredException e) {
+                getLog().debug("Unable to log project test classpath");
+            }
 
-        final SecurityManager defaultSecurityManager = System.getSecurityManager();
-        try {
-            if (!allowSystemExits) {
-                getLog().warn("JEP 411 deprecated Security Manager in Java 17 for removal. Therefore `allowSystemExits` is also deprecated for removal.");
-                try {
-                    System.setSecurityManager(new NoExitSecurityManager());
-                } catch (UnsupportedOperationException e) {
-                    getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
-                }
+            if (!groovyVersionSupportsAction()) {
+                getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support script execution. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping script execution.");
+                return;
             }
 
-            // get classes we need with reflection
-            Class<?> groovyShellClass = classWrangler.getClass("groovy.lang.GroovyShell");
+            final SecurityManager defaultSecurityManager = System.getSecurityManager();
+            try {
+                if (!allowSystemExits) {
+                    getLog().warn("JEP 411 deprecated Security Manager in Java 17 for removal. Therefore `allowSystemExits` is also deprecated for removal.");
+                    try {
+                        System.setSecurityManager(new NoExitSecurityManager());
+                    } catch (UnsupportedOperationException e) {
+                        getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+                    }
+                }
 
-            // create a GroovyShell to run scripts in
-            Object shell = setupShell(groovyShellClass);
+                // get classes we need with reflection
+                Class<?> groovyShellClass = classWrangler.getClass("groovy.lang.GroovyShell");
 
-            // run the scripts
-            executeScripts(groovyShellClass, shell);
-        } catch (ClassNotFoundException e) {
-            throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). Do you have Groovy as a compile dependency in your project or the plugin?", e);
-        } catch (InvocationTargetException e) {
-            throw new MojoExecutionException("Error occurred while calling a method on a Groovy class from classpath.", e);
-        } catch (InstantiationException e) {
-            throw new MojoExecutionException("Error occurred while instantiating a Groovy class from classpath.", e);
-        } catch (IllegalAccessException e) {
-            throw new MojoExecutionException("Unable to access a method on a Groovy class from classpath.", e);
-        } finally {
-            if (!allowSystemExits) {
-                try {
-                    System.setSecurityManager(defaultSecurityManager);
-                } catch (UnsupportedOperationException e) {
-                    getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+                // create a GroovyShell to run scripts in
+                Object shell = setupShell(groovyShellClass);
+
+                // run the scripts
+                executeScripts(groovyShellClass, shell);
+            } catch (ClassNotFoundException e) {
+                throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). Do you have Groovy as a compile dependency in your project or the plugin?", e);
+            } catch (InvocationTargetException e) {
+                throw new MojoExecutionException("Error occurred while calling a method on a Groovy class from classpath.", e);
+            } catch (InstantiationException e) {
+                throw new MojoExecutionException("Error occurred while instantiating a Groovy class from classpath.", e);
+            } catch (IllegalAccessException e) {
+                throw new MojoExecutionException("Unable to access a method on a Groovy class from classpath.", e);
+            } finally {
+                if (!allowSystemExits) {
+                    try {
+                        System.setSecurityManager(defaultSecurityManager);
+                    } catch (UnsupportedOperationException e) {
+                        getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+                    }
                 }
             }
+        } finally {
+            if (closeScriptClassLoader) {
+                closeClassWrangler();
+            } else {
+                // threads the scripts started can still need to load classes
+                classWrangler.restoreContextClassLoader();
+            }
         }
     }
 
@@ -0,0 +1,29 @@
+package org.codehaus.gmavenplus.mojo;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.codehaus.plexus.component.annotations.Component;
+
+
+/**
+ * Closes the {@link SessionResources} of a session when the session ends. Maven only uses lifecycle participants of
+ * plugins loaded as build extensions (<code>&lt;extensions&gt;true&lt;/extensions&gt;</code>); otherwise
+ * SessionResources falls back to watching the session's execution listener.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+@Component(role = AbstractMavenLifecycleParticipant.class, hint = "gmavenplus")
+public class SessionEndParticipant extends AbstractMavenLifecycleParticipant {
+
+    @Override
+    public void afterProjectsRead(final MavenSession session) {
+        SessionResources.sessionStarted(session);
+    }
+
+    @Override
+    public void afterSessionEnd(final MavenSession session) {
+        SessionResources.sessionEnded(session);
+    }
+
+}
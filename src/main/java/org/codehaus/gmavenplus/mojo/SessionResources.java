@@ -0,0 +1,304 @@
+package org.codehaus.gmavenplus.mojo;
+
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+
+/**
+ * Holds objects shared by all GMavenPlus executions of a Maven session (like caches), and closes them when the session
+ * ends. Resources are kept by the session's execution request rather than the session itself, since parallel builds
+ * give each project a clone of the session (which shares the request), and the resources are meant to be shared by the
+ * whole reactor.
+ * <p>
+ * When the plugin is loaded as a build extension, {@link SessionEndParticipant} reports the end of the session.
+ * Otherwise Maven offers plugins no hook for it, so the session's execution listener is wrapped (once per session) with
+ * one that forwards every event to the listener it replaced. Other extensions replacing the listener afterwards need
+ * to forward events to the listener they replaced too; if they don't, the resources are only released when the JVM
+ * exits.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public final class SessionResources {
+
+    private static final Map<MavenExecutionRequest, SessionResources> SESSIONS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The sessions whose end is reported by {@link SessionEndParticipant}.
+     */
+    private static final Set<MavenExecutionRequest> PARTICIPANT_SESSIONS = Collections.newSetFromMap(Collections.synchronizedMap(new WeakHashMap<>()));
+
+    private final Map<String, Object> resources = new HashMap<>();
+    private final List<Closeable> closeables = new ArrayList<>();
+    private volatile Log log;
+    private boolean closed;
+
+    private SessionResources() {
+    }
+
+    /**
+     * Gets the resources of the given session, registering for the end of the session on first use.
+     *
+     * @param session the Maven session (can be <code>null</code>)
+     * @param log     the log to use when closing resources at the end of the session
+     * @return the resources of the session, or <code>null</code> if there is no session
+     */
+    public static SessionResources forSession(final MavenSession session, final Log log) {
+        if (session == null || session.getRequest() == null) {
+            return null;
+        }
+        synchronized (SESSIONS) {
+            MavenExecutionRequest request = session.getRequest();
+            SessionResources sessionResources = SESSIONS.get(request);
+            if (sessionResources == null) {
+                sessionResources = new SessionResources();
+                if (!PARTICIPANT_SESSIONS.contains(request)) {
+                    request.setExecutionListener(new SessionEndListener(request.getExecutionListener(), request));
+                }
+                SESSIONS.put(request, sessionResources);
+            }
+            sessionResources.log = log;
+            return sessionResources;
+        }
+    }
+
+    /**
+     * Records that the end of the given session will be reported by {@link SessionEndParticipant}, so the session's
+     * execution listener is left alone.
+     *
+     * @param session the Maven session
+     */
+    static void sessionStarted(final MavenSession session) {
+        if (session != null && session.getRequest() != null) {
+            PARTICIPANT_SESSIONS.add(session.getRequest());
+        }
+    }
+
+    /**
+     * Closes the resources of the given session.
+     *
+     * @param session the Maven session
+     */
+    static void sessionEnded(final MavenSession session) {
+        if (session != null && session.getRequest() != null) {
+            endSession(session.getRequest());
+        }
+    }
+
+    private static void endSession(final MavenExecutionRequest request) {
+        PARTICIPANT_SESSIONS.remove(request);
+        SessionResources sessionResources = SESSIONS.remove(request);
+        if (sessionResources != null) {
+            sessionResources.close();
+        }
+    }
+
+    /**
+     * Gets the resource with the given key, creating it if this is the first use in this session. Resources that are
+     * <code>Closeable</code> are closed (in reverse order of creation) when the session ends.
+     *
+     * @param key     the key of the resource
+     * @param type    the type of the resource
+     * @param factory creates the resource
+     * @param <T>     the type of the resource
+     * @return the resource
+     */
+    public synchronized <T> T get(final String key, final Class<T> type, final Supplier<T> factory) {
+        Object resource = resources.get(key);
+        if (resource == null) {
+            resource = factory.get();
+            resources.put(key, resource);
+            if (resource instanceof Closeable) {
+                closeables.add((Closeable) resource);
+            }
+        }
+        return type.cast(resource);
+    }
+
+    /**
+     * Closes all resources of this session.
+     */
+    public void close() {
+        List<Closeable> toClose;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(closeables);
+            closeables.clear();
+            resources.clear();
+        }
+        Collections.reverse(toClose);
+        for (Closeable closeable : toClose) {
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                if (log != null) {
+                    log.debug("Unable to close " + closeable + ".", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the log most recently supplied by a mojo of this session.
+     *
+     * @return the log (can be <code>null</code>)
+     */
+    public Log getLog() {
+        return log;
+    }
+
+    /**
+     * An execution listener that forwards all events to the listener it replaced, and closes the session's resources
+     * when the session ends.
+     */
+    private static class SessionEndListener implements ExecutionListener {
+        private final ExecutionListener delegate;
+        private final MavenExecutionRequest request;
+
+        private SessionEndListener(final ExecutionListener delegate, final MavenExecutionRequest request) {
+            this.delegate = delegate;
+            this.request = request;
+        }
+
+        @Override
+        public void projectDiscoveryStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectDiscoveryStarted(event);
+            }
+        }
+
+        @Override
+        public void sessionStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.sessionStarted(event);
+            }
+        }
+
+        @Override
+        public void sessionEnded(ExecutionEvent event) {
+            try {
+                endSession(request);
+            } finally {
+                if (delegate != null) {
+                    delegate.sessionEnded(event);
+                }
+            }
+        }
+
+        @Override
+        public void projectSkipped(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectSkipped(event);
+            }
+        }
+
+        @Override
+        public void projectStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectStarted(event);
+            }
+        }
+
+        @Override
+        public void projectSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectSucceeded(event);
+            }
+        }
+
+        @Override
+        public void projectFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectFailed(event);
+            }
+        }
+
+        @Override
+        public void mojoSkipped(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoSkipped(event);
+            }
+        }
+
+        @Override
+        public void mojoStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoStarted(event);
+            }
+        }
+
+        @Override
+        public void mojoSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoSucceeded(event);
+            }
+        }
+
+        @Override
+        public void mojoFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoFailed(event);
+            }
+        }
+
+        @Override
+        public void forkStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkStarted(event);
+            }
+        }
+
+        @Override
+        public void forkSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkSucceeded(event);
+            }
+        }
+
+        @Override
+        public void forkFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkFailed(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectStarted(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectSucceeded(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectFailed(event);
+            }
+        }
+    }
+
+}
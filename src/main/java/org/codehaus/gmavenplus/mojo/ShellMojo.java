@@ -97,96 +97,100 @@ public class ShellMojo extends AbstractToolsMojo {
             throw new MojoExecutionException("Test dependencies weren't resolved.", e);
         }
 
-        logPluginClasspath();
-        classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
-
         try {
-            getLog().debug("Project test classpath:\n" + project.getTestClasspathElements());
-        } catch (DependencyResolutionRequiredException e) {
-            getLog().debug("Unable to log project test classpath");
-        }
+            logPluginClasspath();
+            classWrangler.logGroovyVersion(mojoExecution.getMojoDescriptor().getGoal());
 
-        if (!groovyVersionSupportsAction()) {
-            getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support running a shell. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping shell startup.");
-            return;
-        }
+            try {
+                getLog().debug("Project test classpath:\n" + project.getTestClasspathElements());
+            } catch (DependencyResolutionRequiredException e) {
+                getLog().debug("Unable to log project test classpath");
+            }
 
-        final SecurityManager defaultSecurityManager = System.getSecurityManager();
-        try {
-            if (!allowSystemExits) {
-                getLog().warn("JEP 411 deprecated Security Manager in Java 17 for removal. Therefore `allowSystemExits` is also deprecated for removal.");
-                try {
-                    System.setSecurityManager(new NoExitSecurityManager());
-                } catch (UnsupportedOperationException e) {
-                    getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
-                }
+            if (!groovyVersionSupportsAction()) {
+                getLog().error("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support running a shell. The minimum version of Groovy required is " + minGroovyVersion + ". Skipping shell startup.");
+                return;
             }
 
-            if (groovyAtLeast(GROOVY_5_0_0_BETA2)) {
-                executeModernShell();
-            } else {
-                // get classes we need with reflection
-                String shellPackage = groovyAtLeast(GROOVY_4_0_0_ALPHA1) ? "org.apache.groovy.groovysh" : "org.codehaus.groovy.tools.shell";
-                Class<?> shellClass = classWrangler.getClass(shellPackage + ".Groovysh");
-                Class<?> bindingClass = classWrangler.getClass("groovy.lang.Binding");
-                Class<?> ioClass = classWrangler.getClass(shellPackage + ".IO");
-                Class<?> verbosityClass = classWrangler.getClass(shellPackage + ".util.Verbosity");
-                Class<?> loggerClass = classWrangler.getClass(shellPackage + ".util.Logger");
+            final SecurityManager defaultSecurityManager = System.getSecurityManager();
+            try {
+                if (!allowSystemExits) {
+                    getLog().warn("JEP 411 deprecated Security Manager in Java 17 for removal. Therefore `allowSystemExits` is also deprecated for removal.");
+                    try {
+                        System.setSecurityManager(new NoExitSecurityManager());
+                    } catch (UnsupportedOperationException e) {
+                        getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+                    }
+                }
 
-                // create shell to run
-                Object shell = setupShell(shellClass, bindingClass, ioClass, verbosityClass, loggerClass);
+                if (groovyAtLeast(GROOVY_5_0_0_BETA2)) {
+                    executeModernShell();
+                } else {
+                    // get classes we need with reflection
+                    String shellPackage = groovyAtLeast(GROOVY_4_0_0_ALPHA1) ? "org.apache.groovy.groovysh" : "org.codehaus.groovy.tools.shell";
+                    Class<?> shellClass = classWrangler.getClass(shellPackage + ".Groovysh");
+                    Class<?> bindingClass = classWrangler.getClass("groovy.lang.Binding");
+                    Class<?> ioClass = classWrangler.getClass(shellPackage + ".IO");
+                    Class<?> verbosityClass = classWrangler.getClass(shellPackage + ".util.Verbosity");
+                    Class<?> loggerClass = classWrangler.getClass(shellPackage + ".util.Logger");
 
-                // run the shell
-                if (groovyOlderThan(GROOVY_5_0_4)) {
-                    try {
-                        Class<?> ansiConsoleClass = classWrangler.getClass("org.fusesource.jansi.AnsiConsole");
-                        ansiConsoleClass.getMethod("wrapOutputStream", java.io.OutputStream.class);
-                    } catch (Exception e) {
-                        String message = "Jansi 2.x detected, which is incompatible with JLine 2. Falling back to dumb terminal. Colors will be disabled.";
-                        if (groovyAtLeast(GROOVY_5_0_0_ALPHA1)) {
-                            message += " To enable colors, use Groovy 5.0.4 or later.";
-                        } else if (groovyOlderThan(GROOVY_5_0_0_ALPHA1)) {
-                            try {
-                                classWrangler.getClass("org.fusesource.jansi.AnsiConsole");
-                            } catch (ClassNotFoundException cnfe) {
-                                message = "Jansi 1.x not found on classpath. Terminal colors will be disabled. To enable them, add org.fusesource.jansi:jansi:1.18 to the plugin's dependencies.";
+                    // create shell to run
+                    Object shell = setupShell(shellClass, bindingClass, ioClass, verbosityClass, loggerClass);
+
+                    // run the shell
+                    if (groovyOlderThan(GROOVY_5_0_4)) {
+                        try {
+                            Class<?> ansiConsoleClass = classWrangler.getClass("org.fusesource.jansi.AnsiConsole");
+                            ansiConsoleClass.getMethod("wrapOutputStream", java.io.OutputStream.class);
+                        } catch (Exception e) {
+                            String message = "Jansi 2.x detected, which is incompatible with JLine 2. Falling back to dumb terminal. Colors will be disabled.";
+                            if (groovyAtLeast(GROOVY_5_0_0_ALPHA1)) {
+                                message += " To enable colors, use Groovy 5.0.4 or later.";
+                            } else if (groovyOlderThan(GROOVY_5_0_0_ALPHA1)) {
+                                try {
+                                    classWrangler.getClass("org.fusesource.jansi.AnsiConsole");
+                                } catch (ClassNotFoundException cnfe) {
+                                    message = "Jansi 1.x not found on classpath. Terminal colors will be disabled. To enable them, add org.fusesource.jansi:jansi:1.18 to the plugin's dependencies.";
+                                }
                             }
+                            getLog().warn(message);
+                            System.setProperty("jline.terminal", "jline.UnsupportedTerminal");
                         }
-                        getLog().warn(message);
-                        System.setProperty("jline.terminal", "jline.UnsupportedTerminal");
                     }
+                    invokeMethod(findMethod(shellClass, "run", String.class), shell, (String) null);
                 }
-                invokeMethod(findMethod(shellClass, "run", String.class), shell, (String) null);
-            }
-        } catch (ClassNotFoundException e) {
-            if (groovyAtLeast(GROOVY_5_0_0_ALPHA1)) {
-                throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). This Groovy version (" + classWrangler.getGroovyVersionString() + ") revamped the shell to use JLine 3 and removed some older classes. You might need to use Groovy 5.0.4 or later for full support.", e);
-            }
-            throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). Ensure groovy-groovysh is on your plugin classpath.", e);
-        } catch (InvocationTargetException e) {
-            if (e.getCause() instanceof NoClassDefFoundError && e.getCause().getMessage() != null && e.getCause().getMessage().contains("jline")) {
+            } catch (ClassNotFoundException e) {
                 if (groovyAtLeast(GROOVY_5_0_0_ALPHA1)) {
-                    throw new MojoExecutionException("Unable to get a JLine 3 class from classpath. This might be because of a JLine version mismatch. Make sure you include JLine 3.x as a runtime dependency in your project or the plugin.", e);
-                } else if (groovyAtLeast(GROOVY_2_2_0_BETA1)) {
-                    throw new MojoExecutionException("Unable to get a JLine 2 class from classpath. This might be because of a JLine version mismatch. Make sure you include JLine 2.x as a runtime dependency in your project or the plugin.", e);
+                    throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). This Groovy version (" + classWrangler.getGroovyVersionString() + ") revamped the shell to use JLine 3 and removed some older classes. You might need to use Groovy 5.0.4 or later for full support.", e);
+                }
+                throw new MojoExecutionException("Unable to get a Groovy class from classpath (" + e.getMessage() + "). Ensure groovy-groovysh is on your plugin classpath.", e);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof NoClassDefFoundError && e.getCause().getMessage() != null && e.getCause().getMessage().contains("jline")) {
+                    if (groovyAtLeast(GROOVY_5_0_0_ALPHA1)) {
+                        throw new MojoExecutionException("Unable to get a JLine 3 class from classpath. This might be because of a JLine version mismatch. Make sure you include JLine 3.x as a runtime dependency in your project or the plugin.", e);
+                    } else if (groovyAtLeast(GROOVY_2_2_0_BETA1)) {
+                        throw new MojoExecutionException("Unable to get a JLine 2 class from classpath. This might be because of a JLine version mismatch. Make sure you include JLine 2.x as a runtime dependency in your project or the plugin.", e);
+                    } else {
+                        throw new MojoExecutionException("Unable to get a JLine 1 class from classpath. This might be because of a JLine version mismatch. Make sure you include JLine 1.x as a runtime dependency in your project or the plugin.", e);
+                    }
                 } else {
-                    throw new MojoExecutionException("Unable to get a JLine 1 class from classpath. This might be because of a JLine version mismatch. Make sure you include JLine 1.x as a runtime dependency in your project or the plugin.", e);
+                    throw new MojoExecutionException("Error occurred while calling a method on a Groovy class from classpath.", e);
                 }
-            } else {
-                throw new MojoExecutionException("Error occurred while calling a method on a Groovy class from classpath.", e);
-            }
-        } catch (IllegalAccessException e) {
-            throw new MojoExecutionException("Unable to access a method on a Groovy class from classpath.", e);
-        } catch (InstantiationException e) {
-            throw new MojoExecutionException("Error occurred while instantiating a Groovy class from classpath.", e);
-        } finally {
-            if (!allowSystemExits) {
-                try {
-                    System.setSecurityManager(defaultSecurityManager);
-                } catch (UnsupportedOperationException e) {
-                    getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+            } catch (IllegalAccessException e) {
+                throw new MojoExecutionException("Unable to access a method on a Groovy class from classpath.", e);
+            } catch (InstantiationException e) {
+                throw new MojoExecutionException("Error occurred while instantiating a Groovy class from classpath.", e);
+            } finally {
+                if (!allowSystemExits) {
+                    try {
+                        System.setSecurityManager(defaultSecurityManager);
+                    } catch (UnsupportedOperationException e) {
+                        getLog().warn("Attempted to use Security Manager in a JVM where it's disabled by default. You might try `-Djava.security.manager=allow` to override this.");
+                    }
                 }
             }
+        } finally {
+            closeClassWrangler();
         }
     }
 
@@ -0,0 +1,169 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+
+/**
+ * Computes digests of the ABI of classpath entries (see {@link ClassAbi}), so compilation can be skipped when an
+ * upstream jar or class directory only changed in ways that can't affect the classes compiled against it (like method
+ * bodies). The resources that configure the Groovy compiler (under <code>META-INF/services</code> and
+ * <code>META-INF/groovy</code>) are included by content. Entries that contain AST transformations contribute their full
+ * contents instead, since changing a transformation's implementation changes the classes it transforms.
+ * Digests of jars are remembered in memory and, if a cache directory is given, on disk, keyed by the jar's path, size,
+ * and modification time.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class AbiSnapshot {
+
+    private static final Map<String, String> DIGESTS = new ConcurrentHashMap<>();
+
+    private final File cacheDirectory;
+
+    /**
+     * Creates a new AbiSnapshot.
+     *
+     * @param cacheDirectory the directory to remember jar digests in between builds (can be <code>null</code>)
+     */
+    public AbiSnapshot(final File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Computes the ABI digest of a classpath entry.
+     *
+     * @param entry the jar or class directory
+     * @return the hex encoded digest
+     * @throws IOException when the entry cannot be read
+     */
+    public String digest(final File entry) throws IOException {
+        if (entry.isDirectory()) {
+            return directoryDigest(entry);
+        } else if (!entry.isFile()) {
+            return "<missing>";
+        }
+        String key = new Fingerprint().add(entry.getAbsolutePath()).add(entry.length() + ":" + entry.lastModified()).toHexString();
+        String digest = DIGESTS.get(key);
+        if (digest == null) {
+            File cacheFile = cacheDirectory != null ? new File(cacheDirectory, key) : null;
+            if (cacheFile != null && cacheFile.isFile()) {
+                digest = new String(Files.readAllBytes(cacheFile.toPath()), StandardCharsets.UTF_8).trim();
+            } else {
+                digest = jarDigest(entry);
+                if (cacheFile != null) {
+                    try {
+                        Files.createDirectories(cacheDirectory.toPath());
+                        Files.write(cacheFile.toPath(), digest.getBytes(StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        // do nothing, it's only a cache
+                    }
+                }
+            }
+            DIGESTS.put(key, digest);
+        }
+        return digest;
+    }
+
+    private static String jarDigest(final File jar) throws IOException {
+        Fingerprint fingerprint = new Fingerprint();
+        try (ZipFile zip = new ZipFile(jar)) {
+            List<ZipEntry> entries = new ArrayList<>();
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                ZipEntry entry = e.nextElement();
+                if (!entry.isDirectory()) {
+                    entries.add(entry);
+                }
+            }
+            entries.sort((a, b) -> a.getName().compareTo(b.getName()));
+            for (ZipEntry entry : entries) {
+                try (InputStream in = zip.getInputStream(entry)) {
+                    if (!addEntry(fingerprint, entry.getName(), in)) {
+                        return new Fingerprint().addContents(jar).toHexString();
+                    }
+                }
+            }
+        }
+        return fingerprint.toHexString();
+    }
+
+    private static String directoryDigest(final File directory) throws IOException {
+        Fingerprint fingerprint = new Fingerprint();
+        for (File file : listFiles(directory)) {
+            String name = directory.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                if (!addEntry(fingerprint, name, in)) {
+                    return new Fingerprint().addRelativeContents(listFiles(directory), directory).toHexString();
+                }
+            }
+        }
+        return fingerprint.toHexString();
+    }
+
+    /**
+     * Adds an entry of a jar or directory to the fingerprint.
+     *
+     * @return <code>false</code> if the entry is an AST transformation, so the full contents must be used instead
+     */
+    private static boolean addEntry(final Fingerprint fingerprint, final String name, final InputStream in) throws IOException {
+        if (name.endsWith(".class")) {
+            byte[] bytes = readAll(in);
+            String abi;
+            try {
+                abi = ClassAbi.read(bytes);
+            } catch (IOException | RuntimeException e) {
+                // not a class we can read, use all of it
+                abi = new Fingerprint().add(bytes).toHexString();
+            }
+            if (abi != null) {
+                if (abi.contains(ClassAbi.AST_TRANSFORMATION_ANNOTATION)) {
+                    return false;
+                }
+                fingerprint.add(name).add(abi);
+            }
+        } else if (name.startsWith("META-INF/services/") || name.startsWith("META-INF/groovy/")) {
+            fingerprint.add(name).add(readAll(in));
+        }
+        return true;
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static List<File> listFiles(final File directory) {
+        List<File> files = new ArrayList<>();
+        File[] children = directory.listFiles();
+        if (children != null) {
+            Arrays.sort(children);
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    files.addAll(listFiles(child));
+                } else {
+                    files.add(child);
+                }
+            }
+        }
+        return files;
+    }
+
+}
@@ -0,0 +1,187 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+
+/**
+ * A content-addressed cache of the files a goal produces (class files or stubs), keyed by a fingerprint of everything
+ * the goal's output depends on. On a hit, the files are restored into the output directory instead of running the goal.
+ * Each entry is a zip of the produced files, with paths relative to the output directory, kept by a
+ * {@link BuildCacheBackend}. Failures to use the cache are logged and treated as misses, so they never fail the build.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class BuildCache {
+
+    private final BuildCacheBackend backend;
+    private final Log log;
+
+    /**
+     * Creates a new BuildCache.
+     *
+     * @param backend the backend to keep entries in
+     * @param log     the log to use
+     */
+    public BuildCache(final BuildCacheBackend backend, final Log log) {
+        this.backend = backend;
+        this.log = log;
+    }
+
+    /**
+     * Restores the files of an entry into the output directory.
+     *
+     * @param key             the key of the entry
+     * @param outputDirectory the directory to restore the files into
+     * @return the files restored, or <code>null</code> if there is no entry for the key (or it couldn't be restored)
+     */
+    public List<File> restore(final String key, final File outputDirectory) {
+        Path entry = null;
+        try {
+            entry = Files.createTempFile("gmavenplus-cache", ".zip");
+            if (!backend.get(key, entry)) {
+                log.debug("No build cache entry " + key + " in " + backend + ".");
+                return null;
+            }
+            List<File> restored = unzip(entry, outputDirectory);
+            log.debug("Restored " + restored.size() + " file" + (restored.size() != 1 ? "s" : "") + " from build cache entry " + key + " in " + backend + ".");
+            return restored;
+        } catch (IOException e) {
+            log.warn("Unable to restore build cache entry " + key + " from " + backend + ".", e);
+            return null;
+        } finally {
+            deleteQuietly(entry);
+        }
+    }
+
+    /**
+     * Stores files produced in the output directory as an entry.
+     *
+     * @param key             the key of the entry
+     * @param outputDirectory the directory the files are in
+     * @param outputs         the files to store
+     */
+    public void store(final String key, final File outputDirectory, final Collection<File> outputs) {
+        Path entry = null;
+        try {
+            entry = Files.createTempFile("gmavenplus-cache", ".zip");
+            zip(outputDirectory, outputs, entry);
+            backend.put(key, entry);
+            log.debug("Stored " + outputs.size() + " file" + (outputs.size() != 1 ? "s" : "") + " as build cache entry " + key + " in " + backend + ".");
+        } catch (IOException e) {
+            log.warn("Unable to store build cache entry " + key + " in " + backend + ".", e);
+        } finally {
+            deleteQuietly(entry);
+        }
+    }
+
+    /**
+     * Records the size and modification time of every file in a directory, to later find the files a goal produced
+     * with {@link #changedFiles}.
+     *
+     * @param directory the directory to snapshot
+     * @return the size and modification time of each file, by file
+     */
+    public static Map<File, String> snapshot(final File directory) {
+        Map<File, String> snapshot = new HashMap<>();
+        for (File file : listFiles(directory)) {
+            snapshot.put(file, file.length() + ":" + file.lastModified());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Finds the files in a directory that were created or changed since a snapshot was taken, or were written after the
+     * given time (which catches files rewritten with the same size within the file system's timestamp resolution).
+     *
+     * @param directory the directory to search
+     * @param snapshot  the snapshot taken before the goal ran
+     * @param since     the time the goal started, in milliseconds since the epoch
+     * @return the files created or changed
+     */
+    public static List<File> changedFiles(final File directory, final Map<File, String> snapshot, final long since) {
+        // file systems may round modification times down to the second
+        long threshold = since - since % 1000;
+        List<File> changed = new ArrayList<>();
+        for (File file : listFiles(directory)) {
+            String before = snapshot.get(file);
+            if (before == null || !before.equals(file.length() + ":" + file.lastModified()) || file.lastModified() >= threshold) {
+                changed.add(file);
+            }
+        }
+        return changed;
+    }
+
+    private static void zip(final File outputDirectory, final Collection<File> outputs, final Path target) throws IOException {
+        Path base = outputDirectory.getAbsoluteFile().toPath();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(target))) {
+            for (File output : outputs) {
+                ZipEntry zipEntry = new ZipEntry(base.relativize(output.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/'));
+                // fixed times, so identical outputs make identical entries
+                zipEntry.setTime(0L);
+                out.putNextEntry(zipEntry);
+                Files.copy(output.toPath(), out);
+                out.closeEntry();
+            }
+        }
+    }
+
+    private static List<File> unzip(final Path source, final File outputDirectory) throws IOException {
+        Path base = outputDirectory.getAbsoluteFile().toPath().normalize();
+        List<File> files = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(source); ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zip.getNextEntry()) != null) {
+                Path file = base.resolve(zipEntry.getName()).normalize();
+                if (!file.startsWith(base) || zipEntry.isDirectory()) {
+                    throw new IOException("Invalid build cache entry " + zipEntry.getName() + ".");
+                }
+                Files.createDirectories(file.getParent());
+                Files.copy(zip, file, StandardCopyOption.REPLACE_EXISTING);
+                files.add(file.toFile());
+            }
+        }
+        return files;
+    }
+
+    private static List<File> listFiles(final File directory) {
+        List<File> files = new ArrayList<>();
+        File[] children = directory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (child.isDirectory()) {
+                    files.addAll(listFiles(child));
+                } else {
+                    files.add(child);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static void deleteQuietly(final Path file) {
+        if (file != null) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // do nothing, it's only a temporary file
+            }
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+
+/**
+ * Stores and retrieves the entries of a {@link BuildCache}. Entries are opaque files identified by a hex key; backends
+ * don't need to interpret them.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public interface BuildCacheBackend {
+
+    /**
+     * Copies the entry with the given key to a file.
+     *
+     * @param key    the key of the entry
+     * @param target the file to copy the entry to
+     * @return <code>true</code> if the entry was found and copied, <code>false</code> if there is no such entry
+     * @throws IOException when the entry cannot be retrieved
+     */
+    boolean get(String key, Path target) throws IOException;
+
+    /**
+     * Stores a file as the entry with the given key, replacing any existing entry.
+     *
+     * @param key    the key of the entry
+     * @param source the file to store
+     * @throws IOException when the entry cannot be stored
+     */
+    void put(String key, Path source) throws IOException;
+
+}
@@ -0,0 +1,306 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Reads the application binary interface (ABI) of a class file, without loading it: everything other classes can be
+ * compiled against. That is the class's name, modifiers, supertypes, and annotations, and its non-private fields
+ * (including constant values) and methods with their generic signatures, thrown exceptions, annotations, and annotation
+ * defaults. Method bodies, private members, synthetic members, and the order of members aren't part of it, so classes
+ * whose ABI is unchanged don't require recompiling the classes compiled against them. Package-private members are
+ * included, since code in the same package of another module can use them.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ClassAbi {
+
+    /**
+     * The descriptor of the annotation all Groovy AST transformations have.
+     */
+    public static final String AST_TRANSFORMATION_ANNOTATION = "Lorg/codehaus/groovy/transform/GroovyASTTransformation;";
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    private static final int ACC_MODULE = 0x8000;
+
+    // public, private, protected, static, final, interface, abstract, annotation, enum
+    private static final int CLASS_ACCESS = 0x0001 | 0x0002 | 0x0004 | 0x0008 | 0x0010 | 0x0200 | 0x0400 | 0x2000 | 0x4000;
+    // public, private, protected, static, final, enum
+    private static final int FIELD_ACCESS = 0x0001 | 0x0002 | 0x0004 | 0x0008 | 0x0010 | 0x4000;
+    // public, private, protected, static, final, varargs, abstract
+    private static final int METHOD_ACCESS = 0x0001 | 0x0002 | 0x0004 | 0x0008 | 0x0010 | 0x0080 | 0x0400;
+
+    private ClassAbi() {
+    }
+
+    /**
+     * Reads the ABI of a class file, as text that is equal for class files with the same ABI.
+     *
+     * @param classFile the bytes of the class file
+     * @return the ABI, or <code>null</code> if the class isn't usable from other classes (like anonymous, local,
+     * private, synthetic, and module classes)
+     * @throws IOException when the bytes aren't a valid class file
+     */
+    public static String read(final byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != CLASS_FILE_MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        Object[] constants = readConstantPool(in);
+
+        int access = in.readUnsignedShort();
+        String name = className(constants, in.readUnsignedShort());
+        int superIndex = in.readUnsignedShort();
+        if ((access & ACC_MODULE) != 0 || ((access & ACC_SYNTHETIC) != 0 && !name.endsWith("/package-info"))) {
+            return null;
+        }
+        StringBuilder abi = new StringBuilder("class ").append(access & CLASS_ACCESS).append(' ').append(name);
+        if (superIndex != 0) {
+            abi.append(" extends ").append(className(constants, superIndex));
+        }
+        int interfaceCount = in.readUnsignedShort();
+        for (int i = 0; i < interfaceCount; i++) {
+            abi.append(i == 0 ? " implements " : ",").append(className(constants, in.readUnsignedShort()));
+        }
+
+        List<String> members = new ArrayList<>();
+        int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            String field = readMember(in, constants, "field ", FIELD_ACCESS);
+            // old Groovy versions add fields named after the compilation time
+            if (field != null && !field.contains(" __timeStamp")) {
+                members.add(field);
+            }
+        }
+        int methodCount = in.readUnsignedShort();
+        for (int i = 0; i < methodCount; i++) {
+            String method = readMember(in, constants, "method ", METHOD_ACCESS);
+            if (method != null && !method.contains(" <clinit>(")) {
+                members.add(method);
+            }
+        }
+
+        int attributeCount = in.readUnsignedShort();
+        List<String> attributes = new ArrayList<>();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = (String) constants[in.readUnsignedShort()];
+            int length = in.readInt();
+            if ("EnclosingMethod".equals(attributeName)) {
+                // local or anonymous class
+                return null;
+            } else if ("InnerClasses".equals(attributeName)) {
+                int classCount = in.readUnsignedShort();
+                for (int j = 0; j < classCount; j++) {
+                    int innerIndex = in.readUnsignedShort();
+                    int outerIndex = in.readUnsignedShort();
+                    int innerNameIndex = in.readUnsignedShort();
+                    int innerAccess = in.readUnsignedShort();
+                    if (name.equals(className(constants, innerIndex))) {
+                        if (outerIndex == 0 || innerNameIndex == 0 || (innerAccess & ACC_PRIVATE) != 0) {
+                            return null;
+                        }
+                        attributes.add("inner " + (innerAccess & CLASS_ACCESS));
+                    }
+                }
+            } else if (!readAttribute(in, constants, attributeName, length, attributes)) {
+                in.skipBytes(length);
+            }
+        }
+
+        Collections.sort(attributes);
+        for (String attribute : attributes) {
+            abi.append(' ').append(attribute);
+        }
+        abi.append('\n');
+        Collections.sort(members);
+        for (String member : members) {
+            abi.append(member).append('\n');
+        }
+        return abi.toString();
+    }
+
+    private static String readMember(final DataInputStream in, final Object[] constants, final String kind, final int accessMask) throws IOException {
+        int access = in.readUnsignedShort();
+        String name = (String) constants[in.readUnsignedShort()];
+        String descriptor = (String) constants[in.readUnsignedShort()];
+        int attributeCount = in.readUnsignedShort();
+        List<String> attributes = new ArrayList<>();
+        for (int i = 0; i < attributeCount; i++) {
+            String attributeName = (String) constants[in.readUnsignedShort()];
+            int length = in.readInt();
+            if (!readAttribute(in, constants, attributeName, length, attributes)) {
+                in.skipBytes(length);
+            }
+        }
+        if ((access & (ACC_PRIVATE | ACC_SYNTHETIC)) != 0) {
+            return null;
+        }
+        Collections.sort(attributes);
+        StringBuilder member = new StringBuilder(kind).append(access & accessMask).append(' ').append(name).append(descriptor);
+        for (String attribute : attributes) {
+            member.append(' ').append(attribute);
+        }
+        return member.toString();
+    }
+
+    /**
+     * Reads an attribute that is part of the ABI.
+     *
+     * @return <code>true</code> if the attribute was read, <code>false</code> if it isn't part of the ABI (and must be skipped)
+     */
+    private static boolean readAttribute(final DataInputStream in, final Object[] constants, final String name, final int length, final List<String> attributes) throws IOException {
+        switch (name) {
+            case "Signature":
+                attributes.add("signature " + constants[in.readUnsignedShort()]);
+                return true;
+            case "ConstantValue":
+                Object value = constants[in.readUnsignedShort()];
+                attributes.add("value " + (value instanceof Double || value instanceof Float ? value.getClass().getSimpleName() + ":" + value : value));
+                return true;
+            case "Exceptions":
+            case "PermittedSubclasses": {
+                int count = in.readUnsignedShort();
+                List<String> classes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    classes.add(className(constants, in.readUnsignedShort()));
+                }
+                Collections.sort(classes);
+                attributes.add(name + " " + classes);
+                return true;
+            }
+            case "RuntimeVisibleAnnotations":
+            case "RuntimeInvisibleAnnotations": {
+                int count = in.readUnsignedShort();
+                for (int i = 0; i < count; i++) {
+                    attributes.add("@" + readAnnotation(in, constants));
+                }
+                return true;
+            }
+            case "RuntimeVisibleParameterAnnotations":
+            case "RuntimeInvisibleParameterAnnotations": {
+                int parameterCount = in.readUnsignedByte();
+                for (int parameter = 0; parameter < parameterCount; parameter++) {
+                    int count = in.readUnsignedShort();
+                    for (int i = 0; i < count; i++) {
+                        attributes.add("@" + parameter + ":" + readAnnotation(in, constants));
+                    }
+                }
+                return true;
+            }
+            case "AnnotationDefault":
+                attributes.add("default " + readElementValue(in, constants));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String readAnnotation(final DataInputStream in, final Object[] constants) throws IOException {
+        StringBuilder annotation = new StringBuilder((String) constants[in.readUnsignedShort()]).append('(');
+        int count = in.readUnsignedShort();
+        List<String> elements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            elements.add(constants[in.readUnsignedShort()] + "=" + readElementValue(in, constants));
+        }
+        Collections.sort(elements);
+        return annotation.append(String.join(",", elements)).append(')').toString();
+    }
+
+    private static String readElementValue(final DataInputStream in, final Object[] constants) throws IOException {
+        char tag = (char) in.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                return "e" + constants[in.readUnsignedShort()] + "." + constants[in.readUnsignedShort()];
+            case 'c':
+                return "c" + constants[in.readUnsignedShort()];
+            case '@':
+                return "@" + readAnnotation(in, constants);
+            case '[': {
+                int count = in.readUnsignedShort();
+                StringBuilder array = new StringBuilder("[");
+                for (int i = 0; i < count; i++) {
+                    array.append(i == 0 ? "" : ",").append(readElementValue(in, constants));
+                }
+                return array.append(']').toString();
+            }
+            default:
+                return tag + String.valueOf(constants[in.readUnsignedShort()]);
+        }
+    }
+
+    private static Object[] readConstantPool(final DataInputStream in) throws IOException {
+        int constantPoolCount = in.readUnsignedShort();
+        Object[] constants = new Object[constantPoolCount];
+        int[] classNameIndexes = new int[constantPoolCount];
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    constants[i] = in.readUTF();
+                    break;
+                case 3: // Integer
+                    constants[i] = in.readInt();
+                    break;
+                case 4: // Float
+                    constants[i] = in.readFloat();
+                    break;
+                case 5: // Long
+                    constants[i] = in.readLong();
+                    i++;
+                    break;
+                case 6: // Double
+                    constants[i] = in.readDouble();
+                    i++;
+                    break;
+                case 7: // Class
+                case 8: // String
+                    classNameIndexes[i] = in.readUnsignedShort();
+                    break;
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + ".");
+            }
+        }
+        // Class and String constants refer to Utf8 constants, which may come later in the pool
+        for (int i = 1; i < constantPoolCount; i++) {
+            if (classNameIndexes[i] != 0) {
+                constants[i] = constants[classNameIndexes[i]];
+            }
+        }
+        return constants;
+    }
+
+    private static String className(final Object[] constants, final int index) throws IOException {
+        if (index <= 0 || index >= constants.length || !(constants[index] instanceof String)) {
+            throw new IOException("Invalid class reference " + index + ".");
+        }
+        return (String) constants[index];
+    }
+
+}
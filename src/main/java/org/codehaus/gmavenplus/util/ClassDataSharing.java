@@ -0,0 +1,203 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Sets up an application Class Data Sharing (AppCDS) archive for a forked JVM, so that forks after the first one map
+ * the classes they load from the archive rather than loading and verifying them from the jars again. The first fork
+ * with a given Java executable and classpath records the classes it loaded in a dynamic archive when it exits
+ * (<code>-XX:ArchiveClassesAtExit</code>), and later forks use it (<code>-XX:SharedArchiveFile</code>). Archives are
+ * named after a fingerprint of the Java executable, its version and the classpath (including the size and
+ * modification time of each jar), so a changed classpath gets a new archive. Dynamic archives need Java 13 or newer;
+ * with older Java versions no options are added.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ClassDataSharing {
+
+    /**
+     * The first Java version that can create dynamic archives.
+     */
+    protected static final int MIN_JAVA_VERSION = 13;
+
+    /**
+     * The JVM options that keep the warnings about classes that can't be archived (which are common, for example for
+     * classes compiled for Java 5 or older) out of the build output.
+     */
+    private static final String QUIET_LOG = "-Xlog:cds=off";
+    private static final String QUIET_DYNAMIC_LOG = "-Xlog:cds+dynamic=off";
+    // forks send VM warnings to standard error (see GroovyCompilerFork), which would otherwise include those of CDS
+    private static final String QUIET_STDERR_LOG = "-Xlog:cds*=off:stderr";
+
+    private static final Pattern VERSION_PATTERN = Pattern.compile("version \"(1\\.)?(\\d+)[^\"]*\"");
+
+    private static final Map<String, String> JAVA_VERSIONS = new ConcurrentHashMap<>();
+
+    private final File cacheDirectory;
+    private final String javaExecutable;
+    private final String classpath;
+    private final Log log;
+    private File archive;
+    private File newArchive;
+
+    /**
+     * Creates a new ClassDataSharing for a fork.
+     *
+     * @param cacheDirectory the directory to keep archives in
+     * @param javaExecutable the Java executable the fork is run with
+     * @param classpath      the classpath of the fork
+     * @param log            the log to use
+     */
+    public ClassDataSharing(final File cacheDirectory, final String javaExecutable, final String classpath, final Log log) {
+        this.cacheDirectory = cacheDirectory;
+        this.javaExecutable = javaExecutable;
+        this.classpath = classpath;
+        this.log = log;
+    }
+
+    /**
+     * Gets the JVM options the fork should be started with to use the archive, or to create it if it doesn't exist yet.
+     *
+     * @return the JVM options (empty if the Java version doesn't support dynamic archives)
+     */
+    public List<String> jvmOptions() {
+        String javaVersion = javaVersion(javaExecutable);
+        if (javaVersion == null || Integer.parseInt(javaVersion) < MIN_JAVA_VERSION) {
+            log.debug("Java " + (javaVersion != null ? javaVersion : "of unknown version") + " at " + javaExecutable + " can't create dynamic class data sharing archives (Java " + MIN_JAVA_VERSION + " or newer is needed).");
+            return Collections.emptyList();
+        }
+        try {
+            File java = new File(javaExecutable);
+            String key = new Fingerprint().add(javaExecutable).add(java.length() + ":" + java.lastModified()).add(javaVersion)
+                    .addClasspath(Arrays.asList(classpath.split(File.pathSeparator)), null).toHexString();
+            archive = new File(cacheDirectory, key + ".jsa");
+            if (archive.isFile()) {
+                log.debug("Using class data sharing archive " + archive + ".");
+                return Arrays.asList("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xshare:auto", QUIET_LOG, QUIET_DYNAMIC_LOG, QUIET_STDERR_LOG);
+            }
+            Files.createDirectories(cacheDirectory.toPath());
+            // the fork writes to its own file, which is only moved into place if it succeeded
+            newArchive = File.createTempFile(key, ".jsa.tmp", cacheDirectory);
+            Files.delete(newArchive.toPath());
+            log.debug("Creating class data sharing archive " + archive + ".");
+            return Arrays.asList("-XX:ArchiveClassesAtExit=" + newArchive.getAbsolutePath(), QUIET_LOG, QUIET_DYNAMIC_LOG, QUIET_STDERR_LOG);
+        } catch (IOException e) {
+            log.debug("Unable to set up class data sharing.", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Completes the archive created by the fork, if it was asked to create one.
+     *
+     * @param exitCode the exit code of the fork
+     */
+    public void forkExited(final int exitCode) {
+        if (newArchive == null) {
+            return;
+        }
+        try {
+            if (exitCode == 0 && newArchive.isFile() && newArchive.length() > 0) {
+                try {
+                    Files.move(newArchive.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(newArchive.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            // another build may have created it at the same time, and it's only a cache anyway
+            log.debug("Unable to store class data sharing archive " + archive + ".", e);
+        } finally {
+            newArchive.delete();
+            newArchive = null;
+        }
+    }
+
+    /**
+     * Gets the feature version of a Java executable (like <code>"17"</code>), by running it with
+     * <code>-version</code> once per session.
+     *
+     * @param javaExecutable the Java executable
+     * @return the feature version, or <code>null</code> if it couldn't be determined
+     */
+    protected String javaVersion(final String javaExecutable) {
+        return javaVersion(javaExecutable, log);
+    }
+
+    /**
+     * Gets the feature version of a Java executable (like <code>"17"</code>), by running it with
+     * <code>-version</code> once per session.
+     *
+     * @param javaExecutable the Java executable
+     * @param log            the log to use
+     * @return the feature version, or <code>null</code> if it couldn't be determined
+     */
+    public static String javaVersion(final String javaExecutable, final Log log) {
+        String version = JAVA_VERSIONS.get(javaExecutable);
+        if (version == null) {
+            try {
+                List<String> command = new ArrayList<>();
+                command.add(javaExecutable);
+                command.add("-version");
+                Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+                String output = read(process.getInputStream());
+                if (!process.waitFor(1, TimeUnit.MINUTES)) {
+                    process.destroy();
+                }
+                version = parseJavaVersion(output);
+            } catch (IOException e) {
+                log.debug("Unable to determine the version of " + javaExecutable + ".", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (version == null) {
+                return null;
+            }
+            JAVA_VERSIONS.put(javaExecutable, version);
+        }
+        return version;
+    }
+
+    /**
+     * Gets the feature version from the output of <code>java -version</code>.
+     *
+     * @param output the output
+     * @return the feature version (like <code>"8"</code> for <code>1.8.0_392</code> or <code>"17"</code> for
+     * <code>17.0.9</code>), or <code>null</code> if the output has no version
+     */
+    protected static String parseJavaVersion(final String output) {
+        Matcher matcher = VERSION_PATTERN.matcher(output);
+        return matcher.find() ? matcher.group(2) : null;
+    }
+
+    private static String read(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,150 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Removes the parts of Groovy-generated class files that differ between compilations of the same sources, for
+ * reproducible builds. Groovy versions before 2.5 add two fields recording the compilation time to every class: a
+ * <code>__timeStamp</code> field initialized to the time, and a field named
+ * <code>__timeStamp__239_neverHappen&lt;time&gt;</code>. Both times are replaced by zeros. The class file is patched
+ * in place (the replaced constants have the same length), so nothing else in it changes.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ClassFileNormalizer {
+
+    /**
+     * The prefix of the name of the field old Groovy versions name after the compilation time.
+     */
+    protected static final String TIMESTAMP_FIELD_PREFIX = "__timeStamp__239_neverHappen";
+
+    /**
+     * How far before the time in the field name the value of the <code>__timeStamp</code> field can be, since Groovy
+     * reads the clock separately for each of them.
+     */
+    private static final long TIMESTAMP_TOLERANCE = 10000L;
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+    private ClassFileNormalizer() {
+    }
+
+    /**
+     * Normalizes a class file.
+     *
+     * @param classFile the bytes of the class file
+     * @return the normalized bytes (the same array if there was nothing to normalize)
+     * @throws IOException when the bytes aren't a valid class file
+     */
+    public static byte[] normalize(final byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != CLASS_FILE_MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        int offset = 10;
+        int constantPoolCount = in.readUnsignedShort();
+        long timestamp = -1;
+        int timestampNameOffset = -1;
+        int timestampNameLength = 0;
+        List<Integer> longOffsets = new ArrayList<>();
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            offset++;
+            switch (tag) {
+                case 1: { // Utf8
+                    int length = in.readUnsignedShort();
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    String value = new String(bytes, StandardCharsets.ISO_8859_1);
+                    if (value.startsWith(TIMESTAMP_FIELD_PREFIX) && value.length() > TIMESTAMP_FIELD_PREFIX.length() && value.length() <= TIMESTAMP_FIELD_PREFIX.length() + 18 && isDigits(value.substring(TIMESTAMP_FIELD_PREFIX.length()))) {
+                        timestamp = Long.parseLong(value.substring(TIMESTAMP_FIELD_PREFIX.length()));
+                        timestampNameOffset = offset + 2 + TIMESTAMP_FIELD_PREFIX.length();
+                        timestampNameLength = length - TIMESTAMP_FIELD_PREFIX.length();
+                    }
+                    offset += 2 + length;
+                    break;
+                }
+                case 5: // Long
+                    longOffsets.add(offset);
+                    in.skipBytes(8);
+                    offset += 8;
+                    i++;
+                    break;
+                case 6: // Double
+                    in.skipBytes(8);
+                    offset += 8;
+                    i++;
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    offset += 2;
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    offset += 3;
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    offset += 4;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + ".");
+            }
+        }
+        if (timestampNameOffset < 0) {
+            return classFile;
+        }
+
+        byte[] normalized = classFile.clone();
+        for (int i = timestampNameOffset; i < timestampNameOffset + timestampNameLength; i++) {
+            normalized[i] = '0';
+        }
+        for (int longOffset : longOffsets) {
+            long value = readLong(classFile, longOffset);
+            if (value <= timestamp && value >= timestamp - TIMESTAMP_TOLERANCE) {
+                for (int i = longOffset; i < longOffset + 8; i++) {
+                    normalized[i] = 0;
+                }
+            }
+        }
+        return normalized;
+    }
+
+    private static boolean isDigits(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long readLong(final byte[] bytes, final int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+}
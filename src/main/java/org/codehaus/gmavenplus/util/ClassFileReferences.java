@@ -0,0 +1,128 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.TreeSet;
+import java.util.Set;
+
+
+/**
+ * Reads the names of the classes a class file refers to from its constant pool, without loading it. This includes
+ * classes referenced directly and classes named in field, method, and generic signatures.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ClassFileReferences {
+
+    private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+    private ClassFileReferences() {
+    }
+
+    /**
+     * Gets the binary names (like <code>java.lang.String</code>) of all classes referenced by the given class file.
+     *
+     * @param classFile the bytes of the class file
+     * @return the referenced class names
+     * @throws IOException when the bytes aren't a valid class file
+     */
+    public static Set<String> read(final byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != CLASS_FILE_MAGIC) {
+            throw new IOException("Not a class file.");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+        int constantPoolCount = in.readUnsignedShort();
+        String[] utf8 = new String[constantPoolCount];
+        int[] classNameIndexes = new int[constantPoolCount];
+        int classCount = 0;
+        for (int i = 1; i < constantPoolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNameIndexes[classCount++] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.skipBytes(2);
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + ".");
+            }
+        }
+
+        Set<String> references = new TreeSet<>();
+        for (int i = 0; i < classCount; i++) {
+            String name = utf8[classNameIndexes[i]];
+            if (name == null) {
+                continue;
+            }
+            if (name.startsWith("[")) {
+                addSignatureReferences(name, references);
+            } else {
+                references.add(name.replace('/', '.'));
+            }
+        }
+        for (String value : utf8) {
+            if (value != null && !value.isEmpty() && "(<[L".indexOf(value.charAt(0)) != -1) {
+                addSignatureReferences(value, references);
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Adds the class names found in a field, method, or generic signature (<code>Lname;</code> or <code>Lname&lt;</code>).
+     *
+     * @param signature  the signature to scan
+     * @param references the set to add the class names to
+     */
+    private static void addSignatureReferences(final String signature, final Set<String> references) {
+        int i = 0;
+        while (i < signature.length()) {
+            if (signature.charAt(i) == 'L') {
+                int end = i + 1;
+                while (end < signature.length() && signature.charAt(end) != ';' && signature.charAt(end) != '<') {
+                    char c = signature.charAt(end);
+                    if (c != '/' && c != '$' && !Character.isJavaIdentifierPart(c)) {
+                        break;
+                    }
+                    end++;
+                }
+                if (end < signature.length() && end > i + 1 && (signature.charAt(end) == ';' || signature.charAt(end) == '<')) {
+                    references.add(signature.substring(i + 1, end).replace('/', '.'));
+                }
+                i = end + 1;
+            } else {
+                i++;
+            }
+        }
+    }
+
+}
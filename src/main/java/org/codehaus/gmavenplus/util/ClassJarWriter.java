@@ -0,0 +1,132 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+
+/**
+ * Writes compiled classes into a single jar (or zip) file in one sequential write, rather than as individual class
+ * files, for modules with many classes on file systems where small-file I/O is slow. Entries are sorted and have fixed
+ * timestamps, so compiling the same classes produces the same jar. The jar is written to a temporary file next to it
+ * and then moved into place, and is left untouched if it already has the same contents.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ClassJarWriter {
+
+    /**
+     * The modification time of the jar entries: a fixed time (in UTC) shortly after 1980, the earliest time zip entries
+     * can hold.
+     */
+    private static final long ENTRY_TIME = 315532800000L + 31L * 24 * 60 * 60 * 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File jar;
+    private boolean unchanged;
+
+    /**
+     * Creates a new ClassJarWriter.
+     *
+     * @param jar the jar file to write
+     */
+    public ClassJarWriter(final File jar) {
+        this.jar = jar;
+    }
+
+    /**
+     * Writes the classes into the jar, replacing its previous contents.
+     *
+     * @param classes the bytes of each class, by binary class name
+     * @return the jar file
+     * @throws IOException when the jar cannot be written
+     */
+    public File write(final Map<String, byte[]> classes) throws IOException {
+        Path target = jar.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), jar.getName(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE)) {
+                write(out, classes);
+            }
+            unchanged = Files.isRegularFile(target) && Files.size(target) == Files.size(temp)
+                    && Arrays.equals(Files.readAllBytes(target), Files.readAllBytes(temp));
+            if (!unchanged) {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return jar;
+    }
+
+    /**
+     * Whether the last write left the jar untouched because it already had the same contents.
+     *
+     * @return <code>true</code> if the jar was unchanged, <code>false</code> otherwise
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+
+    private static void write(final OutputStream out, final Map<String, byte[]> classes) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        try (JarOutputStream jarOut = new JarOutputStream(out)) {
+            putEntry(jarOut, "META-INF/");
+            putEntry(jarOut, "META-INF/MANIFEST.MF");
+            manifest.write(jarOut);
+            jarOut.closeEntry();
+
+            Map<String, byte[]> entries = new TreeMap<>();
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                entries.put(entry.getKey().replace('.', '/') + ".class", entry.getValue());
+            }
+            Set<String> directories = new HashSet<>();
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                String name = entry.getKey();
+                for (int i = name.indexOf('/'); i > 0; i = name.indexOf('/', i + 1)) {
+                    String directory = name.substring(0, i + 1);
+                    if (directories.add(directory)) {
+                        putEntry(jarOut, directory);
+                    }
+                }
+                putEntry(jarOut, name);
+                jarOut.write(entry.getValue());
+                jarOut.closeEntry();
+            }
+        }
+    }
+
+    private static void putEntry(final JarOutputStream jarOut, final String name) throws IOException {
+        JarEntry entry = new JarEntry(name);
+        // zip entries hold local time, so shift by the time zone offset to write the same time in every time zone
+        entry.setTime(ENTRY_TIME - TimeZone.getDefault().getOffset(ENTRY_TIME));
+        jarOut.putNextEntry(entry);
+        if (name.endsWith("/")) {
+            jarOut.closeEntry();
+        }
+    }
+
+}
@@ -0,0 +1,223 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+
+/**
+ * A cache of classloaders holding the Groovy runtime, so executions with the same Groovy jars share one loaded (and
+ * JIT-compiled) copy of Groovy, with their own project classpath in a child classloader. Loaders are reference counted:
+ * once no execution uses a loader it stays cached for later executions, up to a small number of unused loaders, after
+ * which the least recently used ones are closed. All loaders are closed when the cache is closed.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ClassLoaderCache implements Closeable {
+
+    /**
+     * The maximum number of loaders to keep when no execution is using them.
+     */
+    protected static final int MAX_UNUSED_LOADERS = 4;
+
+    /**
+     * Matches the file names of jars that can be shared: the Groovy core jar (including groovy-all and indy variants),
+     * which has no dependencies of its own.
+     */
+    private static final Pattern GROOVY_JAR = Pattern.compile("groovy(-all)?-\\d[^/\\\\]*\\.jar");
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Log log;
+
+    /**
+     * Creates a new empty ClassLoaderCache.
+     *
+     * @param log the log to use
+     */
+    public ClassLoaderCache(final Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Determines whether a classpath element is a jar that can be loaded in a shared classloader.
+     *
+     * @param classpathElement the classpath element
+     * @return <code>true</code> if the element is the Groovy core jar
+     */
+    public static boolean isShareable(final File classpathElement) {
+        return classpathElement.isFile() && GROOVY_JAR.matcher(classpathElement.getName()).matches();
+    }
+
+    /**
+     * Gets a classloader for the given jars, creating it if no cached one exists. Callers must {@link #release} it.
+     *
+     * @param jars   the jars to load
+     * @param parent the parent classloader
+     * @return the shared classloader
+     * @throws MalformedURLException when a jar provides a malformed URL
+     */
+    public ClassLoader acquire(final List<File> jars, final ClassLoader parent) throws MalformedURLException {
+        return acquire(jars, parent, log);
+    }
+
+    /**
+     * Gets a classloader for the given jars, creating it if no cached one exists, logging to the given log rather than
+     * the cache's (for caches that outlive the logs of the executions using them). Callers must {@link #release} it.
+     *
+     * @param jars   the jars to load
+     * @param parent the parent classloader
+     * @param log    the log to use
+     * @return the shared classloader
+     * @throws MalformedURLException when a jar provides a malformed URL
+     */
+    public synchronized ClassLoader acquire(final List<File> jars, final ClassLoader parent, final Log log) throws MalformedURLException {
+        Key key = new Key(jars, parent);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            URL[] urls = new URL[jars.size()];
+            for (int i = 0; i < jars.size(); i++) {
+                urls[i] = jars.get(i).toURI().toURL();
+            }
+            entry = new Entry(new URLClassLoader(urls, parent));
+            ClassLoaderTracker.created(entry.classLoader);
+            entries.put(key, entry);
+            log.debug("Created shared classloader for " + jars + ".");
+        } else {
+            log.debug("Reusing shared classloader for " + jars + ".");
+        }
+        entry.references++;
+        return entry.classLoader;
+    }
+
+    /**
+     * Releases a classloader obtained from {@link #acquire}.
+     *
+     * @param classLoader the classloader to release
+     */
+    public void release(final ClassLoader classLoader) {
+        release(classLoader, log);
+    }
+
+    /**
+     * Releases a classloader obtained from {@link #acquire}, logging to the given log rather than the cache's.
+     *
+     * @param classLoader the classloader to release
+     * @param log         the log to use
+     */
+    public synchronized void release(final ClassLoader classLoader, final Log log) {
+        for (Entry entry : entries.values()) {
+            if (entry.classLoader == classLoader && entry.references > 0) {
+                entry.references--;
+                break;
+            }
+        }
+        evictUnused(log);
+    }
+
+    /**
+     * Gets the number of classloaders currently cached.
+     *
+     * @return the number of cached classloaders
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Closes all cached classloaders.
+     */
+    @Override
+    public synchronized void close() {
+        for (Entry entry : entries.values()) {
+            if (entry.references > 0) {
+                log.debug("Closing shared classloader still used by " + entry.references + " execution" + (entry.references != 1 ? "s" : "") + ".");
+            }
+            closeQuietly(entry.classLoader, log);
+        }
+        entries.clear();
+    }
+
+    private void evictUnused(final Log log) {
+        int unused = 0;
+        for (Entry entry : entries.values()) {
+            if (entry.references == 0) {
+                unused++;
+            }
+        }
+        // iteration order is least recently used first
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (unused > MAX_UNUSED_LOADERS && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.references == 0) {
+                iterator.remove();
+                closeQuietly(entry.classLoader, log);
+                unused--;
+            }
+        }
+    }
+
+    private static void closeQuietly(final URLClassLoader classLoader, final Log log) {
+        try {
+            classLoader.close();
+            ClassLoaderTracker.closed();
+        } catch (IOException e) {
+            log.debug("Unable to close shared classloader.", e);
+        }
+    }
+
+    /**
+     * The jars (with their size and modification time) and the parent of a loader. Parents are compared by identity,
+     * since their identity hash codes aren't unique.
+     */
+    private static class Key {
+        private final String jars;
+        private final ClassLoader parent;
+
+        private Key(final List<File> jars, final ClassLoader parent) {
+            Fingerprint fingerprint = new Fingerprint();
+            for (File jar : jars) {
+                fingerprint.add(jar.getAbsolutePath()).add(jar.length() + ":" + jar.lastModified());
+            }
+            this.jars = fingerprint.toHexString();
+            this.parent = parent;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return parent == key.parent && jars.equals(key.jars);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * jars.hashCode() + System.identityHashCode(parent);
+        }
+    }
+
+    private static class Entry {
+        private final URLClassLoader classLoader;
+        private int references;
+
+        private Entry(final URLClassLoader classLoader) {
+            this.classLoader = classLoader;
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package org.codehaus.gmavenplus.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * Keeps track of the classloaders GMavenPlus creates, so it can report how many were never closed and how many are
+ * still reachable (not yet garbage collected). Loaders are only referenced weakly, so tracking them doesn't keep them
+ * alive.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public final class ClassLoaderTracker {
+
+    private static final List<WeakReference<ClassLoader>> CREATED = new ArrayList<>();
+    private static int createdCount;
+    private static int closedCount;
+
+    private ClassLoaderTracker() {
+    }
+
+    /**
+     * Records that a classloader was created.
+     *
+     * @param classLoader the classloader created
+     */
+    public static synchronized void created(final ClassLoader classLoader) {
+        createdCount++;
+        CREATED.add(new WeakReference<>(classLoader));
+    }
+
+    /**
+     * Records that a classloader was closed.
+     */
+    public static synchronized void closed() {
+        closedCount++;
+    }
+
+    /**
+     * Gets the number of classloaders created.
+     *
+     * @return the number of classloaders created
+     */
+    public static synchronized int getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * Gets the number of classloaders closed.
+     *
+     * @return the number of classloaders closed
+     */
+    public static synchronized int getClosedCount() {
+        return closedCount;
+    }
+
+    /**
+     * Gets the number of classloaders created that haven't been closed yet.
+     *
+     * @return the number of open classloaders
+     */
+    public static synchronized int getOpenCount() {
+        return createdCount - closedCount;
+    }
+
+    /**
+     * Gets the number of classloaders created that haven't been garbage collected yet (whether closed or not).
+     *
+     * @return the number of reachable classloaders
+     */
+    public static synchronized int getReachableCount() {
+        int reachable = 0;
+        Iterator<WeakReference<ClassLoader>> iterator = CREATED.iterator();
+        while (iterator.hasNext()) {
+            ClassLoader classLoader = iterator.next().get();
+            if (classLoader == null) {
+                iterator.remove();
+            } else {
+                reachable++;
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * Describes the classloaders created so far, for logging.
+     *
+     * @return a description of the created, closed, open, and reachable classloaders
+     */
+    public static synchronized String describe() {
+        return "GMavenPlus classloaders: " + createdCount + " created, " + closedCount + " closed, " + getOpenCount() + " still open, " + getReachableCount() + " not yet garbage collected.";
+    }
+
+}
@@ -0,0 +1,165 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+/**
+ * Writes compiled class files to the output directory, in place of Groovy's output phase, skipping the class files
+ * whose bytes are already there. Unchanged class files keep their modification time, so tools that look at timestamps
+ * (jar packaging, test runners, IDEs, and GMavenPlus's own up-to-date checks of downstream goals) don't redo their work.
+ * To avoid reading the existing class files, the size, modification time, and hash of each class file written is
+ * remembered in the state directory; a class file is only read to compare it when it doesn't match what was remembered.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ClassOutputWriter {
+
+    /**
+     * The file in the state directory remembering the class files written.
+     */
+    protected static final String HASHES_FILE = "class-hashes.lst";
+
+    private final File outputDirectory;
+    private final File stateDirectory;
+    private final Log log;
+    private int writtenCount;
+    private int unchangedCount;
+
+    /**
+     * Creates a new ClassOutputWriter.
+     *
+     * @param outputDirectory the directory to write the class files to
+     * @param stateDirectory  the directory to remember the class files written in (can be <code>null</code>)
+     * @param log             the log to use
+     */
+    public ClassOutputWriter(final File outputDirectory, final File stateDirectory, final Log log) {
+        this.outputDirectory = outputDirectory;
+        this.stateDirectory = stateDirectory;
+        this.log = log;
+    }
+
+    /**
+     * Writes the class files that differ from the ones in the output directory.
+     *
+     * @param classes the bytes of each class, by binary class name
+     * @return the class files (written or unchanged)
+     * @throws IOException when a class file cannot be written
+     */
+    public List<File> write(final Map<String, byte[]> classes) throws IOException {
+        Map<String, String> hashes = readHashes();
+        Set<File> createdDirectories = new HashSet<>();
+        List<File> files = new ArrayList<>(classes.size());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            String relativePath = entry.getKey().replace('.', '/') + ".class";
+            File file = new File(outputDirectory, relativePath);
+            byte[] bytes = entry.getValue();
+            String hash = new Fingerprint().add(bytes).toHexString();
+            if (isUnchanged(file, bytes, hash, hashes.get(relativePath))) {
+                unchangedCount++;
+            } else {
+                File directory = file.getParentFile();
+                if (createdDirectories.add(directory)) {
+                    Files.createDirectories(directory.toPath());
+                }
+                write(file.toPath(), bytes);
+                writtenCount++;
+            }
+            hashes.put(relativePath, file.length() + ":" + file.lastModified() + ":" + hash);
+            files.add(file);
+        }
+        writeHashes(hashes);
+        return files;
+    }
+
+    /**
+     * Gets the number of class files written.
+     *
+     * @return the number of class files written
+     */
+    public int getWrittenCount() {
+        return writtenCount;
+    }
+
+    /**
+     * Gets the number of class files not written because they were unchanged.
+     *
+     * @return the number of unchanged class files
+     */
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    private static boolean isUnchanged(final File file, final byte[] bytes, final String hash, final String remembered) throws IOException {
+        if (!file.isFile() || file.length() != bytes.length) {
+            return false;
+        }
+        if (remembered != null && remembered.startsWith(file.length() + ":" + file.lastModified() + ":")) {
+            return remembered.endsWith(":" + hash);
+        }
+        return Arrays.equals(Files.readAllBytes(file.toPath()), bytes);
+    }
+
+    private static void write(final Path path, final byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private Map<String, String> readHashes() {
+        Map<String, String> hashes = new TreeMap<>();
+        if (stateDirectory == null) {
+            return hashes;
+        }
+        File file = new File(stateDirectory, HASHES_FILE);
+        if (file.isFile()) {
+            try {
+                for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                    int separator = line.indexOf(' ');
+                    if (separator > 0) {
+                        hashes.put(line.substring(separator + 1), line.substring(0, separator));
+                    }
+                }
+            } catch (IOException e) {
+                log.debug("Unable to read " + file + ", comparing class files instead.", e);
+            }
+        }
+        return hashes;
+    }
+
+    private void writeHashes(final Map<String, String> hashes) {
+        if (stateDirectory == null) {
+            return;
+        }
+        List<String> lines = new ArrayList<>(hashes.size());
+        for (Map.Entry<String, String> entry : hashes.entrySet()) {
+            lines.add(entry.getValue() + " " + entry.getKey());
+        }
+        try {
+            Files.createDirectories(stateDirectory.toPath());
+            Files.write(new File(stateDirectory, HASHES_FILE).toPath(), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.debug("Unable to write " + new File(stateDirectory, HASHES_FILE) + ".", e);
+        }
+    }
+
+}
@@ -3,31 +3,52 @@ package org.codehaus.gmavenplus.util;
 import org.apache.maven.plugin.logging.Log;
 import org.codehaus.gmavenplus.model.internal.Version;
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.net.JarURLConnection;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.security.CodeSource;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 import static org.codehaus.gmavenplus.util.ReflectionUtils.findMethod;
 import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeStaticMethod;
 
 
 /**
- * Handles getting Groovy classes and version from the specified classpath.
+ * Handles getting Groovy classes and version from the specified classpath. The ClassWrangler installs its classloader as
+ * the thread context classloader until it's closed, at which point the previous context classloader is restored and the
+ * classloader is closed.
  *
  * @author Keegan Witt
  */
-public class ClassWrangler {
+public class ClassWrangler implements Closeable {
 
     /**
      * Cached Groovy version.
      */
     private String groovyVersion = null;
 
+    /**
+     * The Groovy version read from the manifest of each Groovy jar so far, by jar URL, size and modification time, so
+     * it's only read once per session (but read again if the jar was replaced, like a rebuilt snapshot).
+     */
+    private static final Map<String, String> MANIFEST_VERSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * Cached parsed Groovy version, since it's checked many times while setting up each Groovy call.
+     */
+    private Version parsedGroovyVersion = null;
+
     /**
      * Cached whether Groovy supports invokedynamic (indy jar).
      */
@@ -38,6 +59,16 @@ public class ClassWrangler {
      */
     private final ClassLoader classLoader;
 
+    /**
+     * The thread context classloader to restore when closing.
+     */
+    private final ClassLoader previousContextClassLoader;
+
+    /**
+     * Whether this ClassWrangler has been closed.
+     */
+    private boolean closed;
+
     /**
      * Plugin log.
      */
@@ -54,15 +85,59 @@ public class ClassWrangler {
     public ClassWrangler(final List<?> classpath, final ClassLoader parentClassLoader, final Log pluginLog) throws MalformedURLException {
         log = pluginLog;
         classLoader = createNewClassLoader(classpath, parentClassLoader);
+        ClassLoaderTracker.created(classLoader);
+        previousContextClassLoader = Thread.currentThread().getContextClassLoader();
         Thread.currentThread().setContextClassLoader(classLoader);
     }
 
+    /**
+     * Restores the thread context classloader that was in place when this ClassWrangler was created (if this
+     * ClassWrangler's classloader is still the context classloader) and closes the classloader, releasing its jar
+     * files. Classes that weren't loaded yet can't be loaded after this.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        restoreContextClassLoader();
+        if (classLoader instanceof IndexedClassLoader && log.isDebugEnabled()) {
+            IndexedClassLoader indexedClassLoader = (IndexedClassLoader) classLoader;
+            log.debug("Class lookups: " + indexedClassLoader.getFoundCount() + " found, " + indexedClassLoader.getNotFoundCount() + " not found ("
+                    + indexedClassLoader.getCachedNotFoundCount() + " from cache, " + indexedClassLoader.getSkippedSearchCount() + " jar searches skipped), "
+                    + indexedClassLoader.getSkippedResourceSearchCount() + " service descriptor jar searches skipped.");
+        }
+        if (classLoader instanceof Closeable) {
+            try {
+                ((Closeable) classLoader).close();
+            } catch (IOException e) {
+                log.debug("Unable to close classloader.", e);
+            }
+        }
+        ClassLoaderTracker.closed();
+    }
+
+    /**
+     * Restores the thread context classloader that was in place when this ClassWrangler was created (if this
+     * ClassWrangler's classloader is still the context classloader), leaving the classloader open.
+     */
+    public void restoreContextClassLoader() {
+        if (Thread.currentThread().getContextClassLoader() == classLoader) {
+            Thread.currentThread().setContextClassLoader(previousContextClassLoader);
+        }
+    }
+
     /**
      * Gets the version string of Groovy used from classpath.
      *
      * @return The version string of Groovy used by the project
      */
     public String getGroovyVersionString() {
+        if (groovyVersion == null) {
+            // this doesn't need to load (and initialize) any Groovy classes
+            groovyVersion = getGroovyVersionFromManifest();
+        }
         if (groovyVersion == null) {
             // this method should work for all Groovy versions >= 1.6.6
             try {
@@ -121,11 +196,14 @@ public class ClassWrangler {
      * @return The version of Groovy used by the project
      */
     public Version getGroovyVersion() {
-        try {
-            return Version.parseFromString(getGroovyVersionString());
-        } catch (Exception e) {
-            throw new RuntimeException("Unable to determine Groovy version. Is Groovy declared as a dependency?");
+        if (parsedGroovyVersion == null) {
+            try {
+                parsedGroovyVersion = Version.parseFromString(getGroovyVersionString());
+            } catch (Exception e) {
+                throw new RuntimeException("Unable to determine Groovy version. Is Groovy declared as a dependency?");
+            }
         }
+        return parsedGroovyVersion;
     }
 
     /**
@@ -226,7 +304,8 @@ public class ClassWrangler {
     }
 
     /**
-     * Creates a new ClassLoader with the specified classpath.
+     * Creates a new ClassLoader with the specified classpath. It's an {@link IndexedClassLoader}, so the lookups of
+     * classes that don't exist Groovy does while resolving names don't search every jar.
      *
      * @param classpath   the classpath (a list of file path Strings) to include in the new loader
      * @param classLoader the ClassLoader to use as the parent for the new CLassLoader
@@ -240,7 +319,7 @@ public class ClassWrangler {
             urlsList.add(new File(path).toURI().toURL());
         }
         URL[] urlsArray = urlsList.toArray(new URL[urlsList.size()]);
-        return new URLClassLoader(urlsArray, classLoader);
+        return new IndexedClassLoader(urlsArray, classLoader);
     }
 
     /**
@@ -280,4 +359,62 @@ public class ClassWrangler {
         }
         return groovyObjectClassPath;
     }
+
+    /**
+     * Returns the Groovy version from the <code>Implementation-Version</code> in the manifest of the Groovy jar on the
+     * classpath, without loading any classes from it.
+     *
+     * @return the Groovy version, or <code>null</code> if Groovy isn't in a jar with a Groovy manifest
+     */
+    protected String getGroovyVersionFromManifest() {
+        URL groovyObjectClass = classLoader.getResource("groovy/lang/GroovyObject.class");
+        if (groovyObjectClass == null || !"jar".equals(groovyObjectClass.getProtocol())) {
+            return null;
+        }
+        String jar = groovyObjectClass.toString().replaceAll("!.+", "");
+        String key = jar;
+        File file = jarFile(jar);
+        if (file != null) {
+            key = jar + ":" + file.length() + ":" + file.lastModified();
+        }
+        String version = MANIFEST_VERSIONS.get(key);
+        if (version == null) {
+            try {
+                JarURLConnection connection = (JarURLConnection) groovyObjectClass.openConnection();
+                // don't share (and keep open) the jar with other users of the URL cache
+                connection.setUseCaches(false);
+                try (JarFile jarFile = connection.getJarFile()) {
+                    Manifest manifest = jarFile.getManifest();
+                    // the classes might be shaded into some other jar, with that jar's version
+                    String title = manifest != null ? manifest.getMainAttributes().getValue(Attributes.Name.IMPLEMENTATION_TITLE) : null;
+                    if (title != null && title.startsWith("Groovy")) {
+                        version = manifest.getMainAttributes().getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+                    }
+                }
+            } catch (IOException | ClassCastException e) {
+                log.debug("Unable to read the manifest of " + jar + ".", e);
+            }
+            if (version == null || version.trim().isEmpty()) {
+                return null;
+            }
+            version = version.trim();
+            MANIFEST_VERSIONS.put(key, version);
+        }
+        return version;
+    }
+
+    /**
+     * Gets the file of a jar URL.
+     *
+     * @param jar the jar URL (without the entry)
+     * @return the file, or <code>null</code> if the jar isn't a local file
+     */
+    private static File jarFile(final String jar) {
+        try {
+            URL url = new URL(jar.replaceFirst("^jar:", ""));
+            return "file".equals(url.getProtocol()) ? new File(url.toURI()) : null;
+        } catch (MalformedURLException | URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
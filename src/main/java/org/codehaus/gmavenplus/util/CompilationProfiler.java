@@ -0,0 +1,219 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.codehaus.gmavenplus.util.ReflectionUtils.findMethod;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeMethod;
+
+
+/**
+ * Records the wall time and the bytes allocated during each Groovy compile phase, using the progress callback Groovy
+ * calls at the end of every phase. Allocated bytes are those of the thread driving the compilation (work Groovy hands
+ * to other threads, like parallel parsing, isn't included) and are only available on JVMs that support measuring them.
+ * When several compilation units are profiled (like with parallel compilation), their times are added together.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class CompilationProfiler {
+
+    /**
+     * The names of Groovy's compile phases, indexed by phase number.
+     */
+    protected static final String[] PHASE_NAMES = {null, "initialization", "parsing", "conversion", "semantic analysis", "canonicalization", "instruction selection", "class generation", "output", "finalization"};
+
+    private static final Object THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final Method GET_THREAD_ALLOCATED_BYTES = findThreadAllocatedBytesMethod();
+
+    private final long[] phaseNanos = new long[PHASE_NAMES.length];
+    private final long[] phaseAllocatedBytes = new long[PHASE_NAMES.length];
+    private final Map<Object, long[]> phaseStarts = new IdentityHashMap<>();
+    private boolean allocationMeasured = GET_THREAD_ALLOCATED_BYTES != null;
+    private final Log log;
+
+    /**
+     * Creates a new CompilationProfiler.
+     *
+     * @param log the log to write the summary to
+     */
+    public CompilationProfiler(final Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Starts profiling the compilation unit. Should be called right before compiling it.
+     *
+     * @param compilationUnitClass  the CompilationUnit class (or subclass)
+     * @param progressCallbackClass the CompilationUnit.ProgressCallback class
+     * @param compilationUnit       the compilation unit to profile
+     * @return <code>true</code> if the compilation unit is profiled, <code>false</code> if this Groovy version doesn't allow it
+     * @throws IllegalAccessException    when a method needed for profiling cannot be accessed
+     * @throws InvocationTargetException when a reflection invocation needed for profiling cannot be completed
+     */
+    public boolean attach(final Class<?> compilationUnitClass, final Class<?> progressCallbackClass, final Object compilationUnit) throws InvocationTargetException, IllegalAccessException {
+        if (!progressCallbackClass.isInterface()) {
+            // before Groovy 3, the callback is an abstract class, which can't be proxied
+            log.warn("Your Groovy version doesn't support compilation profiling (must be 3.0.0 or newer). Skipping profiling.");
+            return false;
+        }
+        Object callback = Proxy.newProxyInstance(progressCallbackClass.getClassLoader(), new Class<?>[]{progressCallbackClass}, (proxy, method, args) -> {
+            if ("call".equals(method.getName()) && args != null && args.length == 2) {
+                phaseCompleted(args[0], (Integer) args[1]);
+                return null;
+            } else if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(method.getName())) {
+                return CompilationProfiler.class.getSimpleName() + " callback";
+            }
+            return null;
+        });
+        synchronized (this) {
+            phaseStarts.put(compilationUnit, new long[]{System.nanoTime(), currentThreadAllocatedBytes()});
+        }
+        invokeMethod(findMethod(compilationUnitClass, "setProgressCallback", progressCallbackClass), compilationUnit, callback);
+        return true;
+    }
+
+    /**
+     * Records the end of a phase of a compilation unit.
+     *
+     * @param compilationUnit the compilation unit
+     * @param phase           the phase that completed
+     */
+    protected synchronized void phaseCompleted(final Object compilationUnit, final int phase) {
+        long now = System.nanoTime();
+        long allocatedBytes = currentThreadAllocatedBytes();
+        long[] start = phaseStarts.get(compilationUnit);
+        if (start == null || phase < 0 || phase >= PHASE_NAMES.length) {
+            return;
+        }
+        phaseNanos[phase] += now - start[0];
+        if (allocatedBytes >= 0 && start[1] >= 0) {
+            phaseAllocatedBytes[phase] += allocatedBytes - start[1];
+        } else {
+            allocationMeasured = false;
+        }
+        start[0] = now;
+        start[1] = allocatedBytes;
+    }
+
+    /**
+     * Gets the time spent in a phase.
+     *
+     * @param phase the phase
+     * @return the time in nanoseconds
+     */
+    public synchronized long getPhaseNanos(final int phase) {
+        return phaseNanos[phase];
+    }
+
+    /**
+     * Gets the bytes allocated during a phase.
+     *
+     * @param phase the phase
+     * @return the allocated bytes, or <code>-1</code> if they couldn't be measured
+     */
+    public synchronized long getPhaseAllocatedBytes(final int phase) {
+        return allocationMeasured ? phaseAllocatedBytes[phase] : -1;
+    }
+
+    /**
+     * Logs a table with the time and allocated bytes of each phase, and writes them as JSON to the report file.
+     *
+     * @param title      the title of the table
+     * @param reportFile the file to write the JSON report to (can be <code>null</code>)
+     */
+    public synchronized void report(final String title, final File reportFile) {
+        long totalNanos = 0;
+        long totalAllocatedBytes = 0;
+        for (int phase = 1; phase < PHASE_NAMES.length; phase++) {
+            totalNanos += phaseNanos[phase];
+            totalAllocatedBytes += phaseAllocatedBytes[phase];
+        }
+
+        StringBuilder table = new StringBuilder(title).append(':').append(System.lineSeparator());
+        table.append(String.format(Locale.ROOT, "  %-22s %10s %6s %15s%n", "Phase", "Time (ms)", "%", "Allocated (MB)"));
+        for (int phase = 1; phase < PHASE_NAMES.length; phase++) {
+            if (phaseNanos[phase] == 0 && phaseAllocatedBytes[phase] == 0) {
+                continue;
+            }
+            table.append(String.format(Locale.ROOT, "  %-22s %10.1f %5.1f%% %15s%n", PHASE_NAMES[phase], phaseNanos[phase] / 1e6, totalNanos > 0 ? 100.0 * phaseNanos[phase] / totalNanos : 0.0, megabytes(phaseAllocatedBytes[phase])));
+        }
+        table.append(String.format(Locale.ROOT, "  %-22s %10.1f %6s %15s", "total", totalNanos / 1e6, "", megabytes(totalAllocatedBytes)));
+        log.info(table.toString());
+
+        if (reportFile != null) {
+            StringBuilder json = new StringBuilder("{\n  \"phases\": [");
+            boolean first = true;
+            for (int phase = 1; phase < PHASE_NAMES.length; phase++) {
+                if (phaseNanos[phase] == 0 && phaseAllocatedBytes[phase] == 0) {
+                    continue;
+                }
+                json.append(first ? "\n" : ",\n");
+                json.append("    {\"phase\": \"").append(PHASE_NAMES[phase]).append("\", \"timeMillis\": ").append(String.format(Locale.ROOT, "%.3f", phaseNanos[phase] / 1e6))
+                        .append(", \"allocatedBytes\": ").append(allocationMeasured ? phaseAllocatedBytes[phase] : -1).append('}');
+                first = false;
+            }
+            json.append("\n  ],\n  \"totalTimeMillis\": ").append(String.format(Locale.ROOT, "%.3f", totalNanos / 1e6))
+                    .append(",\n  \"totalAllocatedBytes\": ").append(allocationMeasured ? totalAllocatedBytes : -1).append("\n}\n");
+            try {
+                Files.createDirectories(reportFile.getAbsoluteFile().getParentFile().toPath());
+                try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+                    writer.write(json.toString());
+                }
+                log.info("Wrote compilation profile to " + reportFile + ".");
+            } catch (IOException e) {
+                log.warn("Unable to write compilation profile to " + reportFile + ".", e);
+            }
+        }
+    }
+
+    private String megabytes(final long bytes) {
+        return allocationMeasured ? String.format(Locale.ROOT, "%.1f", bytes / (1024.0 * 1024.0)) : "n/a";
+    }
+
+    /**
+     * Gets the number of bytes the current thread allocated so far.
+     *
+     * @return the allocated bytes, or <code>-1</code> if the JVM doesn't support measuring them
+     */
+    protected static long currentThreadAllocatedBytes() {
+        if (GET_THREAD_ALLOCATED_BYTES == null) {
+            return -1;
+        }
+        try {
+            return (Long) GET_THREAD_ALLOCATED_BYTES.invoke(THREAD_MX_BEAN, Thread.currentThread().getId());
+        } catch (IllegalAccessException | InvocationTargetException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static Method findThreadAllocatedBytesMethod() {
+        // com.sun.management.ThreadMXBean isn't available on every JVM
+        try {
+            Class<?> threadMXBeanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (threadMXBeanClass.isInstance(THREAD_MX_BEAN)) {
+                return threadMXBeanClass.getMethod("getThreadAllocatedBytes", long.class);
+            }
+        } catch (ClassNotFoundException | NoSuchMethodException | RuntimeException e) {
+            // do nothing, allocation won't be measured
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,153 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The persistent state of a compile execution, kept in a directory under the build directory between builds. It holds
+ * the fingerprint of the inputs of the last successful compilation and the class files it produced.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class CompileState {
+
+    /**
+     * The file holding the fingerprint of the last successful compilation.
+     */
+    protected static final String FINGERPRINT_FILE = "fingerprint";
+
+    /**
+     * The file listing the class files produced by the last successful compilation.
+     */
+    protected static final String OUTPUTS_FILE = "outputs.lst";
+
+    private final File stateDirectory;
+
+    /**
+     * Creates a new CompileState backed by the given directory.
+     *
+     * @param stateDirectory the directory to keep state in
+     */
+    public CompileState(final File stateDirectory) {
+        this.stateDirectory = stateDirectory;
+    }
+
+    /**
+     * Gets the directory this state is kept in.
+     *
+     * @return the state directory
+     */
+    public File getStateDirectory() {
+        return stateDirectory;
+    }
+
+    /**
+     * Determines whether the last successful compilation had the given fingerprint and all the class files it produced
+     * still exist.
+     *
+     * @param fingerprint the fingerprint of the current inputs
+     * @return <code>true</code> if compilation can be skipped, <code>false</code> otherwise
+     */
+    public boolean isUpToDate(final String fingerprint) {
+        String previousFingerprint = readFingerprint();
+        if (previousFingerprint == null || !previousFingerprint.equals(fingerprint)) {
+            return false;
+        }
+        List<File> outputs = readOutputs();
+        if (outputs == null) {
+            return false;
+        }
+        for (File output : outputs) {
+            if (!output.isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the fingerprint of the last successful compilation.
+     *
+     * @return the fingerprint, or <code>null</code> if there isn't one
+     */
+    public String readFingerprint() {
+        File file = new File(stateDirectory, FINGERPRINT_FILE);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the class files produced by the last successful compilation.
+     *
+     * @return the class files, or <code>null</code> if they weren't recorded
+     */
+    public List<File> readOutputs() {
+        File file = new File(stateDirectory, OUTPUTS_FILE);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            List<File> outputs = new ArrayList<>();
+            for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    outputs.add(new File(line));
+                }
+            }
+            return outputs;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records the fingerprint of a successful compilation.
+     *
+     * @param fingerprint the fingerprint to record
+     * @throws IOException when the state cannot be written
+     */
+    public void writeFingerprint(final String fingerprint) throws IOException {
+        write(FINGERPRINT_FILE, Collections.singletonList(fingerprint));
+    }
+
+    /**
+     * Records the class files produced by a successful compilation.
+     *
+     * @param outputs the class files produced
+     * @throws IOException when the state cannot be written
+     */
+    public void writeOutputs(final Collection<File> outputs) throws IOException {
+        List<String> lines = new ArrayList<>(outputs.size());
+        for (File output : outputs) {
+            lines.add(output.getAbsolutePath());
+        }
+        write(OUTPUTS_FILE, lines);
+    }
+
+    /**
+     * Forgets the last compilation, so a failed compilation is never considered up to date.
+     */
+    public void clear() {
+        new File(stateDirectory, FINGERPRINT_FILE).delete();
+        new File(stateDirectory, OUTPUTS_FILE).delete();
+    }
+
+    private void write(final String name, final List<String> lines) throws IOException {
+        Files.createDirectories(stateDirectory.toPath());
+        Files.write(new File(stateDirectory, name).toPath(), lines, StandardCharsets.UTF_8);
+    }
+
+}
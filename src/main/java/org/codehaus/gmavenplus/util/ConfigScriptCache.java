@@ -0,0 +1,148 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A cache of the compiled classes of configuration scripts (<code>configScript</code>), so each execution using the
+ * same script only has to run it, rather than parse and compile it again. Entries are keyed by the script's contents
+ * and the Groovy version, and are kept in memory for the rest of the Maven session and, if a cache directory is given,
+ * on disk (<code>&lt;directory&gt;/&lt;key&gt;/&lt;binary class name&gt;.class</code>) for later builds.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ConfigScriptCache {
+
+    private static final Map<String, Map<String, byte[]>> SCRIPTS = new ConcurrentHashMap<>();
+
+    private final File cacheDirectory;
+    private final Log log;
+
+    /**
+     * Creates a new ConfigScriptCache.
+     *
+     * @param cacheDirectory the directory to keep compiled scripts in between builds (can be <code>null</code>)
+     * @param log            the log to use
+     */
+    public ConfigScriptCache(final File cacheDirectory, final Log log) {
+        this.cacheDirectory = cacheDirectory;
+        this.log = log;
+    }
+
+    /**
+     * Computes the cache key of a configuration script.
+     *
+     * @param configScript  the configuration script
+     * @param groovyVersion the Groovy version the script is compiled with
+     * @return the key
+     * @throws IOException when the script cannot be read
+     */
+    public static String key(final File configScript, final String groovyVersion) throws IOException {
+        // the name of the script class comes from the file name
+        return new Fingerprint().add(configScript.getName()).addContents(configScript).add(groovyVersion).toHexString();
+    }
+
+    /**
+     * Gets the compiled classes of a configuration script.
+     *
+     * @param key the cache key of the script
+     * @return the bytes of each class, by binary class name, or <code>null</code> if the script isn't cached
+     */
+    public Map<String, byte[]> get(final String key) {
+        Map<String, byte[]> classes = SCRIPTS.get(key);
+        if (classes == null && cacheDirectory != null) {
+            File[] files = new File(cacheDirectory, key).listFiles((dir, name) -> name.endsWith(".class"));
+            if (files != null && files.length > 0) {
+                try {
+                    Map<String, byte[]> read = new HashMap<>();
+                    for (File file : files) {
+                        read.put(file.getName().substring(0, file.getName().length() - ".class".length()), Files.readAllBytes(file.toPath()));
+                    }
+                    classes = Collections.unmodifiableMap(read);
+                    SCRIPTS.put(key, classes);
+                } catch (IOException e) {
+                    log.debug("Unable to read the cached configuration script " + key + ".", e);
+                }
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Caches the compiled classes of a configuration script.
+     *
+     * @param key     the cache key of the script
+     * @param classes the bytes of each class, by binary class name
+     */
+    public void put(final String key, final Map<String, byte[]> classes) {
+        SCRIPTS.put(key, Collections.unmodifiableMap(new HashMap<>(classes)));
+        if (cacheDirectory == null) {
+            return;
+        }
+        File entry = new File(cacheDirectory, key);
+        if (entry.isDirectory()) {
+            return;
+        }
+        try {
+            Files.createDirectories(cacheDirectory.toPath());
+            File temp = Files.createTempDirectory(cacheDirectory.toPath(), key).toFile();
+            try {
+                for (Map.Entry<String, byte[]> compiledClass : classes.entrySet()) {
+                    Files.write(new File(temp, compiledClass.getKey() + ".class").toPath(), compiledClass.getValue());
+                }
+                try {
+                    Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), entry.toPath());
+                }
+            } finally {
+                delete(temp);
+            }
+        } catch (IOException e) {
+            // another build may have cached it at the same time, and it's only a cache anyway
+            log.debug("Unable to cache the configuration script " + key + ".", e);
+        }
+    }
+
+    /**
+     * Creates a classloader that loads the compiled classes of a configuration script.
+     *
+     * @param classes the bytes of each class, by binary class name
+     * @param parent  the classloader to load all other classes from
+     * @return the classloader
+     */
+    public static ClassLoader loader(final Map<String, byte[]> classes, final ClassLoader parent) {
+        return new ClassLoader(parent) {
+            @Override
+            protected Class<?> findClass(final String name) throws ClassNotFoundException {
+                byte[] bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+    }
+
+    private static void delete(final File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+
+/**
+ * A {@link BuildCacheBackend} keeping entries as files in a local directory (<code>&lt;directory&gt;/ab/abcdef....zip</code>).
+ * Entries are written to a temporary file first and then moved into place, so concurrent builds never see partially
+ * written entries.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class DirectoryBuildCacheBackend implements BuildCacheBackend {
+
+    private final File directory;
+
+    /**
+     * Creates a new DirectoryBuildCacheBackend.
+     *
+     * @param directory the directory to keep the entries in
+     */
+    public DirectoryBuildCacheBackend(final File directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean get(final String key, final Path target) throws IOException {
+        try {
+            Files.copy(entry(key), target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void put(final String key, final Path source) throws IOException {
+        Path entry = entry(key);
+        Files.createDirectories(entry.getParent());
+        Path temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path entry(final String key) {
+        return new File(new File(directory, key.substring(0, Math.min(2, key.length()))), key + ".zip").toPath();
+    }
+
+    @Override
+    public String toString() {
+        return directory.getAbsolutePath();
+    }
+
+}
@@ -0,0 +1,380 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Accumulates a SHA-256 digest over the inputs of a Groovy goal (sources, classpath entries, and configuration values),
+ * used to decide whether a previous execution's outputs can be reused.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class Fingerprint {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * The content digests of jars already hashed by this JVM, keyed by path, size, and modification time.
+     */
+    private static final Map<String, String> JAR_DIGESTS = new ConcurrentHashMap<>();
+
+    private final MessageDigest digest;
+
+    private final byte[] buffer = new byte[8192];
+
+    /**
+     * Creates a new empty fingerprint.
+     */
+    public Fingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * Adds a string value (<code>null</code> is allowed).
+     *
+     * @param value the value to add
+     * @return this fingerprint
+     */
+    public Fingerprint add(final String value) {
+        return add(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds raw bytes.
+     *
+     * @param bytes the bytes to add
+     * @return this fingerprint
+     */
+    public Fingerprint add(final byte[] bytes) {
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    /**
+     * Adds the path and the full contents of a file. Missing files only contribute their path.
+     *
+     * @param file the file to add
+     * @return this fingerprint
+     * @throws IOException when the file cannot be read
+     */
+    public Fingerprint addContents(final File file) throws IOException {
+        add(file.getAbsolutePath());
+        addFileContents(file);
+        return this;
+    }
+
+    /**
+     * Adds the paths and contents of the given files, in path order so iteration order of the collection doesn't matter.
+     *
+     * @param files the files to add
+     * @return this fingerprint
+     * @throws IOException when a file cannot be read
+     */
+    public Fingerprint addContents(final Collection<File> files) throws IOException {
+        for (File file : sorted(files)) {
+            addContents(file);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a classpath entry. Files (jars) contribute their path, size, and modification time. Directories contribute
+     * the relative path, size, and modification time of every file beneath them, skipping the excluded directory
+     * (typically the output directory of the goal itself, which is often also on its classpath).
+     *
+     * @param entry    the classpath entry to add
+     * @param excluded a directory to skip while walking directories (can be <code>null</code>)
+     * @return this fingerprint
+     * @throws IOException when a directory cannot be walked
+     */
+    public Fingerprint addClasspathEntry(final File entry, final File excluded) throws IOException {
+        add(entry.getAbsolutePath());
+        if (excluded != null && entry.getAbsoluteFile().equals(excluded.getAbsoluteFile())) {
+            add("<excluded>");
+        } else if (entry.isDirectory()) {
+            addDirectory(entry, entry, excluded);
+        } else if (entry.isFile()) {
+            add(entry.length() + ":" + entry.lastModified());
+        } else {
+            add("<missing>");
+        }
+        return this;
+    }
+
+    /**
+     * Adds each element of a classpath (elements may be <code>File</code>s or <code>String</code> paths).
+     *
+     * @param classpath the classpath to add
+     * @param excluded  a directory to skip while walking directories (can be <code>null</code>)
+     * @return this fingerprint
+     * @throws IOException when a directory cannot be walked
+     */
+    public Fingerprint addClasspath(final Collection<?> classpath, final File excluded) throws IOException {
+        if (classpath == null) {
+            add("<none>");
+            return this;
+        }
+        for (Object element : classpath) {
+            addClasspathEntry(element instanceof File ? (File) element : new File(String.valueOf(element)), excluded);
+        }
+        return this;
+    }
+
+    /**
+     * Adds each element of a classpath (elements may be <code>File</code>s or <code>String</code> paths) by its path and
+     * the digest of its ABI, so changes that can't affect classes compiled against the classpath (like changes to
+     * method bodies) don't change the fingerprint.
+     *
+     * @param classpath   the classpath to add
+     * @param excluded    a directory to skip (can be <code>null</code>)
+     * @param abiSnapshot the snapshot to compute ABI digests with
+     * @return this fingerprint
+     * @throws IOException when a classpath element cannot be read
+     */
+    public Fingerprint addClasspathAbi(final Collection<?> classpath, final File excluded, final AbiSnapshot abiSnapshot) throws IOException {
+        if (classpath == null) {
+            add("<none>");
+            return this;
+        }
+        for (Object element : classpath) {
+            File entry = element instanceof File ? (File) element : new File(String.valueOf(element));
+            add(entry.getAbsolutePath());
+            if (excluded != null && entry.getAbsoluteFile().equals(excluded.getAbsoluteFile())) {
+                add("<excluded>");
+            } else {
+                add(abiSnapshot.digest(entry));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds the contents of the given files, with their paths relative to a base directory rather than absolute, so the
+     * fingerprint is the same for other checkouts of the same sources. Files outside the base directory contribute their
+     * absolute path.
+     *
+     * @param files         the files to add
+     * @param baseDirectory the directory to make paths relative to
+     * @return this fingerprint
+     * @throws IOException when a file cannot be read
+     */
+    public Fingerprint addRelativeContents(final Collection<File> files, final File baseDirectory) throws IOException {
+        for (File file : sorted(files)) {
+            add(relativePath(file, baseDirectory));
+            addFileContents(file);
+        }
+        return this;
+    }
+
+    /**
+     * Adds the contents of each element of a classpath (elements may be <code>File</code>s or <code>String</code>
+     * paths), independently of where the elements are. Jars contribute their name and a digest of their contents
+     * (computed once per JVM for each jar, path, size, and modification time). Directories contribute the relative path
+     * and contents of every file beneath them, skipping the excluded directory.
+     *
+     * @param classpath the classpath to add
+     * @param excluded  a directory to skip (can be <code>null</code>)
+     * @return this fingerprint
+     * @throws IOException when a classpath element cannot be read
+     */
+    public Fingerprint addClasspathContents(final Collection<?> classpath, final File excluded) throws IOException {
+        if (classpath == null) {
+            add("<none>");
+            return this;
+        }
+        for (Object element : classpath) {
+            File entry = element instanceof File ? (File) element : new File(String.valueOf(element));
+            if (excluded != null && entry.getAbsoluteFile().equals(excluded.getAbsoluteFile())) {
+                add("<excluded>");
+            } else if (entry.isDirectory()) {
+                add("<directory>");
+                addDirectoryContents(entry, entry, excluded);
+            } else if (entry.isFile()) {
+                add(entry.getName());
+                add(jarDigest(entry));
+            } else {
+                add("<missing>");
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds every non-static field of the given object (including superclass fields), ordered by name. File values
+     * contribute their contents, collections of files contribute each file's contents, everything else contributes its
+     * <code>toString()</code>. Fields listed in <code>skippedFields</code> are ignored, so callers can hash large
+     * collections (like sources and classpath) in a more specific way.
+     *
+     * @param object        the object whose fields to add
+     * @param skippedFields names of fields to skip
+     * @return this fingerprint
+     * @throws IOException when a file cannot be read
+     */
+    public Fingerprint addFields(final Object object, final String... skippedFields) throws IOException {
+        List<String> skipped = Arrays.asList(skippedFields);
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = object.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && !skipped.contains(field.getName())) {
+                    fields.add(field);
+                }
+            }
+        }
+        fields.sort(Comparator.comparing(Field::getName));
+        for (Field field : fields) {
+            field.setAccessible(true);
+            Object value;
+            try {
+                value = field.get(object);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Unable to read field " + field.getName() + ".", e);
+            }
+            add(field.getName());
+            addValue(value);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the hex encoded digest of everything added so far.  The fingerprint shouldn't be used after this.
+     *
+     * @return the hex encoded digest
+     */
+    public String toHexString() {
+        byte[] bytes = digest.digest();
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addValue(final Object value) throws IOException {
+        if (value instanceof File) {
+            addContents((File) value);
+        } else if (value instanceof Collection && isFileCollection((Collection<?>) value)) {
+            addContents((Collection<File>) value);
+        } else if (value instanceof Object[]) {
+            add(Arrays.deepToString((Object[]) value));
+        } else {
+            add(value == null ? null : value.toString());
+        }
+    }
+
+    private void addDirectory(final File root, final File directory, final File excluded) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (excluded != null && child.getAbsoluteFile().equals(excluded.getAbsoluteFile())) {
+                continue;
+            }
+            if (child.isDirectory()) {
+                addDirectory(root, child, excluded);
+            } else {
+                add(root.toPath().relativize(child.toPath()).toString());
+                add(child.length() + ":" + child.lastModified());
+            }
+        }
+    }
+
+    private void addDirectoryContents(final File root, final File directory, final File excluded) throws IOException {
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (excluded != null && child.getAbsoluteFile().equals(excluded.getAbsoluteFile())) {
+                continue;
+            }
+            if (child.isDirectory()) {
+                addDirectoryContents(root, child, excluded);
+            } else {
+                add(relativePath(child, root));
+                addFileContents(child);
+            }
+        }
+    }
+
+    private void addFileContents(final File file) throws IOException {
+        if (!file.isFile()) {
+            add("<missing>");
+            return;
+        }
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    private static String jarDigest(final File jar) throws IOException {
+        String key = jar.getAbsolutePath() + ":" + jar.length() + ":" + jar.lastModified();
+        String jarDigest = JAR_DIGESTS.get(key);
+        if (jarDigest == null) {
+            Fingerprint fingerprint = new Fingerprint();
+            fingerprint.addFileContents(jar);
+            jarDigest = fingerprint.toHexString();
+            JAR_DIGESTS.put(key, jarDigest);
+        }
+        return jarDigest;
+    }
+
+    private static String relativePath(final File file, final File baseDirectory) {
+        if (baseDirectory != null) {
+            Path base = baseDirectory.getAbsoluteFile().toPath().normalize();
+            Path path = file.getAbsoluteFile().toPath().normalize();
+            if (path.startsWith(base)) {
+                return base.relativize(path).toString().replace(File.separatorChar, '/');
+            }
+        }
+        return file.getAbsolutePath();
+    }
+
+    private static boolean isFileCollection(final Collection<?> collection) {
+        for (Object element : collection) {
+            if (!(element instanceof File)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<File> sorted(final Collection<File> files) {
+        List<File> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparing(File::getAbsolutePath));
+        return sorted;
+    }
+
+}
@@ -0,0 +1,563 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.codehaus.gmavenplus.util.ReflectionUtils.findMethod;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeMethod;
+
+
+/**
+ * The protocol between the build and a {@link ForkedGroovyCompiler} fork, over the fork's standard input and output.
+ * The fork starts by writing a header. Each request is whether the build logs debug messages followed by a
+ * length-prefixed serialized configuration; the fork replies
+ * with a stream of frames as the work progresses: log entries (written as soon as they're logged), compilation
+ * diagnostics (file, line, column and severity), metrics (like the number of compiled classes and the time of each
+ * compile phase), and finally the result, after which the fork waits for the next request. The fork exits when its
+ * input is closed.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ForkProtocol {
+
+    /**
+     * The header the fork writes before anything else (<code>GMP</code> and the protocol version).
+     */
+    protected static final int HEADER = 0x474d5002;
+
+    /**
+     * The severity of a diagnostic that's a warning.
+     */
+    public static final int WARNING = 2;
+
+    /**
+     * The severity of a diagnostic that's an error.
+     */
+    public static final int ERROR = 3;
+
+    private static final byte LOG_FRAME = 1;
+    private static final byte DIAGNOSTIC_FRAME = 2;
+    private static final byte METRIC_FRAME = 3;
+    private static final byte RESULT_FRAME = 4;
+
+    private static final int DEBUG = 0;
+    private static final int INFO = 1;
+
+    private static final String MULTIPLE_COMPILATION_ERRORS_EXCEPTION = "org.codehaus.groovy.control.MultipleCompilationErrorsException";
+
+    private ForkProtocol() {
+    }
+
+    /**
+     * Writes the header. Called by the fork once it's started.
+     *
+     * @param out the stream to the build
+     * @throws IOException when the stream cannot be written
+     */
+    public static void writeHeader(final DataOutputStream out) throws IOException {
+        out.writeInt(HEADER);
+        out.flush();
+    }
+
+    /**
+     * Reads the header, to make sure the other end is a fork that speaks this protocol.
+     *
+     * @param in the stream from the fork
+     * @throws IOException when the stream cannot be read or doesn't start with the header
+     */
+    public static void readHeader(final DataInputStream in) throws IOException {
+        int header = in.readInt();
+        if (header != HEADER) {
+            throw new IOException("Unexpected output from Groovy compiler fork (0x" + Integer.toHexString(header) + ").");
+        }
+    }
+
+    /**
+     * Writes a request.
+     *
+     * @param out           the stream to the fork
+     * @param configuration a GroovyCompileConfiguration, GroovyStubConfiguration, or GroovyDocConfiguration
+     * @param debugEnabled  whether the build logs debug messages
+     * @throws IOException when the stream cannot be written
+     */
+    public static void writeRequest(final DataOutputStream out, final Serializable configuration, final boolean debugEnabled) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(configuration);
+        }
+        out.writeBoolean(debugEnabled);
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Reads a request.
+     *
+     * @param in the stream from the build
+     * @return the request, or <code>null</code> if the input was closed
+     * @throws IOException when the stream cannot be read
+     */
+    public static Request readRequest(final DataInputStream in) throws IOException {
+        boolean debugEnabled;
+        try {
+            debugEnabled = in.readBoolean();
+        } catch (EOFException e) {
+            return null;
+        }
+        byte[] configuration = new byte[in.readInt()];
+        in.readFully(configuration);
+        return new Request(configuration, debugEnabled);
+    }
+
+    /**
+     * Gets the configuration from a request.
+     *
+     * @param request the serialized configuration
+     * @return the configuration
+     * @throws IOException            when the configuration cannot be read
+     * @throws ClassNotFoundException when the configuration is of an unknown class
+     */
+    public static Object deserialize(final byte[] request) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(request))) {
+            return ois.readObject();
+        }
+    }
+
+    /**
+     * Writes a diagnostic frame for each error and warning of a compilation failure.
+     *
+     * @param out     the stream to the build
+     * @param failure the failure
+     * @return the number of diagnostics written (<code>0</code> if the failure isn't a compilation failure)
+     * @throws IOException when the stream cannot be written
+     */
+    public static int writeDiagnostics(final DataOutputStream out, final Throwable failure) throws IOException {
+        List<Diagnostic> diagnostics = diagnostics(failure);
+        synchronized (out) {
+            for (Diagnostic diagnostic : diagnostics) {
+                out.writeByte(DIAGNOSTIC_FRAME);
+                out.writeByte(diagnostic.severity);
+                writeString(out, diagnostic.file);
+                out.writeInt(diagnostic.line);
+                out.writeInt(diagnostic.column);
+                writeString(out, diagnostic.message);
+            }
+            out.flush();
+        }
+        return diagnostics.size();
+    }
+
+    /**
+     * Writes a metric frame for each metric.
+     *
+     * @param out     the stream to the build
+     * @param metrics the metrics
+     * @throws IOException when the stream cannot be written
+     */
+    public static void writeMetrics(final DataOutputStream out, final Map<String, Long> metrics) throws IOException {
+        synchronized (out) {
+            for (Map.Entry<String, Long> metric : metrics.entrySet()) {
+                out.writeByte(METRIC_FRAME);
+                writeString(out, metric.getKey());
+                out.writeLong(metric.getValue());
+            }
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes the result frame, which ends the reply.
+     *
+     * @param out     the stream to the build
+     * @param failure the failure (<code>null</code> if the work succeeded)
+     * @throws IOException when the stream cannot be written
+     */
+    public static void writeResult(final DataOutputStream out, final String failure) throws IOException {
+        synchronized (out) {
+            out.writeByte(RESULT_FRAME);
+            writeString(out, failure);
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads a reply, logging its log entries and diagnostics as they arrive, until its result.
+     *
+     * @param in  the stream from the fork
+     * @param log the log to write the fork's log entries and diagnostics to
+     * @return the reply
+     * @throws IOException when the stream cannot be read or contains something other than frames
+     */
+    public static Reply readReply(final DataInputStream in, final Log log) throws IOException {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        while (true) {
+            byte frame = in.readByte();
+            if (frame == LOG_FRAME) {
+                int level = in.readByte();
+                String message = readString(in);
+                if (level == DEBUG) {
+                    log.debug(message);
+                } else if (level == INFO) {
+                    log.info(message);
+                } else if (level == WARNING) {
+                    log.warn(message);
+                } else {
+                    log.error(message);
+                }
+            } else if (frame == DIAGNOSTIC_FRAME) {
+                Diagnostic diagnostic = new Diagnostic(in.readByte(), readString(in), in.readInt(), in.readInt(), readString(in));
+                diagnostics.add(diagnostic);
+                if (diagnostic.severity == WARNING) {
+                    log.warn(diagnostic.toString());
+                } else {
+                    log.error(diagnostic.toString());
+                }
+            } else if (frame == METRIC_FRAME) {
+                metrics.put(readString(in), in.readLong());
+            } else if (frame == RESULT_FRAME) {
+                return new Reply(readString(in), diagnostics, metrics);
+            } else {
+                throw new IOException("Unexpected frame from Groovy compiler fork (" + frame + ").");
+            }
+        }
+    }
+
+    /**
+     * A log that writes its entries to the build as log frames as soon as they're logged.
+     */
+    public static class FrameLog implements Log {
+        private final DataOutputStream out;
+        private final boolean debugEnabled;
+
+        /**
+         * Creates a new FrameLog.
+         *
+         * @param out          the stream to the build
+         * @param debugEnabled whether the build logs debug messages (debug messages aren't sent if it doesn't)
+         */
+        public FrameLog(final DataOutputStream out, final boolean debugEnabled) {
+            this.out = out;
+            this.debugEnabled = debugEnabled;
+        }
+
+        private void write(final int level, final CharSequence content, final Throwable error) {
+            StringBuilder sb = new StringBuilder();
+            if (content != null) {
+                sb.append(content);
+            }
+            if (error != null) {
+                StringWriter stackTrace = new StringWriter();
+                error.printStackTrace(new PrintWriter(stackTrace));
+                sb.append(content != null ? System.lineSeparator() : "").append(stackTrace.toString().trim());
+            }
+            try {
+                synchronized (out) {
+                    out.writeByte(LOG_FRAME);
+                    out.writeByte(level);
+                    writeString(out, sb.toString());
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // the build went away, the fork exits once it notices its input was closed
+            }
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return debugEnabled;
+        }
+
+        @Override
+        public void debug(CharSequence content) {
+            if (debugEnabled) {
+                write(DEBUG, content, null);
+            }
+        }
+
+        @Override
+        public void debug(CharSequence content, Throwable error) {
+            if (debugEnabled) {
+                write(DEBUG, content, error);
+            }
+        }
+
+        @Override
+        public void debug(Throwable error) {
+            if (debugEnabled) {
+                write(DEBUG, null, error);
+            }
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return true;
+        }
+
+        @Override
+        public void info(CharSequence content) {
+            write(INFO, content, null);
+        }
+
+        @Override
+        public void info(CharSequence content, Throwable error) {
+            write(INFO, content, error);
+        }
+
+        @Override
+        public void info(Throwable error) {
+            write(INFO, null, error);
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return true;
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+            write(WARNING, content, null);
+        }
+
+        @Override
+        public void warn(CharSequence content, Throwable error) {
+            write(WARNING, content, error);
+        }
+
+        @Override
+        public void warn(Throwable error) {
+            write(WARNING, null, error);
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return true;
+        }
+
+        @Override
+        public void error(CharSequence content) {
+            write(ERROR, content, null);
+        }
+
+        @Override
+        public void error(CharSequence content, Throwable error) {
+            write(ERROR, content, error);
+        }
+
+        @Override
+        public void error(Throwable error) {
+            write(ERROR, null, error);
+        }
+    }
+
+    /**
+     * A compilation error or warning.
+     */
+    public static class Diagnostic {
+        private final int severity;
+        private final String file;
+        private final int line;
+        private final int column;
+        private final String message;
+
+        /**
+         * Creates a new Diagnostic.
+         *
+         * @param severity the severity ({@link #WARNING} or {@link #ERROR})
+         * @param file     the source file (can be <code>null</code>)
+         * @param line     the line (<code>0</code> if unknown)
+         * @param column   the column (<code>0</code> if unknown)
+         * @param message  the message
+         */
+        public Diagnostic(final int severity, final String file, final int line, final int column, final String message) {
+            this.severity = severity;
+            this.file = file;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+
+        public int getSeverity() {
+            return severity;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            if (file != null) {
+                sb.append(file);
+                if (line > 0) {
+                    sb.append(":[").append(line).append(',').append(column).append(']');
+                }
+                sb.append(' ');
+            }
+            return sb.append(message).toString();
+        }
+    }
+
+    /**
+     * A request to the fork.
+     */
+    public static class Request {
+        private final byte[] configuration;
+        private final boolean debugEnabled;
+
+        private Request(final byte[] configuration, final boolean debugEnabled) {
+            this.configuration = configuration;
+            this.debugEnabled = debugEnabled;
+        }
+
+        /**
+         * Gets the configuration.
+         *
+         * @return the serialized configuration
+         */
+        public byte[] getConfiguration() {
+            return configuration;
+        }
+
+        public boolean isDebugEnabled() {
+            return debugEnabled;
+        }
+    }
+
+    /**
+     * A reply from the fork.
+     */
+    public static class Reply {
+        private final String failure;
+        private final List<Diagnostic> diagnostics;
+        private final Map<String, Long> metrics;
+
+        private Reply(final String failure, final List<Diagnostic> diagnostics, final Map<String, Long> metrics) {
+            this.failure = failure;
+            this.diagnostics = Collections.unmodifiableList(diagnostics);
+            this.metrics = Collections.unmodifiableMap(metrics);
+        }
+
+        /**
+         * Gets the failure.
+         *
+         * @return the failure, or <code>null</code> if the work succeeded
+         */
+        public String getFailure() {
+            return failure;
+        }
+
+        public List<Diagnostic> getDiagnostics() {
+            return diagnostics;
+        }
+
+        public Map<String, Long> getMetrics() {
+            return metrics;
+        }
+    }
+
+    /**
+     * Gets the errors and warnings of a Groovy compilation failure.
+     *
+     * @param failure the failure
+     * @return the diagnostics (empty if the failure isn't a compilation failure)
+     */
+    protected static List<Diagnostic> diagnostics(final Throwable failure) {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        Throwable compilationFailure = failure;
+        while (compilationFailure != null && !MULTIPLE_COMPILATION_ERRORS_EXCEPTION.equals(compilationFailure.getClass().getName())) {
+            compilationFailure = compilationFailure.getCause();
+        }
+        if (compilationFailure == null) {
+            return diagnostics;
+        }
+        try {
+            Object errorCollector = invokeMethod(findMethod(compilationFailure.getClass(), "getErrorCollector"), compilationFailure);
+            List<?> errors = (List<?>) invokeMethod(findMethod(errorCollector.getClass(), "getErrors"), errorCollector);
+            if (errors != null) {
+                for (Object error : errors) {
+                    diagnostics.add(diagnostic(ERROR, error));
+                }
+            }
+            List<?> warnings = (List<?>) invokeMethod(findMethod(errorCollector.getClass(), "getWarnings"), errorCollector);
+            if (warnings != null) {
+                for (Object warning : warnings) {
+                    diagnostics.add(diagnostic(WARNING, warning));
+                }
+            }
+        } catch (Exception e) {
+            // not a Groovy version this knows the error messages of, the failure is still reported
+        }
+        return diagnostics;
+    }
+
+    private static Diagnostic diagnostic(final int severity, final Object message) throws Exception {
+        Method getCause = findMethod(message.getClass(), "getCause");
+        Object cause = getCause != null ? invokeMethod(getCause, message) : null;
+        if (cause != null && "org.codehaus.groovy.syntax.SyntaxException".equals(cause.getClass().getName())) {
+            Class<?> syntaxExceptionClass = cause.getClass();
+            return new Diagnostic(severity, (String) invokeMethod(findMethod(syntaxExceptionClass, "getSourceLocator"), cause),
+                    (Integer) invokeMethod(findMethod(syntaxExceptionClass, "getLine"), cause),
+                    (Integer) invokeMethod(findMethod(syntaxExceptionClass, "getStartColumn"), cause),
+                    (String) invokeMethod(findMethod(syntaxExceptionClass, "getOriginalMessage"), cause));
+        } else if (cause instanceof Throwable) {
+            return new Diagnostic(severity, null, 0, 0, String.valueOf(cause));
+        }
+        Method getMessage = findMethod(message.getClass(), "getMessage");
+        return new Diagnostic(severity, null, 0, 0, String.valueOf(getMessage != null ? invokeMethod(getMessage, message) : message));
+    }
+
+    private static void writeString(final DataOutputStream out, final String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
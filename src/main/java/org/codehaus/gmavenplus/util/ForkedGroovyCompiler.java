@@ -6,12 +6,23 @@ import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
 import org.codehaus.gmavenplus.model.GroovyDocConfiguration;
 import org.codehaus.gmavenplus.model.GroovyStubConfiguration;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Main class to be executed in a forked process for Groovy compilation.
@@ -20,47 +31,149 @@ import java.util.List;
  */
 public class ForkedGroovyCompiler {
 
+    /**
+     * The argument that makes the fork perform the configurations it's sent on standard input, one after another
+     * (see {@link ForkProtocol}), rather than the one in a configuration file.
+     *
+     * @since 5.1.0
+     */
+    public static final String QUEUE_ARGUMENT = "--queue";
+
+    /**
+     * The classloaders holding the Groovy jars of the requests, so a fork (or daemon) that performs several requests
+     * loads (and JIT-compiles) Groovy once rather than for every request.
+     */
+    private static final ClassLoaderCache GROOVY_CLASS_LOADERS = new ClassLoaderCache(new SystemStreamLog());
+
     public static void main(String[] args) {
         if (args.length != 1) {
-            System.err.println("Usage: java " + ForkedGroovyCompiler.class.getName() + " <configuration-file>");
+            System.err.println("Usage: java " + ForkedGroovyCompiler.class.getName() + " <configuration-file>|" + QUEUE_ARGUMENT);
             System.exit(1);
         }
+        if (QUEUE_ARGUMENT.equals(args[0])) {
+            PrintStream replies = System.out;
+            // keep anything printed by the compiler (or build scripts) out of the replies
+            System.setOut(System.err);
+            try {
+                serve(System.in, replies);
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.exit(1);
+            }
+            System.exit(0);
+        }
 
         String configFilePath = args[0];
         try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(Paths.get(configFilePath)))) {
             Object configuration = ois.readObject();
-            Log log = new SystemStreamLog();
+            execute(configuration, new SystemStreamLog());
+        } catch (IOException | ClassNotFoundException | InstantiationException | IllegalAccessException | java.lang.reflect.InvocationTargetException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
 
-            List<?> classpath = Collections.emptyList();
-            org.codehaus.gmavenplus.model.IncludeClasspath includeClasspath = null;
+    /**
+     * Performs the configurations read from the input one after another until the input is closed, streaming back the
+     * log entries, diagnostics, metrics and result of each using the {@link ForkProtocol}.
+     *
+     * @param input  the stream to read requests from
+     * @param output the stream to write replies to
+     * @throws IOException when the streams cannot be read or written
+     * @since 5.1.0
+     */
+    public static void serve(final InputStream input, final OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        ForkProtocol.writeHeader(out);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        ForkProtocol.Request request;
+        while ((request = ForkProtocol.readRequest(in)) != null) {
+            Log log = new ForkProtocol.FrameLog(out, request.isDebugEnabled());
+            String failure = null;
+            long start = System.nanoTime();
+            ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+            try {
+                Map<String, Long> metrics = new LinkedHashMap<>(execute(ForkProtocol.deserialize(request.getConfiguration()), log));
+                metrics.put("fork.nanos", System.nanoTime() - start);
+                ForkProtocol.writeMetrics(out, metrics);
+            } catch (Throwable t) {
+                Throwable cause = t.getCause() != null && t instanceof java.lang.reflect.InvocationTargetException ? t.getCause() : t;
+                if (ForkProtocol.writeDiagnostics(out, cause) > 0) {
+                    log.debug(cause);
+                } else {
+                    log.error(cause);
+                }
+                failure = String.valueOf(cause);
+            } finally {
+                Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+            }
+            ForkProtocol.writeResult(out, failure);
+        }
+    }
 
-            if (configuration instanceof GroovyCompileConfiguration) {
-                classpath = ((GroovyCompileConfiguration) configuration).getClasspath();
-                includeClasspath = ((GroovyCompileConfiguration) configuration).getIncludeClasspath();
-            } else if (configuration instanceof GroovyStubConfiguration) {
-                classpath = ((GroovyStubConfiguration) configuration).getClasspath();
-                includeClasspath = ((GroovyStubConfiguration) configuration).getIncludeClasspath();
-            } else if (configuration instanceof GroovyDocConfiguration) {
-                classpath = ((GroovyDocConfiguration) configuration).getClasspath();
-                includeClasspath = ((GroovyDocConfiguration) configuration).getIncludeClasspath();
+    /**
+     * Performs the compilation, stub generation, or GroovyDoc generation described by the given configuration.
+     *
+     * @param configuration a GroovyCompileConfiguration, GroovyStubConfiguration, or GroovyDocConfiguration
+     * @param log           the log to use
+     * @return the metrics of the work (see {@link GroovyCompiler#getMetrics()})
+     * @throws ClassNotFoundException    when a class needed cannot be found
+     * @throws InstantiationException    when a class needed cannot be instantiated
+     * @throws IllegalAccessException    when a method needed cannot be accessed
+     * @throws java.lang.reflect.InvocationTargetException when a reflection invocation needed cannot be completed
+     * @throws IOException               when a classpath element provides a malformed URL
+     */
+    public static Map<String, Long> execute(Object configuration, Log log) throws ClassNotFoundException, InstantiationException, IllegalAccessException, java.lang.reflect.InvocationTargetException, IOException {
+        List<?> classpath = Collections.emptyList();
+        org.codehaus.gmavenplus.model.IncludeClasspath includeClasspath = null;
+
+        if (configuration instanceof GroovyCompileConfiguration) {
+            classpath = ((GroovyCompileConfiguration) configuration).getClasspath();
+            includeClasspath = ((GroovyCompileConfiguration) configuration).getIncludeClasspath();
+        } else if (configuration instanceof GroovyStubConfiguration) {
+            classpath = ((GroovyStubConfiguration) configuration).getClasspath();
+            includeClasspath = ((GroovyStubConfiguration) configuration).getIncludeClasspath();
+        } else if (configuration instanceof GroovyDocConfiguration) {
+            classpath = ((GroovyDocConfiguration) configuration).getClasspath();
+            includeClasspath = ((GroovyDocConfiguration) configuration).getIncludeClasspath();
+        }
+
+        ClassLoader parent = ClassLoader.getSystemClassLoader();
+        if (includeClasspath != null && includeClasspath.name().equals("PROJECT_ONLY")) {
+            try {
+                java.lang.reflect.Method getPlatformClassLoader = ClassLoader.class.getMethod("getPlatformClassLoader");
+                parent = (ClassLoader) getPlatformClassLoader.invoke(null);
+            } catch (Exception e) {
+                parent = null;
             }
+        }
+
+        List<?> finalClasspath = classpath != null ? classpath : Collections.emptyList();
+        if (includeClasspath != null && includeClasspath.name().equals("PLUGIN_ONLY")) {
+            finalClasspath = Collections.emptyList();
+        }
 
-            ClassLoader parent = ClassLoader.getSystemClassLoader();
-            if (includeClasspath != null && includeClasspath.name().equals("PROJECT_ONLY")) {
-                try {
-                    java.lang.reflect.Method getPlatformClassLoader = ClassLoader.class.getMethod("getPlatformClassLoader");
-                    parent = (ClassLoader) getPlatformClassLoader.invoke(null);
-                } catch (Exception e) {
-                    parent = null;
+        // Groovy is kept loaded between requests, with only the project classpath loaded for each request
+        ClassLoader groovyClassLoader = null;
+        if (includeClasspath != null && includeClasspath.name().equals("PROJECT_ONLY")) {
+            List<File> groovyJars = new ArrayList<>();
+            List<Object> projectClasspath = new ArrayList<>();
+            for (Object classpathElement : finalClasspath) {
+                File file = classpathElement instanceof File ? (File) classpathElement : new File(String.valueOf(classpathElement));
+                if (ClassLoaderCache.isShareable(file)) {
+                    groovyJars.add(file);
+                } else {
+                    projectClasspath.add(classpathElement);
                 }
             }
-
-            List<?> finalClasspath = classpath != null ? classpath : Collections.emptyList();
-            if (includeClasspath != null && includeClasspath.name().equals("PLUGIN_ONLY")) {
-                finalClasspath = Collections.emptyList();
+            if (!groovyJars.isEmpty()) {
+                groovyClassLoader = GROOVY_CLASS_LOADERS.acquire(groovyJars, parent, log);
+                parent = groovyClassLoader;
+                finalClasspath = projectClasspath;
             }
+        }
 
-            ClassWrangler classWrangler = new ClassWrangler(finalClasspath, parent, log);
+        try (ClassWrangler classWrangler = new ClassWrangler(finalClasspath, parent, log)) {
             GroovyCompiler compiler = new GroovyCompiler(classWrangler, log);
 
             if (configuration instanceof GroovyCompileConfiguration) {
@@ -72,9 +185,11 @@ public class ForkedGroovyCompiler {
             } else {
                 throw new IllegalArgumentException("Unknown configuration type: " + configuration.getClass().getName());
             }
-        } catch (IOException | ClassNotFoundException | InstantiationException | IllegalAccessException | java.lang.reflect.InvocationTargetException e) {
-            e.printStackTrace();
-            System.exit(1);
+            return compiler.getMetrics();
+        } finally {
+            if (groovyClassLoader != null) {
+                GROOVY_CLASS_LOADERS.release(groovyClassLoader, log);
+            }
         }
     }
 }
@@ -0,0 +1,127 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * {@link GroovyCompilerFork}s that are kept running after their first execution, so later
+ * executions with the same Java executable and classpath (later goals of the module and later modules of the build)
+ * are queued onto them instead of each starting a new JVM. Each fork performs one execution at a time; parallel builds
+ * start more forks as needed. The forks are stopped when the pool is closed (at the end of the Maven session) and exit
+ * by themselves if the build's JVM goes away.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class ForkedGroovyCompilerPool implements Closeable {
+
+    private final Map<String, Deque<GroovyCompilerFork>> idleForks = new HashMap<>();
+    private final List<GroovyCompilerFork> forks = new ArrayList<>();
+    private boolean closed;
+
+    /**
+     * Performs the work described by the configuration in an idle fork, starting one if there is none.
+     *
+     * @param configuration  a GroovyCompileConfiguration, GroovyStubConfiguration, or GroovyDocConfiguration
+     * @param javaExecutable the Java executable to run the fork with
+     * @param classpath      the classpath to run the fork with
+     * @param cdsDirectory   the directory to keep class data sharing archives in (<code>null</code> to not use class
+     *                       data sharing)
+     * @param log            the log to write the fork's log entries and diagnostics to
+     * @return the metrics the fork reported
+     * @throws IOException               when no fork could perform the work (the work might not have been performed)
+     * @throws InvocationTargetException when the fork performed the work, but it failed
+     */
+    public Map<String, Long> execute(final Serializable configuration, final String javaExecutable, final String classpath, final File cdsDirectory, final Log log) throws IOException, InvocationTargetException {
+        String key = javaExecutable + File.pathSeparator + (cdsDirectory != null) + File.pathSeparator + classpath;
+        GroovyCompilerFork fork = takeIdleFork(key);
+        if (fork == null) {
+            fork = start(javaExecutable, classpath, cdsDirectory, log);
+        } else {
+            log.debug("Reusing Groovy compiler fork.");
+        }
+
+        try {
+            Map<String, Long> metrics = fork.execute(configuration, log);
+            returnIdleFork(key, fork);
+            return metrics;
+        } catch (InvocationTargetException e) {
+            returnIdleFork(key, fork);
+            throw e;
+        } catch (IOException e) {
+            discard(fork);
+            fork.stop();
+            throw new IOException("Groovy compiler fork exited unexpectedly.", e);
+        }
+    }
+
+    /**
+     * Stops all forks.
+     */
+    @Override
+    public void close() {
+        List<GroovyCompilerFork> toStop;
+        synchronized (this) {
+            closed = true;
+            toStop = new ArrayList<>(forks);
+            forks.clear();
+            idleForks.clear();
+        }
+        for (GroovyCompilerFork fork : toStop) {
+            fork.stop();
+        }
+    }
+
+    /**
+     * Starts a fork.
+     *
+     * @param javaExecutable the Java executable to run the fork with
+     * @param classpath      the classpath to run the fork with
+     * @param cdsDirectory   the directory to keep class data sharing archives in (can be <code>null</code>)
+     * @param log            the log to use
+     * @return the fork
+     * @throws IOException when the fork cannot be started
+     */
+    protected GroovyCompilerFork start(final String javaExecutable, final String classpath, final File cdsDirectory, final Log log) throws IOException {
+        log.info("Starting reusable Groovy compiler fork using " + javaExecutable);
+        GroovyCompilerFork fork = GroovyCompilerFork.start(javaExecutable, classpath, cdsDirectory, log);
+        synchronized (this) {
+            if (closed) {
+                fork.stop();
+                throw new IOException("The Groovy compiler forks were already stopped.");
+            }
+            forks.add(fork);
+        }
+        return fork;
+    }
+
+    private synchronized GroovyCompilerFork takeIdleFork(final String key) {
+        Deque<GroovyCompilerFork> idle = idleForks.get(key);
+        return idle != null ? idle.pollFirst() : null;
+    }
+
+    private synchronized void discard(final GroovyCompilerFork fork) {
+        forks.remove(fork);
+    }
+
+    private synchronized void returnIdleFork(final String key, final GroovyCompilerFork fork) {
+        if (closed) {
+            fork.stop();
+        } else {
+            idleForks.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(fork);
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeDefaultMethod;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeMethod;
+
+
+/**
+ * Records which global AST transformations are applied to a compilation and how much time each of them takes. Global
+ * transformations are applied to every source without being asked for by an annotation, just because they're on the
+ * classpath, so a dependency bringing one along can slow the compilation without it being apparent why. This wraps the
+ * operations Groovy registers for each global transformation with operations that measure the wall time of each call.
+ * When several compilation units are profiled (like with parallel compilation), their times are added together.
+ * Requires Groovy 3.0.0 or newer, where the operations are interfaces.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class GlobalTransformProfiler {
+
+    private final Map<String, long[]> transforms = new TreeMap<>();
+    private final Log log;
+
+    /**
+     * Creates a new GlobalTransformProfiler.
+     *
+     * @param log the log to write the report to
+     */
+    public GlobalTransformProfiler(final Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Starts profiling the global transformations of the compilation unit. Should be called after creating the
+     * compilation unit and before any other profiler wraps its operations.
+     *
+     * @param compilationUnitClass   the CompilationUnit class
+     * @param transformationClass    the ASTTransformation class
+     * @param compilationUnit        the compilation unit to profile
+     * @return <code>true</code> if the compilation unit is profiled, <code>false</code> if this Groovy version doesn't allow it
+     * @throws IllegalAccessException when the compilation unit's operations cannot be accessed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean attach(final Class<?> compilationUnitClass, final Class<?> transformationClass, final Object compilationUnit) throws IllegalAccessException {
+        Object[] phaseOperations = SourceHotspotProfiler.phaseOperations(compilationUnitClass, compilationUnit);
+        if (phaseOperations == null) {
+            log.warn("Your Groovy version doesn't support profiling global AST transformations (must be 3.0.0 or newer). Skipping global AST transformation profiling.");
+            return false;
+        }
+        for (Object phaseOperation : phaseOperations) {
+            Deque<Object> operations = (Deque<Object>) phaseOperation;
+            if (operations == null) {
+                continue;
+            }
+            List<Object> wrapped = new ArrayList<>(operations.size());
+            for (Object operation : operations) {
+                Object transformation = transformationOf(operation, transformationClass);
+                wrapped.add(transformation != null ? wrap(operation, transformation.getClass().getName()) : operation);
+            }
+            operations.clear();
+            operations.addAll(wrapped);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the operation is one this profiler wrapped (so it can still be told apart from other operations).
+     *
+     * @param operation the operation
+     * @return <code>true</code> if the operation applies a profiled global transformation
+     */
+    public static boolean isProfiled(final Object operation) {
+        return Proxy.isProxyClass(operation.getClass()) && Proxy.getInvocationHandler(operation) instanceof ProfiledTransform;
+    }
+
+    /**
+     * Gets the global transformations applied and the time spent in each of them.
+     *
+     * @return the time spent in each transformation in nanoseconds, by transformation class name
+     */
+    public synchronized Map<String, Long> getTransformNanos() {
+        Map<String, Long> transformNanos = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> transform : transforms.entrySet()) {
+            transformNanos.put(transform.getKey(), transform.getValue()[0]);
+        }
+        return transformNanos;
+    }
+
+    /**
+     * Logs a table with the global transformations applied and the time spent in each of them.
+     */
+    public synchronized void report() {
+        if (transforms.isEmpty()) {
+            log.info("No global AST transformations applied.");
+            return;
+        }
+        StringBuilder table = new StringBuilder("Global AST transformations:").append(System.lineSeparator());
+        table.append(String.format(Locale.ROOT, "  %10s %8s  %s%n", "Time (ms)", "Calls", "Transformation"));
+        for (Map.Entry<String, long[]> transform : transforms.entrySet()) {
+            table.append(String.format(Locale.ROOT, "  %10.1f %8d  %s%n", transform.getValue()[0] / 1e6, transform.getValue()[1], transform.getKey()));
+        }
+        log.info(table.toString().trim());
+    }
+
+    /**
+     * Records a call of a global transformation.
+     *
+     * @param transformation the class name of the transformation
+     * @param nanos          the time the call took
+     */
+    protected synchronized void record(final String transformation, final long nanos) {
+        long[] transform = transforms.computeIfAbsent(transformation, name -> new long[2]);
+        transform[0] += nanos;
+        transform[1]++;
+    }
+
+    private Object wrap(final Object operation, final String transformation) {
+        Class<?> operationInterface = null;
+        for (Class<?> candidate : operation.getClass().getInterfaces()) {
+            if (candidate.getName().endsWith("$ISourceUnitOperation")) {
+                operationInterface = candidate;
+            }
+        }
+        if (operationInterface == null) {
+            return operation;
+        }
+        synchronized (this) {
+            transforms.computeIfAbsent(transformation, name -> new long[2]);
+        }
+        return Proxy.newProxyInstance(operationInterface.getClassLoader(), new Class<?>[]{operationInterface}, new ProfiledTransform(operation, transformation));
+    }
+
+    // the operations Groovy registers for global transformations are lambdas that capture the transformation
+    private static Object transformationOf(final Object operation, final Class<?> transformationClass) {
+        if (!operation.getClass().getName().contains("ASTTransformationVisitor")) {
+            return null;
+        }
+        for (Field field : operation.getClass().getDeclaredFields()) {
+            if (!transformationClass.isAssignableFrom(field.getType())) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                return field.get(operation);
+            } catch (IllegalAccessException | RuntimeException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private class ProfiledTransform implements InvocationHandler {
+        private final Object operation;
+        private final String transformation;
+
+        private ProfiledTransform(final Object operation, final String transformation) {
+            this.operation = operation;
+            this.transformation = transformation;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (method.isDefault()) {
+                return invokeDefaultMethod(proxy, method, args);
+            } else if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(method.getName())) {
+                return "Profiled " + transformation;
+            }
+            boolean call = "call".equals(method.getName());
+            long start = System.nanoTime();
+            try {
+                return invokeMethod(method, operation, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (call) {
+                    record(transformation, System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+}
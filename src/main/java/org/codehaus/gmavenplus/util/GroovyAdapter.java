@@ -0,0 +1,284 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.groovyworkarounds.DotGroovyFile;
+import org.codehaus.gmavenplus.model.internal.Version;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.security.CodeSource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.codehaus.gmavenplus.util.ReflectionUtils.findConstructor;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.findMethod;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeConstructor;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeMethod;
+
+
+/**
+ * The parts of compiling, generating stubs and generating GroovyDoc whose Groovy API differs between Groovy lines.
+ * There is an adapter for each line (1.x, 2.x to 3.x, and 4.x or newer), selected once from the Groovy version, with
+ * any differences within its line worked out when it's created, so the Groovy API is used without checking the
+ * version each time. Adapters are immutable and shared by all executions using the same Groovy version for the rest of
+ * the Maven session.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public abstract class GroovyAdapter {
+
+    private static final Version GROOVY_5_0_0_BETA1 = new Version(5, 0, 0, "beta-1");
+    private static final Version GROOVY_5_0_0_ALPHA1 = new Version(5, 0, 0, "alpha-1");
+    private static final Version GROOVY_4_0_27 = new Version(4, 0, 27);
+    private static final Version GROOVY_1_6_0 = new Version(1, 6, 0);
+    private static final Version GROOVY_1_6_0_RC2 = new Version(1, 6, 0, "RC-2");
+    private static final Version GROOVY_1_5_2 = new Version(1, 5, 2);
+
+    private static final GroovyAdapter GROOVY_2_ADAPTER = new Groovy2Adapter();
+
+    private static final Map<String, GroovyAdapter> ADAPTERS = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the adapter for a Groovy version.
+     *
+     * @param version the Groovy version
+     * @return the adapter
+     */
+    public static GroovyAdapter of(final Version version) {
+        return ADAPTERS.computeIfAbsent(version.toString(), k -> {
+            if (version.getMajor() < 2) {
+                return new Groovy1Adapter(version);
+            } else if (version.getMajor() < 4) {
+                return GROOVY_2_ADAPTER;
+            }
+            return new Groovy4Adapter(version);
+        });
+    }
+
+    /**
+     * Creates a CompilationUnit to compile with.
+     *
+     * @param compilerConfigurationClass the CompilerConfiguration class
+     * @param compilationUnitClass       the CompilationUnit class
+     * @param groovyClassLoaderClass     the GroovyClassLoader class
+     * @param compilerConfiguration      the CompilerConfiguration
+     * @param groovyClassLoader          the GroovyClassLoader to compile with
+     * @param transformLoader            the GroovyClassLoader to load AST transformations with (not used before Groovy 1.6.0)
+     * @return the CompilationUnit
+     * @throws InvocationTargetException when a reflection invocation needed to create the CompilationUnit cannot be completed
+     * @throws IllegalAccessException    when a constructor needed to create the CompilationUnit cannot be accessed
+     * @throws InstantiationException    when the CompilationUnit cannot be instantiated
+     */
+    public abstract Object newCompilationUnit(Class<?> compilerConfigurationClass, Class<?> compilationUnitClass, Class<?> groovyClassLoaderClass, Object compilerConfiguration, Object groovyClassLoader, Object transformLoader) throws InvocationTargetException, IllegalAccessException, InstantiationException;
+
+    /**
+     * Adds the sources to generate stubs for to a JavaStubCompilationUnit, with their file extensions.
+     *
+     * @param compilerConfigurationClass    the CompilerConfiguration class
+     * @param javaStubCompilationUnitClass  the JavaStubCompilationUnit class
+     * @param compilerConfiguration         the CompilerConfiguration of the JavaStubCompilationUnit
+     * @param javaStubCompilationUnit       the JavaStubCompilationUnit
+     * @param stubSources                   the sources to generate stubs for
+     * @param log                           the log to log the sources to
+     * @throws InvocationTargetException when a reflection invocation needed to add the sources cannot be completed
+     * @throws IllegalAccessException    when a method needed to add the sources cannot be accessed
+     */
+    public abstract void addStubSources(Class<?> compilerConfigurationClass, Class<?> javaStubCompilationUnitClass, Object compilerConfiguration, Object javaStubCompilationUnit, Set<File> stubSources, Log log) throws InvocationTargetException, IllegalAccessException;
+
+    /**
+     * Gets the class of the GroovyDoc links.
+     *
+     * @param classWrangler the ClassWrangler to load the class with
+     * @return the class of the GroovyDoc links, or <code>null</code> if links aren't supported (before Groovy 1.5.2)
+     * @throws ClassNotFoundException when the class of the GroovyDoc links cannot be found
+     */
+    public abstract Class<?> getLinkArgumentClass(ClassWrangler classWrangler) throws ClassNotFoundException;
+
+    /**
+     * Creates a GroovyDocTool to generate GroovyDoc with.
+     *
+     * @param groovyDocToolClass       the GroovyDocTool class
+     * @param resourceManagerClass     the ResourceManager class
+     * @param resourceManager          the ResourceManager to load templates with
+     * @param sourceDirectories        the source directories (only the first is used before Groovy 1.6-RC-2)
+     * @param docTemplates             the doc templates
+     * @param packageTemplates         the package templates
+     * @param classTemplates           the class templates
+     * @param links                    the GroovyDoc links (not used before Groovy 1.5.2)
+     * @param languageLevel            the language level (only used by Groovy 4.0.27 or newer, other than 5.0.0 alphas)
+     * @param docProperties            the GroovyDoc properties (not used before Groovy 1.6-RC-2)
+     * @param log                      the log to warn of ignored source directories with
+     * @return the GroovyDocTool
+     * @throws InvocationTargetException when a reflection invocation needed to create the GroovyDocTool cannot be completed
+     * @throws IllegalAccessException    when a constructor needed to create the GroovyDocTool cannot be accessed
+     * @throws InstantiationException    when the GroovyDocTool cannot be instantiated
+     */
+    public abstract Object newGroovyDocTool(Class<?> groovyDocToolClass, Class<?> resourceManagerClass, Object resourceManager, List<String> sourceDirectories, String[] docTemplates, String[] packageTemplates, String[] classTemplates, List<?> links, String languageLevel, Properties docProperties, Log log) throws InvocationTargetException, IllegalAccessException, InstantiationException;
+
+    /**
+     * Adds the sources to generate GroovyDoc for to a GroovyDocTool.
+     *
+     * @param groovyDocToolClass the GroovyDocTool class
+     * @param groovyDocTool      the GroovyDocTool
+     * @param groovyDocSources   the sources, relative to the source directories
+     * @throws InvocationTargetException when a reflection invocation needed to add the sources cannot be completed
+     * @throws IllegalAccessException    when a method needed to add the sources cannot be accessed
+     */
+    public abstract void addGroovyDocSources(Class<?> groovyDocToolClass, Object groovyDocTool, List<String> groovyDocSources) throws InvocationTargetException, IllegalAccessException;
+
+    private static Set<String> scriptExtensions(final Set<File> stubSources) {
+        Set<String> scriptExtensions = new HashSet<>();
+        for (File stubSource : stubSources) {
+            scriptExtensions.add(FileUtils.getFileExtension(stubSource));
+        }
+        return scriptExtensions;
+    }
+
+    private static void warnOfIgnoredSourceDirectories(final Version version, final List<String> sourceDirectories, final Log log) {
+        if (sourceDirectories.size() > 1) {
+            log.warn("Your Groovy version (" + version + ") doesn't support more than one GroovyDoc source directory (must be 1.6-RC-2 or newer). Only using first source directory (" + sourceDirectories.get(0) + ").");
+        }
+    }
+
+    /**
+     * The adapter for Groovy 1.x, whose API changed several times within the line.
+     */
+    private static class Groovy1Adapter extends GroovyAdapter {
+        private final Version version;
+        private final boolean transformLoader;
+        private final boolean settingExtensions;
+        private final boolean docProperties;
+        private final boolean links;
+
+        private Groovy1Adapter(final Version version) {
+            this.version = version;
+            transformLoader = ClassWrangler.groovyAtLeast(version, GROOVY_1_6_0);
+            settingExtensions = GroovyCapabilities.of(version, false).supports(GroovyCapabilities.Feature.SETTING_EXTENSIONS);
+            docProperties = ClassWrangler.groovyAtLeast(version, GROOVY_1_6_0_RC2);
+            links = ClassWrangler.groovyAtLeast(version, GROOVY_1_5_2);
+        }
+
+        @Override
+        public Object newCompilationUnit(final Class<?> compilerConfigurationClass, final Class<?> compilationUnitClass, final Class<?> groovyClassLoaderClass, final Object compilerConfiguration, final Object groovyClassLoader, final Object transformLoader) throws InvocationTargetException, IllegalAccessException, InstantiationException {
+            if (this.transformLoader) {
+                return invokeConstructor(findConstructor(compilationUnitClass, compilerConfigurationClass, CodeSource.class, groovyClassLoaderClass, groovyClassLoaderClass), compilerConfiguration, null, groovyClassLoader, transformLoader);
+            }
+            return invokeConstructor(findConstructor(compilationUnitClass, compilerConfigurationClass, CodeSource.class, groovyClassLoaderClass), compilerConfiguration, null, groovyClassLoader);
+        }
+
+        @Override
+        public void addStubSources(final Class<?> compilerConfigurationClass, final Class<?> javaStubCompilationUnitClass, final Object compilerConfiguration, final Object javaStubCompilationUnit, final Set<File> stubSources, final Log log) throws InvocationTargetException, IllegalAccessException {
+            if (settingExtensions) {
+                GROOVY_2_ADAPTER.addStubSources(compilerConfigurationClass, javaStubCompilationUnitClass, compilerConfiguration, javaStubCompilationUnit, stubSources, log);
+                return;
+            }
+            Set<String> scriptExtensions = scriptExtensions(stubSources);
+            log.debug("Detected Groovy file extensions: " + scriptExtensions + ".");
+            log.debug("Adding Groovy to generate stubs for:");
+            Method addSource = findMethod(javaStubCompilationUnitClass, "addSource", File.class);
+            for (File stubSource : stubSources) {
+                log.debug("    " + stubSource);
+                invokeMethod(addSource, javaStubCompilationUnit, new DotGroovyFile(stubSource).setScriptExtensions(scriptExtensions));
+            }
+        }
+
+        @Override
+        public Class<?> getLinkArgumentClass(final ClassWrangler classWrangler) throws ClassNotFoundException {
+            if (docProperties) {
+                return classWrangler.getClass("org.codehaus.groovy.tools.groovydoc.LinkArgument");
+            } else if (links) {
+                return classWrangler.getClass("org.codehaus.groovy.ant.Groovydoc$LinkArgument");
+            }
+            return null;
+        }
+
+        @Override
+        public Object newGroovyDocTool(final Class<?> groovyDocToolClass, final Class<?> resourceManagerClass, final Object resourceManager, final List<String> sourceDirectories, final String[] docTemplates, final String[] packageTemplates, final String[] classTemplates, final List<?> links, final String languageLevel, final Properties docProperties, final Log log) throws InvocationTargetException, IllegalAccessException, InstantiationException {
+            if (this.docProperties) {
+                return GROOVY_2_ADAPTER.newGroovyDocTool(groovyDocToolClass, resourceManagerClass, resourceManager, sourceDirectories, docTemplates, packageTemplates, classTemplates, links, languageLevel, docProperties, log);
+            }
+            warnOfIgnoredSourceDirectories(version, sourceDirectories, log);
+            if (this.links) {
+                return invokeConstructor(findConstructor(groovyDocToolClass, resourceManagerClass, String.class, String[].class, String[].class, String[].class, List.class), resourceManager, sourceDirectories.get(0), docTemplates, packageTemplates, classTemplates, links);
+            }
+            return invokeConstructor(findConstructor(groovyDocToolClass, resourceManagerClass, String.class, String[].class, String[].class, String[].class), resourceManager, sourceDirectories.get(0), docTemplates, packageTemplates, classTemplates);
+        }
+
+        @Override
+        public void addGroovyDocSources(final Class<?> groovyDocToolClass, final Object groovyDocTool, final List<String> groovyDocSources) throws InvocationTargetException, IllegalAccessException {
+            if (docProperties) {
+                invokeMethod(findMethod(groovyDocToolClass, "add", List.class), groovyDocTool, groovyDocSources);
+                return;
+            }
+            Method add = findMethod(groovyDocToolClass, "add", String.class);
+            for (String groovyDocSource : groovyDocSources) {
+                invokeMethod(add, groovyDocTool, groovyDocSource);
+            }
+        }
+    }
+
+    /**
+     * The adapter for Groovy 2.x and 3.x.
+     */
+    private static class Groovy2Adapter extends GroovyAdapter {
+
+        @Override
+        public Object newCompilationUnit(final Class<?> compilerConfigurationClass, final Class<?> compilationUnitClass, final Class<?> groovyClassLoaderClass, final Object compilerConfiguration, final Object groovyClassLoader, final Object transformLoader) throws InvocationTargetException, IllegalAccessException, InstantiationException {
+            return invokeConstructor(findConstructor(compilationUnitClass, compilerConfigurationClass, CodeSource.class, groovyClassLoaderClass, groovyClassLoaderClass), compilerConfiguration, null, groovyClassLoader, transformLoader);
+        }
+
+        @Override
+        public void addStubSources(final Class<?> compilerConfigurationClass, final Class<?> javaStubCompilationUnitClass, final Object compilerConfiguration, final Object javaStubCompilationUnit, final Set<File> stubSources, final Log log) throws InvocationTargetException, IllegalAccessException {
+            Set<String> scriptExtensions = scriptExtensions(stubSources);
+            log.debug("Detected Groovy file extensions: " + scriptExtensions + ".");
+            invokeMethod(findMethod(compilerConfigurationClass, "setScriptExtensions", Set.class), compilerConfiguration, scriptExtensions);
+            log.debug("Adding Groovy to generate stubs for:");
+            Method addSource = findMethod(javaStubCompilationUnitClass, "addSource", File.class);
+            for (File stubSource : stubSources) {
+                log.debug("    " + stubSource);
+                invokeMethod(addSource, javaStubCompilationUnit, stubSource);
+            }
+        }
+
+        @Override
+        public Class<?> getLinkArgumentClass(final ClassWrangler classWrangler) throws ClassNotFoundException {
+            return classWrangler.getClass("org.codehaus.groovy.tools.groovydoc.LinkArgument");
+        }
+
+        @Override
+        public Object newGroovyDocTool(final Class<?> groovyDocToolClass, final Class<?> resourceManagerClass, final Object resourceManager, final List<String> sourceDirectories, final String[] docTemplates, final String[] packageTemplates, final String[] classTemplates, final List<?> links, final String languageLevel, final Properties docProperties, final Log log) throws InvocationTargetException, IllegalAccessException, InstantiationException {
+            return invokeConstructor(findConstructor(groovyDocToolClass, resourceManagerClass, String[].class, String[].class, String[].class, String[].class, List.class, Properties.class), resourceManager, sourceDirectories.toArray(new String[0]), docTemplates, packageTemplates, classTemplates, links, docProperties);
+        }
+
+        @Override
+        public void addGroovyDocSources(final Class<?> groovyDocToolClass, final Object groovyDocTool, final List<String> groovyDocSources) throws InvocationTargetException, IllegalAccessException {
+            invokeMethod(findMethod(groovyDocToolClass, "add", List.class), groovyDocTool, groovyDocSources);
+        }
+    }
+
+    /**
+     * The adapter for Groovy 4.x or newer, which can pass the language level to GroovyDoc.
+     */
+    private static class Groovy4Adapter extends Groovy2Adapter {
+        private final boolean languageLevel;
+
+        private Groovy4Adapter(final Version version) {
+            languageLevel = (ClassWrangler.groovyAtLeast(version, GROOVY_4_0_27) && ClassWrangler.groovyOlderThan(version, GROOVY_5_0_0_ALPHA1)) || ClassWrangler.groovyAtLeast(version, GROOVY_5_0_0_BETA1);
+        }
+
+        @Override
+        public Object newGroovyDocTool(final Class<?> groovyDocToolClass, final Class<?> resourceManagerClass, final Object resourceManager, final List<String> sourceDirectories, final String[] docTemplates, final String[] packageTemplates, final String[] classTemplates, final List<?> links, final String languageLevel, final Properties docProperties, final Log log) throws InvocationTargetException, IllegalAccessException, InstantiationException {
+            if (!this.languageLevel) {
+                return super.newGroovyDocTool(groovyDocToolClass, resourceManagerClass, resourceManager, sourceDirectories, docTemplates, packageTemplates, classTemplates, links, languageLevel, docProperties, log);
+            }
+            return invokeConstructor(findConstructor(groovyDocToolClass, resourceManagerClass, String[].class, String[].class, String[].class, String[].class, List.class, String.class, Properties.class), resourceManager, sourceDirectories.toArray(new String[0]), docTemplates, packageTemplates, classTemplates, links, languageLevel, docProperties);
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.codehaus.gmavenplus.util;
+
+import org.codehaus.gmavenplus.model.internal.Version;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * The compiler features a Groovy version supports, worked out once from the version (and whether it's the indy jar)
+ * instead of with version comparisons every time a feature is checked. Profiles are immutable and shared by all
+ * executions using the same Groovy version for the rest of the Maven session.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class GroovyCapabilities {
+
+    /**
+     * A compiler feature.
+     */
+    public enum Feature {
+        /** Generating Java stubs (1.8.2 or newer). */
+        STUB_GENERATION,
+        /** Setting the script extensions to compile (1.8.3 or newer, other than 1.9.0-beta-1 to 1.9.0-beta-3). */
+        SETTING_EXTENSIONS,
+        /** Configuration scripts (2.1.0-beta-1 or newer). */
+        CONFIG_SCRIPT,
+        /** Compiling with invokedynamic (2.0.0-beta-3 or newer). */
+        INVOKE_DYNAMIC,
+        /** The jar contains the invokedynamic support classes. */
+        INVOKE_DYNAMIC_JAR,
+        /** Compiling with invokedynamic whether it's requested or not (4.0.0-alpha-1 or newer). */
+        INVOKE_DYNAMIC_BY_DEFAULT,
+        /** Java preview features (2.5.7 or newer, or 3.0.0-beta-1 or newer). */
+        PREVIEW_FEATURES,
+        /** Storing method parameter names (2.5.0-alpha-1 or newer). */
+        PARAMETERS,
+        /** Parsing sources in parallel (3.0.5 or newer). */
+        PARALLEL_PARSING,
+        /** Parsing sources in parallel unless told not to (4.0.0-alpha-1 or newer). */
+        PARALLEL_PARSING_BY_DEFAULT
+    }
+
+    private static final Version GROOVY_4_0_0_ALPHA1 = new Version(4, 0, 0, "alpha-1");
+    private static final Version GROOVY_3_0_5 = new Version(3, 0, 5);
+    private static final Version GROOVY_3_0_0_BETA1 = new Version(3, 0, 0, "beta-1");
+    private static final Version GROOVY_2_6_0_ALPHA1 = new Version(2, 6, 0, "alpha-1");
+    private static final Version GROOVY_2_5_7 = new Version(2, 5, 7);
+    private static final Version GROOVY_2_5_0_ALPHA1 = new Version(2, 5, 0, "alpha-1");
+    private static final Version GROOVY_2_1_0_BETA1 = new Version(2, 1, 0, "beta-1");
+    private static final Version GROOVY_2_0_0_BETA3 = new Version(2, 0, 0, "beta-3");
+    private static final Version GROOVY_1_9_0_BETA3 = new Version(1, 9, 0, "beta-3");
+    private static final Version GROOVY_1_9_0_BETA1 = new Version(1, 9, 0, "beta-1");
+    private static final Version GROOVY_1_8_3 = new Version(1, 8, 3);
+    private static final Version GROOVY_1_8_2 = new Version(1, 8, 2);
+
+    private static final Map<String, GroovyCapabilities> PROFILES = new ConcurrentHashMap<>();
+
+    private final Set<Feature> features;
+
+    private GroovyCapabilities(final Set<Feature> features) {
+        this.features = Collections.unmodifiableSet(features);
+    }
+
+    /**
+     * Gets the capabilities of a Groovy version.
+     *
+     * @param version the Groovy version
+     * @param indy    whether the Groovy jar contains the invokedynamic support classes
+     * @return the capabilities
+     */
+    public static GroovyCapabilities of(final Version version, final boolean indy) {
+        return PROFILES.computeIfAbsent(version + (indy ? " indy" : ""), k -> new GroovyCapabilities(features(version, indy)));
+    }
+
+    /**
+     * Gets whether a feature is supported.
+     *
+     * @param feature the feature
+     * @return <code>true</code> if the feature is supported, <code>false</code> otherwise
+     */
+    public boolean supports(final Feature feature) {
+        return features.contains(feature);
+    }
+
+    /**
+     * Gets all the supported features.
+     *
+     * @return the supported features (unmodifiable)
+     */
+    public Set<Feature> getFeatures() {
+        return features;
+    }
+
+    private static Set<Feature> features(final Version version, final boolean indy) {
+        Set<Feature> features = EnumSet.noneOf(Feature.class);
+        if (ClassWrangler.groovyAtLeast(version, GROOVY_1_8_2)) {
+            features.add(Feature.STUB_GENERATION);
+        }
+        if (ClassWrangler.groovyAtLeast(version, GROOVY_1_8_3) && (ClassWrangler.groovyOlderThan(version, GROOVY_1_9_0_BETA1) || ClassWrangler.groovyNewerThan(version, GROOVY_1_9_0_BETA3))) {
+            features.add(Feature.SETTING_EXTENSIONS);
+        }
+        if (ClassWrangler.groovyAtLeast(version, GROOVY_2_1_0_BETA1)) {
+            features.add(Feature.CONFIG_SCRIPT);
+        }
+        if (ClassWrangler.groovyAtLeast(version, GROOVY_2_0_0_BETA3)) {
+            features.add(Feature.INVOKE_DYNAMIC);
+        }
+        if (indy) {
+            features.add(Feature.INVOKE_DYNAMIC_JAR);
+        }
+        if (ClassWrangler.groovyAtLeast(version, GROOVY_4_0_0_ALPHA1)) {
+            features.add(Feature.INVOKE_DYNAMIC_BY_DEFAULT);
+            features.add(Feature.PARALLEL_PARSING_BY_DEFAULT);
+        }
+        if (!ClassWrangler.groovyOlderThan(version, GROOVY_2_5_7) && !(ClassWrangler.groovyAtLeast(version, GROOVY_2_6_0_ALPHA1) && ClassWrangler.groovyOlderThan(version, GROOVY_3_0_0_BETA1))) {
+            features.add(Feature.PREVIEW_FEATURES);
+        }
+        if (ClassWrangler.groovyAtLeast(version, GROOVY_2_5_0_ALPHA1)) {
+            features.add(Feature.PARAMETERS);
+        }
+        if (ClassWrangler.groovyAtLeast(version, GROOVY_3_0_5)) {
+            features.add(Feature.PARALLEL_PARSING);
+        }
+        return features;
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.codehaus.gmavenplus.util;
 
 import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.ClasspathSourceLookup;
 import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
 import org.codehaus.gmavenplus.model.GroovyDocConfiguration;
 import org.codehaus.gmavenplus.model.GroovyStubConfiguration;
@@ -13,16 +14,24 @@ import java.util.Properties;
 import org.codehaus.gmavenplus.model.internal.Version;
 
 import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.Charset;
 import java.security.CodeSource;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import static org.codehaus.gmavenplus.util.ReflectionUtils.*;
 
@@ -258,6 +267,22 @@ public class GroovyCompiler {
      */
     protected static final Version JAVA_12 = new Version(12);
 
+    /**
+     * Groovy's class generation compile phase (<code>Phases.CLASS_GENERATION</code>).
+     */
+    protected static final int CLASS_GENERATION_PHASE = 7;
+
+    /**
+     * Groovy's output compile phase (<code>Phases.OUTPUT</code>).
+     */
+    protected static final int OUTPUT_PHASE = 8;
+
+    /**
+     * The estimate of the heap needed to compile a byte of source, for sizing the first batch of a batched compilation
+     * (later batches use the usage measured for the previous batch).
+     */
+    protected static final double INITIAL_HEAP_PER_SOURCE_BYTE = 200;
+
     /**
      * The mapping of javac target to Groovy target bytecode.
      */
@@ -275,12 +300,25 @@ public class GroovyCompiler {
 
     private final ClassWrangler classWrangler;
     private final Log log;
+    private final Map<String, Long> metrics = new LinkedHashMap<>();
 
     public GroovyCompiler(ClassWrangler classWrangler, Log log) {
         this.classWrangler = classWrangler;
         this.log = log;
     }
 
+    /**
+     * Gets the metrics of the work performed by this compiler: the number of classes compiled
+     * (<code>classes</code>) and, when profiling, the time spent in each compile phase
+     * (<code>phase.&lt;name&gt;.nanos</code>).
+     *
+     * @return the metrics (unmodifiable)
+     * @since 5.1.0
+     */
+    public Map<String, Long> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+
     public void compile(GroovyCompileConfiguration configuration) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException {
         if (configuration.getSources() == null || configuration.getSources().isEmpty()) {
             log.info("No sources specified for compilation. Skipping.");
@@ -291,6 +329,29 @@ public class GroovyCompiler {
             verifyGroovyVersionSupportsTargetBytecode(configuration.getTargetBytecode());
         }
 
+        Set<File> sources = configuration.getSources();
+        IncrementalCompilation incrementalCompilation = null;
+        if (configuration.isIncremental() && configuration.getStateDirectory() != null) {
+            try {
+                incrementalCompilation = new IncrementalCompilation(configuration.getStateDirectory(), configuration.getCompileOutputDirectory(), incrementalSettingsFingerprint(configuration), log);
+                sources = incrementalCompilation.prepare(configuration.getSources());
+            } catch (IOException e) {
+                log.warn("Unable to use incremental compilation, recompiling all sources.", e);
+                incrementalCompilation = null;
+                sources = configuration.getSources();
+            }
+            if (incrementalCompilation != null && sources.isEmpty()) {
+                log.info("No sources changed, nothing to compile.");
+                saveIncrementalCompilation(configuration, incrementalCompilation);
+                return;
+            }
+        }
+
+        if (configuration.isDeterministic()) {
+            // so nothing in the output depends on the order the sources were collected in
+            sources = new TreeSet<>(sources);
+        }
+
         // get classes we need with reflection
         Class<?> compilerConfigurationClass = classWrangler.getClass("org.codehaus.groovy.control.CompilerConfiguration");
         Class<?> compilationUnitClass = classWrangler.getClass("org.codehaus.groovy.control.CompilationUnit");
@@ -298,18 +359,504 @@ public class GroovyCompiler {
 
         // setup compile options
         Object compilerConfiguration = setupCompilerConfiguration(configuration, compilerConfigurationClass);
+
+        // compile the classes, in batches or independent partitions if requested
+        CompilationProfiler profiler = configuration.isProfile() ? new CompilationProfiler(log) : null;
+        SourceHotspotProfiler hotspotProfiler = configuration.getHotspots() > 0 ? new SourceHotspotProfiler(log) : null;
+        SourceLookupFilter sourceLookupFilter = sourceLookupFilter(configuration.getClasspathSourceLookup());
+        GlobalTransformProfiler transformProfiler = configuration.isProfile() ? new GlobalTransformProfiler(log) : null;
+        List<Object> compilationUnits = null;
+        List<String> classNames = null;
+        Method getClasses = findMethod(compilationUnitClass, "getClasses");
+        try {
+            if (configuration.getBatchHeapBudget() > 0 && configuration.getOutputJar() != null) {
+                log.info("Batched compilation isn't used when compiling into a jar.");
+            } else if (configuration.getBatchHeapBudget() > 0) {
+                classNames = compileBatches(sources, configuration, compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, incrementalCompilation, profiler, hotspotProfiler, sourceLookupFilter, transformProfiler);
+            }
+            if (classNames == null && configuration.isParallelCompilation()) {
+                List<Set<File>> partitions = partitionSources(configuration, sources);
+                if (configuration.isDeterministic()) {
+                    List<Set<File>> sortedPartitions = new ArrayList<>(partitions.size());
+                    for (Set<File> partition : partitions) {
+                        sortedPartitions.add(new TreeSet<>(partition));
+                    }
+                    partitions = sortedPartitions;
+                }
+                if (partitions.size() > 1) {
+                    compilationUnits = compilePartitions(partitions, configuration, compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, incrementalCompilation != null, profiler, hotspotProfiler, sourceLookupFilter, transformProfiler);
+                }
+            }
+            if (classNames == null) {
+                if (compilationUnits == null) {
+                    compilationUnits = Collections.singletonList(compileSources(sources, compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, incrementalCompilation != null ? configuration.getCompileOutputDirectory() : null, profiler, hotspotProfiler, sourceLookupFilter, transformProfiler));
+                }
+                writeClasses(configuration, compilationUnitClass, compilationUnits, profiler);
+                classNames = new ArrayList<>();
+                for (Object compilationUnit : compilationUnits) {
+                    classNames.addAll(classNames(compilationUnit, getClasses));
+                    if (incrementalCompilation != null) {
+                        recordIncrementalCompilation(incrementalCompilation, compilationUnitClass, compilationUnit, (List<?>) invokeMethod(getClasses, compilationUnit));
+                    }
+                }
+            }
+        } finally {
+            if (profiler != null) {
+                profiler.report("Compilation profile", configuration.getProfileReport());
+                for (int phase = 1; phase < CompilationProfiler.PHASE_NAMES.length; phase++) {
+                    if (profiler.getPhaseNanos(phase) > 0) {
+                        metrics.put("phase." + CompilationProfiler.PHASE_NAMES[phase].replace(' ', '-') + ".nanos", profiler.getPhaseNanos(phase));
+                    }
+                }
+            }
+            if (transformProfiler != null) {
+                transformProfiler.report();
+                for (Map.Entry<String, Long> transform : transformProfiler.getTransformNanos().entrySet()) {
+                    metrics.put("transform." + transform.getKey() + ".nanos", transform.getValue());
+                }
+            }
+            if (hotspotProfiler != null) {
+                hotspotProfiler.report(configuration.getHotspots(), configuration.getHotspotReport());
+            }
+            if (sourceLookupFilter != null) {
+                sourceLookupFilter.report();
+                metrics.put("sourceLookups.performed", sourceLookupFilter.getPerformedCount());
+                metrics.put("sourceLookups.avoided", sourceLookupFilter.getAvoidedCount());
+            }
+        }
+
+        // log compiled classes
+        log.info("Compiled " + classNames.size() + " file" + (classNames.size() != 1 ? "s" : "") + ".");
+        metrics.put("classes", (long) classNames.size());
+
+        if (incrementalCompilation != null) {
+            saveIncrementalCompilation(configuration, incrementalCompilation);
+        } else if (configuration.getStateDirectory() != null) {
+            recordCompiledClasses(configuration, classNames);
+        }
+    }
+
+    /**
+     * Compiles the sources in batches that only depend on sources in the same or earlier batches, each with the
+     * classes of the earlier batches on its classpath, so only one batch's ASTs are in memory at a time. Batches are
+     * sized to keep their estimated heap usage within the budget, estimated from the size of their sources and the heap
+     * usage measured for the previous batches. If a batch fails to compile (the dependencies between sources are only
+     * estimated), it's compiled again together with all the remaining sources.
+     *
+     * @param sources                    the sources to compile
+     * @param configuration              the compile configuration
+     * @param compilerConfigurationClass the CompilerConfiguration class
+     * @param compilationUnitClass       the CompilationUnit class
+     * @param groovyClassLoaderClass     the GroovyClassLoader class
+     * @param compilerConfiguration      the CompilerConfiguration
+     * @param incrementalCompilation     the incremental compilation to record the batches to (can be <code>null</code>)
+     * @param profiler                   the profiler to record the compilation with (can be <code>null</code>)
+     * @param hotspotProfiler            the profiler to record the compilation of each source with (can be <code>null</code>)
+     * @param sourceLookupFilter         the filter to limit the classpath source lookups with (can be <code>null</code>)
+     * @param transformProfiler          the profiler to record the global AST transformations with (can be <code>null</code>)
+     * @return the names of the compiled classes, or <code>null</code> if the sources couldn't be split into batches
+     * @throws ClassNotFoundException    when a class needed for compilation cannot be found
+     * @throws InstantiationException    when a class needed for compilation cannot be instantiated
+     * @throws IllegalAccessException    when a method needed for compilation cannot be accessed
+     * @throws InvocationTargetException when a reflection invocation needed for compilation cannot be completed
+     */
+    protected List<String> compileBatches(final Set<File> sources, final GroovyCompileConfiguration configuration, final Class<?> compilerConfigurationClass, final Class<?> compilationUnitClass, final Class<?> groovyClassLoaderClass, final Object compilerConfiguration, final IncrementalCompilation incrementalCompilation, final CompilationProfiler profiler, final SourceHotspotProfiler hotspotProfiler, final SourceLookupFilter sourceLookupFilter, final GlobalTransformProfiler transformProfiler) throws ClassNotFoundException, InvocationTargetException, IllegalAccessException, InstantiationException {
+        List<Set<File>> groups;
+        try {
+            groups = new SourceDependencyScanner(configuration.getSourceEncoding() != null ? Charset.forName(configuration.getSourceEncoding()) : Charset.defaultCharset()).dependencyOrder(sources);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Unable to determine the dependencies between sources, compiling them together.", e);
+            return null;
+        }
+
+        Method getClasses = findMethod(compilationUnitClass, "getClasses");
+        long budget = configuration.getBatchHeapBudget() * 1024L * 1024L;
+        double heapPerSourceByte = INITIAL_HEAP_PER_SOURCE_BYTE;
+        long peakHeap = 0;
+        int batchCount = 0;
+        List<String> classNames = new ArrayList<>();
+        int next = 0;
+        while (next < groups.size()) {
+            // fill the batch until the next group would exceed the budget (but always with at least one group)
+            Set<File> batch = new TreeSet<>(groups.get(next++));
+            long batchSize = sourceSize(batch);
+            while (next < groups.size() && (batchSize + sourceSize(groups.get(next))) * heapPerSourceByte <= budget) {
+                batch.addAll(groups.get(next));
+                batchSize += sourceSize(groups.get(next++));
+            }
+
+            long heapBefore = HeapUsage.used();
+            HeapUsage.resetPeak();
+            Object compilationUnit;
+            try {
+                compilationUnit = compileSources(batch, compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, configuration.getCompileOutputDirectory(), profiler, hotspotProfiler, sourceLookupFilter, transformProfiler);
+            } catch (InvocationTargetException e) {
+                if (next >= groups.size()) {
+                    throw e;
+                }
+                log.info("Batched compilation failed, compiling all remaining sources together.");
+                log.debug(e.getCause() != null ? e.getCause() : e);
+                for (; next < groups.size(); next++) {
+                    batch.addAll(groups.get(next));
+                }
+                compilationUnit = compileSources(batch, compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, configuration.getCompileOutputDirectory(), profiler, hotspotProfiler, sourceLookupFilter, transformProfiler);
+            }
+            writeClasses(configuration, compilationUnitClass, Collections.singletonList(compilationUnit), profiler);
+            classNames.addAll(classNames(compilationUnit, getClasses));
+            if (incrementalCompilation != null) {
+                recordIncrementalCompilation(incrementalCompilation, compilationUnitClass, compilationUnit, (List<?>) invokeMethod(getClasses, compilationUnit));
+            }
+
+            long batchPeak = HeapUsage.peakUsed();
+            peakHeap = Math.max(peakHeap, batchPeak);
+            batchCount++;
+            if (batchSize > 0) {
+                heapPerSourceByte = Math.max(1, (double) (batchPeak - heapBefore) / batchSize);
+            }
+            log.debug("Compiled batch " + batchCount + " (" + batch.size() + " source" + (batch.size() != 1 ? "s" : "") + ", " + batchSize + " bytes), peak heap usage " + HeapUsage.toMegabytes(batchPeak) + ".");
+        }
+        log.info("Compiled in " + batchCount + " batch" + (batchCount != 1 ? "es" : "") + ", peak heap usage " + HeapUsage.toMegabytes(peakHeap) + " (budget " + HeapUsage.toMegabytes(budget) + ").");
+        return classNames;
+    }
+
+    private List<String> classNames(final Object compilationUnit, final Method getClasses) throws ClassNotFoundException, InvocationTargetException, IllegalAccessException {
+        Method getName = findMethod(classWrangler.getClass("org.codehaus.groovy.tools.GroovyClass"), "getName");
+        List<String> classNames = new ArrayList<>();
+        for (Object groovyClass : (List<?>) invokeMethod(getClasses, compilationUnit)) {
+            classNames.add((String) invokeMethod(getName, groovyClass));
+        }
+        return classNames;
+    }
+
+    private static long sourceSize(final Set<File> sources) {
+        long size = 0;
+        for (File source : sources) {
+            size += source.length();
+        }
+        return size;
+    }
+
+    /**
+     * Compiles the sources in a new CompilationUnit.
+     *
+     * @param sources                    the sources to compile
+     * @param compilerConfigurationClass the CompilerConfiguration class
+     * @param compilationUnitClass       the CompilationUnit class
+     * @param groovyClassLoaderClass     the GroovyClassLoader class
+     * @param compilerConfiguration      the CompilerConfiguration
+     * @param previousOutputDirectory    a directory with previously compiled classes to resolve classes from (can be <code>null</code>)
+     * @param profiler                   the profiler to record the compilation with (can be <code>null</code>)
+     * @param hotspotProfiler            the profiler to record the compilation of each source with (can be <code>null</code>)
+     * @param sourceLookupFilter         the filter to limit the classpath source lookups with (can be <code>null</code>)
+     * @param transformProfiler          the profiler to record the global AST transformations with (can be <code>null</code>)
+     * @return the compiled CompilationUnit
+     * @throws ClassNotFoundException    when a class needed for compilation cannot be found
+     * @throws InstantiationException    when a class needed for compilation cannot be instantiated
+     * @throws IllegalAccessException    when a method needed for compilation cannot be accessed
+     * @throws InvocationTargetException when a reflection invocation needed for compilation cannot be completed
+     */
+    protected Object compileSources(final Set<File> sources, final Class<?> compilerConfigurationClass, final Class<?> compilationUnitClass, final Class<?> groovyClassLoaderClass, final Object compilerConfiguration, final File previousOutputDirectory, final CompilationProfiler profiler, final SourceHotspotProfiler hotspotProfiler, final SourceLookupFilter sourceLookupFilter, final GlobalTransformProfiler transformProfiler) throws ClassNotFoundException, InvocationTargetException, IllegalAccessException, InstantiationException {
         Object groovyClassLoader = invokeConstructor(findConstructor(groovyClassLoaderClass, ClassLoader.class, compilerConfigurationClass), classWrangler.getClassLoader(), compilerConfiguration);
         Object transformLoader = invokeConstructor(findConstructor(groovyClassLoaderClass, ClassLoader.class), classWrangler.getClassLoader());
+        if (sourceLookupFilter != null) {
+            sourceLookupFilter.attach(groovyClassLoaderClass, classWrangler.getClass("groovy.lang.GroovyResourceLoader"), groovyClassLoader);
+        }
+        if (previousOutputDirectory != null) {
+            // previously compiled classes need to be resolvable when compiling only some of the sources
+            invokeMethod(findMethod(groovyClassLoaderClass, "addClasspath", String.class), groovyClassLoader, previousOutputDirectory.getAbsolutePath());
+        }
 
         // add Groovy sources
-        Object compilationUnit = setupCompilationUnit(configuration.getSources(), compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, groovyClassLoader, transformLoader);
+        Object compilationUnit = setupCompilationUnit(sources, compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, groovyClassLoader, transformLoader);
 
         // compile the classes
-        invokeMethod(findMethod(compilationUnitClass, "compile"), compilationUnit);
+        if (profiler != null) {
+            profiler.attach(compilationUnitClass, classWrangler.getClass("org.codehaus.groovy.control.CompilationUnit$ProgressCallback"), compilationUnit);
+        }
+        if (transformProfiler != null) {
+            // before the hotspot profiler, which would hide the transformations the operations apply
+            transformProfiler.attach(compilationUnitClass, classWrangler.getClass("org.codehaus.groovy.transform.ASTTransformation"), compilationUnit);
+        } else if (log.isDebugEnabled()) {
+            logGlobalTransforms(compilationUnitClass, compilationUnit);
+        }
+        if (hotspotProfiler != null) {
+            hotspotProfiler.attach(compilationUnitClass, classWrangler.getClass("org.codehaus.groovy.control.SourceUnit"), compilationUnit);
+        }
+        // the class files are written by writeClasses rather than Groovy's output phase
+        invokeMethod(findMethod(compilationUnitClass, "compile", int.class), compilationUnit, CLASS_GENERATION_PHASE);
 
-        // log compiled classes
-        List<?> classes = (List<?>) invokeMethod(findMethod(compilationUnitClass, "getClasses"), compilationUnit);
-        log.info("Compiled " + classes.size() + " file" + (classes.size() != 1 ? "s" : "") + ".");
+        return compilationUnit;
+    }
+
+    /**
+     * Writes the class files of the compiled CompilationUnits to the output directory, skipping those that are
+     * unchanged, or into the output jar if one is configured.
+     *
+     * @param configuration        the compile configuration
+     * @param compilationUnitClass the CompilationUnit class
+     * @param compilationUnits     the CompilationUnits compiled through the class generation phase
+     * @param profiler             the profiler to record the output phase with (can be <code>null</code>)
+     * @throws ClassNotFoundException    when a class needed for writing cannot be found
+     * @throws IllegalAccessException    when a method needed for writing cannot be accessed
+     * @throws InvocationTargetException when a reflection invocation needed for writing cannot be completed, or a class file cannot be written
+     */
+    protected void writeClasses(final GroovyCompileConfiguration configuration, final Class<?> compilationUnitClass, final List<Object> compilationUnits, final CompilationProfiler profiler) throws ClassNotFoundException, InvocationTargetException, IllegalAccessException {
+        Class<?> groovyClassClass = classWrangler.getClass("org.codehaus.groovy.tools.GroovyClass");
+        Method getClasses = findMethod(compilationUnitClass, "getClasses");
+        Method getName = findMethod(groovyClassClass, "getName");
+        Method getBytes = findMethod(groovyClassClass, "getBytes");
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (Object compilationUnit : compilationUnits) {
+            for (Object groovyClass : (List<?>) invokeMethod(getClasses, compilationUnit)) {
+                String name = (String) invokeMethod(getName, groovyClass);
+                byte[] bytes = (byte[]) invokeMethod(getBytes, groovyClass);
+                if (configuration.isDeterministic()) {
+                    try {
+                        bytes = ClassFileNormalizer.normalize(bytes);
+                    } catch (IOException e) {
+                        log.warn("Unable to normalize " + name + ", it may not be reproducible.", e);
+                    }
+                }
+                classes.put(name, bytes);
+            }
+        }
+        if (configuration.getOutputJar() != null) {
+            ClassJarWriter writer = new ClassJarWriter(configuration.getOutputJar());
+            try {
+                writer.write(classes);
+            } catch (IOException e) {
+                throw new InvocationTargetException(e, "Unable to write class files to " + configuration.getOutputJar() + ".");
+            }
+            if (writer.isUnchanged()) {
+                log.info("Skipped writing unchanged " + configuration.getOutputJar() + ".");
+            }
+        } else {
+            ClassOutputWriter writer = new ClassOutputWriter(configuration.getCompileOutputDirectory(), configuration.getStateDirectory(), log);
+            try {
+                writer.write(classes);
+            } catch (IOException e) {
+                throw new InvocationTargetException(e, "Unable to write class files to " + configuration.getCompileOutputDirectory() + ".");
+            }
+            if (writer.getUnchangedCount() > 0) {
+                log.info("Skipped writing " + writer.getUnchangedCount() + " unchanged class file" + (writer.getUnchangedCount() != 1 ? "s" : "") + ".");
+            }
+        }
+        if (profiler != null) {
+            for (Object compilationUnit : compilationUnits) {
+                profiler.phaseCompleted(compilationUnit, OUTPUT_PHASE);
+            }
+        }
+    }
+
+    /**
+     * Splits the sources into groups that don't reference each other, for compiling them in parallel.
+     *
+     * @param configuration the compile configuration
+     * @param sources       the sources to split
+     * @return the groups of sources (a single group if the sources can't be split)
+     */
+    protected List<Set<File>> partitionSources(final GroovyCompileConfiguration configuration, final Set<File> sources) {
+        int maxPartitions = getMaxPartitions();
+        if (maxPartitions < 2 || sources.size() < 2) {
+            return Collections.singletonList(sources);
+        }
+        try {
+            Charset encoding = configuration.getSourceEncoding() != null ? Charset.forName(configuration.getSourceEncoding()) : Charset.defaultCharset();
+            List<Set<File>> components = new SourceDependencyScanner(encoding).components(sources);
+            List<Set<File>> partitions = SourceDependencyScanner.group(components, maxPartitions);
+            if (partitions.size() > 1) {
+                log.info("Compiling " + sources.size() + " sources in " + partitions.size() + " parallel partitions.");
+            } else {
+                log.info("Sources all depend on each other, compiling them together.");
+            }
+            return partitions;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to partition sources, compiling them together.", e);
+            return Collections.singletonList(sources);
+        }
+    }
+
+    /**
+     * Gets the maximum number of groups to compile in parallel.
+     *
+     * @return the maximum number of groups
+     */
+    protected int getMaxPartitions() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Compiles each group of sources in its own CompilationUnit, in parallel. If any group fails to compile (which
+     * may be because it references a source in another group the partitioning missed), <code>null</code> is returned
+     * so the sources can be compiled together instead, which also reports any real compilation errors.
+     *
+     * @param partitions                 the groups of sources
+     * @param configuration              the compile configuration
+     * @param compilerConfigurationClass the CompilerConfiguration class
+     * @param compilationUnitClass       the CompilationUnit class
+     * @param groovyClassLoaderClass     the GroovyClassLoader class
+     * @param compilerConfiguration      the CompilerConfiguration
+     * @param incremental                whether only some of the sources are being compiled
+     * @param profiler                   the profiler to record the compilation with (can be <code>null</code>)
+     * @param hotspotProfiler            the profiler to record the compilation of each source with (can be <code>null</code>)
+     * @param sourceLookupFilter         the filter to limit the classpath source lookups with (can be <code>null</code>)
+     * @param transformProfiler          the profiler to record the global AST transformations with (can be <code>null</code>)
+     * @return the compiled CompilationUnits, or <code>null</code> if any group failed to compile
+     * @throws InvocationTargetException when interrupted while waiting for the compilation
+     */
+    protected List<Object> compilePartitions(final List<Set<File>> partitions, final GroovyCompileConfiguration configuration, final Class<?> compilerConfigurationClass, final Class<?> compilationUnitClass, final Class<?> groovyClassLoaderClass, final Object compilerConfiguration, final boolean incremental, final CompilationProfiler profiler, final SourceHotspotProfiler hotspotProfiler, final SourceLookupFilter sourceLookupFilter, final GlobalTransformProfiler transformProfiler) throws InvocationTargetException {
+        final File previousOutputDirectory = incremental ? configuration.getCompileOutputDirectory() : null;
+        ForkJoinPool pool = new ForkJoinPool(partitions.size());
+        try {
+            List<ForkJoinTask<Object>> tasks = new ArrayList<>(partitions.size());
+            for (final Set<File> partition : partitions) {
+                tasks.add(pool.submit(() -> {
+                    ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+                    Thread.currentThread().setContextClassLoader(classWrangler.getClassLoader());
+                    try {
+                        return compileSources(partition, compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, previousOutputDirectory, profiler, hotspotProfiler, sourceLookupFilter, transformProfiler);
+                    } finally {
+                        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+                    }
+                }));
+            }
+            List<Object> compilationUnits = new ArrayList<>(partitions.size());
+            Throwable failure = null;
+            for (ForkJoinTask<Object> task : tasks) {
+                try {
+                    compilationUnits.add(task.get());
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof InvocationTargetException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+                }
+            }
+            if (failure != null) {
+                log.info("Parallel compilation failed, compiling all sources together.");
+                log.debug(failure);
+                return null;
+            }
+            return compilationUnits;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvocationTargetException(e, "Interrupted while compiling.");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Computes the fingerprint of everything except the sources that affects the result of a compilation. When it
+     * changes, incremental compilation recompiles every source.
+     *
+     * @param configuration the compile configuration
+     * @return the fingerprint
+     * @throws IOException when a classpath entry or configuration file cannot be read
+     */
+    protected String incrementalSettingsFingerprint(final GroovyCompileConfiguration configuration) throws IOException {
+        Fingerprint fingerprint = new Fingerprint();
+        if (configuration.isAbiCompileAvoidance()) {
+            fingerprint.addClasspathAbi(configuration.getClasspath(), configuration.getCompileOutputDirectory(), new AbiSnapshot(configuration.getAbiCacheDirectory()));
+        } else {
+            fingerprint.addClasspath(configuration.getClasspath(), configuration.getCompileOutputDirectory());
+        }
+        return fingerprint
+                .addFields(configuration, "sources", "classpath", "stateDirectory", "parallelCompilation", "profile", "profileReport", "hotspots", "hotspotReport", "abiCacheDirectory", "batchHeapBudget", "configScriptCacheDirectory")
+                .add(classWrangler.getGroovyVersionString())
+                .toHexString();
+    }
+
+    /**
+     * Records which classes each compiled source produced, and which classes each compiled class references, for the
+     * next incremental compilation.
+     *
+     * @param incrementalCompilation the incremental compilation to record to
+     * @param compilationUnitClass   the CompilationUnit class
+     * @param compilationUnit        the CompilationUnit that was compiled
+     * @param classes                the <code>GroovyClass</code>es produced by the compilation
+     * @throws ClassNotFoundException    when a class needed for recording cannot be found
+     * @throws IllegalAccessException    when a method needed for recording cannot be accessed
+     * @throws InvocationTargetException when a reflection invocation needed for recording cannot be completed
+     */
+    protected void recordIncrementalCompilation(final IncrementalCompilation incrementalCompilation, final Class<?> compilationUnitClass, final Object compilationUnit, final List<?> classes) throws ClassNotFoundException, InvocationTargetException, IllegalAccessException {
+        Class<?> compileUnitClass = classWrangler.getClass("org.codehaus.groovy.ast.CompileUnit");
+        Class<?> moduleNodeClass = classWrangler.getClass("org.codehaus.groovy.ast.ModuleNode");
+        Class<?> sourceUnitClass = classWrangler.getClass("org.codehaus.groovy.control.SourceUnit");
+        Class<?> classNodeClass = classWrangler.getClass("org.codehaus.groovy.ast.ClassNode");
+        Class<?> groovyClassClass = classWrangler.getClass("org.codehaus.groovy.tools.GroovyClass");
+
+        // map the classes declared in each module (source) back to the source
+        Map<String, File> classSources = new HashMap<>();
+        Object ast = invokeMethod(findMethod(compilationUnitClass, "getAST"), compilationUnit);
+        for (Object module : (List<?>) invokeMethod(findMethod(compileUnitClass, "getModules"), ast)) {
+            Object sourceUnit = invokeMethod(findMethod(moduleNodeClass, "getContext"), module);
+            if (sourceUnit == null) {
+                continue;
+            }
+            File source = new File((String) invokeMethod(findMethod(sourceUnitClass, "getName"), sourceUnit)).getAbsoluteFile();
+            for (Object classNode : (List<?>) invokeMethod(findMethod(moduleNodeClass, "getClasses"), module)) {
+                classSources.put((String) invokeMethod(findMethod(classNodeClass, "getName"), classNode), source);
+            }
+        }
+
+        // generated classes (like closures) are attributed to the source of their outermost declared class
+        Map<File, Set<String>> sourceClasses = new HashMap<>();
+        Method getName = findMethod(groovyClassClass, "getName");
+        Method getBytes = findMethod(groovyClassClass, "getBytes");
+        for (Object groovyClass : classes) {
+            String name = (String) invokeMethod(getName, groovyClass);
+            incrementalCompilation.recordClass(name, (byte[]) invokeMethod(getBytes, groovyClass));
+            String declaringName = name;
+            File source = classSources.get(declaringName);
+            while (source == null && declaringName.lastIndexOf('$') > 0) {
+                declaringName = declaringName.substring(0, declaringName.lastIndexOf('$'));
+                source = classSources.get(declaringName);
+            }
+            if (source != null) {
+                sourceClasses.computeIfAbsent(source, k -> new HashSet<>()).add(name);
+            } else {
+                log.debug("Unable to determine the source of " + name + ", it won't be tracked for incremental compilation.");
+            }
+        }
+        for (Map.Entry<File, Set<String>> entry : sourceClasses.entrySet()) {
+            incrementalCompilation.recordSource(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Saves the incremental compilation state and the list of all classes now in the output directory.
+     *
+     * @param configuration          the compile configuration
+     * @param incrementalCompilation the incremental compilation to save
+     */
+    protected void saveIncrementalCompilation(final GroovyCompileConfiguration configuration, final IncrementalCompilation incrementalCompilation) {
+        try {
+            incrementalCompilation.save();
+            new CompileState(configuration.getStateDirectory()).writeOutputs(incrementalCompilation.getClassFiles());
+        } catch (IOException e) {
+            log.warn("Unable to record incremental compilation state in " + configuration.getStateDirectory() + ".", e);
+        }
+    }
+
+    /**
+     * Records the class files produced by a compilation in the compile state, so later builds can tell whether they're
+     * still present.
+     *
+     * @param configuration the configuration used for the compilation
+     * @param classNames    the names of the classes produced by the compilation
+     */
+    protected void recordCompiledClasses(final GroovyCompileConfiguration configuration, final List<String> classNames) {
+        List<File> outputs = new ArrayList<>(classNames.size());
+        if (configuration.getOutputJar() != null) {
+            outputs.add(configuration.getOutputJar());
+        } else {
+            for (String name : classNames) {
+                outputs.add(new File(configuration.getCompileOutputDirectory(), name.replace('.', File.separatorChar) + ".class"));
+            }
+        }
+        try {
+            new CompileState(configuration.getStateDirectory()).writeOutputs(outputs);
+        } catch (IOException e) {
+            log.warn("Unable to record compile state in " + configuration.getStateDirectory() + ".", e);
+        }
     }
 
     public void generateGroovyDoc(GroovyDocConfiguration configuration) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException {
@@ -406,21 +953,13 @@ public class GroovyCompiler {
     protected List<?> setupLinks(GroovyDocConfiguration configuration) throws ClassNotFoundException, InvocationTargetException, IllegalAccessException, InstantiationException {
         List<Object> linksList = new ArrayList<>();
         if (configuration.getLinks() != null && !configuration.getLinks().isEmpty()) {
-            Class<?> linkArgumentClass = null;
-            if (configuration.getLinkArgumentClass() == null) {
-                if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_1_6_0_RC2)) {
-                    linkArgumentClass = classWrangler.getClass("org.codehaus.groovy.tools.groovydoc.LinkArgument");
-                } else if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_1_5_2)) {
-                    linkArgumentClass = classWrangler.getClass("org.codehaus.groovy.ant.Groovydoc$LinkArgument");
-                }
-            } else {
-                linkArgumentClass = classWrangler.getClass(configuration.getLinkArgumentClass());
-            }
+            Class<?> linkArgumentClass = configuration.getLinkArgumentClass() == null ? adapter().getLinkArgumentClass(classWrangler) : classWrangler.getClass(configuration.getLinkArgumentClass());
             if (linkArgumentClass != null) {
                 Method setHref = findMethod(linkArgumentClass, "setHref", String.class);
                 Method setPackages = findMethod(linkArgumentClass, "setPackages", String.class);
+                Constructor<?> linkArgumentConstructor = findConstructor(linkArgumentClass);
                 for (Link link : configuration.getLinks()) {
-                    Object linkArgument = invokeConstructor(findConstructor(linkArgumentClass));
+                    Object linkArgument = invokeConstructor(linkArgumentConstructor);
                     invokeMethod(setHref, linkArgument, link.getHref());
                     invokeMethod(setPackages, linkArgument, link.getPackages());
                     linksList.add(linkArgument);
@@ -433,58 +972,19 @@ public class GroovyCompiler {
     }
 
     protected Object createGroovyDocTool(final Class<?> groovyDocToolClass, final Class<?> resourceManagerClass, final Properties docProperties, final Object classpathResourceManager, final List<String> sourceDirectories, final GroovyDocTemplateInfo groovyDocTemplateInfo, final List<?> groovyDocLinks, GroovyDocConfiguration configuration) throws InvocationTargetException, IllegalAccessException, InstantiationException {
-        Object groovyDocTool;
-
         String[] defaultDocTemplates = configuration.getDefaultDocTemplates();
         String[] defaultPackageTemplates = configuration.getDefaultPackageTemplates();
         String[] defaultClassTemplates = configuration.getDefaultClassTemplates();
 
-        if ((ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_4_0_27) && ClassWrangler.groovyOlderThan(classWrangler.getGroovyVersion(), GROOVY_5_0_0_ALPHA1)) || ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_5_0_0_BETA_1)) {
-             groovyDocTool = invokeConstructor(findConstructor(groovyDocToolClass, resourceManagerClass, String[].class, String[].class, String[].class, String[].class, List.class, String.class, Properties.class),
-                    classpathResourceManager,
-                    sourceDirectories.toArray(new String[sourceDirectories.size()]),
-                    defaultDocTemplates == null ? groovyDocTemplateInfo.defaultDocTemplates() : defaultDocTemplates,
-                    defaultPackageTemplates == null ? groovyDocTemplateInfo.defaultPackageTemplates() : defaultPackageTemplates,
-                    defaultClassTemplates == null ? groovyDocTemplateInfo.defaultClassTemplates() : defaultClassTemplates,
-                    groovyDocLinks,
-                    configuration.getLanguageLevel(),
-                    docProperties
-            );
-        } else if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_1_6_0_RC2)) {
-            groovyDocTool = invokeConstructor(findConstructor(groovyDocToolClass, resourceManagerClass, String[].class, String[].class, String[].class, String[].class, List.class, Properties.class),
-                    classpathResourceManager,
-                    sourceDirectories.toArray(new String[sourceDirectories.size()]),
-                    defaultDocTemplates == null ? groovyDocTemplateInfo.defaultDocTemplates() : defaultDocTemplates,
-                    defaultPackageTemplates == null ? groovyDocTemplateInfo.defaultPackageTemplates() : defaultPackageTemplates,
-                    defaultClassTemplates == null ? groovyDocTemplateInfo.defaultClassTemplates() : defaultClassTemplates,
-                    groovyDocLinks,
-                    docProperties
-            );
-        } else if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_1_5_2)) {
-            groovyDocTool = invokeConstructor(findConstructor(groovyDocToolClass, resourceManagerClass, String.class, String[].class, String[].class, String[].class, List.class),
-                    classpathResourceManager,
-                    sourceDirectories.get(0),
-                    defaultDocTemplates == null ? groovyDocTemplateInfo.defaultDocTemplates() : defaultDocTemplates,
-                    defaultPackageTemplates == null ? groovyDocTemplateInfo.defaultPackageTemplates() : defaultPackageTemplates,
-                    defaultClassTemplates == null ? groovyDocTemplateInfo.defaultClassTemplates() : defaultClassTemplates,
-                    groovyDocLinks
-            );
-            if (sourceDirectories.size() > 1) {
-                log.warn("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support more than one GroovyDoc source directory (must be 1.6-RC-2 or newer). Only using first source directory (" + sourceDirectories.get(0) + ").");
-            }
-        } else {
-            groovyDocTool = invokeConstructor(findConstructor(groovyDocToolClass, resourceManagerClass, String.class, String[].class, String[].class, String[].class),
-                    classpathResourceManager,
-                    sourceDirectories.get(0),
-                    defaultDocTemplates == null ? groovyDocTemplateInfo.defaultDocTemplates() : defaultDocTemplates,
-                    defaultPackageTemplates == null ? groovyDocTemplateInfo.defaultPackageTemplates() : defaultPackageTemplates,
-                    defaultClassTemplates == null ? groovyDocTemplateInfo.defaultClassTemplates() : defaultClassTemplates
-            );
-             if (sourceDirectories.size() > 1) {
-                log.warn("Your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support more than one GroovyDoc source directory (must be 1.6-RC-2 or newer). Only using first source directory (" + sourceDirectories.get(0) + ").");
-            }
-        }
-        return groovyDocTool;
+        return adapter().newGroovyDocTool(groovyDocToolClass, resourceManagerClass, classpathResourceManager, sourceDirectories,
+                defaultDocTemplates == null ? groovyDocTemplateInfo.defaultDocTemplates() : defaultDocTemplates,
+                defaultPackageTemplates == null ? groovyDocTemplateInfo.defaultPackageTemplates() : defaultPackageTemplates,
+                defaultClassTemplates == null ? groovyDocTemplateInfo.defaultClassTemplates() : defaultClassTemplates,
+                groovyDocLinks,
+                configuration.getLanguageLevel(),
+                docProperties,
+                log
+        );
     }
 
     protected List<String> setupGroovyDocSources(final FileSet[] sourceDirectories, final FileSetManager fileSetManager) {
@@ -517,14 +1017,7 @@ public class GroovyCompiler {
                 log.debug("    " + groovyDocSource);
             }
         }
-        if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_1_6_0_RC2)) {
-            invokeMethod(findMethod(groovyDocToolClass, "add", List.class), groovyDocTool, groovyDocSources);
-        } else {
-            Method add = findMethod(groovyDocToolClass, "add", String.class);
-            for (String groovyDocSource : groovyDocSources) {
-                invokeMethod(add, groovyDocTool, groovyDocSource);
-            }
-        }
+        adapter().addGroovyDocSources(groovyDocToolClass, groovyDocTool, groovyDocSources);
         invokeMethod(findMethod(groovyDocToolClass, "renderToOutput", outputToolClass, String.class), groovyDocTool, fileOutputTool, outputDirectory.getAbsolutePath());
     }
 
@@ -552,13 +1045,133 @@ public class GroovyCompiler {
         // setup stub generation options
         Object compilerConfiguration = setupStubCompilerConfiguration(configuration, compilerConfigurationClass);
         Object groovyClassLoader = invokeConstructor(findConstructor(groovyClassLoaderClass, ClassLoader.class, compilerConfigurationClass), classWrangler.getClassLoader(), compilerConfiguration);
+        SourceLookupFilter sourceLookupFilter = sourceLookupFilter(configuration.getClasspathSourceLookup());
+        if (sourceLookupFilter != null) {
+            sourceLookupFilter.attach(groovyClassLoaderClass, classWrangler.getClass("groovy.lang.GroovyResourceLoader"), groovyClassLoader);
+        }
         Object javaStubCompilationUnit = invokeConstructor(findConstructor(javaStubCompilationUnitClass, compilerConfigurationClass, groovyClassLoaderClass, File.class), compilerConfiguration, groovyClassLoader, configuration.getOutputDirectory());
 
         // add Groovy sources
         addGroovySources(configuration.getStubSources(), compilerConfigurationClass, javaStubCompilationUnitClass, compilerConfiguration, javaStubCompilationUnit);
 
         // generate the stubs
-        invokeMethod(findMethod(javaStubCompilationUnitClass, "compile"), javaStubCompilationUnit);
+        CompilationProfiler profiler = configuration.isProfile() ? new CompilationProfiler(log) : null;
+        if (profiler != null) {
+            profiler.attach(javaStubCompilationUnitClass, classWrangler.getClass("org.codehaus.groovy.control.CompilationUnit$ProgressCallback"), javaStubCompilationUnit);
+        }
+        try {
+            invokeMethod(findMethod(javaStubCompilationUnitClass, "compile"), javaStubCompilationUnit);
+        } finally {
+            if (profiler != null) {
+                profiler.report("Stub generation profile", configuration.getProfileReport());
+            }
+            if (sourceLookupFilter != null) {
+                sourceLookupFilter.report();
+            }
+        }
+    }
+
+    /**
+     * Runs the configuration script against the CompilerConfiguration. The script is compiled once per script contents
+     * and Groovy version, and its compiled classes are cached (see {@link ConfigScriptCache}), so later executions only
+     * have to run it.
+     *
+     * @param configuration              the compile configuration
+     * @param compilerConfigurationClass the CompilerConfiguration class
+     * @param compilerConfiguration      the CompilerConfiguration to customize
+     * @throws ClassNotFoundException    when a class needed for the script cannot be found
+     * @throws InstantiationException    when a class needed for the script cannot be instantiated
+     * @throws IllegalAccessException    when a method needed for the script cannot be accessed
+     * @throws InvocationTargetException when the script cannot be compiled or run
+     */
+    protected void applyConfigScript(final GroovyCompileConfiguration configuration, final Class<?> compilerConfigurationClass, final Object compilerConfiguration) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException {
+        File configScript = configuration.getConfigScript();
+        ConfigScriptCache cache = new ConfigScriptCache(configuration.getConfigScriptCacheDirectory(), log);
+        String key = null;
+        try {
+            key = ConfigScriptCache.key(configScript, classWrangler.getGroovyVersionString());
+        } catch (IOException e) {
+            log.debug("Unable to compute the cache key of " + configScript + ", compiling it without the cache.", e);
+        }
+        Map<String, byte[]> classes = key != null ? cache.get(key) : null;
+        if (classes != null) {
+            log.debug("Using the cached compiled configuration script " + configScript + ".");
+        } else {
+            classes = compileConfigScript(configScript, compilerConfigurationClass);
+            if (key != null) {
+                cache.put(key, classes);
+            }
+        }
+
+        Class<?> bindingClass = classWrangler.getClass("groovy.lang.Binding");
+        Object binding = invokeConstructor(findConstructor(bindingClass));
+        invokeMethod(findMethod(bindingClass, "setVariable", String.class, Object.class), binding, "configuration", compilerConfiguration);
+        Class<?> scriptClass = findConfigScriptClass(configScript, classes);
+        Object script = invokeConstructor(findConstructor(scriptClass, bindingClass), binding);
+        invokeMethod(findMethod(scriptClass, "run"), script);
+    }
+
+    /**
+     * Compiles a configuration script, with the static import of <code>CompilerCustomizationBuilder</code> that
+     * <code>withConfig</code> comes from.
+     *
+     * @param configScript               the configuration script
+     * @param compilerConfigurationClass the CompilerConfiguration class
+     * @return the bytes of each class of the script, by binary class name
+     * @throws ClassNotFoundException    when a class needed for compilation cannot be found
+     * @throws InstantiationException    when a class needed for compilation cannot be instantiated
+     * @throws IllegalAccessException    when a method needed for compilation cannot be accessed
+     * @throws InvocationTargetException when the script cannot be compiled
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    protected Map<String, byte[]> compileConfigScript(final File configScript, final Class<?> compilerConfigurationClass) throws ClassNotFoundException, InstantiationException, IllegalAccessException, InvocationTargetException {
+        Class<?> importCustomizerClass = classWrangler.getClass("org.codehaus.groovy.control.customizers.ImportCustomizer");
+        Class<?> groovyClassLoaderClass = classWrangler.getClass("groovy.lang.GroovyClassLoader");
+        Class<?> compilationUnitClass = classWrangler.getClass("org.codehaus.groovy.control.CompilationUnit");
+        Class<?> groovyClassClass = classWrangler.getClass("org.codehaus.groovy.tools.GroovyClass");
+
+        Object shellCompilerConfiguration = invokeConstructor(findConstructor(compilerConfigurationClass));
+        Object importCustomizer = invokeConstructor(findConstructor(importCustomizerClass));
+        invokeMethod(findMethod(importCustomizerClass, "addStaticStar", String.class), importCustomizer, "org.codehaus.groovy.control.customizers.builder.CompilerCustomizationBuilder");
+        List compilationCustomizers = (List) invokeMethod(findMethod(compilerConfigurationClass, "getCompilationCustomizers"), shellCompilerConfiguration);
+        compilationCustomizers.add(importCustomizer);
+        Object groovyClassLoader = invokeConstructor(findConstructor(groovyClassLoaderClass, ClassLoader.class, compilerConfigurationClass), classWrangler.getClassLoader(), shellCompilerConfiguration);
+        Object compilationUnit = invokeConstructor(findConstructor(compilationUnitClass, compilerConfigurationClass, CodeSource.class, groovyClassLoaderClass), shellCompilerConfiguration, null, groovyClassLoader);
+        invokeMethod(findMethod(compilationUnitClass, "addSource", File.class), compilationUnit, configScript);
+        invokeMethod(findMethod(compilationUnitClass, "compile", int.class), compilationUnit, CLASS_GENERATION_PHASE);
+
+        Map<String, byte[]> classes = new HashMap<>();
+        for (Object groovyClass : (List<?>) invokeMethod(findMethod(compilationUnitClass, "getClasses"), compilationUnit)) {
+            classes.put((String) invokeMethod(findMethod(groovyClassClass, "getName"), groovyClass), (byte[]) invokeMethod(findMethod(groovyClassClass, "getBytes"), groovyClass));
+        }
+        return classes;
+    }
+
+    /**
+     * Loads the compiled classes of a configuration script and finds the script class among them: the class named
+     * after the script file or, if the script declares a package, the only top level <code>Script</code> class.
+     *
+     * @param configScript the configuration script
+     * @param classes      the bytes of each class of the script, by binary class name
+     * @return the script class
+     * @throws ClassNotFoundException when the script class cannot be found
+     */
+    protected Class<?> findConfigScriptClass(final File configScript, final Map<String, byte[]> classes) throws ClassNotFoundException {
+        ClassLoader loader = ConfigScriptCache.loader(classes, classWrangler.getClassLoader());
+        String name = FileUtils.getNameWithoutExtension(configScript);
+        if (classes.containsKey(name)) {
+            return loader.loadClass(name);
+        }
+        Class<?> scriptBaseClass = classWrangler.getClass("groovy.lang.Script");
+        for (String className : new TreeSet<>(classes.keySet())) {
+            if (!className.contains("$")) {
+                Class<?> scriptClass = loader.loadClass(className);
+                if (scriptBaseClass.isAssignableFrom(scriptClass)) {
+                    return scriptClass;
+                }
+            }
+        }
+        throw new ClassNotFoundException("Unable to find the script class of " + configScript + ".");
     }
 
     protected Object setupStubCompilerConfiguration(final GroovyStubConfiguration configuration, final Class<?> compilerConfigurationClass) throws InvocationTargetException, IllegalAccessException, InstantiationException {
@@ -580,51 +1193,19 @@ public class GroovyCompiler {
     }
 
     protected void addGroovySources(final Set<File> stubSources, final Class<?> compilerConfigurationClass, final Class<?> javaStubCompilationUnitClass, final Object compilerConfiguration, final Object javaStubCompilationUnit) throws InvocationTargetException, IllegalAccessException {
-        // Since we don't have FileUtils here easily without dependencies, we can just use simple extension check.
-        // Wait, FileUtils is in util/FileUtils.java in this project.
-        // I should check if I can assume it is available. It is in the same package or similar.
-        // It's org.codehaus.gmavenplus.util.FileUtils.
-        // I will use it.
-
-        Set<String> scriptExtensions = new java.util.HashSet<>();
-        for (File stubSource : stubSources) {
-            scriptExtensions.add(FileUtils.getFileExtension(stubSource));
-        }
-        log.debug("Detected Groovy file extensions: " + scriptExtensions + ".");
-        if (supportsSettingExtensions()) {
-            invokeMethod(findMethod(compilerConfigurationClass, "setScriptExtensions", Set.class), compilerConfiguration, scriptExtensions);
-        }
-        log.debug("Adding Groovy to generate stubs for:");
-        Method addSource = findMethod(javaStubCompilationUnitClass, "addSource", File.class);
-        for (File stubSource : stubSources) {
-            log.debug("    " + stubSource);
-            if (supportsSettingExtensions()) {
-                invokeMethod(addSource, javaStubCompilationUnit, stubSource);
-            } else {
-                // DotGroovyFile is in groovyworkarounds package.
-                // org.codehaus.gmavenplus.groovyworkarounds.DotGroovyFile
-                // I need to import it or use reflection? It is compiled code in this project, so I can import it.
-                org.codehaus.gmavenplus.groovyworkarounds.DotGroovyFile dotGroovyFile = new org.codehaus.gmavenplus.groovyworkarounds.DotGroovyFile(stubSource).setScriptExtensions(scriptExtensions);
-                invokeMethod(addSource, javaStubCompilationUnit, dotGroovyFile);
-            }
-        }
+        adapter().addStubSources(compilerConfigurationClass, javaStubCompilationUnitClass, compilerConfiguration, javaStubCompilationUnit, stubSources, log);
     }
 
     protected boolean supportsStubGeneration() {
-        return ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_1_8_2);
+        return capabilities().supports(GroovyCapabilities.Feature.STUB_GENERATION);
     }
 
     protected boolean supportsSettingExtensions() {
-        return ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_1_8_3) && (ClassWrangler.groovyOlderThan(classWrangler.getGroovyVersion(), GROOVY_1_9_0_BETA1) || ClassWrangler.groovyNewerThan(classWrangler.getGroovyVersion(), GROOVY_1_9_0_BETA3));
+        return capabilities().supports(GroovyCapabilities.Feature.SETTING_EXTENSIONS);
     }
 
     protected Object setupCompilationUnit(final Set<File> sources, final Class<?> compilerConfigurationClass, final Class<?> compilationUnitClass, final Class<?> groovyClassLoaderClass, final Object compilerConfiguration, final Object groovyClassLoader, final Object transformLoader) throws InvocationTargetException, IllegalAccessException, InstantiationException {
-        Object compilationUnit;
-        if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_1_6_0)) {
-            compilationUnit = invokeConstructor(findConstructor(compilationUnitClass, compilerConfigurationClass, CodeSource.class, groovyClassLoaderClass, groovyClassLoaderClass), compilerConfiguration, null, groovyClassLoader, transformLoader);
-        } else {
-            compilationUnit = invokeConstructor(findConstructor(compilationUnitClass, compilerConfigurationClass, CodeSource.class, groovyClassLoaderClass), compilerConfiguration, null, groovyClassLoader);
-        }
+        Object compilationUnit = adapter().newCompilationUnit(compilerConfigurationClass, compilationUnitClass, groovyClassLoaderClass, compilerConfiguration, groovyClassLoader, transformLoader);
         log.debug("Adding Groovy to compile:");
         Method addSourceMethod = findMethod(compilationUnitClass, "addSource", File.class);
         for (File source : sources) {
@@ -641,23 +1222,11 @@ public class GroovyCompiler {
         if (configuration.getConfigScript() != null) {
             if (!configuration.getConfigScript().exists()) {
                 log.warn("Configuration script file (" + configuration.getConfigScript().getAbsolutePath() + ") doesn't exist. Ignoring configScript parameter.");
-            } else if (ClassWrangler.groovyOlderThan(classWrangler.getGroovyVersion(), GROOVY_2_1_0_BETA1)) {
+            } else if (!capabilities().supports(GroovyCapabilities.Feature.CONFIG_SCRIPT)) {
                 log.warn("Requested to use configScript, but your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support it (must be " + GROOVY_2_1_0_BETA1 + " or newer). Ignoring configScript parameter.");
             } else {
-                Class<?> bindingClass = classWrangler.getClass("groovy.lang.Binding");
-                Class<?> importCustomizerClass = classWrangler.getClass("org.codehaus.groovy.control.customizers.ImportCustomizer");
-                Class<?> groovyShellClass = classWrangler.getClass("groovy.lang.GroovyShell");
-
-                Object binding = invokeConstructor(findConstructor(bindingClass));
-                invokeMethod(findMethod(bindingClass, "setVariable", String.class, Object.class), binding, "configuration", compilerConfiguration);
-                Object shellCompilerConfiguration = invokeConstructor(findConstructor(compilerConfigurationClass));
-                Object importCustomizer = invokeConstructor(findConstructor(importCustomizerClass));
-                invokeMethod(findMethod(importCustomizerClass, "addStaticStar", String.class), importCustomizer, "org.codehaus.groovy.control.customizers.builder.CompilerCustomizationBuilder");
-                List compilationCustomizers = (List) invokeMethod(findMethod(compilerConfigurationClass, "getCompilationCustomizers"), shellCompilerConfiguration);
-                compilationCustomizers.add(importCustomizer);
-                Object shell = invokeConstructor(findConstructor(groovyShellClass, ClassLoader.class, bindingClass, compilerConfigurationClass), classWrangler.getClassLoader(), binding, shellCompilerConfiguration);
                 log.debug("Using configuration script " + configuration.getConfigScript() + " for compilation.");
-                invokeMethod(findMethod(groovyShellClass, "evaluate", File.class), shell, configuration.getConfigScript());
+                applyConfigScript(configuration, compilerConfigurationClass, compilerConfiguration);
             }
         }
         invokeMethod(findMethod(compilerConfigurationClass, "setDebug", boolean.class), compilerConfiguration, configuration.isDebug());
@@ -667,7 +1236,7 @@ public class GroovyCompiler {
         invokeMethod(findMethod(compilerConfigurationClass, "setTargetBytecode", String.class), compilerConfiguration, translateJavacTargetToTargetBytecode(configuration.getTargetBytecode()));
         if (configuration.isPreviewFeatures()) {
             if (isJavaSupportPreviewFeatures()) {
-                if (ClassWrangler.groovyOlderThan(classWrangler.getGroovyVersion(), GROOVY_2_5_7) || (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_2_6_0_ALPHA1) && ClassWrangler.groovyOlderThan(classWrangler.getGroovyVersion(), GROOVY_3_0_0_BETA1))) {
+                if (!capabilities().supports(GroovyCapabilities.Feature.PREVIEW_FEATURES)) {
                     log.warn("Requested to use preview features, but your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support it (must be " + GROOVY_2_5_7 + "/" + GROOVY_3_0_0_BETA1 + " or newer. No 2.6 version is supported. Ignoring previewFeatures parameter.");
                 } else {
                     invokeMethod(findMethod(compilerConfigurationClass, "setPreviewFeatures", boolean.class), compilerConfiguration, configuration.isPreviewFeatures());
@@ -680,9 +1249,9 @@ public class GroovyCompiler {
             invokeMethod(findMethod(compilerConfigurationClass, "setSourceEncoding", String.class), compilerConfiguration, configuration.getSourceEncoding());
         }
         invokeMethod(findMethod(compilerConfigurationClass, "setTargetDirectory", String.class), compilerConfiguration, configuration.getCompileOutputDirectory().getAbsolutePath());
-        if (configuration.isInvokeDynamic() || ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_4_0_0_ALPHA1)) {
-            if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_2_0_0_BETA3)) {
-                if (classWrangler.isGroovyIndy()) {
+        if (configuration.isInvokeDynamic() || capabilities().supports(GroovyCapabilities.Feature.INVOKE_DYNAMIC_BY_DEFAULT)) {
+            if (capabilities().supports(GroovyCapabilities.Feature.INVOKE_DYNAMIC)) {
+                if (capabilities().supports(GroovyCapabilities.Feature.INVOKE_DYNAMIC_JAR)) {
                     if (isJavaSupportIndy()) {
                         Map<String, Boolean> optimizationOptions = (Map<String, Boolean>) invokeMethod(findMethod(compilerConfigurationClass, "getOptimizationOptions"), compilerConfiguration);
                         optimizationOptions.put("indy", true);
@@ -699,7 +1268,7 @@ public class GroovyCompiler {
             }
         }
         if (configuration.isParameters()) {
-            if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_2_5_0_ALPHA1)) {
+            if (capabilities().supports(GroovyCapabilities.Feature.PARAMETERS)) {
                 if (isJavaSupportParameters()) {
                     invokeMethod(findMethod(compilerConfigurationClass, "setParameters", boolean.class), compilerConfiguration, configuration.isParameters());
                 } else {
@@ -709,8 +1278,8 @@ public class GroovyCompiler {
                 log.warn("Requested to use parameters, but your Groovy version (" + classWrangler.getGroovyVersionString() + ") doesn't support it (must be " + GROOVY_2_5_0_ALPHA1 + " or newer). Ignoring parameters parameter.");
             }
         }
-        if (ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_3_0_5)) {
-            if ((configuration.getParallelParsing() == null && ClassWrangler.groovyAtLeast(classWrangler.getGroovyVersion(), GROOVY_4_0_0_ALPHA1)) || (configuration.getParallelParsing() != null && configuration.getParallelParsing())) {
+        if (capabilities().supports(GroovyCapabilities.Feature.PARALLEL_PARSING)) {
+            if ((configuration.getParallelParsing() == null && capabilities().supports(GroovyCapabilities.Feature.PARALLEL_PARSING_BY_DEFAULT)) || (configuration.getParallelParsing() != null && configuration.getParallelParsing())) {
                 Map<String, Boolean> optimizationOptions = (Map<String, Boolean>) invokeMethod(findMethod(compilerConfigurationClass, "getOptimizationOptions"), compilerConfiguration);
                 optimizationOptions.put("parallelParse", true);
                 log.info("Parallel parsing enabled.");
@@ -842,4 +1411,27 @@ public class GroovyCompiler {
         return System.getProperty("java.version");
     }
 
+    private GroovyCapabilities capabilities() {
+        return GroovyCapabilities.of(classWrangler.getGroovyVersion(), classWrangler.isGroovyIndy());
+    }
+
+    private GroovyAdapter adapter() {
+        return GroovyAdapter.of(classWrangler.getGroovyVersion());
+    }
+
+    private void logGlobalTransforms(final Class<?> compilationUnitClass, final Object compilationUnit) throws InvocationTargetException, IllegalAccessException {
+        // the transformations context (and its global transformation names) were added in Groovy 2.3.0
+        Method getTransformationsContext = findMethod(compilationUnitClass, "getASTTransformationsContext");
+        if (getTransformationsContext == null) {
+            return;
+        }
+        Object transformationsContext = invokeMethod(getTransformationsContext, compilationUnit);
+        Set<?> globalTransforms = (Set<?>) invokeMethod(findMethod(transformationsContext.getClass(), "getGlobalTransformNames"), transformationsContext);
+        log.debug("Global AST transformations: " + (globalTransforms.isEmpty() ? "none" : new TreeSet<Object>(globalTransforms)) + ".");
+    }
+
+    private SourceLookupFilter sourceLookupFilter(final ClasspathSourceLookup sourceLookup) {
+        return sourceLookup != null && sourceLookup != ClasspathSourceLookup.ENABLED ? new SourceLookupFilter(sourceLookup, log) : null;
+    }
+
 }
@@ -0,0 +1,372 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * A long-lived process that performs compilations, stub generations, and GroovyDoc generations on behalf of the mojos,
+ * so the JVM startup, loading of the plugin classes, and JIT warm-up are paid once rather than for every forked
+ * execution. It listens on a loopback socket and advertises its port and an access token in a registry file only the
+ * current user can read. Requests are handled by a small pool of workers so concurrent (<code>-T</code>) builds can
+ * share it, and it exits after being idle for the configured time.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class GroovyCompilerDaemon {
+
+    /**
+     * Registry file property holding the port the daemon listens on.
+     */
+    public static final String PORT_PROPERTY = "port";
+
+    /**
+     * Registry file property holding the token clients must send.
+     */
+    public static final String TOKEN_PROPERTY = "token";
+
+    private final File registryFile;
+    private final long idleTimeout;
+    private final ServerSocket serverSocket;
+    private final String token;
+    private final ExecutorService workers;
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final Object idleLock = new Object();
+    private final AtomicLong lastActivity = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Creates a new daemon listening on an ephemeral loopback port.
+     *
+     * @param registryFile the file to advertise the port and token in
+     * @param idleTimeout  the number of milliseconds without requests after which the daemon exits
+     * @param workerCount  the number of requests that can be handled concurrently
+     * @throws IOException when the socket cannot be opened
+     */
+    public GroovyCompilerDaemon(final File registryFile, final long idleTimeout, final int workerCount) throws IOException {
+        this.registryFile = registryFile;
+        this.idleTimeout = idleTimeout;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        byte[] tokenBytes = new byte[32];
+        new SecureRandom().nextBytes(tokenBytes);
+        this.token = new BigInteger(1, tokenBytes).toString(16);
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "gmavenplus-daemon-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a daemon.
+     *
+     * @param args the registry file, the idle timeout in milliseconds, and the number of workers
+     */
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: java " + GroovyCompilerDaemon.class.getName() + " <registry-file> <idle-timeout-millis> <workers>");
+            System.exit(1);
+        }
+        try {
+            new GroovyCompilerDaemon(new File(args[0]), Long.parseLong(args[1]), Integer.parseInt(args[2])).run();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Advertises the daemon and serves requests until it has been idle for the idle timeout, then waits for the requests
+     * in progress to finish.
+     *
+     * @throws IOException when the registry file cannot be written
+     */
+    public void run() throws IOException {
+        writeRegistry();
+        ScheduledExecutorService idleChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "gmavenplus-daemon-idle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkInterval = Math.max(100, Math.min(idleTimeout / 4, 10000));
+        idleChecker.scheduleWithFixedDelay(() -> {
+            synchronized (idleLock) {
+                if (activeRequests.get() == 0 && System.currentTimeMillis() - lastActivity.get() > idleTimeout) {
+                    shutdown();
+                }
+            }
+        }, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    break; // closed by shutdown
+                }
+                synchronized (idleLock) {
+                    activeRequests.incrementAndGet();
+                    lastActivity.set(System.currentTimeMillis());
+                }
+                workers.execute(() -> {
+                    try {
+                        handle(socket);
+                    } finally {
+                        lastActivity.set(System.currentTimeMillis());
+                        activeRequests.decrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            idleChecker.shutdownNow();
+            workers.shutdown();
+            deleteRegistry();
+            // requests accepted before the socket was closed still get their reply before the daemon exits
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting requests and removes the registry file.
+     */
+    public void shutdown() {
+        deleteRegistry();
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // do nothing, already closing
+        }
+    }
+
+    /**
+     * Handles a single request: checks the token, reads whether the client logs debug messages and the configuration,
+     * performs the work with a log that records everything the client would log, then replies with the recorded log
+     * entries and whether the work succeeded.
+     *
+     * @param socket the client connection
+     */
+    protected void handle(final Socket socket) {
+        try (Socket s = socket;
+             ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            out.flush();
+            DataInputStream socketIn = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            // check the token before deserializing anything
+            if (!token.equals(socketIn.readUTF())) {
+                return;
+            }
+            boolean debugEnabled = socketIn.readBoolean();
+            ObjectInputStream in = new ObjectInputStream(socketIn);
+            Object configuration = in.readObject();
+            RecordingLog log = new RecordingLog(debugEnabled);
+            String failure = null;
+            ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+            try {
+                ForkedGroovyCompiler.execute(configuration, log);
+            } catch (Throwable t) {
+                log.error(t);
+                failure = String.valueOf(t.getCause() != null && t instanceof InvocationTargetException ? t.getCause() : t);
+            } finally {
+                Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+            }
+            out.writeObject(log.getEntries());
+            out.writeObject(failure);
+            out.flush();
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Unable to handle request: " + e);
+        }
+    }
+
+    private void writeRegistry() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(PORT_PROPERTY, String.valueOf(serverSocket.getLocalPort()));
+        properties.setProperty(TOKEN_PROPERTY, token);
+        File directory = registryFile.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+        File tmpFile = File.createTempFile(registryFile.getName(), ".tmp", directory);
+        // only the owner may read the token
+        tmpFile.setReadable(false, false);
+        tmpFile.setReadable(true, true);
+        try (OutputStream out = Files.newOutputStream(tmpFile.toPath())) {
+            properties.store(out, "GMavenPlus compiler daemon");
+        }
+        Files.move(tmpFile.toPath(), registryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteRegistry() {
+        try {
+            Properties properties = new Properties();
+            if (registryFile.isFile()) {
+                try (InputStream in = Files.newInputStream(registryFile.toPath())) {
+                    properties.load(in);
+                }
+                // don't remove the registration of a daemon that replaced this one
+                if (token.equals(properties.getProperty(TOKEN_PROPERTY))) {
+                    Files.deleteIfExists(registryFile.toPath());
+                }
+            }
+        } catch (IOException e) {
+            // do nothing, the client treats unreachable daemons as stale
+        }
+    }
+
+    /**
+     * A log that records its entries (as <code>LEVEL|message</code> strings) to send back to the client.
+     */
+    protected static class RecordingLog implements Log {
+        private final List<String> entries = new ArrayList<>();
+        private final boolean debugEnabled;
+
+        /**
+         * Creates a new RecordingLog.
+         *
+         * @param debugEnabled whether the client logs debug messages (debug messages aren't recorded if it doesn't)
+         */
+        public RecordingLog(final boolean debugEnabled) {
+            this.debugEnabled = debugEnabled;
+        }
+
+        /**
+         * Gets the recorded entries.
+         *
+         * @return the recorded entries
+         */
+        public synchronized ArrayList<String> getEntries() {
+            return new ArrayList<>(entries);
+        }
+
+        private synchronized void record(final String level, final CharSequence content, final Throwable error) {
+            StringBuilder sb = new StringBuilder(level).append('|');
+            if (content != null) {
+                sb.append(content);
+            }
+            if (error != null) {
+                StringWriter stackTrace = new StringWriter();
+                error.printStackTrace(new PrintWriter(stackTrace));
+                sb.append(content != null ? System.lineSeparator() : "").append(stackTrace.toString().trim());
+            }
+            entries.add(sb.toString());
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return debugEnabled;
+        }
+
+        @Override
+        public void debug(CharSequence content) {
+            if (debugEnabled) {
+                record("DEBUG", content, null);
+            }
+        }
+
+        @Override
+        public void debug(CharSequence content, Throwable error) {
+            if (debugEnabled) {
+                record("DEBUG", content, error);
+            }
+        }
+
+        @Override
+        public void debug(Throwable error) {
+            if (debugEnabled) {
+                record("DEBUG", null, error);
+            }
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return true;
+        }
+
+        @Override
+        public void info(CharSequence content) {
+            record("INFO", content, null);
+        }
+
+        @Override
+        public void info(CharSequence content, Throwable error) {
+            record("INFO", content, error);
+        }
+
+        @Override
+        public void info(Throwable error) {
+            record("INFO", null, error);
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return true;
+        }
+
+        @Override
+        public void warn(CharSequence content) {
+            record("WARN", content, null);
+        }
+
+        @Override
+        public void warn(CharSequence content, Throwable error) {
+            record("WARN", content, error);
+        }
+
+        @Override
+        public void warn(Throwable error) {
+            record("WARN", null, error);
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return true;
+        }
+
+        @Override
+        public void error(CharSequence content) {
+            record("ERROR", content, null);
+        }
+
+        @Override
+        public void error(CharSequence content, Throwable error) {
+            record("ERROR", content, error);
+        }
+
+        @Override
+        public void error(Throwable error) {
+            record("ERROR", null, error);
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+
+/**
+ * Sends work to a {@link GroovyCompilerDaemon}, starting one if none is running for the given Java executable and
+ * classpath. Daemons are registered in a shared directory, so they're reused by later goals and later builds.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class GroovyCompilerDaemonClient {
+
+    /**
+     * How long to wait for a newly started daemon to advertise itself.
+     */
+    protected static final long STARTUP_TIMEOUT = 60000L;
+
+    /**
+     * How long to wait when connecting to a running daemon.
+     */
+    protected static final int CONNECT_TIMEOUT = 2000;
+
+    private final File daemonDirectory;
+    private final Log log;
+
+    /**
+     * Creates a new GroovyCompilerDaemonClient.
+     *
+     * @param daemonDirectory the directory daemons are registered in
+     * @param log             the log to replay the daemon's log entries to
+     */
+    public GroovyCompilerDaemonClient(final File daemonDirectory, final Log log) {
+        this.daemonDirectory = daemonDirectory;
+        this.log = log;
+    }
+
+    /**
+     * Performs the work described by the configuration in a daemon.
+     *
+     * @param configuration  a GroovyCompileConfiguration, GroovyStubConfiguration, or GroovyDocConfiguration
+     * @param javaExecutable the Java executable to run the daemon with
+     * @param classpath      the classpath to run the daemon with
+     * @param idleTimeout    the number of milliseconds a newly started daemon stays alive without requests
+     * @throws IOException               when no daemon could be reached (the work was not performed)
+     * @throws InvocationTargetException when the daemon performed the work, but it failed
+     */
+    public void execute(final Serializable configuration, final String javaExecutable, final String classpath, final long idleTimeout) throws IOException, InvocationTargetException {
+        String key = new Fingerprint().add(javaExecutable).add(classpath).toHexString().substring(0, 16);
+        File registryFile = new File(daemonDirectory, key + ".properties");
+
+        Properties registry = new Properties();
+        Socket socket = connect(registryFile, registry);
+        if (socket == null) {
+            socket = startAndConnect(key, registryFile, registry, javaExecutable, classpath, idleTimeout);
+        }
+
+        List<String> entries;
+        String failure;
+        try (Socket s = socket) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            out.writeUTF(registry.getProperty(GroovyCompilerDaemon.TOKEN_PROPERTY));
+            out.writeBoolean(log.isDebugEnabled());
+            ObjectOutputStream objectOut = new ObjectOutputStream(out);
+            objectOut.writeObject(configuration);
+            objectOut.flush();
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(s.getInputStream()));
+            entries = castEntries(in.readObject());
+            failure = (String) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unexpected response from compiler daemon.", e);
+        }
+
+        for (String entry : entries) {
+            replay(entry);
+        }
+        if (failure != null) {
+            throw new InvocationTargetException(new RuntimeException(failure), "Compiler daemon reported a failure: " + failure);
+        }
+    }
+
+    /**
+     * Connects to the daemon advertised in the registry file, removing the registry file if the daemon is gone.
+     *
+     * @param registryFile the registry file
+     * @param registry     the properties to load the registry into
+     * @return the connection, or <code>null</code> if there's no reachable daemon
+     */
+    protected Socket connect(final File registryFile, final Properties registry) {
+        if (!registryFile.isFile()) {
+            return null;
+        }
+        try {
+            registry.clear();
+            try (InputStream in = Files.newInputStream(registryFile.toPath())) {
+                registry.load(in);
+            }
+            int port = Integer.parseInt(registry.getProperty(GroovyCompilerDaemon.PORT_PROPERTY));
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT);
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            log.debug("Connected to compiler daemon on port " + port + ".");
+            return socket;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Removing stale compiler daemon registration " + registryFile + ".");
+            registryFile.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Starts a daemon (unless another build started one in the meantime) and connects to it.
+     *
+     * @param key            the key identifying the daemon
+     * @param registryFile   the registry file the daemon will advertise itself in
+     * @param registry       the properties to load the registry into
+     * @param javaExecutable the Java executable to run the daemon with
+     * @param classpath      the classpath to run the daemon with
+     * @param idleTimeout    the number of milliseconds the daemon stays alive without requests
+     * @return the connection
+     * @throws IOException when the daemon couldn't be started or reached
+     */
+    protected Socket startAndConnect(final String key, final File registryFile, final Properties registry, final String javaExecutable, final String classpath, final long idleTimeout) throws IOException {
+        Files.createDirectories(daemonDirectory.toPath());
+        // file locks are held by the whole JVM, so threads of a parallel build need to take turns first
+        synchronized (GroovyCompilerDaemonClient.class) {
+            return startAndConnectLocked(key, registryFile, registry, javaExecutable, classpath, idleTimeout);
+        }
+    }
+
+    private Socket startAndConnectLocked(final String key, final File registryFile, final Properties registry, final String javaExecutable, final String classpath, final long idleTimeout) throws IOException {
+        try (FileChannel lockChannel = FileChannel.open(new File(daemonDirectory, key + ".lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = lockChannel.lock();
+            try {
+                Socket socket = connect(registryFile, registry);
+                if (socket != null) {
+                    return socket;
+                }
+
+                List<String> command = new ArrayList<>();
+                command.add(javaExecutable);
+                command.add("-cp");
+                command.add(classpath);
+                command.add(GroovyCompilerDaemon.class.getName());
+                command.add(registryFile.getAbsolutePath());
+                command.add(String.valueOf(idleTimeout));
+                command.add(String.valueOf(Math.max(2, Runtime.getRuntime().availableProcessors() / 2)));
+                File daemonLog = new File(daemonDirectory, key + ".log");
+                log.info("Starting Groovy compiler daemon using " + javaExecutable + " (log: " + daemonLog + ").");
+                log.debug("Command: " + command);
+
+                ProcessBuilder pb = new ProcessBuilder(command);
+                pb.redirectErrorStream(true);
+                pb.redirectOutput(ProcessBuilder.Redirect.appendTo(daemonLog));
+                Process process = pb.start();
+                process.getOutputStream().close();
+
+                long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT;
+                while (System.currentTimeMillis() < deadline) {
+                    socket = connect(registryFile, registry);
+                    if (socket != null) {
+                        return socket;
+                    }
+                    if (!process.isAlive()) {
+                        throw new IOException("Compiler daemon exited with code " + process.exitValue() + ", see " + daemonLog + ".");
+                    }
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for compiler daemon to start.", e);
+                    }
+                }
+                process.destroy();
+                throw new IOException("Compiler daemon didn't start within " + STARTUP_TIMEOUT + " ms, see " + daemonLog + ".");
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Replays a log entry recorded by the daemon.
+     *
+     * @param entry the entry (<code>LEVEL|message</code>)
+     */
+    protected void replay(final String entry) {
+        int separator = entry.indexOf('|');
+        String level = separator > 0 ? entry.substring(0, separator) : "INFO";
+        String message = entry.substring(separator + 1);
+        if ("DEBUG".equals(level)) {
+            log.debug(message);
+        } else if ("WARN".equals(level)) {
+            log.warn(message);
+        } else if ("ERROR".equals(level)) {
+            log.error(message);
+        } else {
+            log.info(message);
+        }
+    }
+
+    private static List<String> castEntries(final Object entries) throws IOException {
+        if (!(entries instanceof List)) {
+            throw new IOException("Unexpected response from compiler daemon.");
+        }
+        List<String> result = new ArrayList<>();
+        for (Object entry : (List<?>) entries) {
+            result.add(String.valueOf(entry));
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,161 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * A forked {@link ForkedGroovyCompiler} process, which is sent configurations on its standard input and streams back
+ * what happens with them on its standard output (see {@link ForkProtocol}), so no configuration files are written and
+ * a failure is known as soon as the fork reports it rather than when the process exits.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class GroovyCompilerFork {
+
+    /**
+     * How long to wait for a fork to exit after its input was closed before killing it.
+     */
+    protected static final long SHUTDOWN_TIMEOUT = 10000L;
+
+    private final Process process;
+    private final ClassDataSharing classDataSharing;
+    private final DataOutputStream out;
+    private DataInputStream in;
+
+    private GroovyCompilerFork(final Process process, final ClassDataSharing classDataSharing) {
+        this.process = process;
+        this.classDataSharing = classDataSharing;
+        this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    }
+
+    /**
+     * Starts a fork.
+     *
+     * @param javaExecutable the Java executable to run the fork with
+     * @param classpath      the classpath to run the fork with
+     * @param cdsDirectory   the directory to keep class data sharing archives in (<code>null</code> to not use class
+     *                       data sharing)
+     * @param log            the log to use
+     * @return the fork
+     * @throws IOException when the fork cannot be started
+     */
+    public static GroovyCompilerFork start(final String javaExecutable, final String classpath, final File cdsDirectory, final Log log) throws IOException {
+        return start(javaExecutable, classpath, cdsDirectory, Collections.<String>emptyList(), log);
+    }
+
+    /**
+     * Starts a fork with additional JVM options.
+     *
+     * @param javaExecutable the Java executable to run the fork with
+     * @param classpath      the classpath to run the fork with
+     * @param cdsDirectory   the directory to keep class data sharing archives in (<code>null</code> to not use class
+     *                       data sharing)
+     * @param jvmOptions     the additional JVM options
+     * @param log            the log to use
+     * @return the fork
+     * @throws IOException when the fork cannot be started
+     */
+    public static GroovyCompilerFork start(final String javaExecutable, final String classpath, final File cdsDirectory, final List<String> jvmOptions, final Log log) throws IOException {
+        ClassDataSharing classDataSharing = cdsDirectory != null ? new ClassDataSharing(cdsDirectory, javaExecutable, classpath, log) : null;
+        List<String> command = new ArrayList<>();
+        command.add(javaExecutable);
+        command.addAll(jvmOptions);
+        // standard output carries the replies, so the JVM's own output (like warnings) needs to go elsewhere (JVMs
+        // other than HotSpot might not know the option)
+        command.add("-XX:+IgnoreUnrecognizedVMOptions");
+        command.add("-XX:+DisplayVMOutputToStderr");
+        if (classDataSharing != null) {
+            // class data sharing already runs the Java executable to get its version, so that costs nothing extra here
+            String javaVersion = ClassDataSharing.javaVersion(javaExecutable, log);
+            if (javaVersion != null && Integer.parseInt(javaVersion) >= 9) {
+                // unified logging (Java 9+) writes warnings to standard output unless told otherwise
+                command.add("-Xlog:all=off:stdout");
+                command.add("-Xlog:all=warning:stderr");
+            }
+            command.addAll(classDataSharing.jvmOptions());
+        }
+        command.add("-cp");
+        command.add(classpath);
+        command.add(ForkedGroovyCompiler.class.getName());
+        command.add(ForkedGroovyCompiler.QUEUE_ARGUMENT);
+        log.debug("Command: " + command);
+
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+        return new GroovyCompilerFork(pb.start(), classDataSharing);
+    }
+
+    /**
+     * Performs the work described by the configuration in the fork, logging the fork's log entries and diagnostics as
+     * they arrive.
+     *
+     * @param configuration a GroovyCompileConfiguration, GroovyStubConfiguration, or GroovyDocConfiguration
+     * @param log           the log to write the fork's log entries and diagnostics to
+     * @return the metrics the fork reported
+     * @throws IOException               when the fork can't be talked to (the work might not have been performed)
+     * @throws InvocationTargetException when the fork performed the work, but it failed
+     */
+    public Map<String, Long> execute(final Serializable configuration, final Log log) throws IOException, InvocationTargetException {
+        ForkProtocol.writeRequest(out, configuration, log.isDebugEnabled());
+        ForkProtocol.Reply reply = ForkProtocol.readReply(in(), log);
+        if (!reply.getMetrics().isEmpty()) {
+            log.debug("Fork metrics: " + reply.getMetrics());
+        }
+        if (reply.getFailure() != null) {
+            throw new InvocationTargetException(new RuntimeException(reply.getFailure()), "Groovy compiler fork reported a failure: " + reply.getFailure());
+        }
+        return reply.getMetrics();
+    }
+
+    /**
+     * Stops the fork by closing its input, killing it if it doesn't exit in time.
+     *
+     * @return the exit code of the fork
+     */
+    public int stop() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // do nothing, the fork is already gone
+        }
+        try {
+            if (!process.waitFor(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                process.destroy();
+                process.waitFor();
+            }
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+        }
+        int exitCode = process.isAlive() ? -1 : process.exitValue();
+        if (classDataSharing != null) {
+            classDataSharing.forkExited(exitCode);
+        }
+        return exitCode;
+    }
+
+    // the fork writes its header once it's started, so don't wait for it before the first request
+    private DataInputStream in() throws IOException {
+        if (in == null) {
+            in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+            ForkProtocol.readHeader(in);
+        }
+        return in;
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.codehaus.gmavenplus.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+
+/**
+ * Measures the peak heap usage of the JVM, from the peak usage of its heap memory pools. Since the pools peak at
+ * different times, the sum of their peaks is an upper bound of the real peak, and since it includes garbage not yet
+ * collected, it's also an upper bound of the memory actually needed.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class HeapUsage {
+
+    private HeapUsage() {
+    }
+
+    /**
+     * Starts a new measurement, forgetting the peak usage so far.
+     */
+    public static void resetPeak() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Gets the peak heap usage since the last {@link #resetPeak}.
+     *
+     * @return the peak usage, in bytes
+     */
+    public static long peakUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid() && pool.getPeakUsage() != null) {
+                used += pool.getPeakUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Gets the current heap usage.
+     *
+     * @return the usage, in bytes
+     */
+    public static long used() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Formats a number of bytes as megabytes, for logging.
+     *
+     * @param bytes the number of bytes
+     * @return the number of megabytes, like <code>"12 MB"</code>
+     */
+    public static String toMegabytes(final long bytes) {
+        return (bytes / (1024 * 1024)) + " MB";
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+
+/**
+ * A {@link BuildCacheBackend} keeping entries on an HTTP server, like the build caches of other build tools do:
+ * entries are fetched with <code>GET &lt;url&gt;/&lt;key&gt;</code> (a <code>404</code> being a miss) and stored with
+ * <code>PUT &lt;url&gt;/&lt;key&gt;</code>.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class HttpBuildCacheBackend implements BuildCacheBackend {
+
+    /**
+     * The connect and read timeout, in milliseconds.
+     */
+    protected static final int TIMEOUT = 10000;
+
+    private final String url;
+
+    /**
+     * Creates a new HttpBuildCacheBackend.
+     *
+     * @param url the base URL of the cache
+     */
+    public HttpBuildCacheBackend(final String url) {
+        this.url = url.endsWith("/") ? url : url + "/";
+    }
+
+    @Override
+    public boolean get(final String key, final Path target) throws IOException {
+        HttpURLConnection connection = open(key, "GET");
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                return false;
+            } else if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Unexpected response " + status + " getting " + connection.getURL() + ".");
+            }
+            try (InputStream in = connection.getInputStream()) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    public void put(final String key, final Path source) throws IOException {
+        HttpURLConnection connection = open(key, "PUT");
+        try {
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(Files.size(source));
+            connection.setRequestProperty("Content-Type", "application/zip");
+            try (OutputStream out = connection.getOutputStream()) {
+                Files.copy(source, out);
+            }
+            int status = connection.getResponseCode();
+            if (status / 100 != 2) {
+                throw new IOException("Unexpected response " + status + " putting " + connection.getURL() + ".");
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(final String key, final String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url + key).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        connection.setUseCaches(false);
+        return connection;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+
+}
@@ -0,0 +1,341 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+/**
+ * Tracks which classes each source produced and which classes each class references between builds, so only changed
+ * sources (and the sources that transitively depend on them) need to be recompiled, and classes whose source was
+ * changed or removed can be deleted before compiling.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class IncrementalCompilation {
+
+    /**
+     * The file holding the fingerprint of the compilation settings (everything but the sources).
+     */
+    protected static final String SETTINGS_FILE = "incremental-settings";
+
+    /**
+     * The file holding the content hash of each source.
+     */
+    protected static final String SOURCES_FILE = "incremental-sources.properties";
+
+    /**
+     * The file holding the classes produced by each source.
+     */
+    protected static final String CLASSES_FILE = "incremental-classes.properties";
+
+    /**
+     * The file holding the classes referenced by each class.
+     */
+    protected static final String REFERENCES_FILE = "incremental-references.properties";
+
+    private final File stateDirectory;
+    private final File outputDirectory;
+    private final Log log;
+    private final String settingsFingerprint;
+    private final Map<String, String> sourceHashes = new TreeMap<>();
+    private final Map<String, Set<String>> sourceClasses = new TreeMap<>();
+    private final Map<String, Set<String>> classReferences = new TreeMap<>();
+    private final Map<String, String> currentSourceHashes = new TreeMap<>();
+    private boolean hasPreviousState;
+
+    /**
+     * Creates a new IncrementalCompilation, loading any state left by the previous compilation.
+     *
+     * @param stateDirectory      the directory to keep state in
+     * @param outputDirectory     the directory classes are compiled to
+     * @param settingsFingerprint the fingerprint of all compilation settings other than the sources (classpath, options)
+     * @param log                 the log to use
+     */
+    public IncrementalCompilation(final File stateDirectory, final File outputDirectory, final String settingsFingerprint, final Log log) {
+        this.stateDirectory = stateDirectory;
+        this.outputDirectory = outputDirectory;
+        this.settingsFingerprint = settingsFingerprint;
+        this.log = log;
+        load();
+    }
+
+    /**
+     * Determines which sources need to be compiled: all of them if there's no usable previous state, otherwise the new
+     * and changed sources plus every source that (transitively) references a class produced by a changed or removed
+     * source. Classes produced by sources that will be recompiled or were removed are deleted from the output directory,
+     * and the recorded state is cleared until {@link #save()} is called so a failed compilation triggers a full rebuild.
+     *
+     * @param sources all current sources
+     * @return the sources to compile
+     * @throws IOException when a source can't be read
+     */
+    public Set<File> prepare(final Set<File> sources) throws IOException {
+        Map<String, File> sourcesByPath = new TreeMap<>();
+        for (File source : sources) {
+            String path = source.getAbsolutePath();
+            sourcesByPath.put(path, source);
+            currentSourceHashes.put(path, new Fingerprint().addContents(source).toHexString());
+        }
+
+        Set<String> toCompile = new TreeSet<>();
+        Set<String> removed = new TreeSet<>();
+        if (!hasPreviousState) {
+            toCompile.addAll(sourcesByPath.keySet());
+        } else {
+            for (Map.Entry<String, String> source : currentSourceHashes.entrySet()) {
+                if (!source.getValue().equals(sourceHashes.get(source.getKey()))) {
+                    toCompile.add(source.getKey());
+                }
+            }
+            for (String previousSource : sourceHashes.keySet()) {
+                if (!currentSourceHashes.containsKey(previousSource)) {
+                    removed.add(previousSource);
+                }
+            }
+            addDependents(toCompile, removed);
+            log.info("Incremental compilation: " + toCompile.size() + " of " + sources.size() + " source" + (sources.size() != 1 ? "s" : "")
+                    + " changed or affected, " + removed.size() + " removed.");
+        }
+
+        Set<String> staleSources = new TreeSet<>(toCompile);
+        staleSources.addAll(removed);
+        int deleted = 0;
+        for (String staleSource : staleSources) {
+            Set<String> classes = sourceClasses.remove(staleSource);
+            if (classes != null) {
+                for (String className : classes) {
+                    classReferences.remove(className);
+                    if (classFile(className).delete()) {
+                        deleted++;
+                    }
+                }
+            }
+            sourceHashes.remove(staleSource);
+        }
+        if (deleted > 0) {
+            log.debug("Deleted " + deleted + " stale class file" + (deleted != 1 ? "s" : "") + ".");
+        }
+        clear();
+
+        Set<File> result = new LinkedHashSet<>();
+        for (String path : toCompile) {
+            result.add(sourcesByPath.get(path));
+        }
+        return result;
+    }
+
+    /**
+     * Records the classes produced by the compilation of a source.
+     *
+     * @param source     the source the classes were compiled from
+     * @param classNames the names of the classes produced
+     */
+    public void recordSource(final File source, final Collection<String> classNames) {
+        sourceClasses.computeIfAbsent(source.getAbsolutePath(), k -> new TreeSet<>()).addAll(classNames);
+    }
+
+    /**
+     * Records the classes referenced by a compiled class.
+     *
+     * @param className  the name of the compiled class
+     * @param classBytes the bytes of the compiled class
+     */
+    public void recordClass(final String className, final byte[] classBytes) {
+        try {
+            Set<String> references = ClassFileReferences.read(classBytes);
+            references.remove(className);
+            classReferences.put(className, references);
+        } catch (IOException e) {
+            log.debug("Unable to read references of " + className + ", assuming none.", e);
+            classReferences.put(className, new TreeSet<>());
+        }
+    }
+
+    /**
+     * Gets the class files of every class known to have been produced by the current sources.
+     *
+     * @return the class files
+     */
+    public List<File> getClassFiles() {
+        List<File> classFiles = new ArrayList<>();
+        for (Set<String> classes : sourceClasses.values()) {
+            for (String className : classes) {
+                classFiles.add(classFile(className));
+            }
+        }
+        return classFiles;
+    }
+
+    /**
+     * Saves the state after a successful compilation.
+     *
+     * @throws IOException when the state cannot be written
+     */
+    public void save() throws IOException {
+        sourceHashes.putAll(currentSourceHashes);
+        Files.createDirectories(stateDirectory.toPath());
+        store(SOURCES_FILE, sourceHashes);
+        Map<String, String> classes = new TreeMap<>();
+        for (Map.Entry<String, Set<String>> entry : sourceClasses.entrySet()) {
+            classes.put(entry.getKey(), join(entry.getValue()));
+        }
+        store(CLASSES_FILE, classes);
+        Map<String, String> references = new TreeMap<>();
+        for (Map.Entry<String, Set<String>> entry : classReferences.entrySet()) {
+            references.put(entry.getKey(), join(entry.getValue()));
+        }
+        store(REFERENCES_FILE, references);
+        Files.write(new File(stateDirectory, SETTINGS_FILE).toPath(), settingsFingerprint.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds to <code>toCompile</code> every source that references (directly or transitively) a class produced by a
+     * source being recompiled or removed.
+     *
+     * @param toCompile the changed sources, which the dependent sources are added to
+     * @param removed   the removed sources
+     */
+    private void addDependents(final Set<String> toCompile, final Set<String> removed) {
+        Map<String, String> classSources = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : sourceClasses.entrySet()) {
+            for (String className : entry.getValue()) {
+                classSources.put(className, entry.getKey());
+            }
+        }
+        Map<String, Set<String>> referencingSources = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : classReferences.entrySet()) {
+            String source = classSources.get(entry.getKey());
+            if (source == null) {
+                continue;
+            }
+            for (String reference : entry.getValue()) {
+                referencingSources.computeIfAbsent(reference, k -> new HashSet<>()).add(source);
+            }
+        }
+
+        Deque<String> queue = new ArrayDeque<>(toCompile);
+        queue.addAll(removed);
+        Set<String> visited = new HashSet<>(queue);
+        while (!queue.isEmpty()) {
+            Set<String> classes = sourceClasses.get(queue.poll());
+            if (classes == null) {
+                continue;
+            }
+            for (String className : classes) {
+                Set<String> dependents = referencingSources.get(className);
+                if (dependents == null) {
+                    continue;
+                }
+                for (String dependent : dependents) {
+                    if (visited.add(dependent) && currentSourceHashes.containsKey(dependent)) {
+                        toCompile.add(dependent);
+                        queue.add(dependent);
+                    }
+                }
+            }
+        }
+    }
+
+    private void load() {
+        try {
+            Map<String, String> classes = load(CLASSES_FILE);
+            if (classes == null) {
+                return;
+            }
+            for (Map.Entry<String, String> entry : classes.entrySet()) {
+                sourceClasses.put(entry.getKey(), split(entry.getValue()));
+            }
+            File settingsFile = new File(stateDirectory, SETTINGS_FILE);
+            String previousSettings = settingsFile.isFile() ? new String(Files.readAllBytes(settingsFile.toPath()), StandardCharsets.UTF_8) : null;
+            Map<String, String> hashes = load(SOURCES_FILE);
+            Map<String, String> references = load(REFERENCES_FILE);
+            if (previousSettings == null || !previousSettings.equals(settingsFingerprint) || hashes == null || references == null) {
+                log.info("Compilation settings or classpath changed, or previous compilation failed. Recompiling all sources.");
+                // everything will be recompiled, but classes of removed sources still need deleting
+                for (Set<String> sourceClassNames : sourceClasses.values()) {
+                    for (String className : sourceClassNames) {
+                        classFile(className).delete();
+                    }
+                }
+                sourceClasses.clear();
+                return;
+            }
+            sourceHashes.putAll(hashes);
+            for (Map.Entry<String, String> entry : references.entrySet()) {
+                classReferences.put(entry.getKey(), split(entry.getValue()));
+            }
+            hasPreviousState = true;
+        } catch (IOException e) {
+            log.warn("Unable to read incremental compilation state, recompiling all sources.", e);
+            sourceClasses.clear();
+            sourceHashes.clear();
+            classReferences.clear();
+        }
+    }
+
+    private void clear() {
+        new File(stateDirectory, SETTINGS_FILE).delete();
+    }
+
+    private File classFile(final String className) {
+        return new File(outputDirectory, className.replace('.', File.separatorChar) + ".class");
+    }
+
+    private Map<String, String> load(final String name) throws IOException {
+        File file = new File(stateDirectory, name);
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+        }
+        Map<String, String> map = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            map.put(key, properties.getProperty(key));
+        }
+        return map;
+    }
+
+    private void store(final String name, final Map<String, String> map) throws IOException {
+        Properties properties = new Properties();
+        properties.putAll(map);
+        try (OutputStream out = Files.newOutputStream(new File(stateDirectory, name).toPath())) {
+            properties.store(out, null);
+        }
+    }
+
+    private static String join(final Set<String> values) {
+        return String.join(",", values);
+    }
+
+    private static Set<String> split(final String value) {
+        Set<String> values = new TreeSet<>();
+        if (!value.isEmpty()) {
+            values.addAll(Arrays.asList(value.split(",")));
+        }
+        return values;
+    }
+
+}
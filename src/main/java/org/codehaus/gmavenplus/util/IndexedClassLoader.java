@@ -0,0 +1,284 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+
+/**
+ * A URLClassLoader that answers lookups for classes it can't have without searching its classpath. Groovy's resolver
+ * tries many class names that don't exist (every default import and star import for every unqualified class name), and
+ * each of them would otherwise be looked up in every jar. This loader keeps an index of the packages in its jars (read
+ * once per jar for the session, and again only if the jar changes), so classes in packages no jar has are only looked
+ * for in its directories, and remembers the names it couldn't load, so failing again is immediate. A remembered name is
+ * looked up again if a directory on the classpath has since gained its package, so classes written while the loader is
+ * in use (like those of an earlier compilation) aren't hidden.
+ * <p>
+ * The index also has the service descriptors in the jars (under <code>META-INF/services/</code> and
+ * <code>META-INF/groovy/</code>), so looking them up (like Groovy does for its global AST transformations and extension
+ * modules at the start of every compilation) only looks in the jars that have them rather than in every jar.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class IndexedClassLoader extends URLClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    private static final String MULTI_RELEASE_PREFIX = "META-INF/versions/";
+    private static final String[] DESCRIPTOR_PREFIXES = {"META-INF/services/", "META-INF/groovy/"};
+
+    /**
+     * The packages and service descriptors in each jar, by jar path, size and modification time.
+     */
+    private static final Map<String, JarIndex> JAR_INDEXES = new ConcurrentHashMap<>();
+
+    private final Set<String> packages = new HashSet<>();
+    private final List<File> directories = new ArrayList<>();
+    private final List<File> entries = new ArrayList<>();
+    private final Map<File, Set<String>> jarDescriptors = new HashMap<>();
+    private final boolean indexed;
+    private final Set<String> notFound = ConcurrentHashMap.newKeySet();
+    private final AtomicLong foundCount = new AtomicLong();
+    private final AtomicLong notFoundCount = new AtomicLong();
+    private final AtomicLong cachedNotFoundCount = new AtomicLong();
+    private final AtomicLong skippedSearchCount = new AtomicLong();
+    private final AtomicLong skippedResourceSearchCount = new AtomicLong();
+
+    /**
+     * Creates a new IndexedClassLoader.
+     *
+     * @param urls   the URLs to load classes and resources from
+     * @param parent the parent classloader
+     */
+    public IndexedClassLoader(final URL[] urls, final ClassLoader parent) {
+        super(urls, parent);
+        boolean complete = true;
+        for (URL url : urls) {
+            complete &= index(url);
+        }
+        indexed = complete;
+    }
+
+    /**
+     * Gets the number of classes found on this loader's own classpath.
+     *
+     * @return the number of classes found
+     */
+    public long getFoundCount() {
+        return foundCount.get();
+    }
+
+    /**
+     * Gets the number of lookups of classes that weren't found by this loader or its parents.
+     *
+     * @return the number of failed lookups (including those answered from the cache)
+     */
+    public long getNotFoundCount() {
+        return notFoundCount.get() + cachedNotFoundCount.get();
+    }
+
+    /**
+     * Gets the number of failed lookups answered from the cache of names that weren't found before.
+     *
+     * @return the number of failed lookups answered from the cache
+     */
+    public long getCachedNotFoundCount() {
+        return cachedNotFoundCount.get();
+    }
+
+    /**
+     * Gets the number of searches of this loader's jars that were skipped because no jar has the class' package.
+     *
+     * @return the number of skipped searches
+     */
+    public long getSkippedSearchCount() {
+        return skippedSearchCount.get();
+    }
+
+    /**
+     * Gets the number of jars whose search for a service descriptor was skipped because they don't have it.
+     *
+     * @return the number of skipped jar searches
+     */
+    public long getSkippedResourceSearchCount() {
+        return skippedResourceSearchCount.get();
+    }
+
+    @Override
+    protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+        if (notFound.contains(name) && !inDirectories(packagePath(name))) {
+            cachedNotFoundCount.incrementAndGet();
+            throw new ClassNotFoundException(name);
+        }
+        try {
+            return super.loadClass(name, resolve);
+        } catch (ClassNotFoundException e) {
+            notFoundCount.incrementAndGet();
+            notFound.add(name);
+            throw e;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+        String packagePath = packagePath(name);
+        if (indexed && !packages.contains(packagePath) && !inDirectories(packagePath)) {
+            skippedSearchCount.incrementAndGet();
+            throw new ClassNotFoundException(name);
+        }
+        Class<?> clazz = super.findClass(name);
+        foundCount.incrementAndGet();
+        return clazz;
+    }
+
+    @Override
+    public Enumeration<URL> findResources(final String name) throws IOException {
+        if (!indexed || !isDescriptor(name)) {
+            return super.findResources(name);
+        }
+        List<URL> resources = new ArrayList<>();
+        for (File entry : entries) {
+            Set<String> descriptors = jarDescriptors.get(entry);
+            if (descriptors == null) {
+                File resource = new File(entry, name);
+                if (resource.isFile()) {
+                    resources.add(resource.toURI().toURL());
+                }
+            } else if (descriptors.contains(name)) {
+                resources.add(new URL("jar:" + entry.toURI().toURL() + "!/" + name));
+            } else {
+                skippedResourceSearchCount.incrementAndGet();
+            }
+        }
+        return Collections.enumeration(resources);
+    }
+
+    /**
+     * Adds a classpath entry to the index.
+     *
+     * @param url the classpath entry
+     * @return <code>true</code> if the entry could be indexed, <code>false</code> if it could contain any package
+     */
+    private boolean index(final URL url) {
+        File file;
+        try {
+            if (!"file".equals(url.getProtocol())) {
+                return false;
+            }
+            file = new File(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return false;
+        }
+        if (file.isDirectory()) {
+            directories.add(file);
+            entries.add(file);
+            return true;
+        } else if (!file.isFile()) {
+            // a missing entry has no classes
+            return true;
+        }
+        String key = file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+        JarIndex jarIndex = JAR_INDEXES.get(key);
+        if (jarIndex == null) {
+            jarIndex = readIndex(file);
+            if (jarIndex == null) {
+                return false;
+            }
+            JAR_INDEXES.put(key, jarIndex);
+        }
+        packages.addAll(jarIndex.packages);
+        entries.add(file);
+        jarDescriptors.put(file, jarIndex.descriptors);
+        return true;
+    }
+
+    /**
+     * Reads the packages of the classes and the service descriptors in a jar.
+     *
+     * @param file the jar
+     * @return the index of the jar, or <code>null</code> if the jar can't be read or refers to other jars (which the
+     * index doesn't follow)
+     */
+    private static JarIndex readIndex(final File file) {
+        Set<String> jarPackages = new HashSet<>();
+        Set<String> descriptors = new HashSet<>();
+        try (JarFile jar = new JarFile(file)) {
+            Manifest manifest = jar.getManifest();
+            if (manifest != null && manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) != null) {
+                return null;
+            }
+            Enumeration<JarEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.startsWith(MULTI_RELEASE_PREFIX)) {
+                    int versionEnd = name.indexOf('/', MULTI_RELEASE_PREFIX.length());
+                    name = versionEnd > 0 ? name.substring(versionEnd + 1) : name;
+                }
+                if (isDescriptor(name)) {
+                    descriptors.add(name);
+                }
+                if (!name.endsWith(".class")) {
+                    continue;
+                }
+                int lastSlash = name.lastIndexOf('/');
+                jarPackages.add(lastSlash > 0 ? name.substring(0, lastSlash) : "");
+            }
+        } catch (IOException e) {
+            return null;
+        }
+        return new JarIndex(Collections.unmodifiableSet(jarPackages), Collections.unmodifiableSet(descriptors));
+    }
+
+    private static boolean isDescriptor(final String name) {
+        for (String prefix : DESCRIPTOR_PREFIXES) {
+            if (name.startsWith(prefix) && !name.endsWith("/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean inDirectories(final String packagePath) {
+        for (File directory : directories) {
+            if (packagePath.isEmpty() || new File(directory, packagePath).isDirectory()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String packagePath(final String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot > 0 ? className.substring(0, lastDot).replace('.', '/') : "";
+    }
+
+    private static class JarIndex {
+        private final Set<String> packages;
+        private final Set<String> descriptors;
+
+        private JarIndex(final Set<String> packages, final Set<String> descriptors) {
+            this.packages = packages;
+            this.descriptors = descriptors;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+
+/**
+ * Creates manifest-only jars whose <code>Class-Path</code> lists a classpath, so a forked JVM can be given a long
+ * classpath as a single <code>-cp</code> entry. Unlike argument files, this works with every Java version a fork might
+ * use. Jars are named after a fingerprint of the classpath (including the size and modification time of each jar), so
+ * they're created once and reused by later builds until the classpath changes, which also keeps class data sharing
+ * archives keyed by the fork's classpath up to date.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class PathingJar {
+
+    private PathingJar() {
+    }
+
+    /**
+     * Gets the pathing jar for the classpath, creating it if it doesn't exist yet.
+     *
+     * @param directory the directory to keep pathing jars in
+     * @param classpath the classpath
+     * @return the pathing jar
+     * @throws IOException when the jar cannot be written
+     */
+    public static File create(final File directory, final List<File> classpath) throws IOException {
+        String name = new Fingerprint().addClasspath(classpath, null).toHexString() + ".jar";
+        File jar = new File(directory, name);
+        if (jar.isFile()) {
+            return jar;
+        }
+
+        StringBuilder classPath = new StringBuilder();
+        for (File entry : classpath) {
+            if (classPath.length() > 0) {
+                classPath.append(' ');
+            }
+            // URIs of directories end with a slash, which the Class-Path attribute needs to tell them from jars
+            classPath.append(entry.getAbsoluteFile().toURI());
+        }
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, classPath.toString());
+
+        Files.createDirectories(directory.toPath());
+        File newJar = File.createTempFile(name, ".tmp", directory);
+        try {
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(newJar.toPath()), manifest)) {
+                out.flush();
+            }
+            try {
+                Files.move(newJar.toPath(), jar.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(newJar.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(newJar.toPath());
+        }
+        return jar;
+    }
+
+}
@@ -1,13 +1,17 @@
 package org.codehaus.gmavenplus.util;
 
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
@@ -23,12 +27,34 @@ import java.util.List;
  */
 public class ReflectionUtils {
 
+    /**
+     * The constructors found so far, by class, then by parameter types. Only members of the class itself and its
+     * parameter types are kept (lookups that fail aren't cached), so this can't keep any other classloader alive.
+     */
+    private static final ClassValue<ConcurrentMap<Object, Constructor<?>>> CONSTRUCTORS = new ClassValue<ConcurrentMap<Object, Constructor<?>>>() {
+        @Override
+        protected ConcurrentMap<Object, Constructor<?>> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * The methods found so far, by class, then by name and parameter types.
+     */
+    private static final ClassValue<ConcurrentMap<Object, Method>> METHODS = new ClassValue<ConcurrentMap<Object, Method>>() {
+        @Override
+        protected ConcurrentMap<Object, Method> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     private ReflectionUtils() {
     }
 
     /**
      * Attempt to find a {@link Constructor} on the supplied class with the supplied parameter types.
-     * Searches all superclasses up to <code>Object</code>.
+     * Searches all superclasses up to <code>Object</code>. Constructors found are cached, so looking the same one up
+     * again is cheap.
      *
      * @param clazz      The class to introspect
      * @param paramTypes The parameter types of the method (may be <code>null</code> to indicate any signature)
@@ -38,17 +64,9 @@ public class ReflectionUtils {
         if (clazz == null) {
             throw new IllegalArgumentException("Class must not be null.");
         }
-        Class<?> searchType = clazz;
-        while (searchType != null) {
-            Constructor<?>[] constructors = searchType.isInterface() ? clazz.getConstructors() : clazz.getDeclaredConstructors();
-            for (Constructor<?> constructor : constructors) {
-                if (paramTypes == null || Arrays.equals(paramTypes, constructor.getParameterTypes())) {
-                    return constructor;
-                }
-            }
-            searchType = searchType.getSuperclass();
-        }
-        throw new IllegalArgumentException("Unable to find constructor " + clazz.getName() + "(" + Arrays.toString(paramTypes).replaceAll("^\\[", "").replaceAll("]$", "").replaceAll("class ", "") + ").");
+        // an empty key for any signature, which no list of parameter types equals
+        Object key = paramTypes == null ? "" : Arrays.asList(paramTypes.clone());
+        return CONSTRUCTORS.get(clazz).computeIfAbsent(key, k -> lookupConstructor(clazz, paramTypes));
     }
 
     /**
@@ -82,7 +100,8 @@ public class ReflectionUtils {
 
     /**
      * Attempt to find a {@link Method} on the supplied class with the supplied name and parameter types.
-     * Searches all superclasses up to <code>Object</code>.
+     * Searches all superclasses up to <code>Object</code>. Methods found are cached, so looking the same one up again is
+     * cheap.
      *
      * @param clazz      The class to introspect
      * @param name       The name of the method
@@ -97,17 +116,17 @@ public class ReflectionUtils {
         if (name == null) {
             throw new IllegalArgumentException("Method name must not be null.");
         }
-        Class<?> searchType = clazz;
-        while (searchType != null) {
-            Method[] methods = (searchType.isInterface() ? searchType.getMethods() : getDeclaredMethods(searchType));
-            for (Method method : methods) {
-                if (name.equals(method.getName()) && (paramTypes == null || Arrays.equals(paramTypes, method.getParameterTypes()))) {
-                    return method;
-                }
-            }
-            searchType = searchType.getSuperclass();
+        Object key;
+        if (paramTypes == null) {
+            // just the name for any signature, which no list of the name and parameter types equals
+            key = name;
+        } else {
+            List<Object> signature = new ArrayList<>(paramTypes.length + 1);
+            signature.add(name);
+            signature.addAll(Arrays.asList(paramTypes));
+            key = signature;
         }
-        throw new IllegalArgumentException("Unable to find method " + clazz.getName() + "." + name + "(" + Arrays.toString(paramTypes).replaceAll("^\\[", "").replaceAll("]$", "").replaceAll("class ", "") + ").");
+        return METHODS.get(clazz).computeIfAbsent(key, k -> lookupMethod(clazz, name, paramTypes));
     }
 
     /**
@@ -219,6 +238,75 @@ public class ReflectionUtils {
         return method.invoke(null, args);
     }
 
+    /**
+     * Invoke the specified interface default {@link Method} on a {@link java.lang.reflect.Proxy} instance, running the
+     * interface's own implementation (which a proxy's invocation handler can't do by invoking the method normally).
+     *
+     * @param proxy  The proxy to invoke the method on
+     * @param method The default method to invoke
+     * @param args   The invocation arguments (may be <code>null</code>)
+     * @return The invocation result, if any
+     * @throws Throwable whatever the default method throws
+     */
+    public static Object invokeDefaultMethod(final Object proxy, final Method method, final Object... args) throws Throwable {
+        if (method == null || !method.isDefault()) {
+            throw new IllegalArgumentException("Method must be a default method.");
+        }
+        Object[] arguments = args != null ? args : new Object[0];
+        // Java 16+
+        try {
+            Method invokeDefault = InvocationHandler.class.getMethod("invokeDefault", Object.class, Method.class, Object[].class);
+            try {
+                return invokeDefault.invoke(null, proxy, method, arguments);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        } catch (NoSuchMethodException e) {
+            // do nothing, try another way
+        }
+        Class<?> declaringClass = method.getDeclaringClass();
+        MethodHandles.Lookup lookup;
+        try {
+            // Java 9+
+            Method privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+            lookup = (MethodHandles.Lookup) privateLookupIn.invoke(null, declaringClass, MethodHandles.lookup());
+        } catch (NoSuchMethodException e) {
+            // Java 8
+            Constructor<MethodHandles.Lookup> lookupConstructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+            lookupConstructor.setAccessible(true);
+            lookup = lookupConstructor.newInstance(declaringClass, MethodHandles.Lookup.PRIVATE);
+        }
+        return lookup.unreflectSpecial(method, declaringClass).bindTo(proxy).invokeWithArguments(arguments);
+    }
+
+    private static Constructor<?> lookupConstructor(final Class<?> clazz, final Class<?>... paramTypes) {
+        Class<?> searchType = clazz;
+        while (searchType != null) {
+            Constructor<?>[] constructors = searchType.isInterface() ? clazz.getConstructors() : clazz.getDeclaredConstructors();
+            for (Constructor<?> constructor : constructors) {
+                if (paramTypes == null || Arrays.equals(paramTypes, constructor.getParameterTypes())) {
+                    return constructor;
+                }
+            }
+            searchType = searchType.getSuperclass();
+        }
+        throw new IllegalArgumentException("Unable to find constructor " + clazz.getName() + "(" + Arrays.toString(paramTypes).replaceAll("^\\[", "").replaceAll("]$", "").replaceAll("class ", "") + ").");
+    }
+
+    private static Method lookupMethod(final Class<?> clazz, final String name, final Class<?>... paramTypes) {
+        Class<?> searchType = clazz;
+        while (searchType != null) {
+            Method[] methods = (searchType.isInterface() ? searchType.getMethods() : getDeclaredMethods(searchType));
+            for (Method method : methods) {
+                if (name.equals(method.getName()) && (paramTypes == null || Arrays.equals(paramTypes, method.getParameterTypes()))) {
+                    return method;
+                }
+            }
+            searchType = searchType.getSuperclass();
+        }
+        throw new IllegalArgumentException("Unable to find method " + clazz.getName() + "." + name + "(" + Arrays.toString(paramTypes).replaceAll("^\\[", "").replaceAll("]$", "").replaceAll("class ", "") + ").");
+    }
+
     /**
      * This variant retrieves {@link Class#getDeclaredMethods()} and also includes Java 8 default methods from locally implemented interfaces, since those are effectively to be treated just like declared methods.
      *
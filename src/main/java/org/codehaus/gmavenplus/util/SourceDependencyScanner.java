@@ -0,0 +1,275 @@
+package org.codehaus.gmavenplus.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Splits sources into groups that can be compiled independently of each other, or one after another, using a lexical
+ * scan of the sources (without parsing them). A source depends on another when it mentions the simple name of a type the other declares,
+ * and sources that (transitively) depend on each other end up in the same group. This over-approximates the real
+ * dependencies (names in comments, strings, or of same-named types in other packages also count), which only makes the
+ * groups larger, never incorrect.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class SourceDependencyScanner {
+
+    private static final Pattern TYPE_DECLARATION = Pattern.compile("(?:\\bclass|\\binterface|\\benum|\\btrait|\\brecord|@interface)\\s+([A-Za-z_$][\\w$]*)");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][\\w$]*");
+
+    private final Charset encoding;
+
+    /**
+     * Creates a new SourceDependencyScanner.
+     *
+     * @param encoding the encoding of the sources
+     */
+    public SourceDependencyScanner(final Charset encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Splits the sources into the smallest groups that don't depend on sources in other groups.
+     *
+     * @param sources the sources to split
+     * @return the groups (in no particular order)
+     * @throws IOException when a source cannot be read
+     */
+    public List<Set<File>> components(final Collection<File> sources) throws IOException {
+        List<File> files = new ArrayList<>(new TreeSet<>(sources));
+        List<Set<Integer>> dependencies = dependencies(files);
+
+        int[] parents = new int[files.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+        }
+        for (int i = 0; i < files.size(); i++) {
+            for (int dependency : dependencies.get(i)) {
+                union(parents, i, dependency);
+            }
+        }
+
+        Map<Integer, Set<File>> components = new LinkedHashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            components.computeIfAbsent(find(parents, i), k -> new TreeSet<>()).add(files.get(i));
+        }
+        return new ArrayList<>(components.values());
+    }
+
+    /**
+     * Splits the sources into the smallest groups that only depend on sources in the same or earlier groups, so the
+     * groups can be compiled one after another with the classes of the earlier groups on the classpath. Sources that
+     * (transitively) depend on each other end up in the same group.
+     *
+     * @param sources the sources to split
+     * @return the groups, dependencies first
+     * @throws IOException when a source cannot be read
+     */
+    public List<Set<File>> dependencyOrder(final Collection<File> sources) throws IOException {
+        List<File> files = new ArrayList<>(new TreeSet<>(sources));
+        List<Set<Integer>> dependencies = dependencies(files);
+        int[][] edges = new int[files.size()][];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new int[dependencies.get(i).size()];
+            int j = 0;
+            for (int dependency : new TreeSet<>(dependencies.get(i))) {
+                edges[i][j++] = dependency;
+            }
+        }
+
+        List<Set<File>> groups = new ArrayList<>();
+        for (List<Integer> component : stronglyConnectedComponents(edges)) {
+            Set<File> group = new TreeSet<>();
+            for (int i : component) {
+                group.add(files.get(i));
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Finds the sources each source depends on.
+     *
+     * @param files the sources
+     * @return the indexes of the sources each source depends on (not including itself)
+     * @throws IOException when a source cannot be read
+     */
+    private List<Set<Integer>> dependencies(final List<File> files) throws IOException {
+        List<String> contents = new ArrayList<>(files.size());
+        Map<String, Set<Integer>> declarations = new HashMap<>();
+        for (int i = 0; i < files.size(); i++) {
+            String content = new String(Files.readAllBytes(files.get(i).toPath()), encoding);
+            contents.add(content);
+            String fileName = files.get(i).getName();
+            int extension = fileName.lastIndexOf('.');
+            // scripts declare a class named after the file
+            declarations.computeIfAbsent(extension > 0 ? fileName.substring(0, extension) : fileName, k -> new HashSet<>()).add(i);
+            Matcher declaration = TYPE_DECLARATION.matcher(content);
+            while (declaration.find()) {
+                declarations.computeIfAbsent(declaration.group(1), k -> new HashSet<>()).add(i);
+            }
+        }
+
+        List<Set<Integer>> dependencies = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            Set<Integer> sourceDependencies = new HashSet<>();
+            Set<String> seen = new HashSet<>();
+            Matcher identifier = IDENTIFIER.matcher(contents.get(i));
+            while (identifier.find()) {
+                String name = identifier.group();
+                if (seen.add(name)) {
+                    Set<Integer> declaringSources = declarations.get(name);
+                    if (declaringSources != null) {
+                        sourceDependencies.addAll(declaringSources);
+                    }
+                }
+            }
+            sourceDependencies.remove(i);
+            dependencies.add(sourceDependencies);
+        }
+        return dependencies;
+    }
+
+    /**
+     * Finds the strongly connected components of a graph with Tarjan's algorithm (without recursion, since source sets
+     * can be large).
+     *
+     * @param edges the nodes each node has an edge to
+     * @return the components, each after the components it has edges to
+     */
+    private static List<List<Integer>> stronglyConnectedComponents(final int[][] edges) {
+        int[] index = new int[edges.length];
+        int[] lowLink = new int[edges.length];
+        boolean[] onStack = new boolean[edges.length];
+        Arrays.fill(index, -1);
+        Deque<Integer> stack = new ArrayDeque<>();
+        Deque<int[]> work = new ArrayDeque<>();
+        List<List<Integer>> components = new ArrayList<>();
+        int counter = 0;
+        for (int start = 0; start < edges.length; start++) {
+            if (index[start] != -1) {
+                continue;
+            }
+            index[start] = lowLink[start] = counter++;
+            stack.push(start);
+            onStack[start] = true;
+            work.push(new int[]{start, 0});
+            while (!work.isEmpty()) {
+                int[] frame = work.peek();
+                int node = frame[0];
+                if (frame[1] < edges[node].length) {
+                    int next = edges[node][frame[1]++];
+                    if (index[next] == -1) {
+                        index[next] = lowLink[next] = counter++;
+                        stack.push(next);
+                        onStack[next] = true;
+                        work.push(new int[]{next, 0});
+                    } else if (onStack[next]) {
+                        lowLink[node] = Math.min(lowLink[node], index[next]);
+                    }
+                } else {
+                    work.pop();
+                    if (!work.isEmpty()) {
+                        int parent = work.peek()[0];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                    if (lowLink[node] == index[node]) {
+                        List<Integer> component = new ArrayList<>();
+                        int member;
+                        do {
+                            member = stack.pop();
+                            onStack[member] = false;
+                            component.add(member);
+                        } while (member != node);
+                        components.add(component);
+                    }
+                }
+            }
+        }
+        return components;
+    }
+
+    /**
+     * Combines independent groups of sources into at most the given number of groups, balancing the total size of the
+     * sources in each group.
+     *
+     * @param components the independent groups of sources
+     * @param maxGroups  the maximum number of groups to return
+     * @return the combined groups
+     */
+    public static List<Set<File>> group(final List<Set<File>> components, final int maxGroups) {
+        List<Set<File>> sorted = new ArrayList<>(components);
+        sorted.sort(Comparator.comparingLong(SourceDependencyScanner::size).reversed());
+        int groupCount = Math.max(1, Math.min(maxGroups, sorted.size()));
+        List<Set<File>> groups = new ArrayList<>(groupCount);
+        long[] groupSizes = new long[groupCount];
+        for (int i = 0; i < groupCount; i++) {
+            groups.add(new TreeSet<>());
+        }
+        // largest first, each into the currently smallest group
+        for (Set<File> component : sorted) {
+            int smallest = 0;
+            for (int i = 1; i < groupCount; i++) {
+                if (groupSizes[i] < groupSizes[smallest]) {
+                    smallest = i;
+                }
+            }
+            groups.get(smallest).addAll(component);
+            groupSizes[smallest] += size(component);
+        }
+        groups.removeIf(Set::isEmpty);
+        return groups;
+    }
+
+    private static long size(final Set<File> files) {
+        long size = 0;
+        for (File file : files) {
+            size += Math.max(1, file.length());
+        }
+        return size;
+    }
+
+    private static int find(final int[] parents, final int i) {
+        int root = i;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        // path compression
+        int node = i;
+        while (parents[node] != root) {
+            int next = parents[node];
+            parents[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    private static void union(final int[] parents, final int a, final int b) {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if (rootA != rootB) {
+            parents[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+}
@@ -0,0 +1,297 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.codehaus.gmavenplus.util.ReflectionUtils.findMethod;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeDefaultMethod;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeMethod;
+
+
+/**
+ * Records how much time and memory the compilation of each source takes, to find the sources that dominate the
+ * compilation. This wraps the per-source operations of a CompilationUnit (parsing, resolution, AST transforms, class
+ * generation, etc.) with operations that measure the wall time and allocated bytes of each call and attribute them to
+ * the call's source. Operations added while compiling (like by AST transforms) aren't measured. Requires Groovy 3.0.0 or
+ * newer, where the operations are interfaces.
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class SourceHotspotProfiler {
+
+    /**
+     * The categories time is attributed to.
+     */
+    protected static final String[] CATEGORIES = {"parsing", "resolution", "AST transforms", "class generation", "other"};
+
+    private static final String[] JSON_KEYS = {"parsingMillis", "resolutionMillis", "transformsMillis", "classGenerationMillis", "otherMillis"};
+
+    private static final int PARSING = 0;
+    private static final int RESOLUTION = 1;
+    private static final int TRANSFORMS = 2;
+    private static final int CLASS_GENERATION = 3;
+    private static final int OTHER = 4;
+
+    private final Map<String, Hotspot> hotspots = new HashMap<>();
+    private final Log log;
+
+    /**
+     * Creates a new SourceHotspotProfiler.
+     *
+     * @param log the log to write the report to
+     */
+    public SourceHotspotProfiler(final Log log) {
+        this.log = log;
+    }
+
+    /**
+     * Starts profiling the compilation unit. Should be called after adding the sources and before compiling.
+     *
+     * @param compilationUnitClass the CompilationUnit class
+     * @param sourceUnitClass      the SourceUnit class
+     * @param compilationUnit      the compilation unit to profile
+     * @return <code>true</code> if the compilation unit is profiled, <code>false</code> if this Groovy version doesn't allow it
+     * @throws IllegalAccessException when the compilation unit's operations cannot be accessed
+     */
+    @SuppressWarnings("unchecked")
+    public boolean attach(final Class<?> compilationUnitClass, final Class<?> sourceUnitClass, final Object compilationUnit) throws IllegalAccessException {
+        Object[] phaseOperations = phaseOperations(compilationUnitClass, compilationUnit);
+        if (phaseOperations == null) {
+            log.warn("Your Groovy version doesn't support profiling sources (must be 3.0.0 or newer). Skipping source profiling.");
+            return false;
+        }
+        Method getName = findMethod(sourceUnitClass, "getName");
+        for (int phase = 0; phase < phaseOperations.length; phase++) {
+            Deque<Object> operations = (Deque<Object>) phaseOperations[phase];
+            if (operations == null) {
+                continue;
+            }
+            List<Object> wrapped = new ArrayList<>(operations.size());
+            for (Object operation : operations) {
+                wrapped.add(wrap(operation, phase, getName));
+            }
+            operations.clear();
+            operations.addAll(wrapped);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the operations of each phase of a compilation unit.
+     *
+     * @param compilationUnitClass the CompilationUnit class
+     * @param compilationUnit      the compilation unit
+     * @return the deques of operations, indexed by phase number, or <code>null</code> if this Groovy version doesn't
+     * keep them in an array (before Groovy 3)
+     * @throws IllegalAccessException when the compilation unit's operations cannot be accessed
+     */
+    protected static Object[] phaseOperations(final Class<?> compilationUnitClass, final Object compilationUnit) throws IllegalAccessException {
+        Field phaseOperationsField = null;
+        for (Class<?> clazz = compilationUnitClass; clazz != null && phaseOperationsField == null; clazz = clazz.getSuperclass()) {
+            try {
+                phaseOperationsField = clazz.getDeclaredField("phaseOperations");
+            } catch (NoSuchFieldException e) {
+                // do nothing, try the superclass
+            }
+        }
+        if (phaseOperationsField == null || !phaseOperationsField.getType().isArray()) {
+            return null;
+        }
+        phaseOperationsField.setAccessible(true);
+        return (Object[]) phaseOperationsField.get(compilationUnit);
+    }
+
+    private Object wrap(final Object operation, final int phase, final Method getName) {
+        Class<?> operationInterface = null;
+        for (Class<?> clazz = operation.getClass(); clazz != null && operationInterface == null; clazz = clazz.getSuperclass()) {
+            for (Class<?> candidate : clazz.getInterfaces()) {
+                // operations on GroovyClasses (output) aren't tied to a source
+                if (candidate.getName().endsWith("$ISourceUnitOperation") || candidate.getName().endsWith("$IPrimaryClassNodeOperation")) {
+                    operationInterface = candidate;
+                }
+            }
+        }
+        if (operationInterface == null) {
+            return operation;
+        }
+        final int category = categorize(operation, phase);
+        return Proxy.newProxyInstance(operationInterface.getClassLoader(), new Class<?>[]{operationInterface}, (proxy, method, args) -> {
+            if (method.isDefault()) {
+                return invokeDefaultMethod(proxy, method, args);
+            } else if ("call".equals(method.getName()) && args != null && args.length > 0 && args[0] != null) {
+                long start = System.nanoTime();
+                long startAllocatedBytes = CompilationProfiler.currentThreadAllocatedBytes();
+                try {
+                    return invokeMethod(method, operation, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                } finally {
+                    long allocatedBytes = CompilationProfiler.currentThreadAllocatedBytes();
+                    record((String) invokeMethod(getName, args[0]), category, System.nanoTime() - start, allocatedBytes >= 0 && startAllocatedBytes >= 0 ? allocatedBytes - startAllocatedBytes : -1);
+                }
+            } else if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(method.getName())) {
+                return "Profiled " + operation;
+            }
+            try {
+                return invokeMethod(method, operation, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Determines what an operation's time is attributed to, from the phase it runs in and the class that registered it.
+     *
+     * @param operation the operation
+     * @param phase     the phase the operation runs in
+     * @return the category
+     */
+    protected int categorize(final Object operation, final int phase) {
+        if (operation.getClass().getName().contains("ASTTransformation") || GlobalTransformProfiler.isProfiled(operation)) {
+            return TRANSFORMS;
+        }
+        switch (phase) {
+            case 2: // parsing
+            case 3: // conversion
+                return PARSING;
+            case 4: // semantic analysis
+                return RESOLUTION;
+            case 7: // class generation
+                return CLASS_GENERATION;
+            default:
+                return OTHER;
+        }
+    }
+
+    /**
+     * Records time and allocated bytes spent on a source.
+     *
+     * @param source         the name of the source
+     * @param category       what the time was spent on
+     * @param nanos          the time spent
+     * @param allocatedBytes the bytes allocated, or <code>-1</code> if unknown
+     */
+    protected synchronized void record(final String source, final int category, final long nanos, final long allocatedBytes) {
+        Hotspot hotspot = hotspots.computeIfAbsent(source, Hotspot::new);
+        hotspot.nanos[category] += nanos;
+        hotspot.totalNanos += nanos;
+        if (allocatedBytes >= 0 && hotspot.allocatedBytes >= 0) {
+            hotspot.allocatedBytes += allocatedBytes;
+        } else {
+            hotspot.allocatedBytes = -1;
+        }
+    }
+
+    /**
+     * Gets the sources that took the most time, slowest first.
+     *
+     * @param count the maximum number of sources to return
+     * @return the names of the slowest sources
+     */
+    public synchronized List<String> getSlowestSources(final int count) {
+        List<String> sources = new ArrayList<>();
+        for (Hotspot hotspot : slowest(count)) {
+            sources.add(hotspot.source);
+        }
+        return sources;
+    }
+
+    /**
+     * Logs a table of the sources that took the most time, and writes it as JSON to the report file.
+     *
+     * @param count      the number of sources to report
+     * @param reportFile the file to write the JSON report to (can be <code>null</code>)
+     */
+    public synchronized void report(final int count, final File reportFile) {
+        List<Hotspot> slowest = slowest(count);
+        StringBuilder table = new StringBuilder("Slowest sources to compile:").append(System.lineSeparator());
+        table.append(String.format(Locale.ROOT, "  %4s %10s %10s %10s %10s %10s %10s %15s  %s%n", "#", "Total (ms)", "Parsing", "Resolution", "Transforms", "Classgen", "Other", "Allocated (MB)", "Source"));
+        for (int i = 0; i < slowest.size(); i++) {
+            Hotspot hotspot = slowest.get(i);
+            table.append(String.format(Locale.ROOT, "  %4d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f %15s  %s%n", i + 1, hotspot.totalNanos / 1e6,
+                    hotspot.nanos[PARSING] / 1e6, hotspot.nanos[RESOLUTION] / 1e6, hotspot.nanos[TRANSFORMS] / 1e6, hotspot.nanos[CLASS_GENERATION] / 1e6, hotspot.nanos[OTHER] / 1e6,
+                    hotspot.allocatedBytes >= 0 ? String.format(Locale.ROOT, "%.1f", hotspot.allocatedBytes / (1024.0 * 1024.0)) : "n/a", hotspot.source));
+        }
+        log.info(table.toString().trim());
+
+        if (reportFile != null) {
+            StringBuilder json = new StringBuilder("{\n  \"sources\": [");
+            for (int i = 0; i < slowest.size(); i++) {
+                Hotspot hotspot = slowest.get(i);
+                json.append(i == 0 ? "\n" : ",\n").append("    {\"source\": \"").append(escape(hotspot.source)).append('"')
+                        .append(", \"timeMillis\": ").append(millis(hotspot.totalNanos));
+                for (int category = 0; category < CATEGORIES.length; category++) {
+                    json.append(", \"").append(JSON_KEYS[category]).append("\": ").append(millis(hotspot.nanos[category]));
+                }
+                json.append(", \"allocatedBytes\": ").append(hotspot.allocatedBytes).append('}');
+            }
+            json.append("\n  ]\n}\n");
+            try {
+                Files.createDirectories(reportFile.getAbsoluteFile().getParentFile().toPath());
+                try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+                    writer.write(json.toString());
+                }
+                log.info("Wrote source hotspot report to " + reportFile + ".");
+            } catch (IOException e) {
+                log.warn("Unable to write source hotspot report to " + reportFile + ".", e);
+            }
+        }
+    }
+
+    private List<Hotspot> slowest(final int count) {
+        List<Hotspot> sorted = new ArrayList<>(hotspots.values());
+        sorted.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+        return sorted.subList(0, Math.min(Math.max(count, 0), sorted.size()));
+    }
+
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String escape(final String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static class Hotspot {
+        private final String source;
+        private final long[] nanos = new long[CATEGORIES.length];
+        private long totalNanos;
+        private long allocatedBytes;
+
+        private Hotspot(final String source) {
+            this.source = source;
+        }
+    }
+
+}
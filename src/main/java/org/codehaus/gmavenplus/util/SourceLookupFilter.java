@@ -0,0 +1,125 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.ClasspathSourceLookup;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.codehaus.gmavenplus.util.ReflectionUtils.findMethod;
+import static org.codehaus.gmavenplus.util.ReflectionUtils.invokeMethod;
+
+
+/**
+ * Limits the lookups of Groovy sources on the classpath that Groovy makes for every class name it can't resolve (to
+ * compile the class from its source, if there is one). Each lookup searches the whole classpath for a
+ * <code>.groovy</code> file, and almost all of them fail, which is wasted I/O for classpaths with only compiled
+ * classes. Lookups are either not made at all, or made once per class name for all the GroovyClassLoaders the filter
+ * is attached to (which should share the same classpath).
+ *
+ * @author Keegan Witt
+ * @since 5.1.0
+ */
+public class SourceLookupFilter {
+
+    private final ClasspathSourceLookup sourceLookup;
+    private final Log log;
+    private final Map<String, Optional<URL>> results = new ConcurrentHashMap<>();
+    private final AtomicLong performedCount = new AtomicLong();
+    private final AtomicLong avoidedCount = new AtomicLong();
+
+    /**
+     * Creates a new SourceLookupFilter.
+     *
+     * @param sourceLookup how sources may be looked up (<code>CACHED</code> or <code>DISABLED</code>)
+     * @param log          the log to write the summary to
+     */
+    public SourceLookupFilter(final ClasspathSourceLookup sourceLookup, final Log log) {
+        this.sourceLookup = sourceLookup;
+        this.log = log;
+    }
+
+    /**
+     * Filters the source lookups of the GroovyClassLoader. Should be called before it's used for compiling.
+     *
+     * @param groovyClassLoaderClass  the GroovyClassLoader class
+     * @param resourceLoaderClass     the GroovyResourceLoader class
+     * @param groovyClassLoader       the GroovyClassLoader to filter the source lookups of
+     * @throws IllegalAccessException    when a method needed for filtering cannot be accessed
+     * @throws InvocationTargetException when a reflection invocation needed for filtering cannot be completed
+     */
+    public void attach(final Class<?> groovyClassLoaderClass, final Class<?> resourceLoaderClass, final Object groovyClassLoader) throws InvocationTargetException, IllegalAccessException {
+        Object resourceLoader = invokeMethod(findMethod(groovyClassLoaderClass, "getResourceLoader"), groovyClassLoader);
+        Method loadGroovySource = findMethod(resourceLoaderClass, "loadGroovySource", String.class);
+        Object filter = Proxy.newProxyInstance(resourceLoaderClass.getClassLoader(), new Class<?>[]{resourceLoaderClass}, (proxy, method, args) -> {
+            if (method.equals(loadGroovySource)) {
+                try {
+                    return loadGroovySource((String) args[0], loadGroovySource, resourceLoader);
+                } catch (InvocationTargetException e) {
+                    // so the resource loader's own exceptions reach Groovy unchanged
+                    throw e.getCause();
+                }
+            } else if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(method.getName())) {
+                return SourceLookupFilter.class.getSimpleName() + " resource loader";
+            }
+            try {
+                return invokeMethod(method, resourceLoader, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+        invokeMethod(findMethod(groovyClassLoaderClass, "setResourceLoader", resourceLoaderClass), groovyClassLoader, filter);
+    }
+
+    /**
+     * Gets the number of source lookups that searched the classpath.
+     *
+     * @return the number of lookups performed
+     */
+    public long getPerformedCount() {
+        return performedCount.get();
+    }
+
+    /**
+     * Gets the number of source lookups that were answered without searching the classpath.
+     *
+     * @return the number of lookups avoided
+     */
+    public long getAvoidedCount() {
+        return avoidedCount.get();
+    }
+
+    /**
+     * Logs how many source lookups were performed and avoided.
+     */
+    public void report() {
+        log.debug("Classpath source lookup (" + sourceLookup + "): " + performedCount.get() + " lookup" + (performedCount.get() != 1 ? "s" : "") + " performed, " + avoidedCount.get() + " avoided.");
+    }
+
+    private URL loadGroovySource(final String className, final Method loadGroovySource, final Object resourceLoader) throws InvocationTargetException, IllegalAccessException {
+        if (sourceLookup == ClasspathSourceLookup.DISABLED) {
+            avoidedCount.incrementAndGet();
+            return null;
+        }
+        Optional<URL> result = results.get(className);
+        if (result != null) {
+            avoidedCount.incrementAndGet();
+            return result.orElse(null);
+        }
+        performedCount.incrementAndGet();
+        URL source = (URL) invokeMethod(loadGroovySource, resourceLoader, className);
+        results.put(className, Optional.ofNullable(source));
+        return source;
+    }
+
+}
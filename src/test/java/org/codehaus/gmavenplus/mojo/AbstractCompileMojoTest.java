@@ -1,15 +1,38 @@
 package org.codehaus.gmavenplus.mojo;
 
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
 import org.codehaus.gmavenplus.model.internal.Version;
+import org.apache.maven.toolchain.Toolchain;
+import org.apache.maven.toolchain.ToolchainManager;
+import org.codehaus.gmavenplus.util.BuildCache;
 import org.codehaus.gmavenplus.util.ClassWrangler;
+import org.codehaus.gmavenplus.util.CompileState;
+import org.codehaus.gmavenplus.util.DirectoryBuildCacheBackend;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.MockitoAnnotations;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 /**
  * Unit tests for the AbstractCompileMojo class.
@@ -19,6 +42,9 @@ import static org.mockito.Mockito.mock;
 public class AbstractCompileMojoTest {
     private TestMojo testMojo;
 
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
     @Before
     public void setup() {
         MockitoAnnotations.openMocks(this);
@@ -37,6 +63,86 @@ public class AbstractCompileMojoTest {
         assertFalse(testMojo.groovyVersionSupportsAction());
     }
 
+    @Test
+    public void testBuildCacheHitSkipsCompilation() throws Exception {
+        File cacheDirectory = tmpDir.newFolder("cache");
+        File cachedClasses = tmpDir.newFolder("cached");
+        File cachedClass = new File(cachedClasses, "Foo.class");
+        Files.write(cachedClass.toPath(), new byte[]{1, 2, 3});
+        new BuildCache(new DirectoryBuildCacheBackend(cacheDirectory), mock(Log.class)).store("abcdef", cachedClasses, Collections.singletonList(cachedClass));
+
+        testMojo = new TestMojo() {
+            @Override
+            protected String buildCacheKey(GroovyCompileConfiguration configuration) {
+                return "abcdef";
+            }
+        };
+        testMojo.setLog(mock(Log.class));
+        testMojo.buildCache = true;
+        testMojo.buildCacheDirectory = cacheDirectory;
+        File outputDirectory = tmpDir.newFolder("classes");
+        // toolchainManager is null, so this would fail if it compiled
+        testMojo.doCompile(Collections.singleton(tmpDir.newFile("Foo.groovy")), Collections.emptyList(), outputDirectory);
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(new File(outputDirectory, "Foo.class").toPath()));
+    }
+
+    @Test
+    public void testUpToDateCheckIgnoresOutputJarContents() throws Exception {
+        File stateDirectory = tmpDir.newFolder("state");
+        File outputJar = new File(tmpDir.getRoot(), "classes.jar");
+        AtomicInteger compilations = new AtomicInteger();
+        testMojo = new TestMojo() {
+            @Override
+            protected File getStateDirectory() {
+                return stateDirectory;
+            }
+
+            @Override
+            protected File getOutputJar() {
+                return outputJar;
+            }
+
+            @Override
+            protected void performInProcessCompilation(GroovyCompileConfiguration configuration, List<?> classpath) {
+                // a jar that differs every time, like one with timestamps
+                try {
+                    Files.write(outputJar.toPath(), String.valueOf(System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+                    new CompileState(stateDirectory).writeOutputs(Collections.singletonList(outputJar));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                compilations.incrementAndGet();
+            }
+        };
+        Log log = mock(Log.class);
+        testMojo.setLog(log);
+        testMojo.upToDateCheck = true;
+        testMojo.toolchainManager = mock(ToolchainManager.class);
+        Set<File> sources = Collections.singleton(tmpDir.newFile("Foo.groovy"));
+
+        testMojo.doCompile(sources, Collections.emptyList(), tmpDir.newFolder("classes"));
+        testMojo.doCompile(sources, Collections.emptyList(), new File(tmpDir.getRoot(), "classes"));
+
+        assertEquals(1, compilations.get());
+        verify(log).info("Nothing to compile - all classes are up to date.");
+    }
+
+    @Test
+    public void testFingerprintDependsOnToolchain() throws Exception {
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.singleton(tmpDir.newFile("Foo.groovy")), Collections.emptyList(), tmpDir.newFolder("classes"));
+        testMojo.setLog(mock(Log.class));
+        testMojo.toolchainManager = mock(ToolchainManager.class);
+        String inProcess = testMojo.fingerprint(configuration);
+        Toolchain toolchain = mock(Toolchain.class);
+        doReturn("/some/jdk/bin/java").when(toolchain).findTool("java");
+        doReturn(toolchain).when(testMojo.toolchainManager).getToolchainFromBuildContext("jdk", null);
+        String forked = testMojo.fingerprint(configuration);
+        doReturn("/some/other/jdk/bin/java").when(toolchain).findTool("java");
+
+        assertNotEquals(inProcess, forked);
+        assertNotEquals(forked, testMojo.fingerprint(configuration));
+    }
+
     protected static class TestMojo extends AbstractCompileMojo {
         protected TestMojo() {
             this(GROOVY_1_5_0.toString(), false);
@@ -1,13 +1,21 @@
 package org.codehaus.gmavenplus.mojo;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 import org.codehaus.gmavenplus.model.internal.Version;
+import org.codehaus.plexus.component.repository.ComponentDependency;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 
 import static org.junit.Assert.*;
@@ -151,6 +159,35 @@ public class AbstractGroovyMojoTest {
         assertEquals("21", testMojo.resolveTargetBytecode(null));
     }
 
+    @Test
+    public void testForkClasspathLeavesOutPluginDependencies() throws Exception {
+        File pluginJar = new File("gmavenplus-plugin.jar");
+        File archiverJar = new File("maven-archiver.jar");
+        File groovyJar = new File("groovy.jar");
+        testMojo.pluginDescriptor = mock(PluginDescriptor.class);
+        doReturn(artifact("org.codehaus.gmavenplus", "gmavenplus-plugin", pluginJar)).when(testMojo.pluginDescriptor).getPluginArtifact();
+        ComponentDependency archiver = new ComponentDependency();
+        archiver.setGroupId("org.apache.maven");
+        archiver.setArtifactId("maven-archiver");
+        doReturn(Collections.singletonList(archiver)).when(testMojo.pluginDescriptor).getDependencies();
+        doReturn(Arrays.asList(artifact("org.apache.maven", "maven-archiver", archiverJar), artifact("org.apache.groovy", "groovy", groovyJar))).when(testMojo.pluginDescriptor).getArtifacts();
+
+        List<File> classpath = testMojo.forkClasspath();
+
+        assertEquals(pluginJar.getAbsoluteFile(), classpath.get(0));
+        assertTrue(classpath.contains(new File(Log.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsoluteFile()));
+        assertTrue(classpath.contains(groovyJar.getAbsoluteFile()));
+        assertFalse(classpath.contains(archiverJar.getAbsoluteFile()));
+    }
+
+    private static Artifact artifact(String groupId, String artifactId, File file) {
+        Artifact artifact = mock(Artifact.class);
+        doReturn(groupId).when(artifact).getGroupId();
+        doReturn(artifactId).when(artifact).getArtifactId();
+        doReturn(file).when(artifact).getFile();
+        return artifact;
+    }
+
     private static boolean isMojoParameter(Class<?> mojoClass, String fieldName) {
         try {
             Field field = mojoClass.getDeclaredField(fieldName);
@@ -3,6 +3,7 @@ package org.codehaus.gmavenplus.mojo;
 import org.apache.maven.artifact.DependencyResolutionRequiredException;
 import org.apache.maven.model.Build;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.shared.model.fileset.FileSet;
 import org.apache.maven.toolchain.ToolchainManager;
@@ -26,6 +27,7 @@ import java.util.TreeSet;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 
@@ -60,6 +62,17 @@ public class CompileMojoTest {
         verify(compileMojo, never()).logPluginClasspath();
     }
 
+    @Test
+    public void testOutputJarIsWarnedAboutAndShared() throws Exception {
+        Log log = mock(Log.class);
+        doReturn(log).when(compileMojo).getLog();
+        doNothing().when(compileMojo).doCompile(anySet(), anyList(), any(File.class));
+        compileMojo.outputJar = new File("groovy-classes.jar");
+        compileMojo.execute();
+        verify(log).warn(startsWith("Compiling into groovy-classes.jar"));
+        verify(compileMojo.project).setContextValue(CompileMojo.OUTPUT_JAR_CONTEXT_KEY, compileMojo.outputJar);
+    }
+
     @Test(expected = MojoExecutionException.class)
     public void testClassNotFoundExceptionThrowsMojoExecutionException() throws Exception {
         doThrow(new ClassNotFoundException(INTENTIONAL_EXCEPTION_MESSAGE)).when(compileMojo).doCompile(anySet(), anyList(), any(File.class));
@@ -15,6 +15,8 @@ import org.mockito.Spy;
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -53,6 +55,16 @@ public class CompileTestsMojoTest {
         verify(compileTestsMojo, times(1)).doCompile(anySet(), anyList(), any(File.class));
     }
 
+    @Test
+    public void testMainOutputJarIsOnClasspath() throws Exception {
+        File mainOutputJar = new File("groovy-classes.jar");
+        doReturn(Collections.singletonList("classes")).when(compileTestsMojo.project).getTestClasspathElements();
+        doReturn(mainOutputJar).when(compileTestsMojo.project).getContextValue(CompileMojo.OUTPUT_JAR_CONTEXT_KEY);
+        doNothing().when(compileTestsMojo).doCompile(anySet(), anyList(), any(File.class));
+        compileTestsMojo.execute();
+        verify(compileTestsMojo).doCompile(anySet(), eq(Arrays.asList("classes", mainOutputJar.getAbsolutePath())), any(File.class));
+    }
+
     @Test
     public void testSkipped() throws Exception {
         compileTestsMojo.skipTests = true;
@@ -3,6 +3,7 @@ package org.codehaus.gmavenplus.mojo;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.descriptor.MojoDescriptor;
 import org.apache.maven.project.MavenProject;
+import org.codehaus.gmavenplus.model.IncludeClasspath;
 import org.codehaus.gmavenplus.model.internal.Version;
 import org.codehaus.gmavenplus.util.ClassWrangler;
 import org.codehaus.gmavenplus.util.FileUtils;
@@ -15,9 +16,12 @@ import org.mockito.MockitoAnnotations;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -104,6 +108,22 @@ public class ExecuteMojoTest {
         assertEquals(line, actualLine);
     }
 
+    @Test
+    public void testScriptClassLoaderIsLeftOpen() throws Exception {
+        File classes = tmpDir.newFolder();
+        new File(classes, "marker.txt").createNewFile();
+        File groovyJar = new File(groovy.lang.GroovyObject.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        doReturn(Arrays.asList(groovyJar.getAbsolutePath(), classes.getAbsolutePath())).when(executeMojo.project).getTestClasspathElements();
+        executeMojo.includeClasspath = IncludeClasspath.PROJECT_ONLY;
+        executeMojo.scripts = new String[]{"assert Thread.currentThread().contextClassLoader.getResource('marker.txt')"};
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        executeMojo.execute();
+
+        assertSame(contextClassLoader, Thread.currentThread().getContextClassLoader());
+        assertNotNull(executeMojo.classWrangler.getClassLoader().getResource("marker.txt"));
+    }
+
     @Test
     public void testGroovyVersionSupportsActionTrue() {
         executeMojo.classWrangler = mock(ClassWrangler.class);
@@ -0,0 +1,127 @@
+package org.codehaus.gmavenplus.mojo;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Test;
+
+import java.io.Closeable;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the SessionResources class.
+ *
+ * @author Keegan Witt
+ */
+public class SessionResourcesTest {
+
+    @Test
+    public void testNoSessionHasNoResources() {
+        assertNull(SessionResources.forSession(null, mock(Log.class)));
+    }
+
+    @Test
+    public void testResourcesAreSharedAndClosedAtSessionEnd() throws Exception {
+        ExecutionListener originalListener = mock(ExecutionListener.class);
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setExecutionListener(originalListener);
+        MavenSession session = mock(MavenSession.class);
+        doReturn(request).when(session).getRequest();
+        Closeable resource = mock(Closeable.class);
+
+        SessionResources sessionResources = SessionResources.forSession(session, mock(Log.class));
+        assertSame(sessionResources, SessionResources.forSession(session, mock(Log.class)));
+        assertSame(resource, sessionResources.get("key", Closeable.class, () -> resource));
+        assertSame(resource, sessionResources.get("key", Closeable.class, () -> mock(Closeable.class)));
+
+        ExecutionEvent event = mock(ExecutionEvent.class);
+        doReturn(session).when(event).getSession();
+        request.getExecutionListener().sessionEnded(event);
+
+        verify(resource).close();
+        verify(originalListener).sessionEnded(event);
+    }
+
+    @Test
+    public void testParticipantClosesResourcesWithoutTouchingListener() throws Exception {
+        ExecutionListener originalListener = mock(ExecutionListener.class);
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setExecutionListener(originalListener);
+        MavenSession session = mock(MavenSession.class);
+        doReturn(request).when(session).getRequest();
+        Closeable resource = mock(Closeable.class);
+        SessionEndParticipant participant = new SessionEndParticipant();
+
+        participant.afterProjectsRead(session);
+        SessionResources.forSession(session, mock(Log.class)).get("key", Closeable.class, () -> resource);
+        assertSame(originalListener, request.getExecutionListener());
+        participant.afterSessionEnd(session);
+
+        verify(resource).close();
+    }
+
+    @Test
+    public void testResourcesAreClosedThroughReplacedListener() throws Exception {
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        MavenSession session = mock(MavenSession.class);
+        doReturn(request).when(session).getRequest();
+        Closeable resource = mock(Closeable.class);
+
+        SessionResources sessionResources = SessionResources.forSession(session, mock(Log.class));
+        sessionResources.get("key", Closeable.class, () -> resource);
+        // another extension replaces the listener with its own, forwarding to the one it replaced
+        ExecutionListener ours = request.getExecutionListener();
+        ExecutionListener replacement = mock(ExecutionListener.class);
+        doAnswer(invocation -> {
+            ours.sessionEnded(invocation.getArgument(0));
+            return null;
+        }).when(replacement).sessionEnded(any(ExecutionEvent.class));
+        request.setExecutionListener(replacement);
+        assertSame(sessionResources, SessionResources.forSession(session, mock(Log.class)));
+        assertSame(replacement, request.getExecutionListener());
+
+        request.getExecutionListener().sessionEnded(mock(ExecutionEvent.class));
+
+        verify(resource).close();
+    }
+
+    @Test
+    public void testClonedSessionsShareResources() throws Exception {
+        ExecutionListener originalListener = mock(ExecutionListener.class);
+        MavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setExecutionListener(originalListener);
+        MavenSession session = mock(MavenSession.class);
+        doReturn(request).when(session).getRequest();
+        // parallel builds give each project a clone of the session, which shares the request
+        MavenSession clonedSession = mock(MavenSession.class);
+        doReturn(request).when(clonedSession).getRequest();
+        Closeable resource = mock(Closeable.class);
+
+        SessionResources sessionResources = SessionResources.forSession(session, mock(Log.class));
+        ExecutionListener listener = request.getExecutionListener();
+        assertSame(sessionResources, SessionResources.forSession(clonedSession, mock(Log.class)));
+        assertSame(listener, request.getExecutionListener());
+        sessionResources.get("key", Closeable.class, () -> resource);
+
+        ExecutionEvent event = mock(ExecutionEvent.class);
+        doReturn(clonedSession).when(event).getSession();
+        request.getExecutionListener().sessionEnded(event);
+
+        verify(resource).close();
+        verify(originalListener).sessionEnded(event);
+        assertNotSame(sessionResources, SessionResources.forSession(session, mock(Log.class)));
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the BuildCache class.
+ *
+ * @author Keegan Witt
+ */
+public class BuildCacheTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testMissReturnsNull() throws Exception {
+        BuildCache cache = new BuildCache(new DirectoryBuildCacheBackend(tmpDir.newFolder("cache")), mock(Log.class));
+        assertNull(cache.restore("abcdef", tmpDir.newFolder("classes")));
+    }
+
+    @Test
+    public void testStoreAndRestore() throws Exception {
+        File classes = tmpDir.newFolder("classes");
+        File foo = write(new File(classes, "pkg/Foo.class"), "foo");
+        File bar = write(new File(classes, "Bar.class"), "bar");
+        BuildCache cache = new BuildCache(new DirectoryBuildCacheBackend(tmpDir.newFolder("cache")), mock(Log.class));
+        cache.store("abcdef", classes, Arrays.asList(foo, bar));
+
+        File restoredClasses = tmpDir.newFolder("restored");
+        List<File> restored = cache.restore("abcdef", restoredClasses);
+        assertEquals(2, restored.size());
+        assertEquals("foo", read(new File(restoredClasses, "pkg/Foo.class")));
+        assertEquals("bar", read(new File(restoredClasses, "Bar.class")));
+    }
+
+    @Test
+    public void testEntriesOutsideOutputDirectoryAreRejected() throws Exception {
+        File cacheDirectory = tmpDir.newFolder("cache");
+        Path entry = new File(new File(cacheDirectory, "ab"), "abcdef.zip").toPath();
+        Files.createDirectories(entry.getParent());
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(entry))) {
+            out.putNextEntry(new ZipEntry("../Evil.class"));
+            out.write(1);
+            out.closeEntry();
+        }
+        Log log = mock(Log.class);
+        BuildCache cache = new BuildCache(new DirectoryBuildCacheBackend(cacheDirectory), log);
+        assertNull(cache.restore("abcdef", tmpDir.newFolder("classes")));
+        assertFalse(new File(tmpDir.getRoot(), "Evil.class").exists());
+        verify(log).warn(anyString(), any(IOException.class));
+    }
+
+    @Test
+    public void testBackendFailureIsAMiss() throws Exception {
+        BuildCacheBackend backend = new BuildCacheBackend() {
+            @Override
+            public boolean get(String key, Path target) throws IOException {
+                throw new IOException("unavailable");
+            }
+
+            @Override
+            public void put(String key, Path source) throws IOException {
+                throw new IOException("unavailable");
+            }
+        };
+        File classes = tmpDir.newFolder("classes");
+        BuildCache cache = new BuildCache(backend, mock(Log.class));
+        cache.store("abcdef", classes, Collections.singletonList(write(new File(classes, "Foo.class"), "foo")));
+        assertNull(cache.restore("abcdef", classes));
+    }
+
+    @Test
+    public void testChangedFiles() throws Exception {
+        File classes = tmpDir.newFolder("classes");
+        File unchanged = write(new File(classes, "Unchanged.class"), "unchanged");
+        unchanged.setLastModified(1000000L);
+        File changed = write(new File(classes, "Changed.class"), "before");
+        changed.setLastModified(1000000L);
+        Map<File, String> snapshot = BuildCache.snapshot(classes);
+
+        long start = System.currentTimeMillis();
+        write(changed, "after");
+        changed.setLastModified(2000000L);
+        File created = write(new File(classes, "pkg/Created.class"), "created");
+        List<File> changedFiles = BuildCache.changedFiles(classes, snapshot, start);
+        assertEquals(2, changedFiles.size());
+        assertTrue(changedFiles.contains(changed));
+        assertTrue(changedFiles.contains(created));
+    }
+
+    private static File write(File file, String contents) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.codehaus.gmavenplus.util;
+
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+
+/**
+ * Unit tests for the ClassAbi and AbiSnapshot classes.
+ *
+ * @author Keegan Witt
+ */
+public class ClassAbiTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testMethodBodiesAreNotPartOfAbi() throws Exception {
+        assertEquals(abi("class Foo { int bar() { 1 } }", "Foo"), abi("class Foo { int bar() { def x = 2; x * 3 } }", "Foo"));
+    }
+
+    @Test
+    public void testPrivateMembersAreNotPartOfAbi() throws Exception {
+        assertEquals(abi("class Foo { int bar() { 1 } }", "Foo"), abi("class Foo { private int baz; int bar() { 1 }; private void qux() {} }", "Foo"));
+    }
+
+    @Test
+    public void testMemberOrderIsNotPartOfAbi() throws Exception {
+        assertEquals(abi("class Foo { void a() {}; void b() {} }", "Foo"), abi("class Foo { void b() {}; void a() {} }", "Foo"));
+    }
+
+    @Test
+    public void testSignaturesArePartOfAbi() throws Exception {
+        assertNotEquals(abi("class Foo { int bar() { 1 } }", "Foo"), abi("class Foo { long bar() { 1 } }", "Foo"));
+        assertNotEquals(abi("class Foo { List<String> bar() { null } }", "Foo"), abi("class Foo { List<Integer> bar() { null } }", "Foo"));
+        assertNotEquals(abi("class Foo { protected void bar() {} }", "Foo"), abi("class Foo { public void bar() {} }", "Foo"));
+    }
+
+    @Test
+    public void testConstantsArePartOfAbi() throws Exception {
+        assertNotEquals(abi("class Foo { public static final int BAR = 1 }", "Foo"), abi("class Foo { public static final int BAR = 2 }", "Foo"));
+    }
+
+    @Test
+    public void testAnnotationsArePartOfAbi() throws Exception {
+        assertNotEquals(abi("class Foo { @Deprecated void bar() {} }", "Foo"), abi("class Foo { void bar() {} }", "Foo"));
+        assertNotEquals(abi("@interface Foo { String value() default 'a' }", "Foo"), abi("@interface Foo { String value() default 'b' }", "Foo"));
+    }
+
+    @Test
+    public void testClosuresAreNotPartOfAbi() throws Exception {
+        Map<String, byte[]> classes = compile("class Foo { def bar() { [1, 2].collect { it * 2 } } }");
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            if (entry.getKey().equals("Foo")) {
+                assertNotNull(ClassAbi.read(entry.getValue()));
+            } else {
+                assertNull(entry.getKey(), ClassAbi.read(entry.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void testJarDigestIgnoresMethodBodies() throws Exception {
+        AbiSnapshot abiSnapshot = new AbiSnapshot(tmpDir.newFolder("cache"));
+        File first = jar("first.jar", compile("class Foo { int bar() { 1 } }"));
+        File second = jar("second.jar", compile("class Foo { int bar() { 2 } }"));
+        File third = jar("third.jar", compile("class Foo { int bar(int x) { x } }"));
+        assertEquals(abiSnapshot.digest(first), abiSnapshot.digest(second));
+        assertNotEquals(abiSnapshot.digest(first), abiSnapshot.digest(third));
+    }
+
+    @Test
+    public void testJarsWithAstTransformationsUseFullContents() throws Exception {
+        String transformation = "import org.codehaus.groovy.transform.*\n"
+                + "import org.codehaus.groovy.control.*\n"
+                + "import org.codehaus.groovy.ast.*\n"
+                + "@GroovyASTTransformation(phase = CompilePhase.SEMANTIC_ANALYSIS)\n"
+                + "class Transformation implements ASTTransformation { void visit(ASTNode[] nodes, SourceUnit source) { %s } }";
+        AbiSnapshot abiSnapshot = new AbiSnapshot(null);
+        File first = jar("first.jar", compile(String.format(transformation, "")));
+        File second = jar("second.jar", compile(String.format(transformation, "println nodes")));
+        assertNotEquals(abiSnapshot.digest(first), abiSnapshot.digest(second));
+    }
+
+    private static String abi(String source, String className) throws Exception {
+        return ClassAbi.read(compile(source).get(className));
+    }
+
+    private static Map<String, byte[]> compile(String source) {
+        CompilationUnit compilationUnit = new CompilationUnit();
+        compilationUnit.addSource("Source.groovy", source);
+        compilationUnit.compile(Phases.CLASS_GENERATION);
+        Map<String, byte[]> classes = new HashMap<>();
+        for (GroovyClass groovyClass : compilationUnit.getClasses()) {
+            classes.put(groovyClass.getName(), groovyClass.getBytes());
+        }
+        return classes;
+    }
+
+    private File jar(String name, Map<String, byte[]> classes) throws Exception {
+        File jar = new File(tmpDir.getRoot(), name);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar.toPath()))) {
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey().replace('.', '/') + ".class"));
+                out.write(entry.getValue());
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the ClassDataSharing class.
+ *
+ * @author Keegan Witt
+ */
+public class ClassDataSharingTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testParseJavaVersion() {
+        assertEquals("8", ClassDataSharing.parseJavaVersion("openjdk version \"1.8.0_392\"\nOpenJDK Runtime Environment"));
+        assertEquals("17", ClassDataSharing.parseJavaVersion("openjdk version \"17.0.9\" 2023-10-17"));
+        assertEquals("21", ClassDataSharing.parseJavaVersion("java version \"21-ea\""));
+        assertNull(ClassDataSharing.parseJavaVersion("Error: could not find libjava.so"));
+    }
+
+    @Test
+    public void testOldJavaGetsNoOptions() {
+        ClassDataSharing classDataSharing = new ClassDataSharing(tmpDir.getRoot(), "java", "some.jar", mock(Log.class)) {
+            @Override
+            protected String javaVersion(String javaExecutable) {
+                return "11";
+            }
+        };
+        assertTrue(classDataSharing.jvmOptions().isEmpty());
+    }
+
+    @Test
+    public void testArchiveIsCreatedThenUsed() throws Exception {
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+        String classpath = jarOf(Test.class) + File.pathSeparator + jarOf(org.hamcrest.Matcher.class);
+        File cacheDirectory = new File(tmpDir.getRoot(), "cds");
+
+        ClassDataSharing first = new ClassDataSharing(cacheDirectory, java, classpath, mock(Log.class));
+        List<String> options = first.jvmOptions();
+        Assume.assumeFalse("Java 13 or newer is needed to create archives.", options.isEmpty());
+        assertTrue(options.get(0).startsWith("-XX:ArchiveClassesAtExit="));
+        first.forkExited(run(java, options, classpath));
+        File[] archives = cacheDirectory.listFiles();
+        assertEquals(1, archives.length);
+        assertTrue(archives[0].getName().endsWith(".jsa"));
+
+        ClassDataSharing second = new ClassDataSharing(cacheDirectory, java, classpath, mock(Log.class));
+        options = second.jvmOptions();
+        assertEquals("-XX:SharedArchiveFile=" + archives[0].getAbsolutePath(), options.get(0));
+        second.forkExited(run(java, options, classpath));
+        assertEquals(1, cacheDirectory.listFiles().length);
+    }
+
+    private static String jarOf(Class<?> clazz) throws Exception {
+        return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+    }
+
+    private int run(String java, List<String> options, String classpath) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(options);
+        command.add("-cp");
+        command.add(classpath);
+        command.add("org.junit.runner.JUnitCore");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(tmpDir.newFile()).start();
+        return process.waitFor();
+    }
+
+}
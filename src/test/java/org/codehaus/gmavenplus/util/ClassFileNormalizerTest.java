@@ -0,0 +1,115 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the ClassFileNormalizer class.
+ *
+ * @author Keegan Witt
+ */
+public class ClassFileNormalizerTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+
+    @Before
+    public void setup() {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testTimestampsAreZeroed() throws Exception {
+        String source = "class Foo { public static long __timeStamp = %dL; public static long __timeStamp__239_neverHappen%d = 0L; long bar = %dL }";
+        byte[] first = compile(String.format(source, 1600000000000L, 1600000000001L, 1600000000000L + 20000));
+        byte[] second = compile(String.format(source, 1700000000000L, 1700000000000L, 1700000000000L + 20000));
+        assertFalse(Arrays.equals(ClassFileNormalizer.normalize(first), ClassFileNormalizer.normalize(second)));
+
+        byte[] third = compile(String.format(source, 1600000000005L, 1600000000006L, 1600000000000L + 20000));
+        assertArrayEquals(ClassFileNormalizer.normalize(first), ClassFileNormalizer.normalize(third));
+    }
+
+    @Test
+    public void testClassesWithoutTimestampsAreUnchanged() throws Exception {
+        byte[] classFile = compile("class Foo { long bar = 1600000000000L }");
+        assertSame(classFile, ClassFileNormalizer.normalize(classFile));
+    }
+
+    @Test
+    public void testCompilingTwiceIsReproducible() throws Exception {
+        List<File> sources = new ArrayList<>();
+        for (String name : Arrays.asList("A", "B", "C")) {
+            File source = tmpDir.newFile(name + ".groovy");
+            Files.write(source.toPath(), ("class " + name + " { def run() { [1, 2].collect { it }.each { println it }; new Runnable() { void run() {} } } }").getBytes(StandardCharsets.UTF_8));
+            sources.add(source);
+        }
+        File first = compileDeterministic(new LinkedHashSet<>(sources), tmpDir.newFolder("first"));
+        Collections.reverse(sources);
+        File second = compileDeterministic(new LinkedHashSet<>(sources), tmpDir.newFolder("second"));
+
+        String[] classes = first.list();
+        Arrays.sort(classes);
+        String[] secondClasses = second.list();
+        Arrays.sort(secondClasses);
+        assertArrayEquals(classes, secondClasses);
+        assertEquals(12, classes.length);
+        for (String name : classes) {
+            assertArrayEquals(name, Files.readAllBytes(new File(first, name).toPath()), Files.readAllBytes(new File(second, name).toPath()));
+        }
+    }
+
+    private File compileDeterministic(Set<File> sources, File outputDirectory) throws Exception {
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(sources, emptyList(), outputDirectory);
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setDeterministic(true);
+        new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), mock(Log.class)).compile(configuration);
+        return outputDirectory;
+    }
+
+    private static byte[] compile(String source) {
+        CompilationUnit compilationUnit = new CompilationUnit();
+        compilationUnit.addSource("Source.groovy", source);
+        compilationUnit.compile(Phases.CLASS_GENERATION);
+        for (GroovyClass groovyClass : compilationUnit.getClasses()) {
+            if (groovyClass.getName().equals("Foo")) {
+                return groovyClass.getBytes();
+            }
+        }
+        throw new AssertionError("Foo wasn't compiled.");
+    }
+
+}
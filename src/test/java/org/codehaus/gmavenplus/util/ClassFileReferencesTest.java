@@ -0,0 +1,45 @@
+package org.codehaus.gmavenplus.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Set;
+
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Unit tests for the ClassFileReferences class.
+ *
+ * @author Keegan Witt
+ */
+public class ClassFileReferencesTest {
+
+    @Test
+    public void testReadsClassAndSignatureReferences() throws Exception {
+        Set<String> references = ClassFileReferences.read(bytesOf(Fingerprint.class));
+        assertTrue(references.contains("java.security.MessageDigest"));
+        assertTrue(references.contains("java.io.File"));
+        assertTrue(references.contains("java.util.Collection"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsNonClassFile() throws Exception {
+        ClassFileReferences.read(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+    }
+
+    private static byte[] bytesOf(Class<?> clazz) throws IOException {
+        try (InputStream in = clazz.getResourceAsStream(clazz.getSimpleName() + ".class")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+}
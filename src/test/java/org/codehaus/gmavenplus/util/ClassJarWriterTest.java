@@ -0,0 +1,148 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the ClassJarWriter class.
+ *
+ * @author Keegan Witt
+ */
+public class ClassJarWriterTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+
+    @Before
+    public void setup() {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testWritesSortedEntries() throws Exception {
+        File jar = new File(tmpDir.getRoot(), "out/classes.jar");
+        Map<String, byte[]> classes = new HashMap<>();
+        classes.put("pkg.sub.Foo", new byte[]{1, 2, 3});
+        classes.put("Bar", new byte[]{4});
+        new ClassJarWriter(jar).write(classes);
+
+        List<String> names = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            for (JarEntry entry : Collections.list(jarFile.entries())) {
+                names.add(entry.getName());
+            }
+            assertArrayEquals(new byte[]{1, 2, 3}, readAll(jarFile, "pkg/sub/Foo.class"));
+            assertEquals("1.0", jarFile.getManifest().getMainAttributes().getValue("Manifest-Version"));
+        }
+        assertEquals(Arrays.asList("META-INF/", "META-INF/MANIFEST.MF", "Bar.class", "pkg/", "pkg/sub/", "pkg/sub/Foo.class"), names);
+        assertEquals(0, tmpDir.getRoot().toPath().resolve("out").toFile().list((dir, name) -> name.endsWith(".tmp")).length);
+    }
+
+    @Test
+    public void testJarIsTheSameInEveryTimeZone() throws Exception {
+        TimeZone originalTimeZone = TimeZone.getDefault();
+        String originalTimeZoneProperty = System.getProperty("user.timezone");
+        File utcJar = new File(tmpDir.getRoot(), "utc/classes.jar");
+        File kiritimatiJar = new File(tmpDir.getRoot(), "kiritimati/classes.jar");
+        try {
+            System.setProperty("user.timezone", "UTC");
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            new ClassJarWriter(utcJar).write(Collections.singletonMap("pkg.Foo", new byte[]{1}));
+            System.setProperty("user.timezone", "Pacific/Kiritimati");
+            TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati"));
+            new ClassJarWriter(kiritimatiJar).write(Collections.singletonMap("pkg.Foo", new byte[]{1}));
+        } finally {
+            TimeZone.setDefault(originalTimeZone);
+            if (originalTimeZoneProperty != null) {
+                System.setProperty("user.timezone", originalTimeZoneProperty);
+            } else {
+                System.clearProperty("user.timezone");
+            }
+        }
+
+        assertArrayEquals(Files.readAllBytes(utcJar.toPath()), Files.readAllBytes(kiritimatiJar.toPath()));
+    }
+
+    @Test
+    public void testUnchangedJarIsNotRewritten() throws Exception {
+        File jar = tmpDir.newFile("classes.jar");
+        ClassJarWriter writer = new ClassJarWriter(jar);
+        writer.write(Collections.singletonMap("Foo", new byte[]{1}));
+        assertFalse(writer.isUnchanged());
+        assertTrue(jar.setLastModified(1000000L));
+
+        writer.write(Collections.singletonMap("Foo", new byte[]{1}));
+        assertTrue(writer.isUnchanged());
+        assertEquals(1000000L, jar.lastModified());
+
+        writer.write(Collections.singletonMap("Foo", new byte[]{2}));
+        assertFalse(writer.isUnchanged());
+        try (JarFile jarFile = new JarFile(jar)) {
+            assertArrayEquals(new byte[]{2}, readAll(jarFile, "Foo.class"));
+        }
+    }
+
+    @Test
+    public void testCompilesIntoJar() throws Exception {
+        File source = tmpDir.newFile("Foo.groovy");
+        Files.write(source.toPath(), "package pkg\nclass Foo { def bar() { [1].collect { it + 1 } } }".getBytes(StandardCharsets.UTF_8));
+        File classes = tmpDir.newFolder("classes");
+        File jar = new File(tmpDir.getRoot(), "classes.jar");
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.singleton(source), emptyList(), classes);
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setOutputJar(jar);
+        configuration.setStateDirectory(tmpDir.newFolder("state"));
+        new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), mock(Log.class)).compile(configuration);
+
+        assertEquals(0, classes.list().length);
+        assertEquals(Collections.singletonList(jar), new CompileState(configuration.getStateDirectory()).readOutputs());
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, getClass().getClassLoader())) {
+            Object foo = classLoader.loadClass("pkg.Foo").getConstructor().newInstance();
+            assertEquals(Collections.singletonList(2), foo.getClass().getMethod("bar").invoke(foo));
+        }
+    }
+
+    private static byte[] readAll(JarFile jarFile, String name) throws Exception {
+        byte[] bytes = new byte[(int) jarFile.getEntry(name).getSize()];
+        new DataInputStream(jarFile.getInputStream(jarFile.getEntry(name))).readFully(bytes);
+        return bytes;
+    }
+
+}
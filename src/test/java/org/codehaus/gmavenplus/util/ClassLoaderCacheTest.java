@@ -0,0 +1,84 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the ClassLoaderCache class.
+ *
+ * @author Keegan Witt
+ */
+public class ClassLoaderCacheTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testSameJarsShareClassLoader() throws Exception {
+        File jar = tmpDir.newFile("groovy-4.0.0.jar");
+        ClassLoaderCache cache = new ClassLoaderCache(mock(Log.class));
+        ClassLoader first = cache.acquire(Collections.singletonList(jar), null);
+        cache.release(first);
+        ClassLoader second = cache.acquire(Collections.singletonList(jar), null);
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testDifferentJarsGetDifferentClassLoaders() throws Exception {
+        ClassLoaderCache cache = new ClassLoaderCache(mock(Log.class));
+        ClassLoader first = cache.acquire(Collections.singletonList(tmpDir.newFile("groovy-3.0.0.jar")), null);
+        ClassLoader second = cache.acquire(Collections.singletonList(tmpDir.newFile("groovy-4.0.0.jar")), null);
+        assertNotSame(first, second);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testDifferentParentsGetDifferentClassLoaders() throws Exception {
+        File jar = tmpDir.newFile("groovy-4.0.0.jar");
+        ClassLoaderCache cache = new ClassLoaderCache(mock(Log.class));
+        ClassLoader firstParent = new URLClassLoader(new URL[0], null);
+        ClassLoader secondParent = new URLClassLoader(new URL[0], null);
+        ClassLoader first = cache.acquire(Collections.singletonList(jar), firstParent);
+        ClassLoader second = cache.acquire(Collections.singletonList(jar), secondParent);
+        assertSame(firstParent, first.getParent());
+        assertSame(secondParent, second.getParent());
+        assertSame(first, cache.acquire(Collections.singletonList(jar), firstParent));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testUnusedClassLoadersAreEvicted() throws Exception {
+        ClassLoaderCache cache = new ClassLoaderCache(mock(Log.class));
+        for (int i = 0; i < ClassLoaderCache.MAX_UNUSED_LOADERS + 2; i++) {
+            cache.release(cache.acquire(Collections.singletonList(tmpDir.newFile("groovy-" + i + ".0.0.jar")), null));
+        }
+        assertEquals(ClassLoaderCache.MAX_UNUSED_LOADERS, cache.size());
+        cache.close();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testIsShareable() throws Exception {
+        assertTrue(ClassLoaderCache.isShareable(tmpDir.newFile("groovy-4.0.27.jar")));
+        assertTrue(ClassLoaderCache.isShareable(tmpDir.newFile("groovy-all-2.4.21-indy.jar")));
+        assertFalse(ClassLoaderCache.isShareable(tmpDir.newFile("groovy-json-4.0.27.jar")));
+        assertFalse(ClassLoaderCache.isShareable(new File(tmpDir.getRoot(), "groovy-5.0.0.jar")));
+    }
+
+}
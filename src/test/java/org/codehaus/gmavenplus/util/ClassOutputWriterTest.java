@@ -0,0 +1,109 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the ClassOutputWriter class.
+ *
+ * @author Keegan Witt
+ */
+public class ClassOutputWriterTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+
+    @Before
+    public void setup() {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testUnchangedClassesAreNotRewritten() throws Exception {
+        File classes = tmpDir.newFolder("classes");
+        File state = new File(tmpDir.getRoot(), "state");
+        Map<String, byte[]> compiled = new LinkedHashMap<>();
+        compiled.put("pkg.Foo", new byte[]{1, 2, 3});
+        compiled.put("Bar", new byte[]{4, 5});
+        ClassOutputWriter writer = new ClassOutputWriter(classes, state, mock(Log.class));
+        writer.write(compiled);
+        assertEquals(2, writer.getWrittenCount());
+        File foo = new File(classes, "pkg/Foo.class");
+        File bar = new File(classes, "Bar.class");
+        assertTrue(foo.setLastModified(1000000L));
+        assertTrue(bar.setLastModified(1000000L));
+
+        compiled.put("Bar", new byte[]{4, 6});
+        writer = new ClassOutputWriter(classes, state, mock(Log.class));
+        writer.write(compiled);
+        assertEquals(1, writer.getWrittenCount());
+        assertEquals(1, writer.getUnchangedCount());
+        assertEquals(1000000L, foo.lastModified());
+        assertArrayEquals(new byte[]{4, 6}, Files.readAllBytes(bar.toPath()));
+    }
+
+    @Test
+    public void testClassesAreComparedWithoutState() throws Exception {
+        File classes = tmpDir.newFolder("classes");
+        File foo = new File(classes, "Foo.class");
+        Files.write(foo.toPath(), new byte[]{1, 2, 3});
+        assertTrue(foo.setLastModified(1000000L));
+
+        ClassOutputWriter writer = new ClassOutputWriter(classes, null, mock(Log.class));
+        writer.write(Collections.singletonMap("Foo", new byte[]{1, 2, 3}));
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(1000000L, foo.lastModified());
+
+        writer.write(Collections.singletonMap("Foo", new byte[]{1, 2, 4}));
+        assertEquals(1, writer.getWrittenCount());
+        assertArrayEquals(new byte[]{1, 2, 4}, Files.readAllBytes(foo.toPath()));
+    }
+
+    @Test
+    public void testRecompilingKeepsTimestamps() throws Exception {
+        File source = tmpDir.newFile("Foo.groovy");
+        Files.write(source.toPath(), "class Foo { def bar() { [1].collect { it } } }".getBytes(StandardCharsets.UTF_8));
+        File classes = tmpDir.newFolder("classes");
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.singleton(source), emptyList(), classes);
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setStateDirectory(tmpDir.newFolder("state"));
+        new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), mock(Log.class)).compile(configuration);
+        File foo = new File(classes, "Foo.class");
+        assertTrue(foo.isFile());
+        assertTrue(foo.setLastModified(1000000L));
+
+        Log log = mock(Log.class);
+        new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), log).compile(configuration);
+        assertEquals(1000000L, foo.lastModified());
+        verify(log).info("Skipped writing 2 unchanged class files.");
+    }
+
+}
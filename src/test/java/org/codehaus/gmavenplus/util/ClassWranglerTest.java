@@ -1,10 +1,22 @@
 package org.codehaus.gmavenplus.util;
 
 import org.apache.maven.plugin.logging.Log;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
@@ -16,6 +28,9 @@ import static org.mockito.Mockito.*;
  */
 public class ClassWranglerTest {
 
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
     @Test
     public void testGetGroovyJar() throws Exception {
         ClassWrangler classWrangler = spy(new ClassWrangler(emptyList(), null, mock(Log.class)));
@@ -53,6 +68,48 @@ public class ClassWranglerTest {
         assertEquals("2.4.0", classWrangler.getGroovyVersion().toString());
     }
 
+    @Test
+    public void testGetGroovyVersionStringFromManifest() throws Exception {
+        File jar = groovyJar("Groovy: a powerful, multi-faceted language for the JVM");
+        ClassWrangler classWrangler = spy(new ClassWrangler(singletonList(jar.getAbsolutePath()), null, mock(Log.class)));
+        assertEquals("9.8.7", classWrangler.getGroovyVersionString());
+        verify(classWrangler, never()).getClass(anyString());
+        classWrangler.close();
+    }
+
+    @Test
+    public void testGetGroovyVersionStringFromReplacedManifest() throws Exception {
+        File jar = groovyJar("Groovy: a powerful, multi-faceted language for the JVM");
+        assertTrue(jar.setLastModified(1000000L));
+        try (ClassWrangler classWrangler = new ClassWrangler(singletonList(jar.getAbsolutePath()), null, mock(Log.class))) {
+            assertEquals("9.8.7", classWrangler.getGroovyVersionString());
+        }
+
+        writeGroovyJar(jar, "Groovy: a powerful, multi-faceted language for the JVM", "9.8.8");
+        assertTrue(jar.setLastModified(2000000L));
+        try (ClassWrangler classWrangler = new ClassWrangler(singletonList(jar.getAbsolutePath()), null, mock(Log.class))) {
+            assertEquals("9.8.8", classWrangler.getGroovyVersionString());
+        }
+    }
+
+    @Test
+    public void testGetGroovyVersionStringIgnoresOtherManifests() throws Exception {
+        File jar = groovyJar("Some shaded application");
+        ClassWrangler classWrangler = spy(new ClassWrangler(singletonList(jar.getAbsolutePath()), null, mock(Log.class)));
+        doThrow(new ClassNotFoundException("Throwing exception to force GMavenPlus to get version from jar.")).when(classWrangler).getClass(anyString());
+        doReturn("some/path/groovy-all-1.5.0.jar").when(classWrangler).getJarPath();
+        assertEquals("1.5.0", classWrangler.getGroovyVersionString());
+        classWrangler.close();
+    }
+
+    @Test
+    public void testGetGroovyVersionIsParsedOnce() throws Exception {
+        ClassWrangler classWrangler = spy(new ClassWrangler(emptyList(), null, mock(Log.class)));
+        doReturn("2.4.0").when(classWrangler).getGroovyVersionString();
+        assertSame(classWrangler.getGroovyVersion(), classWrangler.getGroovyVersion());
+        verify(classWrangler, times(1)).getGroovyVersionString();
+    }
+
     @Test
     public void testGetGroovyVersionWithGrooidFromJar() throws Exception {
         ClassWrangler classWrangler = spy(new ClassWrangler(emptyList(), null, mock(Log.class)));
@@ -75,4 +132,57 @@ public class ClassWranglerTest {
         assertFalse(classWrangler.isGroovyIndy());
     }
 
+    @Test
+    public void testCloseRestoresContextClassLoader() throws Exception {
+        ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+        ClassWrangler classWrangler = new ClassWrangler(emptyList(), null, mock(Log.class));
+        assertSame(classWrangler.getClassLoader(), Thread.currentThread().getContextClassLoader());
+        classWrangler.close();
+        assertSame(originalContextClassLoader, Thread.currentThread().getContextClassLoader());
+    }
+
+    @Test
+    public void testCloseLeavesReplacedContextClassLoader() throws Exception {
+        ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+        ClassLoader otherClassLoader = new URLClassLoader(new URL[0], null);
+        try {
+            ClassWrangler classWrangler = new ClassWrangler(emptyList(), null, mock(Log.class));
+            Thread.currentThread().setContextClassLoader(otherClassLoader);
+            classWrangler.close();
+            assertSame(otherClassLoader, Thread.currentThread().getContextClassLoader());
+        } finally {
+            Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+        }
+    }
+
+    @Test
+    public void testCloseIsCountedOnce() throws Exception {
+        ClassLoader originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+        int created = ClassLoaderTracker.getCreatedCount();
+        int closed = ClassLoaderTracker.getClosedCount();
+        ClassWrangler classWrangler = new ClassWrangler(emptyList(), null, mock(Log.class));
+        classWrangler.close();
+        classWrangler.close();
+        assertEquals(created + 1, ClassLoaderTracker.getCreatedCount());
+        assertEquals(closed + 1, ClassLoaderTracker.getClosedCount());
+        assertSame(originalContextClassLoader, Thread.currentThread().getContextClassLoader());
+    }
+
+    private File groovyJar(String title) throws Exception {
+        File jar = tmpDir.newFile();
+        writeGroovyJar(jar, title, "9.8.7");
+        return jar;
+    }
+
+    private static void writeGroovyJar(File jar, String title, String version) throws Exception {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_TITLE, title);
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_VERSION, version);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar), manifest)) {
+            out.putNextEntry(new JarEntry("groovy/lang/GroovyObject.class"));
+            out.closeEntry();
+        }
+    }
+
 }
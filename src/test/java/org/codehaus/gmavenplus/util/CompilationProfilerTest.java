@@ -0,0 +1,101 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the CompilationProfiler class.
+ *
+ * @author Keegan Witt
+ */
+public class CompilationProfilerTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+
+    @Before
+    public void setup() {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testPhaseTimeIsAttributedToCompletedPhase() throws Exception {
+        CompilationProfiler profiler = new CompilationProfiler(mock(Log.class));
+        TestCompilationUnit compilationUnit = new TestCompilationUnit();
+
+        assertTrue(profiler.attach(TestCompilationUnit.class, TestProgressCallback.class, compilationUnit));
+        compilationUnit.progressCallback.call(compilationUnit, 2);
+        Thread.sleep(20);
+        compilationUnit.progressCallback.call(compilationUnit, 3);
+
+        assertTrue(profiler.getPhaseNanos(3) >= 20000000L);
+        assertTrue(profiler.getPhaseNanos(3) > profiler.getPhaseNanos(2));
+        assertEquals(0, profiler.getPhaseNanos(4));
+    }
+
+    @Test
+    public void testAbstractClassCallbackIsNotSupported() throws Exception {
+        assertFalse(new CompilationProfiler(mock(Log.class)).attach(Object.class, Number.class, new Object()));
+    }
+
+    @Test
+    public void testCompilationIsProfiled() throws Exception {
+        File source = tmpDir.newFile("A.groovy");
+        Files.write(source.toPath(), "class A { def c = { 1 } }".getBytes(StandardCharsets.UTF_8));
+        File outputDirectory = tmpDir.newFolder("classes");
+        File reportFile = new File(tmpDir.getRoot(), "reports/profile.json");
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.singleton(source), emptyList(), outputDirectory);
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setProfile(true);
+        configuration.setProfileReport(reportFile);
+        Log log = mock(Log.class);
+
+        new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), log).compile(configuration);
+
+        verify(log).info(contains("class generation"));
+        String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(report.contains("\"phase\": \"parsing\""));
+        assertTrue(report.contains("\"phase\": \"class generation\""));
+        assertTrue(report.contains("\"totalTimeMillis\""));
+    }
+
+    public interface TestProgressCallback {
+        void call(Object context, int phase);
+    }
+
+    public static class TestCompilationUnit {
+        private TestProgressCallback progressCallback;
+
+        public void setProgressCallback(TestProgressCallback progressCallback) {
+            this.progressCallback = progressCallback;
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.codehaus.gmavenplus.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Unit tests for the CompileState class.
+ *
+ * @author Keegan Witt
+ */
+public class CompileStateTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testNotUpToDateWithoutState() {
+        assertFalse(new CompileState(new File(tmpDir.getRoot(), "state")).isUpToDate("abc"));
+    }
+
+    @Test
+    public void testUpToDateWhenFingerprintMatchesAndOutputsExist() throws Exception {
+        File output = tmpDir.newFile("Foo.class");
+        CompileState state = new CompileState(new File(tmpDir.getRoot(), "state"));
+        state.writeOutputs(Collections.singletonList(output));
+        state.writeFingerprint("abc");
+        assertTrue(state.isUpToDate("abc"));
+        assertFalse(state.isUpToDate("def"));
+    }
+
+    @Test
+    public void testNotUpToDateWhenOutputIsMissing() throws Exception {
+        File output = tmpDir.newFile("Foo.class");
+        CompileState state = new CompileState(new File(tmpDir.getRoot(), "state"));
+        state.writeOutputs(Collections.singletonList(output));
+        state.writeFingerprint("abc");
+        Files.delete(output.toPath());
+        assertFalse(state.isUpToDate("abc"));
+    }
+
+    @Test
+    public void testNotUpToDateAfterClear() throws Exception {
+        CompileState state = new CompileState(new File(tmpDir.getRoot(), "state"));
+        state.writeOutputs(Collections.<File>emptyList());
+        state.writeFingerprint("abc");
+        state.clear();
+        assertFalse(state.isUpToDate("abc"));
+    }
+
+}
@@ -0,0 +1,102 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the ConfigScriptCache class.
+ *
+ * @author Keegan Witt
+ */
+public class ConfigScriptCacheTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+
+    @Before
+    public void setup() {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testCompiledConfigScriptIsCachedAndApplied() throws Exception {
+        File configScript = tmpDir.newFile("config.groovy");
+        Files.write(configScript.toPath(), ("withConfig(configuration) { ast(groovy.transform.ToString) }\n// " + System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+        File cacheDirectory = new File(tmpDir.getRoot(), "cache");
+
+        assertEquals("Foo(first)", compileAndRun(configScript, cacheDirectory, "first"));
+        String key = ConfigScriptCache.key(configScript, new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)).getGroovyVersionString());
+        assertTrue(new File(new File(cacheDirectory, key), "config.class").isFile());
+        assertEquals(1, cacheDirectory.list().length);
+
+        assertEquals("Foo(second)", compileAndRun(configScript, cacheDirectory, "second"));
+        assertEquals(1, cacheDirectory.list().length);
+    }
+
+    @Test
+    public void testConfigScriptInPackage() throws Exception {
+        File configScript = tmpDir.newFile("config.groovy");
+        Files.write(configScript.toPath(), ("package conf\nwithConfig(configuration) { ast(groovy.transform.ToString) }\n// " + System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("Foo(packaged)", compileAndRun(configScript, null, "packaged"));
+    }
+
+    @Test
+    public void testCachedScriptsAreReadFromDisk() throws Exception {
+        File cacheDirectory = tmpDir.newFolder("cache");
+        File entry = new File(cacheDirectory, "0123");
+        Files.createDirectories(entry.toPath());
+        Files.write(new File(entry, "pkg.Config.class").toPath(), new byte[]{1, 2, 3});
+        ConfigScriptCache cache = new ConfigScriptCache(cacheDirectory, mock(Log.class));
+
+        Map<String, byte[]> classes = cache.get("0123");
+        assertEquals(Collections.singleton("pkg.Config"), classes.keySet());
+        assertArrayEquals(new byte[]{1, 2, 3}, classes.get("pkg.Config"));
+        assertNull(cache.get("4567"));
+    }
+
+    private String compileAndRun(File configScript, File cacheDirectory, String value) throws Exception {
+        File source = new File(tmpDir.getRoot(), "Foo.groovy");
+        Files.write(source.toPath(), ("class Foo { String bar = '" + value + "' }").getBytes(StandardCharsets.UTF_8));
+        File outputDirectory = tmpDir.newFolder("classes-" + value);
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.singleton(source), emptyList(), outputDirectory);
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setConfigScript(configScript);
+        configuration.setConfigScriptCacheDirectory(cacheDirectory);
+        new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), mock(Log.class)).compile(configuration);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{outputDirectory.toURI().toURL()}, getClass().getClassLoader())) {
+            return classLoader.loadClass("Foo").getConstructor().newInstance().toString();
+        }
+    }
+
+}
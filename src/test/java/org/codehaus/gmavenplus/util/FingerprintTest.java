@@ -0,0 +1,115 @@
+package org.codehaus.gmavenplus.util;
+
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+
+/**
+ * Unit tests for the Fingerprint class.
+ *
+ * @author Keegan Witt
+ */
+public class FingerprintTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testSameInputsHaveSameFingerprint() throws Exception {
+        File source = write("Foo.groovy", "class Foo {}");
+        assertEquals(fingerprint(configuration(source)), fingerprint(configuration(source)));
+    }
+
+    @Test
+    public void testSourceOrderDoesNotMatter() throws Exception {
+        File foo = write("Foo.groovy", "class Foo {}");
+        File bar = write("Bar.groovy", "class Bar {}");
+        assertEquals(fingerprint(configuration(foo, bar)), fingerprint(configuration(bar, foo)));
+    }
+
+    @Test
+    public void testSourceContentChangesFingerprint() throws Exception {
+        File source = write("Foo.groovy", "class Foo {}");
+        String before = fingerprint(configuration(source));
+        write("Foo.groovy", "class Foo { int x }");
+        assertNotEquals(before, fingerprint(configuration(source)));
+    }
+
+    @Test
+    public void testConfigurationChangesFingerprint() throws Exception {
+        File source = write("Foo.groovy", "class Foo {}");
+        GroovyCompileConfiguration configuration = configuration(source);
+        String before = fingerprint(configuration);
+        configuration.setParameters(true);
+        assertNotEquals(before, fingerprint(configuration));
+    }
+
+    @Test
+    public void testClasspathDirectoryChangesFingerprint() throws Exception {
+        File classes = tmpDir.newFolder("classes");
+        String before = new Fingerprint().addClasspath(Collections.singletonList(classes), null).toHexString();
+        Files.write(new File(classes, "Foo.class").toPath(), new byte[] {1, 2, 3});
+        assertNotEquals(before, new Fingerprint().addClasspath(Collections.singletonList(classes), null).toHexString());
+    }
+
+    @Test
+    public void testExcludedDirectoryIsIgnored() throws Exception {
+        File classes = tmpDir.newFolder("classes");
+        String before = new Fingerprint().addClasspath(Collections.singletonList(classes.getAbsolutePath()), classes).toHexString();
+        Files.write(new File(classes, "Foo.class").toPath(), new byte[] {1, 2, 3});
+        assertEquals(before, new Fingerprint().addClasspath(Collections.singletonList(classes.getAbsolutePath()), classes).toHexString());
+    }
+
+    @Test
+    public void testRelativeContentsAreIndependentOfLocation() throws Exception {
+        File first = tmpDir.newFolder("first");
+        File second = tmpDir.newFolder("second");
+        Files.write(new File(first, "Foo.groovy").toPath(), "class Foo {}".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(second, "Foo.groovy").toPath(), "class Foo {}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(new Fingerprint().addRelativeContents(Collections.singletonList(new File(first, "Foo.groovy")), first).toHexString(),
+                new Fingerprint().addRelativeContents(Collections.singletonList(new File(second, "Foo.groovy")), second).toHexString());
+    }
+
+    @Test
+    public void testClasspathContentsIgnoreTimestamps() throws Exception {
+        File jar = write("lib.jar", "jar contents");
+        String before = new Fingerprint().addClasspathContents(Collections.singletonList(jar), null).toHexString();
+        jar.setLastModified(jar.lastModified() - 60000);
+        assertEquals(before, new Fingerprint().addClasspathContents(Collections.singletonList(jar), null).toHexString());
+        write("lib.jar", "other contents");
+        assertNotEquals(before, new Fingerprint().addClasspathContents(Collections.singletonList(jar), null).toHexString());
+    }
+
+    private GroovyCompileConfiguration configuration(File... sources) {
+        Set<File> sourceSet = new LinkedHashSet<>(Arrays.asList(sources));
+        return new GroovyCompileConfiguration(sourceSet, Collections.emptyList(), new File(tmpDir.getRoot(), "classes"));
+    }
+
+    private static String fingerprint(GroovyCompileConfiguration configuration) throws Exception {
+        return new Fingerprint()
+                .addContents(configuration.getSources())
+                .addClasspath(configuration.getClasspath(), configuration.getCompileOutputDirectory())
+                .addFields(configuration, "sources", "classpath")
+                .toHexString();
+    }
+
+    private File write(String name, String contents) throws Exception {
+        File file = new File(tmpDir.getRoot(), name);
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.codehaus.gmavenplus.util;
+
+import groovy.lang.GroovyShell;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the ForkProtocol class.
+ *
+ * @author Keegan Witt
+ */
+public class ForkProtocolTest {
+
+    @Test
+    public void testRequestRoundTrip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.singleton(new File("Foo.groovy")), Collections.emptyList(), new File("target"));
+        ForkProtocol.writeRequest(new DataOutputStream(bytes), configuration, true);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        ForkProtocol.Request request = ForkProtocol.readRequest(in);
+        GroovyCompileConfiguration read = (GroovyCompileConfiguration) ForkProtocol.deserialize(request.getConfiguration());
+        assertEquals(configuration.getSources(), read.getSources());
+        assertTrue(request.isDebugEnabled());
+        assertNull(ForkProtocol.readRequest(in));
+    }
+
+    @Test
+    public void testReplyIsLoggedAsItArrives() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ForkProtocol.writeHeader(out);
+        Log frameLog = new ForkProtocol.FrameLog(out, true);
+        frameLog.debug("Compiling.");
+        frameLog.warn("Deprecated.");
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("classes", 3L);
+        metrics.put("phase.parsing.nanos", 1000L);
+        ForkProtocol.writeMetrics(out, metrics);
+        ForkProtocol.writeResult(out, null);
+
+        Log log = mock(Log.class);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        ForkProtocol.readHeader(in);
+        ForkProtocol.Reply reply = ForkProtocol.readReply(in, log);
+
+        verify(log).debug("Compiling.");
+        verify(log).warn("Deprecated.");
+        assertEquals(metrics, reply.getMetrics());
+        assertNull(reply.getFailure());
+    }
+
+    @Test
+    public void testDebugIsOnlySentWhenEnabled() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Log frameLog = new ForkProtocol.FrameLog(out, false);
+        frameLog.debug("Compiling.");
+        frameLog.info("Compiled.");
+        ForkProtocol.writeResult(out, null);
+
+        Log log = mock(Log.class);
+        ForkProtocol.readReply(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), log);
+
+        assertFalse(frameLog.isDebugEnabled());
+        verify(log, never()).debug("Compiling.");
+        verify(log).info("Compiled.");
+    }
+
+    @Test
+    public void testCompilationErrorsAreDiagnostics() throws Exception {
+        Throwable failure = null;
+        try {
+            new GroovyShell().parse("class Broken {", "Broken.groovy");
+        } catch (Exception e) {
+            failure = new RuntimeException(e);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        assertEquals(1, ForkProtocol.writeDiagnostics(out, failure));
+        ForkProtocol.writeResult(out, "Compilation failed.");
+
+        Log log = mock(Log.class);
+        ForkProtocol.Reply reply = ForkProtocol.readReply(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), log);
+
+        ForkProtocol.Diagnostic diagnostic = reply.getDiagnostics().get(0);
+        assertEquals(ForkProtocol.ERROR, diagnostic.getSeverity());
+        assertEquals("Broken.groovy", diagnostic.getFile());
+        assertEquals(1, diagnostic.getLine());
+        verify(log).error(startsWith("Broken.groovy:[1,"));
+        assertEquals("Compilation failed.", reply.getFailure());
+    }
+
+    @Test
+    public void testOtherOutputIsRejected() {
+        try {
+            ForkProtocol.readHeader(new DataInputStream(new ByteArrayInputStream("Picked up JAVA_TOOL_OPTIONS".getBytes(StandardCharsets.UTF_8))));
+            fail("Expected an IOException.");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+}
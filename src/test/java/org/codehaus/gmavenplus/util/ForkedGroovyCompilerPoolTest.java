@@ -0,0 +1,97 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.codehaus.gmavenplus.model.IncludeClasspath;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the ForkedGroovyCompilerPool class.
+ *
+ * @author Keegan Witt
+ */
+public class ForkedGroovyCompilerPoolTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ForkedGroovyCompilerPool pool;
+    private String java;
+    private String classpath;
+
+    @Before
+    public void setup() {
+        pool = new ForkedGroovyCompilerPool();
+        java = new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+        classpath = System.getProperty("java.class.path");
+    }
+
+    @After
+    public void teardown() {
+        pool.close();
+    }
+
+    @Test
+    public void testLaterExecutionsReuseFork() throws Exception {
+        Log log = mock(Log.class);
+
+        pool.execute(emptyConfiguration(), java, classpath, null, log);
+        pool.execute(emptyConfiguration(), java, classpath, null, log);
+
+        verify(log, times(2)).info("No sources specified for compilation. Skipping.");
+        verify(log, times(1)).info(startsWith("Starting reusable Groovy compiler fork"));
+        verify(log).debug("Reusing Groovy compiler fork.");
+    }
+
+    @Test
+    public void testFailureIsReportedAndForkIsReused() throws Exception {
+        Log log = mock(Log.class);
+        File source = tmpDir.newFile("Broken.groovy");
+        Files.write(source.toPath(), "class Broken {".getBytes(StandardCharsets.UTF_8));
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.singleton(source), Collections.emptyList(), tmpDir.newFolder());
+        configuration.setIncludeClasspath(IncludeClasspath.PLUGIN_ONLY);
+        configuration.setTargetBytecode("11");
+
+        try {
+            pool.execute(configuration, java, classpath, null, log);
+            fail("Expected an InvocationTargetException.");
+        } catch (InvocationTargetException e) {
+            // expected
+        }
+        verify(log).error(startsWith(source.getAbsolutePath() + ":[1,"));
+
+        pool.execute(emptyConfiguration(), java, classpath, null, log);
+        verify(log, times(1)).info(startsWith("Starting reusable Groovy compiler fork"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testClosedPoolStartsNoForks() throws Exception {
+        pool.close();
+        pool.execute(emptyConfiguration(), java, classpath, null, mock(Log.class));
+    }
+
+    private GroovyCompileConfiguration emptyConfiguration() {
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.<File>emptySet(), Collections.emptyList(), tmpDir.getRoot());
+        configuration.setIncludeClasspath(IncludeClasspath.PLUGIN_ONLY);
+        return configuration;
+    }
+
+}
@@ -0,0 +1,76 @@
+package org.codehaus.gmavenplus.util;
+
+import groovy.lang.GroovyObject;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.codehaus.gmavenplus.model.IncludeClasspath;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the ForkedGroovyCompiler class.
+ *
+ * @author Keegan Witt
+ */
+public class ForkedGroovyCompilerTest {
+
+    private static final String CONFIGURATION_CLASS_PROPERTY = ForkedGroovyCompilerTest.class.getName() + ".configurationClass";
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+
+    @Before
+    public void setup() {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+        System.getProperties().remove(CONFIGURATION_CLASS_PROPERTY);
+    }
+
+    @Test
+    public void testLaterRequestsReuseLoadedGroovy() throws Exception {
+        File groovyJar = new File(GroovyObject.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        File source = tmpDir.newFile("A.groovy");
+        Files.write(source.toPath(), "class A {}".getBytes(StandardCharsets.UTF_8));
+        // records the CompilerConfiguration class the request's Groovy has
+        File configScript = tmpDir.newFile("config.groovy");
+        Files.write(configScript.toPath(), ("System.properties.put('" + CONFIGURATION_CLASS_PROPERTY + "', configuration.getClass())").getBytes(StandardCharsets.UTF_8));
+
+        ForkedGroovyCompiler.execute(configuration(groovyJar, source, configScript), mock(Log.class));
+        Object firstClass = System.getProperties().get(CONFIGURATION_CLASS_PROPERTY);
+        ForkedGroovyCompiler.execute(configuration(groovyJar, source, configScript), mock(Log.class));
+        Object secondClass = System.getProperties().get(CONFIGURATION_CLASS_PROPERTY);
+
+        assertNotNull(firstClass);
+        assertNotSame(GroovyObject.class.getClassLoader(), ((Class<?>) firstClass).getClassLoader());
+        assertSame(firstClass, secondClass);
+    }
+
+    private GroovyCompileConfiguration configuration(final File groovyJar, final File source, final File configScript) throws Exception {
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.singleton(source), Collections.singletonList(groovyJar.getAbsolutePath()), tmpDir.newFolder());
+        configuration.setIncludeClasspath(IncludeClasspath.PROJECT_ONLY);
+        configuration.setTargetBytecode("11");
+        configuration.setConfigScript(configScript);
+        return configuration;
+    }
+
+}
@@ -0,0 +1,80 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the GlobalTransformProfiler class.
+ *
+ * @author Keegan Witt
+ */
+public class GlobalTransformProfilerTest {
+
+    private static final String GRAB_TRANSFORMATION = "groovy.grape.GrabAnnotationTransformation";
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+
+    @Before
+    public void setup() {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testCallsAreAddedUp() {
+        GlobalTransformProfiler profiler = new GlobalTransformProfiler(mock(Log.class));
+        profiler.record("com.example.Transformation", 10);
+        profiler.record("com.example.Transformation", 20);
+
+        assertEquals(Long.valueOf(30), profiler.getTransformNanos().get("com.example.Transformation"));
+    }
+
+    @Test
+    public void testGlobalTransformationsOfCompilationAreTimed() throws Exception {
+        File a = tmpDir.newFile("A.groovy");
+        Files.write(a.toPath(), "class A {}".getBytes(StandardCharsets.UTF_8));
+        File b = tmpDir.newFile("B.groovy");
+        Files.write(b.toPath(), "class B {}".getBytes(StandardCharsets.UTF_8));
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(new TreeSet<>(Arrays.asList(a, b)), emptyList(), tmpDir.newFolder("classes"));
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setProfile(true);
+        Log log = mock(Log.class);
+        GroovyCompiler compiler = new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), log);
+
+        compiler.compile(configuration);
+
+        verify(log).info(contains(GRAB_TRANSFORMATION));
+        Map<String, Long> metrics = compiler.getMetrics();
+        assertTrue(metrics.get("transform." + GRAB_TRANSFORMATION + ".nanos") > 0);
+        assertTrue(new File(configuration.getCompileOutputDirectory(), "A.class").isFile());
+    }
+
+}
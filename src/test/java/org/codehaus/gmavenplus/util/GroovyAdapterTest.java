@@ -0,0 +1,72 @@
+package org.codehaus.gmavenplus.util;
+
+import groovy.lang.GroovyClassLoader;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.internal.Version;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.tools.javac.JavaStubCompilationUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the GroovyAdapter class.
+ *
+ * @author Keegan Witt
+ */
+public class GroovyAdapterTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testAdapterByLine() {
+        assertSame(GroovyAdapter.of(new Version(2, 4, 0)), GroovyAdapter.of(new Version(3, 0, 9)));
+        assertNotSame(GroovyAdapter.of(new Version(3, 0, 9)), GroovyAdapter.of(new Version(4, 0, 0)));
+        assertNotSame(GroovyAdapter.of(new Version(1, 8, 6)), GroovyAdapter.of(new Version(2, 4, 0)));
+    }
+
+    @Test
+    public void testAdaptersAreShared() {
+        assertSame(GroovyAdapter.of(Version.parseFromString("4.0.27")), GroovyAdapter.of(new Version(4, 0, 27)));
+    }
+
+    @Test
+    public void testOldVersionHasNoLinks() throws Exception {
+        assertNull(GroovyAdapter.of(new Version(1, 5, 0)).getLinkArgumentClass(mock(ClassWrangler.class)));
+    }
+
+    @Test
+    public void testNewCompilationUnit() throws Exception {
+        CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
+        GroovyClassLoader groovyClassLoader = new GroovyClassLoader(getClass().getClassLoader(), compilerConfiguration);
+        GroovyClassLoader transformLoader = new GroovyClassLoader(getClass().getClassLoader());
+
+        Object compilationUnit = GroovyAdapter.of(new Version(5, 0, 6)).newCompilationUnit(CompilerConfiguration.class, CompilationUnit.class, GroovyClassLoader.class, compilerConfiguration, groovyClassLoader, transformLoader);
+
+        assertSame(transformLoader, ((CompilationUnit) compilationUnit).getTransformLoader());
+    }
+
+    @Test
+    public void testAddStubSourcesSetsScriptExtensions() throws Exception {
+        File source = tmpDir.newFile("Script.gvy");
+        CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
+        JavaStubCompilationUnit javaStubCompilationUnit = new JavaStubCompilationUnit(compilerConfiguration, new GroovyClassLoader(getClass().getClassLoader(), compilerConfiguration), tmpDir.newFolder("stubs"));
+
+        GroovyAdapter.of(new Version(5, 0, 6)).addStubSources(CompilerConfiguration.class, JavaStubCompilationUnit.class, compilerConfiguration, javaStubCompilationUnit, Collections.singleton(source), mock(Log.class));
+
+        assertEquals(Collections.singleton("gvy"), compilerConfiguration.getScriptExtensions());
+    }
+
+}
@@ -0,0 +1,50 @@
+package org.codehaus.gmavenplus.util;
+
+import org.codehaus.gmavenplus.model.internal.Version;
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Unit tests for the GroovyCapabilities class.
+ *
+ * @author Keegan Witt
+ */
+public class GroovyCapabilitiesTest {
+
+    @Test
+    public void testOldVersionSupportsNothing() {
+        assertTrue(GroovyCapabilities.of(new Version(1, 5, 0), false).getFeatures().isEmpty());
+    }
+
+    @Test
+    public void testFeaturesByVersion() {
+        GroovyCapabilities groovy2 = GroovyCapabilities.of(new Version(2, 4, 0), true);
+        assertEquals(EnumSet.of(GroovyCapabilities.Feature.STUB_GENERATION, GroovyCapabilities.Feature.SETTING_EXTENSIONS, GroovyCapabilities.Feature.CONFIG_SCRIPT, GroovyCapabilities.Feature.INVOKE_DYNAMIC, GroovyCapabilities.Feature.INVOKE_DYNAMIC_JAR), groovy2.getFeatures());
+        assertFalse(GroovyCapabilities.of(new Version(1, 9, 0, "beta-2"), false).supports(GroovyCapabilities.Feature.SETTING_EXTENSIONS));
+        assertFalse(GroovyCapabilities.of(new Version(2, 6, 0, "alpha-2"), false).supports(GroovyCapabilities.Feature.PREVIEW_FEATURES));
+        assertTrue(GroovyCapabilities.of(new Version(2, 5, 7), false).supports(GroovyCapabilities.Feature.PREVIEW_FEATURES));
+        assertFalse(GroovyCapabilities.of(new Version(3, 0, 4), false).supports(GroovyCapabilities.Feature.PARALLEL_PARSING));
+        GroovyCapabilities groovy4 = GroovyCapabilities.of(new Version(4, 0, 0), false);
+        assertTrue(groovy4.supports(GroovyCapabilities.Feature.INVOKE_DYNAMIC_BY_DEFAULT));
+        assertTrue(groovy4.supports(GroovyCapabilities.Feature.PARALLEL_PARSING_BY_DEFAULT));
+        assertFalse(groovy4.supports(GroovyCapabilities.Feature.INVOKE_DYNAMIC_JAR));
+    }
+
+    @Test
+    public void testProfilesAreShared() {
+        assertSame(GroovyCapabilities.of(Version.parseFromString("3.0.9"), false), GroovyCapabilities.of(new Version(3, 0, 9), false));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFeaturesAreImmutable() {
+        GroovyCapabilities.of(new Version(3, 0, 9), false).getFeatures().add(GroovyCapabilities.Feature.PARAMETERS);
+    }
+
+}
@@ -0,0 +1,144 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.codehaus.gmavenplus.model.IncludeClasspath;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the GroovyCompilerDaemon and GroovyCompilerDaemonClient classes.
+ *
+ * @author Keegan Witt
+ */
+public class GroovyCompilerDaemonTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+    private GroovyCompilerDaemon daemon;
+    private Thread daemonThread;
+    private File registryFile;
+
+    @Before
+    public void setup() throws Exception {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+        String key = new Fingerprint().add("java").add("classpath").toHexString().substring(0, 16);
+        registryFile = new File(tmpDir.getRoot(), key + ".properties");
+        daemon = new GroovyCompilerDaemon(registryFile, 60000L, 2);
+        startDaemon();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        daemon.shutdown();
+        daemonThread.join(10000);
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testClientReplaysDaemonLog() throws Exception {
+        Log log = mock(Log.class);
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.<File>emptySet(), Collections.emptyList(), tmpDir.getRoot());
+        configuration.setIncludeClasspath(IncludeClasspath.PLUGIN_ONLY);
+
+        new GroovyCompilerDaemonClient(tmpDir.getRoot(), log).execute(configuration, "java", "classpath", 60000L);
+
+        verify(log).info("No sources specified for compilation. Skipping.");
+    }
+
+    @Test
+    public void testDebugIsOnlyRecordedWhenClientLogsIt() {
+        GroovyCompilerDaemon.RecordingLog quietLog = new GroovyCompilerDaemon.RecordingLog(false);
+        quietLog.debug("Compiling.");
+        quietLog.info("Compiled.");
+        GroovyCompilerDaemon.RecordingLog debugLog = new GroovyCompilerDaemon.RecordingLog(true);
+        debugLog.debug("Compiling.");
+
+        assertFalse(quietLog.isDebugEnabled());
+        assertEquals(Collections.singletonList("INFO|Compiled."), quietLog.getEntries());
+        assertEquals(Collections.singletonList("DEBUG|Compiling."), debugLog.getEntries());
+    }
+
+    @Test
+    public void testShutdownWaitsForRequestsInProgress() throws Exception {
+        daemon.shutdown();
+        daemonThread.join(10000);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean handled = new AtomicBoolean();
+        daemon = new GroovyCompilerDaemon(registryFile, 60000L, 2) {
+            @Override
+            protected void handle(Socket socket) {
+                started.countDown();
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.handle(socket);
+                handled.set(true);
+            }
+        };
+        startDaemon();
+        Log log = mock(Log.class);
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.<File>emptySet(), Collections.emptyList(), tmpDir.getRoot());
+        configuration.setIncludeClasspath(IncludeClasspath.PLUGIN_ONLY);
+        Thread client = new Thread(() -> {
+            try {
+                new GroovyCompilerDaemonClient(tmpDir.getRoot(), log).execute(configuration, "java", "classpath", 60000L);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        client.start();
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        daemon.shutdown();
+        daemonThread.join(10000);
+        assertTrue(handled.get());
+        client.join(10000);
+        verify(log).info("No sources specified for compilation. Skipping.");
+    }
+
+    @Test
+    public void testShutdownRemovesRegistration() throws Exception {
+        assertTrue(registryFile.isFile());
+        daemon.shutdown();
+        daemonThread.join(10000);
+        assertFalse(registryFile.isFile());
+    }
+
+    private void startDaemon() throws Exception {
+        daemonThread = new Thread(() -> {
+            try {
+                daemon.run();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        daemonThread.start();
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!registryFile.isFile() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+}
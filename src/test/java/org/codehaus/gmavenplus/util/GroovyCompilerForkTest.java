@@ -0,0 +1,47 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.codehaus.gmavenplus.model.IncludeClasspath;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the GroovyCompilerFork class.
+ *
+ * @author Keegan Witt
+ */
+public class GroovyCompilerForkTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testVmWarningsDontCorruptReplies() throws Exception {
+        Log log = mock(Log.class);
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(Collections.<File>emptySet(), Collections.emptyList(), tmpDir.getRoot());
+        configuration.setIncludeClasspath(IncludeClasspath.PLUGIN_ONLY);
+
+        // an unavailable large page size makes the JVM log a warning at startup (to standard error only once the Java
+        // version is known, which it is with class data sharing)
+        GroovyCompilerFork fork = GroovyCompilerFork.start(java, System.getProperty("java.class.path"), tmpDir.newFolder("cds"), Arrays.asList("-XX:+UseLargePages", "-XX:LargePageSizeInBytes=1g"), log);
+        try {
+            fork.execute(configuration, log);
+        } finally {
+            fork.stop();
+        }
+
+        verify(log).info("No sources specified for compilation. Skipping.");
+    }
+
+}
@@ -0,0 +1,126 @@
+package org.codehaus.gmavenplus.util;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the HttpBuildCacheBackend class.
+ *
+ * @author Keegan Witt
+ */
+public class HttpBuildCacheBackendTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private final Map<String, byte[]> entries = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private String url;
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/cache/", exchange -> {
+            String key = exchange.getRequestURI().getPath().substring("/cache/".length());
+            if ("PUT".equals(exchange.getRequestMethod())) {
+                entries.put(key, readAll(exchange.getRequestBody()));
+                exchange.sendResponseHeaders(201, -1);
+            } else if (entries.containsKey(key)) {
+                byte[] entry = entries.get(key);
+                exchange.sendResponseHeaders(200, entry.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(entry);
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+        url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/cache";
+    }
+
+    @After
+    public void teardown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testMiss() throws Exception {
+        assertFalse(new HttpBuildCacheBackend(url).get("abcdef", tmpDir.newFile().toPath()));
+    }
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        Path source = tmpDir.newFile().toPath();
+        Files.write(source, new byte[]{1, 2, 3});
+        HttpBuildCacheBackend backend = new HttpBuildCacheBackend(url + "/");
+        backend.put("abcdef", source);
+        assertArrayEquals(new byte[]{1, 2, 3}, entries.get("abcdef"));
+
+        Path target = tmpDir.newFile().toPath();
+        assertTrue(backend.get("abcdef", target));
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(target));
+    }
+
+    @Test(expected = IOException.class)
+    public void testServerErrorFails() throws Exception {
+        server.createContext("/broken/", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        new HttpBuildCacheBackend(url.replace("/cache", "/broken")).get("abcdef", tmpDir.newFile().toPath());
+    }
+
+    @Test
+    public void testBuildCacheRoundTrip() throws Exception {
+        File classes = tmpDir.newFolder("classes");
+        File foo = new File(classes, "Foo.class");
+        Files.write(foo.toPath(), "foo".getBytes(StandardCharsets.UTF_8));
+        BuildCache cache = new BuildCache(new HttpBuildCacheBackend(url), mock(Log.class));
+        cache.store("abcdef", classes, Collections.singletonList(foo));
+
+        File restoredClasses = tmpDir.newFolder("restored");
+        List<File> restored = cache.restore("abcdef", restoredClasses);
+        assertEquals(Collections.singletonList(new File(restoredClasses, "Foo.class").getAbsoluteFile()), restored);
+        assertEquals("foo", new String(Files.readAllBytes(restored.get(0).toPath()), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+}
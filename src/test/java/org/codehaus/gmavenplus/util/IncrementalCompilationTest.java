@@ -0,0 +1,131 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the IncrementalCompilation class.
+ *
+ * @author Keegan Witt
+ */
+public class IncrementalCompilationTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+    private File sourceDirectory;
+    private File outputDirectory;
+    private File stateDirectory;
+
+    @Before
+    public void setup() throws Exception {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+        sourceDirectory = tmpDir.newFolder("src");
+        outputDirectory = tmpDir.newFolder("classes");
+        stateDirectory = new File(tmpDir.getRoot(), "state");
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testFirstCompilationCompilesEverything() throws Exception {
+        Set<File> sources = sources(write("A.groovy", "class A {}"), write("B.groovy", "class B {}"));
+        assertEquals(sources, new IncrementalCompilation(stateDirectory, outputDirectory, "settings", mock(Log.class)).prepare(sources));
+    }
+
+    @Test
+    public void testRecompilesChangedSourceAndDependents() throws Exception {
+        File a = write("A.groovy", "class A { int value() { 1 } }");
+        File b = write("B.groovy", "class B { A a }");
+        File c = write("C.groovy", "class C { B b }");
+        File d = write("D.groovy", "class D {}");
+        compile(sources(a, b, c, d));
+
+        write("A.groovy", "class A { int value() { 2 } }");
+        Set<File> toCompile = new IncrementalCompilation(stateDirectory, outputDirectory, settings(), mock(Log.class)).prepare(sources(a, b, c, d));
+
+        assertEquals(sources(a, b, c), new TreeSet<>(toCompile));
+        assertFalse(new File(outputDirectory, "A.class").exists());
+        assertTrue(new File(outputDirectory, "D.class").exists());
+    }
+
+    @Test
+    public void testRemovedSourceClassesArePruned() throws Exception {
+        File a = write("A.groovy", "class A { def c = { 1 } }");
+        File b = write("B.groovy", "class B {}");
+        compile(sources(a, b));
+        assertTrue(new File(outputDirectory, "A.class").exists());
+
+        Files.delete(a.toPath());
+        compile(sources(b));
+
+        assertFalse(new File(outputDirectory, "A.class").exists());
+        assertEquals(Collections.singletonList("B.class"), Arrays.asList(outputDirectory.list()));
+    }
+
+    @Test
+    public void testSettingsChangeRecompilesEverything() throws Exception {
+        File a = write("A.groovy", "class A {}");
+        File b = write("B.groovy", "class B {}");
+        compile(sources(a, b));
+
+        Set<File> toCompile = new IncrementalCompilation(stateDirectory, outputDirectory, "other settings", mock(Log.class)).prepare(sources(a, b));
+
+        assertEquals(sources(a, b), new TreeSet<>(toCompile));
+    }
+
+    private void compile(Set<File> sources) throws Exception {
+        GroovyCompileConfiguration configuration = configuration(sources);
+        ClassWrangler classWrangler = new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class));
+        new GroovyCompiler(classWrangler, mock(Log.class)).compile(configuration);
+    }
+
+    private String settings() throws Exception {
+        ClassWrangler classWrangler = new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class));
+        return new GroovyCompiler(classWrangler, mock(Log.class)).incrementalSettingsFingerprint(configuration(Collections.<File>emptySet()));
+    }
+
+    private GroovyCompileConfiguration configuration(Set<File> sources) {
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(sources, emptyList(), outputDirectory);
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setStateDirectory(stateDirectory);
+        configuration.setIncremental(true);
+        return configuration;
+    }
+
+    private static Set<File> sources(File... files) {
+        return new TreeSet<>(Arrays.asList(files));
+    }
+
+    private File write(String name, String contents) throws Exception {
+        File file = new File(sourceDirectory, name);
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+}
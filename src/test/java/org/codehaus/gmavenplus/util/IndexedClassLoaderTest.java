@@ -0,0 +1,124 @@
+package org.codehaus.gmavenplus.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+
+/**
+ * Unit tests for the IndexedClassLoader class.
+ *
+ * @author Keegan Witt
+ */
+public class IndexedClassLoaderTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private File directory;
+    private IndexedClassLoader classLoader;
+
+    @Before
+    public void setup() throws Exception {
+        directory = tmpDir.newFolder("classes");
+        URL[] urls = {jarOf(Test.class).toURI().toURL(), directory.toURI().toURL()};
+        classLoader = new IndexedClassLoader(urls, null);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        classLoader.close();
+    }
+
+    @Test
+    public void testClassesAreFound() throws Exception {
+        assertEquals(classLoader, classLoader.loadClass("org.junit.Test").getClassLoader());
+        assertEquals(1, classLoader.getFoundCount());
+    }
+
+    @Test
+    public void testUnknownPackagesSkipJars() {
+        assertNotFound("groovy.lang.Missing");
+        assertEquals(1, classLoader.getSkippedSearchCount());
+        assertEquals(1, classLoader.getNotFoundCount());
+    }
+
+    @Test
+    public void testFailedLookupsAreCached() {
+        assertNotFound("org.junit.Missing");
+        assertNotFound("org.junit.Missing");
+        assertEquals(2, classLoader.getNotFoundCount());
+        assertEquals(1, classLoader.getCachedNotFoundCount());
+    }
+
+    @Test
+    public void testPackagesAddedToDirectoriesAreSearchedAgain() {
+        assertNotFound("com.example.Missing");
+        assertTrue(new File(directory, "com/example").mkdirs());
+        assertNotFound("com.example.Missing");
+        assertEquals(0, classLoader.getCachedNotFoundCount());
+        assertEquals(1, classLoader.getSkippedSearchCount());
+    }
+
+    @Test
+    public void testServiceDescriptorsAreOnlyLookedUpInJarsThatHaveThem() throws Exception {
+        String descriptor = "META-INF/services/org.codehaus.groovy.transform.ASTTransformation";
+        File jar = tmpDir.newFile("transforms.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            out.putNextEntry(new JarEntry(descriptor));
+            out.write("com.example.Transform\n".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        File directoryDescriptor = new File(directory, descriptor);
+        assertTrue(directoryDescriptor.getParentFile().mkdirs());
+        Files.write(directoryDescriptor.toPath(), "com.example.OtherTransform\n".getBytes(StandardCharsets.UTF_8));
+        URL[] urls = {jarOf(Test.class).toURI().toURL(), jar.toURI().toURL(), directory.toURI().toURL()};
+
+        List<String> expected = new ArrayList<>();
+        try (URLClassLoader urlClassLoader = new URLClassLoader(urls, null)) {
+            for (URL url : Collections.list(urlClassLoader.findResources(descriptor))) {
+                expected.add(url.toExternalForm());
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        try (IndexedClassLoader indexedClassLoader = new IndexedClassLoader(urls, null)) {
+            for (URL url : Collections.list(indexedClassLoader.findResources(descriptor))) {
+                actual.add(url.toExternalForm());
+            }
+            assertEquals(1, indexedClassLoader.getSkippedResourceSearchCount());
+        }
+        assertEquals(2, actual.size());
+        assertEquals(expected, actual);
+    }
+
+    private void assertNotFound(String className) {
+        try {
+            classLoader.loadClass(className);
+            fail("Expected a ClassNotFoundException.");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+    }
+
+    private static File jarOf(Class<?> clazz) throws Exception {
+        return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+}
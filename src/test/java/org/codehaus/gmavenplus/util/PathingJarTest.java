@@ -0,0 +1,68 @@
+package org.codehaus.gmavenplus.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+
+/**
+ * Unit tests for the PathingJar class.
+ *
+ * @author Keegan Witt
+ */
+public class PathingJarTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testManifestListsClasspath() throws Exception {
+        File jar = tmpDir.newFile("some lib.jar");
+        File directory = tmpDir.newFolder("classes");
+
+        File pathingJar = PathingJar.create(new File(tmpDir.getRoot(), "cache"), Arrays.asList(jar, directory));
+
+        try (JarFile jarFile = new JarFile(pathingJar)) {
+            assertEquals(jar.toURI() + " " + directory.toURI(), jarFile.getManifest().getMainAttributes().getValue(Attributes.Name.CLASS_PATH));
+        }
+    }
+
+    @Test
+    public void testJarIsReusedUntilClasspathChanges() throws Exception {
+        File jar = tmpDir.newFile("lib.jar");
+        File cache = new File(tmpDir.getRoot(), "cache");
+        File first = PathingJar.create(cache, Arrays.asList(jar));
+        assertEquals(first, PathingJar.create(cache, Arrays.asList(jar)));
+
+        Files.write(jar.toPath(), new byte[]{1});
+        assertNotEquals(first, PathingJar.create(cache, Arrays.asList(jar)));
+    }
+
+    @Test
+    public void testForkCanRunFromJar() throws Exception {
+        File pathingJar = PathingJar.create(tmpDir.newFolder("cache"), Arrays.asList(jarOf(Test.class), jarOf(org.hamcrest.Matcher.class)));
+        List<String> command = new ArrayList<>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath());
+        command.add("-cp");
+        command.add(pathingJar.getAbsolutePath());
+        command.add("org.junit.runner.JUnitCore");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(tmpDir.newFile()).start();
+        assertEquals(0, process.waitFor());
+    }
+
+    private static File jarOf(Class<?> clazz) throws Exception {
+        return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+}
@@ -2,7 +2,11 @@ package org.codehaus.gmavenplus.util;
 
 import org.junit.Test;
 
+import java.lang.reflect.Proxy;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 
 /**
@@ -25,6 +29,38 @@ public class ReflectionUtilsTest {
         assertEquals(expectedString, ReflectionUtils.getField(ReflectionUtils.findField(TestClass.class, "stringField", String.class), test2));
     }
 
+    @Test
+    public void testFoundMembersAreCached() {
+        assertSame(ReflectionUtils.findMethod(TestClass.class, "setStringField", String.class), ReflectionUtils.findMethod(TestClass.class, "setStringField", String.class));
+        assertSame(ReflectionUtils.findMethod(TestClass.class, "getStringField"), ReflectionUtils.findMethod(TestClass.class, "getStringField"));
+        assertSame(ReflectionUtils.findConstructor(TestClass.class, String.class), ReflectionUtils.findConstructor(TestClass.class, String.class));
+    }
+
+    @Test
+    public void testCachedSignaturesAreDistinct() {
+        assertEquals(1, ReflectionUtils.findConstructor(TestClass.class, String.class).getParameterCount());
+        assertEquals(0, ReflectionUtils.findConstructor(TestClass.class).getParameterCount());
+        assertNotSame(ReflectionUtils.findConstructor(TestClass.class), ReflectionUtils.findConstructor(TestClass.class, String.class));
+        assertEquals("setStringField", ReflectionUtils.findMethod(TestClass.class, "setStringField", (Class<?>[]) null).getName());
+        assertEquals(ReflectionUtils.findMethod(TestClass.class, "setStringField", (Class<?>[]) null), ReflectionUtils.findMethod(TestClass.class, "setStringField", String.class));
+    }
+
+    @Test
+    public void testInvokeDefaultMethodOnProxy() {
+        Greeter greeter = (Greeter) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Greeter.class}, (proxy, method, args) -> {
+            if (method.isDefault()) {
+                return ReflectionUtils.invokeDefaultMethod(proxy, method, args);
+            }
+            return "proxy";
+        });
+        assertEquals("Hello proxy", greeter.greet());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvokeDefaultMethodNotDefault() throws Throwable {
+        ReflectionUtils.invokeDefaultMethod(new Object(), Greeter.class.getMethod("name"));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testFindConstructorClassNull() {
         ReflectionUtils.findConstructor(null);
@@ -110,6 +146,14 @@ public class ReflectionUtilsTest {
         ReflectionUtils.invokeConstructor(ReflectionUtils.findConstructor(ReflectionUtils.class));
     }
 
+    public interface Greeter {
+        String name();
+
+        default String greet() {
+            return "Hello " + name();
+        }
+    }
+
     public static class TestClass {
         public static final String HELLO_WORLD = "Hello world!";
         public String stringField;
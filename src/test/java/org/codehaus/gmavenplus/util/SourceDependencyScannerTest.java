@@ -0,0 +1,219 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the SourceDependencyScanner class.
+ *
+ * @author Keegan Witt
+ */
+public class SourceDependencyScannerTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+    private File sourceDirectory;
+    private File outputDirectory;
+
+    @Before
+    public void setup() throws Exception {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+        sourceDirectory = tmpDir.newFolder("src");
+        outputDirectory = tmpDir.newFolder("classes");
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testComponentsFollowReferencesTransitively() throws Exception {
+        File a = write("A.groovy", "class A { B b }");
+        File b = write("B.groovy", "class B { C c }");
+        File c = write("C.groovy", "class C {}");
+        File d = write("D.groovy", "class D {}");
+        File script = write("script.groovy", "new E().run()");
+        File e = write("E.groovy", "class E { void run() {} }\ninterface F {}");
+        File g = write("G.groovy", "class G implements F {}");
+
+        Set<Set<File>> components = new HashSet<>(new SourceDependencyScanner(StandardCharsets.UTF_8).components(Arrays.asList(a, b, c, d, script, e, g)));
+
+        assertEquals(new HashSet<>(Arrays.asList(sources(a, b, c), sources(d), sources(script, e, g))), components);
+    }
+
+    @Test
+    public void testDependencyOrderPutsDependenciesFirst() throws Exception {
+        File a = write("A.groovy", "class A { B b }");
+        File b = write("B.groovy", "class B { C c }");
+        File c = write("C.groovy", "class C {}");
+        File d = write("D.groovy", "class D { E e; C c }");
+        File e = write("E.groovy", "class E { D d }");
+
+        List<Set<File>> groups = new SourceDependencyScanner(StandardCharsets.UTF_8).dependencyOrder(Arrays.asList(a, b, c, d, e));
+
+        assertEquals(4, groups.size());
+        assertTrue(groups.indexOf(sources(c)) < groups.indexOf(sources(b)));
+        assertTrue(groups.indexOf(sources(b)) < groups.indexOf(sources(a)));
+        assertTrue(groups.indexOf(sources(c)) < groups.indexOf(sources(d, e)));
+    }
+
+    @Test
+    public void testGroupBalancesSize() throws Exception {
+        File big = write("Big.groovy", "class Big { String padding = '" + new String(new char[1000]).replace('\0', 'x') + "' }");
+        File small1 = write("Small1.groovy", "class Small1 {}");
+        File small2 = write("Small2.groovy", "class Small2 {}");
+        File small3 = write("Small3.groovy", "class Small3 {}");
+        List<Set<File>> components = Arrays.asList(sources(small1), sources(big), sources(small2), sources(small3));
+
+        List<Set<File>> groups = SourceDependencyScanner.group(components, 2);
+
+        assertEquals(new HashSet<>(Arrays.asList(sources(big), sources(small1, small2, small3))), new HashSet<>(groups));
+    }
+
+    @Test
+    public void testGroupNeverReturnsMoreGroupsThanComponents() {
+        List<Set<File>> components = Collections.singletonList(sources(new File("A.groovy")));
+        assertEquals(components, SourceDependencyScanner.group(components, 8));
+    }
+
+    @Test
+    public void testParallelCompilationCompilesAllPartitions() throws Exception {
+        List<File> sources = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            sources.add(write("A" + i + ".groovy", "class A" + i + " { B" + i + " b }"));
+            sources.add(write("B" + i + ".groovy", "class B" + i + " { def c = { 1 } }"));
+        }
+
+        compile(new TreeSet<>(sources));
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(new File(outputDirectory, "A" + i + ".class").isFile());
+            assertTrue(new File(outputDirectory, "B" + i + ".class").isFile());
+        }
+    }
+
+    @Test
+    public void testParallelCompilationFallsBackWhenPartitionFails() throws Exception {
+        final File a = write("A.groovy", "class A {}");
+        final File b = write("B.groovy", "class B { A a }");
+        GroovyCompiler compiler = new TestGroovyCompiler() {
+            @Override
+            protected List<Set<File>> partitionSources(GroovyCompileConfiguration configuration, Set<File> sources) {
+                // B can't be compiled without A
+                return Arrays.asList(sources(a), sources(b));
+            }
+        };
+
+        compiler.compile(configuration(sources(a, b)));
+
+        assertTrue(new File(outputDirectory, "A.class").isFile());
+        assertTrue(new File(outputDirectory, "B.class").isFile());
+    }
+
+    @Test
+    public void testParallelCompilationReportsErrors() throws Exception {
+        File a = write("A.groovy", "class A { Missing m }");
+        File b = write("B.groovy", "class B {}");
+
+        try {
+            compile(sources(a, b));
+            fail("Expected compilation to fail.");
+        } catch (InvocationTargetException e) {
+            assertTrue(String.valueOf(e.getCause().getMessage()).contains("Missing"));
+        }
+    }
+
+    @Test
+    public void testBatchedCompilationCompilesAllBatches() throws Exception {
+        // large enough that each batch of a 1 MB budget starts with a single source
+        String padding = "// " + new String(new char[6000]).replace('\0', 'x') + "\n";
+        List<File> sources = new ArrayList<>();
+        sources.add(write("A.groovy", padding + "class A { B b; def c = { 1 } }"));
+        sources.add(write("B.groovy", padding + "class B { C c }"));
+        sources.add(write("C.groovy", padding + "class C {}"));
+        sources.add(write("D.groovy", padding + "class D { A a }"));
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(new TreeSet<>(sources), emptyList(), outputDirectory);
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setBatchHeapBudget(1);
+        Log log = mock(Log.class);
+
+        new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), log).compile(configuration);
+
+        for (String name : Arrays.asList("A", "B", "C", "D")) {
+            assertTrue(new File(outputDirectory, name + ".class").isFile());
+        }
+        ArgumentCaptor<CharSequence> messages = ArgumentCaptor.forClass(CharSequence.class);
+        verify(log, atLeastOnce()).info(messages.capture());
+        boolean batched = false;
+        for (CharSequence message : messages.getAllValues()) {
+            batched |= message.toString().matches("Compiled in [2-4] batches, peak heap usage \\d+ MB \\(budget 1 MB\\)\\.");
+        }
+        assertTrue(messages.getAllValues().toString(), batched);
+    }
+
+    private void compile(Set<File> sources) throws Exception {
+        new TestGroovyCompiler().compile(configuration(sources));
+    }
+
+    private GroovyCompileConfiguration configuration(Set<File> sources) {
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(sources, emptyList(), outputDirectory);
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setParallelCompilation(true);
+        return configuration;
+    }
+
+    private static Set<File> sources(File... files) {
+        return new TreeSet<>(Arrays.asList(files));
+    }
+
+    private File write(String name, String contents) throws Exception {
+        File file = new File(sourceDirectory, name);
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private class TestGroovyCompiler extends GroovyCompiler {
+        private TestGroovyCompiler() throws Exception {
+            super(new ClassWrangler(emptyList(), SourceDependencyScannerTest.class.getClassLoader(), mock(Log.class)), mock(Log.class));
+        }
+
+        @Override
+        protected int getMaxPartitions() {
+            // compile in parallel even on machines with a single processor
+            return 4;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.codehaus.gmavenplus.util;
+
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.GroovyCompileConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+
+/**
+ * Unit tests for the SourceHotspotProfiler class.
+ *
+ * @author Keegan Witt
+ */
+public class SourceHotspotProfilerTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private ClassLoader originalContextClassLoader;
+
+    @Before
+    public void setup() {
+        originalContextClassLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @After
+    public void teardown() {
+        Thread.currentThread().setContextClassLoader(originalContextClassLoader);
+    }
+
+    @Test
+    public void testSlowestSourcesAreRankedFirst() {
+        SourceHotspotProfiler profiler = new SourceHotspotProfiler(mock(Log.class));
+        profiler.record("A.groovy", 0, 10, 100);
+        profiler.record("B.groovy", 1, 30, 100);
+        profiler.record("C.groovy", 2, 20, 100);
+        profiler.record("A.groovy", 3, 15, 100);
+
+        assertEquals(Arrays.asList("B.groovy", "A.groovy"), profiler.getSlowestSources(2));
+        assertEquals(Arrays.asList("B.groovy", "A.groovy", "C.groovy"), profiler.getSlowestSources(10));
+    }
+
+    @Test
+    public void testCompilationIsAttributedToSources() throws Exception {
+        File a = tmpDir.newFile("A.groovy");
+        Files.write(a.toPath(), "@groovy.transform.ToString class A { String name }".getBytes(StandardCharsets.UTF_8));
+        File b = tmpDir.newFile("B.groovy");
+        Files.write(b.toPath(), "class B {}".getBytes(StandardCharsets.UTF_8));
+        File reportFile = new File(tmpDir.getRoot(), "reports/hotspots.json");
+        GroovyCompileConfiguration configuration = new GroovyCompileConfiguration(new TreeSet<>(Arrays.asList(a, b)), emptyList(), tmpDir.newFolder("classes"));
+        configuration.setTargetBytecode("1.8");
+        configuration.setSkipBytecodeCheck(true);
+        configuration.setHotspots(5);
+        configuration.setHotspotReport(reportFile);
+        Log log = mock(Log.class);
+
+        new GroovyCompiler(new ClassWrangler(emptyList(), getClass().getClassLoader(), mock(Log.class)), log).compile(configuration);
+
+        verify(log).info(contains("Slowest sources to compile:"));
+        String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(report.contains(a.getAbsolutePath().replace("\\", "\\\\")));
+        assertTrue(report.contains(b.getAbsolutePath().replace("\\", "\\\\")));
+        assertTrue(report.contains("\"resolutionMillis\""));
+        assertTrue(new File(configuration.getCompileOutputDirectory(), "A.class").isFile());
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.codehaus.gmavenplus.util;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovyResourceLoader;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.gmavenplus.model.ClasspathSourceLookup;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+
+/**
+ * Unit tests for the SourceLookupFilter class.
+ *
+ * @author Keegan Witt
+ */
+public class SourceLookupFilterTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private GroovyClassLoader groovyClassLoader;
+
+    @Before
+    public void setup() throws Exception {
+        File sourceDirectory = tmpDir.newFolder();
+        new File(sourceDirectory, "Foo.groovy").createNewFile();
+        groovyClassLoader = new GroovyClassLoader();
+        groovyClassLoader.addClasspath(sourceDirectory.getAbsolutePath());
+    }
+
+    @Test
+    public void testCachedLookupsAreOnlyPerformedOnce() throws Exception {
+        SourceLookupFilter filter = new SourceLookupFilter(ClasspathSourceLookup.CACHED, mock(Log.class));
+        filter.attach(GroovyClassLoader.class, GroovyResourceLoader.class, groovyClassLoader);
+        GroovyResourceLoader resourceLoader = groovyClassLoader.getResourceLoader();
+
+        assertNotNull(resourceLoader.loadGroovySource("Foo"));
+        assertNotNull(resourceLoader.loadGroovySource("Foo"));
+        assertNull(resourceLoader.loadGroovySource("Bar"));
+        assertNull(resourceLoader.loadGroovySource("Bar"));
+        assertEquals(2, filter.getPerformedCount());
+        assertEquals(2, filter.getAvoidedCount());
+    }
+
+    @Test
+    public void testDisabledLookupsAreNeverPerformed() throws Exception {
+        SourceLookupFilter filter = new SourceLookupFilter(ClasspathSourceLookup.DISABLED, mock(Log.class));
+        filter.attach(GroovyClassLoader.class, GroovyResourceLoader.class, groovyClassLoader);
+
+        assertNull(groovyClassLoader.getResourceLoader().loadGroovySource("Foo"));
+        assertEquals(0, filter.getPerformedCount());
+        assertEquals(1, filter.getAvoidedCount());
+    }
+
+}